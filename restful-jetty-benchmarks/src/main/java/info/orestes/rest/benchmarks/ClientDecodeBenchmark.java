@@ -0,0 +1,96 @@
+package info.orestes.rest.benchmarks;
+
+import info.orestes.rest.client.EntityResponseListener;
+import info.orestes.rest.client.EntityResult;
+import info.orestes.rest.client.RestClient;
+import info.orestes.rest.client.RestRequest;
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.util.Module;
+import org.eclipse.jetty.client.HttpResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the client side decode path of the {@link EntityResponseListener}, i.e. buffering the received content
+ * chunks and converting them to the response entity, without any network IO
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientDecodeBenchmark {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    @Param({"64", "4096", "65536"})
+    public int size;
+
+    /**
+     * Whether the response declares its Content-Length, otherwise the listener must grow its buffer per chunk
+     */
+    @Param({"true", "false"})
+    public boolean contentLength;
+
+    private RestRequest request;
+    private HttpResponse response;
+    private ByteBuffer[] chunks;
+
+    @Setup
+    public void setUp() {
+        RestClient client = new RestClient("http://localhost", new ConverterService(new Module()));
+        request = client.newRequest("/");
+
+        response = new HttpResponse(request, Collections.emptyList());
+        response.status(200);
+        response.getHeaders().put(HttpHeader.CONTENT_TYPE, "text/plain; charset=utf-8");
+        if (contentLength) {
+            response.getHeaders().put(HttpHeader.CONTENT_LENGTH, String.valueOf(size));
+        }
+
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+
+        chunks = new ByteBuffer[(size + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int i = 0; i < chunks.length; ++i) {
+            int offset = i * CHUNK_SIZE;
+            chunks[i] = ByteBuffer.wrap(content, offset, Math.min(CHUNK_SIZE, size - offset)).slice();
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        EntityResponseListener<String> listener = new EntityResponseListener<String>(String.class) {
+            @Override
+            public void onComplete(EntityResult<String> result) {
+                blackhole.consume(result.getEntity());
+            }
+        };
+        listener.setRequest(request);
+
+        listener.onHeaders(response);
+        for (ByteBuffer chunk : chunks) {
+            listener.onContent(response, chunk.duplicate());
+        }
+        listener.onComplete(new Result(request, response));
+    }
+}
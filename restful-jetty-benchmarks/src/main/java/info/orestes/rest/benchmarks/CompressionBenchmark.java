@@ -0,0 +1,136 @@
+package info.orestes.rest.benchmarks;
+
+import info.orestes.rest.compression.ContentEncoding;
+import info.orestes.rest.compression.EncodingOutputStream;
+import org.eclipse.jetty.util.ByteArrayOutputStream2;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the CPU cost of the response compression with the bytes it saves. The <code>bytes</code> counters report
+ * the uncompressed and compressed bytes per operation, so the compression ratio can be read next to the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"GZIP", "DEFLATE"})
+    public ContentEncoding encoding;
+
+    @Param({"1024", "16384", "262144"})
+    public int size;
+
+    /**
+     * The size of the entities of the streamed benchmark, which are flushed one by one
+     */
+    @Param({"256"})
+    public int elementSize;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        //JSON like content with repeated keys and random values
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size + 64);
+        builder.append('[');
+        while (builder.length() < size) {
+            builder.append("{\"id\":").append(random.nextInt(100000))
+                .append(",\"name\":\"user").append(random.nextInt(1000))
+                .append("\",\"active\":").append(random.nextBoolean())
+                .append(",\"score\":").append(random.nextDouble()).append("},");
+        }
+        content = builder.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long raw;
+        public long encoded;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            raw = 0;
+            encoded = 0;
+        }
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream2 identity(Bytes bytes) throws IOException {
+        ByteArrayOutputStream2 out = new ByteArrayOutputStream2(content.length);
+        out.write(content);
+        count(bytes, out.getCount());
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream2 pooled(Bytes bytes) {
+        ByteArrayOutputStream2 out = encoding.encode(content, 0, content.length);
+        count(bytes, out.getCount());
+        return out;
+    }
+
+    /**
+     * Allocates a new deflater for each response, like a plain {@link GZIPOutputStream} does
+     */
+    @Benchmark
+    public ByteArrayOutputStream2 unpooled(Bytes bytes) throws IOException {
+        ByteArrayOutputStream2 out = new ByteArrayOutputStream2(content.length / 4 + 64);
+        Deflater deflater = encoding == ContentEncoding.GZIP ? null : new Deflater();
+        OutputStream encoder = deflater == null ? new GZIPOutputStream(out, 8 * 1024)
+            : new DeflaterOutputStream(out, deflater, 8 * 1024);
+        try {
+            encoder.write(content);
+        } finally {
+            encoder.close();
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+        count(bytes, out.getCount());
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream2 streamed(Bytes bytes) throws IOException {
+        ByteArrayOutputStream2 out = new ByteArrayOutputStream2(content.length / 4 + 64);
+        try (EncodingOutputStream encoder = new EncodingOutputStream(out, encoding)) {
+            for (int offset = 0; offset < content.length; offset += elementSize) {
+                encoder.write(content, offset, Math.min(elementSize, content.length - offset));
+                encoder.flush();
+            }
+        }
+        count(bytes, out.getCount());
+        return out;
+    }
+
+    private void count(Bytes bytes, int encoded) {
+        bytes.raw += content.length;
+        bytes.encoded += encoded;
+    }
+}
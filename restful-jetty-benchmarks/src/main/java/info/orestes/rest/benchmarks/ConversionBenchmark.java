@@ -0,0 +1,86 @@
+package info.orestes.rest.benchmarks;
+
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.conversion.ReadableContext;
+import info.orestes.rest.conversion.WritableContext;
+import info.orestes.rest.service.EntityType;
+import info.orestes.rest.util.Module;
+import org.apache.tika.mime.MediaType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the entity conversion of the {@link ConverterService} through the bundled text/plain format
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+    private static final MediaType TEXT_PLAIN = MediaType.parse("text/plain; charset=utf-8");
+    private static final EntityType<String> STRING_TYPE = EntityType.of(String.class);
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    private ConverterService converterService;
+    private String text;
+    private Long number;
+
+    @Setup
+    public void setUp() {
+        converterService = new ConverterService(new Module());
+
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; ++i) {
+            builder.append((char) ('a' + i % 26));
+        }
+        text = builder.toString();
+        number = (long) size;
+    }
+
+    @Benchmark
+    public String toObjectString() throws Exception {
+        return converterService.toObject(ReadableContext.wrap(new StringReader(text), TEXT_PLAIN), STRING_TYPE);
+    }
+
+    @Benchmark
+    public Long toObjectLong() throws Exception {
+        return converterService.toObject(ReadableContext.wrap(new StringReader("1234567890"), TEXT_PLAIN), Long.class);
+    }
+
+    @Benchmark
+    public StringWriter toRepresentationString() throws Exception {
+        StringWriter writer = new StringWriter(size);
+        converterService.toRepresentation(WritableContext.wrap(writer, TEXT_PLAIN), STRING_TYPE, text);
+        return writer;
+    }
+
+    @Benchmark
+    public StringWriter toRepresentationLong() throws Exception {
+        StringWriter writer = new StringWriter(16);
+        converterService.toRepresentation(WritableContext.wrap(writer, TEXT_PLAIN), Long.class, number);
+        return writer;
+    }
+
+    @Benchmark
+    public Long toObjectArgument() {
+        return converterService.toObject(Long.class, "1234567890");
+    }
+}
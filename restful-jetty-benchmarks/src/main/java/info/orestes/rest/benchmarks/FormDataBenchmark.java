@@ -0,0 +1,68 @@
+package info.orestes.rest.benchmarks;
+
+import info.orestes.rest.forms.FormData;
+import info.orestes.rest.forms.FormDataParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and serializing multipart form data with the {@link FormDataParser}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormDataBenchmark {
+
+    private static final String BOUNDARY = "----BaqendFormBoundary";
+
+    @Param({"1", "10", "100"})
+    public int parts;
+
+    @Param({"16", "1024"})
+    public int valueSize;
+
+    private FormData formData;
+    private String body;
+
+    @Setup
+    public void setUp() {
+        StringBuilder value = new StringBuilder(valueSize);
+        for (int i = 0; i < valueSize; ++i) {
+            value.append((char) ('a' + i % 26));
+        }
+
+        formData = new FormData();
+        for (int i = 0; i < parts; ++i) {
+            formData.append("field" + i, value.toString());
+        }
+
+        body = formData.toString(BOUNDARY);
+    }
+
+    @Benchmark
+    public FormData parse() throws Exception {
+        FormData target = new FormData();
+        new FormDataParser(new StringReader(body), BOUNDARY).parse(target);
+        return target;
+    }
+
+    @Benchmark
+    public String serialize() {
+        return formData.toString(BOUNDARY);
+    }
+}
@@ -0,0 +1,80 @@
+package info.orestes.rest.benchmarks;
+
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.EntityType;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import info.orestes.rest.util.Module;
+import org.apache.tika.mime.MediaType;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the content negotiation of {@link RestResponse#getPreferredContentType} for typical Accept headers
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NegotiationBenchmark {
+
+    @Param({
+        "*/*",
+        "text/plain",
+        "application/json;q=0.9, text/plain;q=0.5, */*;q=0.1",
+        "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8"
+    })
+    public String accept;
+
+    private RestResponse response;
+    private EntityType<Long> valueType;
+    private EntityType<RestException> errorType;
+
+    @Setup
+    public void setUp() {
+        ConverterService converterService = new ConverterService(new Module());
+
+        HttpFields fields = new HttpFields();
+        fields.put(HttpHeader.ACCEPT, accept);
+
+        Request request = new Request(null, null);
+        request.setMetaData(new MetaData.Request("GET", new HttpURI("http://localhost/"), HttpVersion.HTTP_1_1, fields));
+
+        RestRequest restRequest = new RestRequest(request, request, null, converterService);
+        response = new RestResponse(restRequest, new Response(null, null));
+
+        valueType = EntityType.of(Long.class);
+        errorType = EntityType.of(RestException.class);
+    }
+
+    @Benchmark
+    public MediaType preferredValueType() throws Exception {
+        return response.getPreferredContentType(valueType);
+    }
+
+    @Benchmark
+    public MediaType preferredErrorType() throws Exception {
+        return response.getPreferredContentType(errorType);
+    }
+}
@@ -0,0 +1,94 @@
+package info.orestes.rest.benchmarks;
+
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.service.RestHandler;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import info.orestes.rest.service.RestRouter;
+import info.orestes.rest.service.Spec;
+import info.orestes.rest.util.Module;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RestRouter#handle} on generated {@link Spec}s, i.e. path decoding, route matching and argument
+ * conversion without the servlet dispatch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouterBenchmark {
+
+    private static final int PATHS = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int methods;
+
+    private RestRouter router;
+    private MetaData.Request[] requests;
+    private Response response;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Module module = new Module();
+        module.bind(ConverterService.class, ConverterService.class);
+
+        Spec spec = Specs.generate(methods);
+        router = new RestRouter(module);
+        router.addAll(Specs.methods(spec));
+        router.setHandler(new RestHandler() {
+            @Override
+            public void handle(RestRequest request, RestResponse response) {
+            }
+        });
+        router.start();
+
+        requests = new MetaData.Request[PATHS];
+        String[] paths = Specs.paths(spec, PATHS, 42);
+        for (int i = 0; i < PATHS; ++i) {
+            requests[i] = new MetaData.Request("GET", new HttpURI("http://localhost" + paths[i]), HttpVersion.HTTP_1_1,
+                new HttpFields());
+        }
+
+        response = new Response(null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        router.stop();
+    }
+
+    @Benchmark
+    public void handle(Blackhole blackhole) throws Exception {
+        // a fresh jetty request per invocation, since the router attaches its state to the request
+        Request request = new Request(null, null);
+        request.setMetaData(requests[next++ & (PATHS - 1)]);
+
+        router.handle(request.getPathInfo(), request, request, response);
+        blackhole.consume(request.getAttribute(RestRouter.REST_REQUEST));
+    }
+}
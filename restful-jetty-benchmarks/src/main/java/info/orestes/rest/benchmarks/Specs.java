@@ -0,0 +1,125 @@
+package info.orestes.rest.benchmarks;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.service.EntityType;
+import info.orestes.rest.service.MethodGroup;
+import info.orestes.rest.service.PathElement;
+import info.orestes.rest.service.RestMethod;
+import info.orestes.rest.service.Spec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic {@link Spec}s of a configurable size
+ * <br>
+ * <br>
+ * Each generated group contains methods of the form
+ * <code>GET /bench/g&lt;group&gt;/r&lt;method&gt;/:id;format=?limit=</code>, all with the same path length, which is
+ * the worst case for the router since all routes of a group share one routing table.
+ */
+public class Specs {
+
+    public static final int METHODS_PER_GROUP = 10;
+
+    /**
+     * Generates a spec with the given number of methods which are all handled by the {@link NoopServlet}
+     *
+     * @param methods The number of methods to generate
+     * @return The generated spec
+     */
+    public static Spec generate(int methods) {
+        return generate(methods, NoopServlet.class);
+    }
+
+    /**
+     * Generates a spec with the given number of methods
+     *
+     * @param methods The number of methods to generate
+     * @param target  The servlet which handles all generated methods
+     * @return The generated spec
+     */
+    public static Spec generate(int methods, Class<? extends RestServlet> target) {
+        Spec spec = new Spec();
+
+        MethodGroup group = null;
+        for (int i = 0; i < methods; ++i) {
+            if (i % METHODS_PER_GROUP == 0) {
+                group = new MethodGroup("G" + (i / METHODS_PER_GROUP), "Generated group");
+                spec.add(group);
+            }
+
+            List<PathElement> signature = new ArrayList<>();
+            signature.add(PathElement.createPath("bench"));
+            signature.add(PathElement.createPath("g" + (i / METHODS_PER_GROUP)));
+            signature.add(PathElement.createPath("r" + (i % METHODS_PER_GROUP)));
+            signature.add(PathElement.createVariable("id", "The resource id", String.class));
+            signature.add(PathElement.createMatrix("format", "The output format", true, String.class, "plain"));
+            signature.add(PathElement.createQuery("limit", "The result limit", true, Integer.class, "10"));
+
+            Map<Integer, String> results = new HashMap<>();
+            results.put(200, "OK");
+
+            group.add(new RestMethod("M" + i, "Generated method", new String[0], "GET", signature, target,
+                Collections.emptyMap(), Collections.emptyMap(), results, null, EntityType.of(String.class), false));
+        }
+
+        return spec;
+    }
+
+    /**
+     * Returns all methods of the given spec
+     *
+     * @param spec The spec
+     * @return All methods of all groups in the spec
+     */
+    public static List<RestMethod> methods(Spec spec) {
+        List<RestMethod> methods = new ArrayList<>();
+        for (MethodGroup group : spec) {
+            methods.addAll(group);
+        }
+        return methods;
+    }
+
+    /**
+     * Creates request paths for randomly selected methods of the given spec
+     *
+     * @param spec  The spec to create the paths for
+     * @param count The number of paths to create
+     * @param seed  The seed of the method selection
+     * @return The request paths
+     */
+    public static String[] paths(Spec spec, int count, long seed) {
+        List<RestMethod> methods = methods(spec);
+        Random random = new Random(seed);
+
+        String[] paths = new String[count];
+        for (int i = 0; i < count; ++i) {
+            Map<String, String[]> params = new HashMap<>();
+            params.put("id", new String[] {"id" + i});
+            if (i % 2 == 0) {
+                params.put("limit", new String[] {String.valueOf(i)});
+            }
+
+            paths[i] = methods.get(random.nextInt(methods.size())).createURI(params);
+        }
+        return paths;
+    }
+
+    /**
+     * A servlet which answers all requests with the requested id
+     */
+    @SuppressWarnings("serial")
+    public static class NoopServlet extends RestServlet {
+        @Override
+        protected void doGet(Request request, Response response) {
+            response.sendEntity(request.getArgument("id"));
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package info.orestes.rest.benchmarks.load;
+
+import info.orestes.rest.LineConverter;
+import info.orestes.rest.LineFormat;
+import info.orestes.rest.benchmarks.Specs;
+import info.orestes.rest.client.RestClient;
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.EntityType;
+import info.orestes.rest.service.MethodGroup;
+import info.orestes.rest.service.PathElement;
+import info.orestes.rest.service.RestMethod;
+import info.orestes.rest.service.RestRouter;
+import info.orestes.rest.service.RestServletHandler;
+import info.orestes.rest.service.Spec;
+import info.orestes.rest.util.Module;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * An in-process end-to-end load test which boots a Jetty server with a generated {@link Spec} and drives it with a
+ * {@link RestClient} through the {@link RestRouter}, the {@link RestServletHandler} and the converters.
+ * <br>
+ * <br>
+ * The requests are sent open-loop at a fixed rate. The latency of each request is measured from the time it was
+ * scheduled to be sent, not from the time it was actually sent, so a stalled server or client is reflected in the
+ * latency histograms instead of silently lowering the request rate (coordinated omission).
+ * <br>
+ * <br>
+ * The harness is configured by <code>key=value</code> arguments, see {@link Options}.
+ */
+public class LoadHarness {
+
+    public static final String STREAM_METHOD = "LoadStream";
+    public static final String ERROR_METHOD = "LoadError";
+
+    /**
+     * The request types the load is generated for
+     */
+    public enum Scenario {
+        /**
+         * Single entity responses of randomly selected generated methods
+         */
+        ENTITY,
+        /**
+         * Streamed responses of {@link Options#streamSize} lines
+         */
+        STREAM,
+        /**
+         * Error responses, i.e. 404 Not Found
+         */
+        ERROR
+    }
+
+    /**
+     * The options of the load harness
+     */
+    public static class Options {
+        /**
+         * The number of generated methods in the spec
+         */
+        public int methods = 1000;
+        /**
+         * The request rate per second
+         */
+        public int rate = 1000;
+        /**
+         * The measured duration of each scenario in seconds
+         */
+        public int duration = 30;
+        /**
+         * The warmup duration of each scenario in seconds, its latencies are discarded
+         */
+        public int warmup = 10;
+        /**
+         * The maximal number of connections of the client
+         */
+        public int connections = 64;
+        /**
+         * The number of lines per streamed response
+         */
+        public int streamSize = 100;
+        /**
+         * The scenarios to run
+         */
+        public List<Scenario> scenarios = Arrays.asList(Scenario.values());
+
+        public static Options parse(String... args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int index = arg.indexOf('=');
+                if (index == -1) {
+                    throw new IllegalArgumentException("Expected an option of the form key=value, but was " + arg);
+                }
+
+                String key = arg.substring(0, index);
+                String value = arg.substring(index + 1);
+                switch (key) {
+                    case "methods":
+                        options.methods = Integer.parseInt(value);
+                        break;
+                    case "rate":
+                        options.rate = Integer.parseInt(value);
+                        break;
+                    case "duration":
+                        options.duration = Integer.parseInt(value);
+                        break;
+                    case "warmup":
+                        options.warmup = Integer.parseInt(value);
+                        break;
+                    case "connections":
+                        options.connections = Integer.parseInt(value);
+                        break;
+                    case "streamSize":
+                        options.streamSize = Integer.parseInt(value);
+                        break;
+                    case "scenarios":
+                        options.scenarios = new ArrayList<>();
+                        for (String scenario : value.split(",")) {
+                            options.scenarios.add(Scenario.valueOf(scenario.trim().toUpperCase()));
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + key);
+                }
+            }
+            return options;
+        }
+    }
+
+    /**
+     * The measured results of a single scenario
+     */
+    public static class Result {
+        private final Scenario scenario;
+        private final Histogram histogram;
+        private final long failures;
+        private final long durationNanos;
+
+        public Result(Scenario scenario, Histogram histogram, long failures, long durationNanos) {
+            this.scenario = scenario;
+            this.histogram = histogram;
+            this.failures = failures;
+            this.durationNanos = durationNanos;
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        /**
+         * The latency histogram in nanoseconds of all completed requests, including failed ones
+         *
+         * @return The latency histogram
+         */
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * The throughput of completed requests per second
+         *
+         * @return The throughput
+         */
+        public double getThroughput() {
+            return histogram.getTotalCount() * 1e9 / durationNanos;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("%-8s %10d %8d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n", scenario, histogram.getTotalCount(),
+                failures, getThroughput(), millis(50), millis(90), millis(99), millis(99.9), histogram.getMaxValue() / 1e6);
+        }
+
+        private double millis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+
+    private final Options options;
+    private final Module module = new Module();
+    private final ExecutorService streamConsumers = Executors.newCachedThreadPool();
+
+    private Server server;
+    private RestClient client;
+    private String[] entityPaths;
+
+    public LoadHarness(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        LoadHarness harness = new LoadHarness(options);
+
+        harness.start();
+        try {
+            System.out.printf("%d methods, %d req/s, %ds warmup, %ds measurement, %d connections%n%n", options.methods,
+                options.rate, options.warmup, options.duration, options.connections);
+            System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n", "scenario", "requests", "failures", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+
+            for (Scenario scenario : options.scenarios) {
+                harness.run(scenario).print(System.out);
+            }
+        } finally {
+            harness.stop();
+        }
+    }
+
+    /**
+     * Boots the server with the generated spec and starts the client
+     *
+     * @throws Exception if the server or the client could not be started
+     */
+    public void start() throws Exception {
+        module.bind(ConverterService.class, ConverterService.class);
+        ConverterService converterService = module.moduleInstance(ConverterService.class);
+        converterService.addFormat(new LineFormat());
+        converterService.add(new LineConverter());
+
+        Spec spec = Specs.generate(options.methods, LoadServlet.class);
+        entityPaths = Specs.paths(spec, 4096, 42);
+        spec.add(createLoadGroup());
+
+        RestRouter router = new RestRouter(module);
+        for (MethodGroup group : spec) {
+            router.addAll(group);
+        }
+        router.setHandler(new RestServletHandler());
+
+        server = new Server(new QueuedThreadPool(200));
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(0);
+        server.addConnector(connector);
+        server.setHandler(router);
+        server.start();
+
+        client = new RestClient("http://localhost:" + connector.getLocalPort(), converterService);
+        client.setMaxConnectionsPerDestination(options.connections);
+        client.setMaxRequestsQueuedPerDestination(Math.max(1024, options.rate * 10));
+        client.start();
+    }
+
+    /**
+     * Stops the client and the server
+     *
+     * @throws Exception if the client or the server could not be stopped
+     */
+    public void stop() throws Exception {
+        streamConsumers.shutdownNow();
+        if (client != null) {
+            client.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    /**
+     * Runs the warmup and the measurement of the given scenario
+     *
+     * @param scenario The scenario to run
+     * @return The measured results
+     * @throws InterruptedException if the current thread was interrupted
+     */
+    public Result run(Scenario scenario) throws InterruptedException {
+        drive(scenario, TimeUnit.SECONDS.toNanos(options.warmup), new Recorder(3), new AtomicLong());
+
+        Recorder recorder = new Recorder(3);
+        AtomicLong failures = new AtomicLong();
+        long duration = drive(scenario, TimeUnit.SECONDS.toNanos(options.duration), recorder, failures);
+
+        return new Result(scenario, recorder.getIntervalHistogram(), failures.get(), duration);
+    }
+
+    /**
+     * Sends requests at the configured rate for the given duration and waits until all of them are completed
+     *
+     * @return The elapsed time in nanoseconds until the last request was completed
+     */
+    private long drive(Scenario scenario, long durationNanos, Recorder recorder, AtomicLong failures)
+        throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        AtomicLong pending = new AtomicLong();
+
+        long start = System.nanoTime();
+        for (long i = 0; ; ++i) {
+            long intended = start + i * interval;
+            if (intended - start >= durationNanos) {
+                break;
+            }
+
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            pending.incrementAndGet();
+            CompletableFuture<?> future;
+            try {
+                future = send(scenario, i);
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+
+            future.whenComplete((result, error) -> {
+                recorder.recordValue(System.nanoTime() - intended);
+                if (!isExpected(scenario, error)) {
+                    failures.incrementAndGet();
+                }
+                pending.decrementAndGet();
+            });
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (pending.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        failures.addAndGet(pending.get());
+
+        return System.nanoTime() - start;
+    }
+
+    private CompletableFuture<?> send(Scenario scenario, long i) {
+        switch (scenario) {
+            case STREAM:
+                return client.newRequest("/load/stream/" + options.streamSize)
+                    .sendStream(EntityType.of(CharSequence.class))
+                    // the stream is fed by the client threads, therefore it must be consumed by another thread
+                    .thenApplyAsync(response -> {
+                        try (Stream<CharSequence> lines = response.getEntity()) {
+                            return lines.count();
+                        }
+                    }, streamConsumers);
+            case ERROR:
+                return client.newRequest("/load/error/id" + i).send(String.class);
+            default:
+                return client.newRequest(entityPaths[(int) (i % entityPaths.length)]).send(String.class);
+        }
+    }
+
+    private static boolean isExpected(Scenario scenario, Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+
+        if (scenario == Scenario.ERROR) {
+            return error instanceof RestException && ((RestException) error).getStatusCode() == 404;
+        }
+
+        return error == null;
+    }
+
+    private static MethodGroup createLoadGroup() {
+        MethodGroup group = new MethodGroup("Load", "Streamed and error responses of the load harness");
+
+        Map<Integer, String> results = new HashMap<>();
+        results.put(200, "OK");
+        results.put(404, "Not Found");
+
+        List<PathElement> stream = new ArrayList<>();
+        stream.add(PathElement.createPath("load"));
+        stream.add(PathElement.createPath("stream"));
+        stream.add(PathElement.createVariable("count", "The number of lines", Integer.class));
+        group.add(new RestMethod(STREAM_METHOD, "Streams lines", new String[0], "GET", stream, LoadServlet.class,
+            Collections.emptyMap(), Collections.emptyMap(), results, null,
+            EntityType.of(Stream.class, CharSequence.class), false));
+
+        List<PathElement> error = new ArrayList<>();
+        error.add(PathElement.createPath("load"));
+        error.add(PathElement.createPath("error"));
+        error.add(PathElement.createVariable("id", "The id of the missing object", String.class));
+        group.add(new RestMethod(ERROR_METHOD, "Responds with Not Found", new String[0], "GET", error,
+            LoadServlet.class, Collections.emptyMap(), Collections.emptyMap(), results, null,
+            EntityType.of(String.class), false));
+
+        return group;
+    }
+}
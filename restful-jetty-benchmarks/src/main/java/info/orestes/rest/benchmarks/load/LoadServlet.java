@@ -0,0 +1,31 @@
+package info.orestes.rest.benchmarks.load;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.error.NotFound;
+import info.orestes.rest.error.RestException;
+
+import java.util.stream.IntStream;
+
+/**
+ * Serves the methods of the load harness: single entities for the generated methods, streamed lines for the
+ * {@value LoadHarness#STREAM_METHOD} method and errors for the {@value LoadHarness#ERROR_METHOD} method
+ */
+@SuppressWarnings("serial")
+public class LoadServlet extends RestServlet {
+
+    @Override
+    protected void doGet(Request request, Response response) throws RestException {
+        switch (request.getRestMethod().getName()) {
+            case LoadHarness.STREAM_METHOD:
+                int count = request.getArgument("count");
+                response.sendEntity(IntStream.range(0, count).mapToObj(i -> (CharSequence) ("line " + i)));
+                break;
+            case LoadHarness.ERROR_METHOD:
+                throw new NotFound("The object " + request.getArgument("id") + " does not exist.");
+            default:
+                response.sendEntity(request.getArgument("id"));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package info.orestes.rest.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Generates an index of all loadable converters and converter formats per package at compile time.
+ * <br>
+ * <br>
+ * The ConverterService reads the index from {@value #INDEX_PATH}&lt;package name&gt; instead of scanning the package
+ * on the classpath. Each index lists the binary class names of all public, non abstract subclasses of Converter and
+ * ConverterFormat declared in the package, one per line.
+ */
+@SupportedAnnotationTypes("*")
+public class ConverterIndexProcessor extends AbstractProcessor {
+
+    /**
+     * The resource path of the package indices, must match ClassUtil#PACKAGE_INDEX_PATH
+     */
+    public static final String INDEX_PATH = "META-INF/orestes/index/";
+
+    static final String CONVERTER = "info.orestes.rest.conversion.Converter";
+    static final String CONVERTER_FORMAT = "info.orestes.rest.conversion.ConverterFormat";
+
+    private final Map<String, Set<String>> index = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        } else {
+            for (Element element : roundEnv.getRootElements()) {
+                collect(element);
+            }
+        }
+
+        // the processor only observes the sources and never claims any annotation
+        return false;
+    }
+
+    private void collect(Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            return;
+        }
+
+        TypeElement type = (TypeElement) element;
+        if (isLoadable(type) && (isSubtype(type, CONVERTER) || isSubtype(type, CONVERTER_FORMAT))) {
+            String pkgName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+            index.computeIfAbsent(pkgName, key -> new TreeSet<>()).add(className);
+        }
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            collect(enclosed);
+        }
+    }
+
+    private boolean isLoadable(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+
+        // inner classes can't be instantiated without their enclosing instance
+        return type.getEnclosingElement().getKind() == ElementKind.PACKAGE || modifiers.contains(Modifier.STATIC);
+    }
+
+    private boolean isSubtype(TypeElement type, String baseClassName) {
+        TypeElement baseType = processingEnv.getElementUtils().getTypeElement(baseClassName);
+        if (baseType == null) {
+            return false;
+        }
+
+        TypeMirror base = processingEnv.getTypeUtils().erasure(baseType.asType());
+        return processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()), base);
+    }
+
+    private void writeIndex() {
+        for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+            String resourceName = INDEX_PATH + entry.getKey();
+            try {
+                FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    resourceName);
+
+                try (Writer writer = resource.openWriter()) {
+                    for (String className : entry.getValue()) {
+                        writer.write(className);
+                        writer.write('\n');
+                    }
+                }
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "The converter index " + resourceName + " can't be written: " + e.getMessage());
+            }
+        }
+
+        index.clear();
+    }
+}
@@ -0,0 +1,88 @@
+package info.orestes.rest.processor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConverterIndexProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndex() throws IOException {
+        File out = compile(
+            source("info.orestes.rest.conversion.Converter", "public abstract class Converter<T, F> {}"),
+            source("info.orestes.rest.conversion.ConverterFormat", "public abstract class ConverterFormat<F> {}"),
+            source("test.format.TestFormat", "public class TestFormat extends info.orestes.rest.conversion.ConverterFormat<Object> {}"),
+            source("test.converter.LongConverter",
+                "public class LongConverter extends info.orestes.rest.conversion.Converter<Long, Object> {" +
+                "    public static class Nested extends LongConverter {}" +
+                "    public class Inner extends LongConverter {}" +
+                "}"),
+            source("test.converter.AbstractConverter",
+                "public abstract class AbstractConverter extends info.orestes.rest.conversion.Converter<Long, Object> {}"),
+            source("test.converter.HiddenConverter",
+                "class HiddenConverter extends info.orestes.rest.conversion.Converter<Long, Object> {}"),
+            source("test.converter.Unrelated", "public class Unrelated {}")
+        );
+
+        assertEquals(Arrays.asList("test.converter.LongConverter", "test.converter.LongConverter$Nested"),
+            readIndex(out, "test.converter"));
+        assertEquals(Collections.singletonList("test.format.TestFormat"), readIndex(out, "test.format"));
+        assertFalse(new File(out, ConverterIndexProcessor.INDEX_PATH + "info.orestes.rest.conversion").exists());
+    }
+
+    private List<String> readIndex(File out, String pkgName) throws IOException {
+        File index = new File(out, ConverterIndexProcessor.INDEX_PATH + pkgName);
+        assertTrue(index.exists());
+        return Files.readAllLines(index.toPath(), StandardCharsets.UTF_8);
+    }
+
+    private File compile(JavaFileObject... sources) throws IOException {
+        File out = folder.newFolder();
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(out));
+
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, null, null,
+            Arrays.asList(sources));
+        task.setProcessors(Collections.singletonList(new ConverterIndexProcessor()));
+
+        assertTrue(task.call());
+        fileManager.close();
+
+        return out;
+    }
+
+    private static JavaFileObject source(String className, String body) {
+        int index = className.lastIndexOf('.');
+        String code = "package " + className.substring(0, index) + "; " + body;
+
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
@@ -5,10 +5,13 @@
 import info.orestes.rest.service.RestMethod;
 import info.orestes.rest.service.RestRouter;
 import info.orestes.rest.service.RestRouter.Route;
+import info.orestes.rest.util.Deadline;
 import org.jetbrains.annotations.Nullable;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public interface Request extends ReadableContext, HttpServletRequest {
 
@@ -33,6 +36,39 @@ public interface Request extends ReadableContext, HttpServletRequest {
      */
     public Map<String, ?> getArguments();
 
+    /**
+     * Returns the deadline of this request, which is taken from the {@link Deadline#HEADER} or the timeout of the
+     * method. The deadline is attached to the thread which dispatches the request and limits the async timeout of the
+     * request.
+     *
+     * @return The deadline or <code>null</code> if the request has no deadline
+     */
+    @Nullable
+    public default Deadline getDeadline() {
+        return null;
+    }
+
+    /**
+     * Indicates if the request was abandoned, because the client disconnected or the request timed out
+     *
+     * @return <code>true</code> if the result of the request is not needed anymore
+     */
+    public default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * Returns a signal which is completed when the request is abandoned while it is processed asynchronously, because
+     * the client disconnected or the request timed out. Servlets can use it to stop pending work, e.g. database queries
+     * or {@link info.orestes.rest.client.RestRequest#cancelWith(CompletionStage) client requests}. The default
+     * implementation returns a signal which is never completed.
+     *
+     * @return The cancellation signal of the request
+     */
+    public default CompletionStage<Void> getCancellation() {
+        return new CompletableFuture<>();
+    }
+
     @Nullable
     @Override
     public <T> T getArgument(String name);
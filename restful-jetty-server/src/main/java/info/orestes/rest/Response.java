@@ -3,6 +3,8 @@
 import info.orestes.rest.conversion.ConverterService;
 import info.orestes.rest.conversion.WritableContext;
 import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.EntityTag;
+import org.eclipse.jetty.http.HttpHeader;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -20,6 +22,25 @@ public interface Response extends WritableContext, HttpServletResponse {
      */
     public void sendEntity(Object entity);
 
+    /**
+     * Sets the entity tag of the response and checks it against the If-None-Match header of a GET or HEAD request.
+     * If the tag matches, the status is set to 304 Not Modified and following calls of {@link #sendEntity(Object)}
+     * are ignored, so the servlet can skip loading and serializing the entity, e.g.
+     * <pre>
+     * if (!response.checkNotModified(Long.toString(document.getVersion()))) {
+     *     response.sendEntity(loadDocument(id));
+     * }
+     * </pre>
+     * The default implementation only sets the ETag header and never answers with 304 Not Modified.
+     *
+     * @param etag The entity tag or version of the current representation, it is quoted if necessary
+     * @return <code>true</code> if the client has the current representation
+     */
+    public default boolean checkNotModified(String etag) {
+        setHeader(HttpHeader.ETAG.asString(), EntityTag.quote(etag));
+        return false;
+    }
+
     /**
      * Signals that the request handling results in an error
      *
@@ -1,14 +1,19 @@
 package info.orestes.rest;
 
 import info.orestes.rest.error.*;
+import info.orestes.rest.service.RequestTiming;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
 import info.orestes.rest.service.RestRouter;
 import info.orestes.rest.service.RestServletHandler;
+import info.orestes.rest.util.Deadline;
 import org.eclipse.jetty.http.HttpStatus;
 
 import javax.servlet.*;
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An {@link RestServlet} represents a resource or a group of resources which is
@@ -346,6 +351,45 @@ protected CompletableFuture<Void> doPutAsync(Request request, Response response)
 	 *             if an I/O error occures
 	 */
 	public void service(Request request, Response response) throws RestException, IOException {
+        long checkpoint = System.nanoTime();
+        boolean async = false;
+        try {
+            async = dispatch(request, response, checkpoint);
+        } finally {
+            if (!async) {
+                recordHandlerTime(request, response, checkpoint);
+            }
+        }
+	}
+
+	/**
+	 * Adds the time since the checkpoint to the handler phase of the request. If the handler sends a stream, the
+	 * phase ends when the stream is written, since the serialization of the stream elements is nested in it.
+	 *
+	 * @param request The request
+	 * @param response The response
+	 * @param checkpoint The {@link System#nanoTime()} when the servlet method was invoked
+	 */
+	private static void recordHandlerTime(Request request, Response response, long checkpoint) {
+		if (request instanceof RestRequest) {
+			RequestTiming timing = ((RestRequest) request).getTiming();
+			CompletableFuture<Void> stream = response instanceof RestResponse
+				? ((RestResponse) response).getStreamCompletion() : null;
+
+			if (stream != null) {
+				stream.whenComplete((empty, error) -> timing.record(RequestTiming.Phase.HANDLER, checkpoint));
+			} else {
+				timing.record(RequestTiming.Phase.HANDLER, checkpoint);
+			}
+		}
+	}
+
+	/**
+	 * Invokes the servlet method of the requested HTTP method
+	 *
+	 * @return <code>true</code> if the request is completed asynchronously
+	 */
+	private boolean dispatch(Request request, Response response, long checkpoint) throws RestException, IOException {
         CompletableFuture<Void> result;
         switch (request.getMethod()) {
             case "DELETE":
@@ -381,16 +425,32 @@ public void service(Request request, Response response) throws RestException, IO
                     }
                 }
             } else {
-                if (request.getDispatcherType() == DispatcherType.REQUEST) {
+                if (request.getDispatcherType() == DispatcherType.REQUEST
+					|| request.getDispatcherType() == DispatcherType.ASYNC) {
 					AsyncContext context = request.startAsync(request, response);
 
+					Deadline deadline = request.getDeadline();
+					if (deadline != null) {
+						// the deadline shortens but never extends the timeout of the container
+						long remaining = Math.max(1, deadline.getRemaining(TimeUnit.MILLISECONDS));
+						context.setTimeout(context.getTimeout() > 0 ? Math.min(context.getTimeout(), remaining) : remaining);
+					}
+
 					context.addListener((AsyncTimeoutListener) event -> {
 						//will invoke result.whenComplete -> context.complete() synchronously
 						result.completeExceptionally(new GatewayTimeOut("The request has timed out."));
                     });
 
+					if (request instanceof RestRequest) {
+						((RestRequest) request).cancelWhenAbandoned(context);
+					}
+					//the client is gone, therefore stop waiting for the result
+					request.getCancellation().thenRun(() -> result.cancel(true));
+
 					result.whenComplete((empty, error) -> {
-                        if (error != null) {
+                        recordHandlerTime(request, response, checkpoint);
+
+                        if (error != null && !request.isCancelled()) {
                             if (error instanceof CompletionException)
                                 error = error.getCause();
 
@@ -399,9 +459,12 @@ public void service(Request request, Response response) throws RestException, IO
 
                         context.complete();
                     });
+                    return true;
                 }
             }
         }
+
+        return false;
 	}
 	
 	@Override
@@ -0,0 +1,111 @@
+package info.orestes.rest.admission;
+
+/**
+ * A limit which is adjusted by the gradient between the long term and the current latency of the requests. While the
+ * latency is stable, the limit grows by its square root, which allows a small queue to build up. When the latency
+ * rises above the tolerated multiple of the long term latency, the limit shrinks proportionally, down to half of its
+ * value per sample. Server errors multiplicatively decrease the limit by the backoff ratio.
+ * <br>
+ * <br>
+ * The limit only grows while at least half of it is used, so an idle method does not accumulate an unbounded limit.
+ * The long term latency is an exponential moving average, which slowly follows a persistent change of the latency.
+ * <br>
+ * <br>
+ * Concurrency Note: Samples are applied under the lock of the instance, the current limit can be read without
+ * locking.
+ */
+public class AdaptiveLimit implements Limit {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 4;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    private static final double SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double estimatedLimit;
+    private double longLatency;
+    private volatile int limit;
+
+    /**
+     * Creates an adaptive limit with the default initial, minimum and maximum limit
+     */
+    public AdaptiveLimit() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Creates an adaptive limit
+     *
+     * @param initialLimit The limit before the first sample
+     * @param minLimit     The lower bound of the limit
+     * @param maxLimit     The upper bound of the limit
+     */
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("The limits must be 1 <= min <= initial <= max: " + minLimit + ", "
+                + initialLimit + ", " + maxLimit);
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the long term latency, which is the reference of the current latency
+     *
+     * @return The latency in nanoseconds or 0 if no sample was recorded so far
+     */
+    public synchronized long getLongLatency() {
+        return (long) longLatency;
+    }
+
+    @Override
+    public synchronized void onSample(long latency, int inFlight, boolean dropped) {
+        if (dropped) {
+            update(estimatedLimit * BACKOFF_RATIO);
+            return;
+        }
+
+        latency = Math.max(1, latency);
+        if (longLatency == 0) {
+            longLatency = latency;
+        } else {
+            longLatency += (latency - longLatency) / LONG_WINDOW;
+        }
+
+        //follow a persistent latency improvement faster than a degradation
+        if (longLatency > 2 * latency) {
+            longLatency *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / latency));
+        if (gradient == 1.0 && inFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        update(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveLimit " + limit + " (" + minLimit + " - " + maxLimit + ")";
+    }
+}
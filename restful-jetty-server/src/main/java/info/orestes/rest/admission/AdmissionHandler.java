@@ -0,0 +1,266 @@
+package info.orestes.rest.admission;
+
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.error.ServiceUnavailable;
+import info.orestes.rest.service.MethodGroup;
+import info.orestes.rest.service.RestHandler;
+import info.orestes.rest.service.RestMethod;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import info.orestes.rest.service.RestRouter;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Limits the concurrent requests of each {@link RestMethod}, so that a slow method can not occupy all threads of the
+ * server. Requests which exceed the limit are rejected with 503 Service Unavailable and a Retry-After header before
+ * the request body is read. The handler must be placed between the {@link RestRouter} and the handler which
+ * dispatches the request, e.g.
+ * <pre>
+ * router.setHandler(admissionHandler);
+ * admissionHandler.setHandler(new RestServletHandler());
+ * </pre>
+ * By default each method gets its own {@link AdaptiveLimit}, which adapts the limit to the observed latency of the
+ * method. A fixed limit can be declared by the <code>%limit &lt;requests&gt;</code> annotation in the service
+ * document, <code>%limit -1</code> disables the limit of a method and other values are rejected by the
+ * {@link RestRouter}. Limits can also be configured per method or shared by a whole {@link MethodGroup} by
+ * {@link #setLimit(String, Limit)} and {@link #setLimit(MethodGroup, Limit)}.
+ * <br>
+ * <br>
+ * Requests which fail with a server error or which are not completed within their async timeout are passed to the
+ * limit as dropped requests.
+ */
+public class AdmissionHandler extends RestHandler {
+
+    /**
+     * The name of the service document annotation which declares the limit of a method
+     */
+    public static final String ANNOTATION = "limit";
+
+    private final ConcurrentHashMap<String, Optional<ConcurrencyLimiter>> limiters = new ConcurrentHashMap<>();
+    private Supplier<Limit> defaultLimit = AdaptiveLimit::new;
+    private long retryAfter = 1;
+
+    /**
+     * Sets the factory of the limits of methods without an explicit limit, by default each method gets an
+     * {@link AdaptiveLimit}. It must be set before the handler serves the first request.
+     *
+     * @param defaultLimit The limit factory or <code>null</code> to only limit the methods with an explicit limit
+     */
+    public void setDefaultLimit(Supplier<Limit> defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    /**
+     * Returns the value of the Retry-After header of rejected requests
+     *
+     * @return The delay in seconds
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Sets the value of the Retry-After header of rejected requests, 1 second by default
+     *
+     * @param retryAfter The delay in seconds
+     */
+    public void setRetryAfter(long retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Sets the limit of a method, which overrides the annotation of the service document
+     *
+     * @param methodName The name of the rest method
+     * @param limit      The limit or <code>null</code> to disable the limit of the method
+     */
+    public void setLimit(String methodName, Limit limit) {
+        limiters.put(methodName, Optional.ofNullable(limit).map(l -> new ConcurrencyLimiter(methodName, l)));
+    }
+
+    /**
+     * Sets a limit which is shared by all methods of a group, i.e. the concurrent requests of all methods of the group
+     * are limited together
+     *
+     * @param group The method group
+     * @param limit The shared limit
+     */
+    public void setLimit(MethodGroup group, Limit limit) {
+        Optional<ConcurrencyLimiter> limiter = Optional.of(new ConcurrencyLimiter(group.getName(), limit));
+        for (RestMethod method : group) {
+            limiters.put(method.getName(), limiter);
+        }
+    }
+
+    /**
+     * Returns the limiter of a method
+     *
+     * @param method The rest method
+     * @return The limiter or <code>null</code> if the method is not limited
+     */
+    public ConcurrencyLimiter getLimiter(RestMethod method) {
+        Optional<ConcurrencyLimiter> limiter = limiters.get(method.getName());
+        if (limiter == null) {
+            limiter = limiters.computeIfAbsent(method.getName(), name -> createLimiter(method));
+        }
+        return limiter.orElse(null);
+    }
+
+    /**
+     * Returns the limiters of all methods which were requested so far
+     *
+     * @return The limiters, a limiter of a method group is contained once per method
+     */
+    public Collection<ConcurrencyLimiter> getLimiters() {
+        Collection<ConcurrencyLimiter> result = new LinkedHashSet<>();
+        for (Optional<ConcurrencyLimiter> limiter : limiters.values()) {
+            limiter.ifPresent(result::add);
+        }
+        return Collections.unmodifiableCollection(result);
+    }
+
+    /**
+     * Parses the <code>%limit</code> annotation of a method. The {@link RestRouter} validates the annotation when the
+     * method is added, so an invalid limit fails at startup instead of limiting the method unexpectedly.
+     *
+     * @param method The rest method
+     * @return The number of concurrent requests, <code>-1</code> if the limit is disabled or <code>null</code> if the
+     * method declares no fixed limit
+     * @throws IllegalArgumentException if the annotation is neither a positive number nor <code>-1</code>
+     */
+    public static Integer parseLimit(RestMethod method) {
+        String value = method.getAnnotation(ANNOTATION);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        int requests;
+        try {
+            requests = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The method " + method.getName() + " declares an invalid limit "
+                + value, e);
+        }
+
+        if (requests < 1 && requests != -1) {
+            throw new IllegalArgumentException("The method " + method.getName() + " declares an invalid limit "
+                + value);
+        }
+        return requests;
+    }
+
+    private Optional<ConcurrencyLimiter> createLimiter(RestMethod method) {
+        Integer requests = parseLimit(method);
+        Limit limit;
+        if (requests != null) {
+            limit = requests < 0 ? null : new FixedLimit(requests);
+        } else {
+            limit = defaultLimit != null ? defaultLimit.get() : null;
+        }
+
+        return Optional.ofNullable(limit).map(l -> new ConcurrencyLimiter(method.getName(), l));
+    }
+
+    @Override
+    public void handle(RestRequest request, RestResponse response) throws IOException, ServletException, RestException {
+        ConcurrencyLimiter limiter = request.getDispatcherType() == DispatcherType.ASYNC ? null
+            : getLimiter(request.getRestMethod());
+        if (limiter == null) {
+            super.handle(request, response);
+            return;
+        }
+
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            reject(request, response, limiter);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = true;
+        try {
+            super.handle(request, response);
+
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(limiter, response, start, inFlight));
+                completed = false;
+            }
+        } catch (IOException | ServletException | RestException | RuntimeException e) {
+            limiter.release(start, inFlight, isDropped(RestException.of(e).getStatusCode()));
+            completed = false;
+            throw e;
+        } finally {
+            if (completed) {
+                limiter.release(start, inFlight, isDropped(response.getStatus()));
+            }
+        }
+    }
+
+    /**
+     * Rejects a request which exceeds the limit of its method. The request body is not read, therefore the
+     * connection is closed if the request has a body.
+     *
+     * @param request  The rejected request
+     * @param response The response
+     * @param limiter  The exceeded limiter
+     */
+    protected void reject(RestRequest request, RestResponse response, ConcurrencyLimiter limiter) {
+        response.setHeader(HttpHeader.RETRY_AFTER.asString(), Long.toString(retryAfter));
+        if (request.getContentLengthLong() > 0 || request.getHeader(HttpHeader.TRANSFER_ENCODING.asString()) != null) {
+            response.setHeader(HttpHeader.CONNECTION.asString(), HttpHeaderValue.CLOSE.asString());
+        }
+
+        response.sendError(new ServiceUnavailable("The concurrency limit of " + limiter.getName() + " is exceeded."));
+    }
+
+    private static boolean isDropped(int status) {
+        return status >= 500;
+    }
+
+    private static class CompletionListener implements AsyncListener {
+        private final ConcurrencyLimiter limiter;
+        private final RestResponse response;
+        private final long start;
+        private final int inFlight;
+        private boolean timedOut;
+
+        CompletionListener(ConcurrencyLimiter limiter, RestResponse response, long start, int inFlight) {
+            this.limiter = limiter;
+            this.response = response;
+            this.start = start;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release(start, inFlight, timedOut || isDropped(response.getStatus()));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            timedOut = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
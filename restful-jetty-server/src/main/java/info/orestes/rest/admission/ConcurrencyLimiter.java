@@ -0,0 +1,94 @@
+package info.orestes.rest.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admits requests as long as the number of concurrent requests is below a {@link Limit}. A limiter is shared by all
+ * rest methods it is configured for.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final Limit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a limiter
+     *
+     * @param name  The name of the rest method or method group which is limited
+     * @param limit The limit of the concurrent requests
+     */
+    public ConcurrencyLimiter(String name, Limit limit) {
+        this.name = name;
+        this.limit = limit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Admits a request if the limit is not exceeded. An admitted request must be released by
+     * {@link #release(long, int, boolean)} when it is completed.
+     *
+     * @return The number of concurrent requests including the admitted one or <code>-1</code> if the request is
+     * rejected
+     */
+    public int tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit.getLimit()) {
+                rejected.increment();
+                return -1;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        admitted.increment();
+        return current + 1;
+    }
+
+    /**
+     * Releases an admitted request and passes its latency to the limit
+     *
+     * @param start    The {@link System#nanoTime()} when the request was admitted
+     * @param inFlight The number of concurrent requests returned by {@link #tryAcquire()}
+     * @param dropped  <code>true</code> if the request failed with a server error
+     */
+    public void release(long start, int inFlight, boolean dropped) {
+        this.inFlight.decrementAndGet();
+        limit.onSample(System.nanoTime() - start, inFlight, dropped);
+    }
+
+    /**
+     * Returns the number of admitted requests which are not completed yet
+     *
+     * @return The number of concurrent requests
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter " + name + ": " + getInFlight() + " of " + limit;
+    }
+}
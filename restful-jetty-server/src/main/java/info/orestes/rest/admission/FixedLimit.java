@@ -0,0 +1,31 @@
+package info.orestes.rest.admission;
+
+/**
+ * A limit which does not change
+ */
+public class FixedLimit implements Limit {
+
+    private final int limit;
+
+    public FixedLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit must be positive: " + limit);
+        }
+
+        this.limit = limit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long latency, int inFlight, boolean dropped) {
+    }
+
+    @Override
+    public String toString() {
+        return "FixedLimit " + limit;
+    }
+}
@@ -0,0 +1,27 @@
+package info.orestes.rest.admission;
+
+/**
+ * A limit of the concurrent requests which are admitted by a {@link ConcurrencyLimiter}. Adaptive limits adjust
+ * themselves by the samples of the completed requests.
+ * <br>
+ * <br>
+ * Concurrency Note: {@link #onSample(long, int, boolean)} is called by multiple request threads at the same time.
+ */
+public interface Limit {
+
+    /**
+     * Returns the current limit
+     *
+     * @return The maximum number of concurrent requests
+     */
+    int getLimit();
+
+    /**
+     * Called for each completed request
+     *
+     * @param latency  The latency of the request in nanoseconds
+     * @param inFlight The number of concurrent requests when the request was started
+     * @param dropped  <code>true</code> if the request failed with a server error, which indicates an overload
+     */
+    void onSample(long latency, int inFlight, boolean dropped);
+}
@@ -0,0 +1,189 @@
+package info.orestes.rest.admission;
+
+import info.orestes.rest.metrics.JmxMetricsExporter;
+import info.orestes.rest.service.RestRouter;
+import info.orestes.rest.util.Deadline;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds requests which waited too long in the queue of the server before they are routed, so an overloaded server
+ * does not spend its capacity on requests whose clients have likely given up. The handler must be placed in front of
+ * the {@link RestRouter}, e.g.
+ * <pre>
+ * server.setHandler(sheddingHandler);
+ * sheddingHandler.setHandler(router);
+ * </pre>
+ * The queue delay is the longer of two measures. If the server runs on a {@link QueueDelayThreadPool}, the time the
+ * job which handles the request waited in the queue of the thread pool is measured with nanosecond precision. This
+ * covers HTTP/1 requests, which are parsed by the job that handles them. In addition the time from the start of
+ * parsing the request header until the request reaches this handler is measured with millisecond precision. It covers
+ * the time an HTTP/2 stream waits for a thread after its header is parsed and the time in the handlers in front of
+ * this one. Whether a request is shed is decided by a {@link QueueDelayController}, which drops requests above a fixed
+ * maximum delay or adapts the tolerated delay CoDel-style to a persistent queue. Requests whose
+ * {@link Deadline#HEADER} elapsed while they waited are shed as well.
+ * <br>
+ * <br>
+ * Shed requests get an empty 503 Service Unavailable response with a Retry-After header, without reading the request
+ * body. The {@link QueueDelayMetrics} are registered as MBean
+ * <code>info.orestes.rest:type=QueueDelay</code> on the platform MBean server if JMX is enabled.
+ */
+public class LoadSheddingHandler extends HandlerWrapper {
+
+    private static final Logger LOG = Log.getLogger(LoadSheddingHandler.class);
+
+    private final QueueDelayController controller;
+    private final QueueDelayMetrics metrics;
+    private final boolean jmxEnabled;
+    private ObjectName objectName;
+    private long retryAfter = 1;
+
+    /**
+     * Creates a handler with an adaptive {@link QueueDelayController} and JMX enabled
+     */
+    public LoadSheddingHandler() {
+        this(new QueueDelayController(), true);
+    }
+
+    /**
+     * Creates a handler
+     *
+     * @param controller The controller which decides if a request is shed
+     * @param jmxEnabled <code>true</code> to register the metrics as MBean
+     */
+    public LoadSheddingHandler(QueueDelayController controller, boolean jmxEnabled) {
+        this.controller = controller;
+        this.metrics = new QueueDelayMetrics(controller);
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    public QueueDelayController getController() {
+        return controller;
+    }
+
+    public QueueDelayMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the value of the Retry-After header of shed requests
+     *
+     * @return The delay in seconds
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Sets the value of the Retry-After header of shed requests, 1 second by default
+     *
+     * @param retryAfter The delay in seconds
+     */
+    public void setRetryAfter(long retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        if (jmxEnabled) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(JmxMetricsExporter.DOMAIN + ":type=QueueDelay");
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(metrics, name);
+                objectName = name;
+            } catch (Exception e) {
+                LOG.warn("The queue delay metrics can not be registered.", e);
+            }
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                LOG.debug(e);
+            }
+            objectName = null;
+        }
+
+        super.doStop();
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+        throws IOException, ServletException {
+        if (baseRequest.getDispatcherType() == DispatcherType.REQUEST) {
+            long delay = getQueueDelay(baseRequest);
+            boolean admitted = controller.admit(delay, System.nanoTime()) && !isExpired(baseRequest, delay);
+            metrics.record(delay, admitted);
+
+            if (!admitted) {
+                shed(baseRequest, response);
+                return;
+            }
+        }
+
+        super.handle(target, baseRequest, request, response);
+    }
+
+    /**
+     * Returns the time the request waited before it reaches this handler, see the class description for what is
+     * included
+     *
+     * @param baseRequest The request
+     * @return The queue delay in nanoseconds
+     */
+    protected long getQueueDelay(Request baseRequest) {
+        long timeStamp = baseRequest.getTimeStamp();
+        long parsed = timeStamp == 0 ? 0
+            : TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - timeStamp));
+        // the wait of an HTTP/2 stream in the thread pool queue is part of the time since its header was parsed
+        return Math.max(QueueDelayThreadPool.takeWait(), parsed);
+    }
+
+    /**
+     * Indicates if the {@link Deadline#HEADER} of the request elapsed while the request waited
+     *
+     * @param baseRequest The request
+     * @param queueDelay  The queue delay of the request in nanoseconds
+     * @return <code>true</code> if the client does not wait for the response anymore
+     */
+    protected boolean isExpired(Request baseRequest, long queueDelay) {
+        Deadline deadline = Deadline.parse(baseRequest.getHeader(Deadline.HEADER));
+        return deadline != null && deadline.getRemaining(TimeUnit.NANOSECONDS) <= queueDelay;
+    }
+
+    private void shed(Request baseRequest, HttpServletResponse response) {
+        baseRequest.setHandled(true);
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE_503);
+        response.setHeader(HttpHeader.RETRY_AFTER.asString(), Long.toString(retryAfter));
+        response.setContentLength(0);
+        if (baseRequest.getContentLengthLong() > 0
+            || baseRequest.getHeader(HttpHeader.TRANSFER_ENCODING.asString()) != null) {
+            //the body is not read, therefore the connection can not be reused
+            response.setHeader(HttpHeader.CONNECTION.asString(), HttpHeaderValue.CLOSE.asString());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package info.orestes.rest.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides if a request is dropped by the time it waited in the queue of the server, based on the CoDel (controlled
+ * delay) algorithm. The controller observes the minimum queue delay of each interval. If the minimum exceeds the
+ * target, the queue did not drain during the whole interval and the server is considered overloaded: requests which
+ * waited longer than the target are dropped. Otherwise only requests which waited longer than the interval are
+ * dropped, which tolerates short bursts.
+ * <br>
+ * <br>
+ * A controller with the same target and interval drops all requests above a fixed maximum queue delay.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time, the state is updated lock-free.
+ */
+public class QueueDelayController {
+
+    public static final long DEFAULT_TARGET = TimeUnit.MILLISECONDS.toNanos(10);
+    public static final long DEFAULT_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long target;
+    private final long interval;
+    private final AtomicLong intervalStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong minDelay = new AtomicLong(Long.MAX_VALUE);
+    private volatile boolean overloaded;
+
+    /**
+     * Creates an adaptive controller with the {@link #DEFAULT_TARGET} and the {@link #DEFAULT_INTERVAL}
+     */
+    public QueueDelayController() {
+        this(DEFAULT_TARGET, DEFAULT_INTERVAL, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates an adaptive controller
+     *
+     * @param target   The tolerated queue delay while the server is overloaded
+     * @param interval The interval in which the queue must drain below the target once and the tolerated queue delay
+     *                 while the server is not overloaded
+     * @param unit     The unit of the target and the interval
+     */
+    public QueueDelayController(long target, long interval, TimeUnit unit) {
+        if (target <= 0 || interval < target) {
+            throw new IllegalArgumentException("The target must be positive and not exceed the interval: " + target
+                + ", " + interval);
+        }
+
+        this.target = unit.toNanos(target);
+        this.interval = unit.toNanos(interval);
+    }
+
+    /**
+     * Creates a controller which drops all requests above a fixed queue delay
+     *
+     * @param maxDelay The maximum queue delay
+     * @param unit     The unit of the maximum queue delay
+     * @return The fixed controller
+     */
+    public static QueueDelayController fixed(long maxDelay, TimeUnit unit) {
+        return new QueueDelayController(maxDelay, maxDelay, unit);
+    }
+
+    public long getTarget(TimeUnit unit) {
+        return unit.convert(target, TimeUnit.NANOSECONDS);
+    }
+
+    public long getInterval(TimeUnit unit) {
+        return unit.convert(interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Indicates if the minimum queue delay of the last interval exceeded the target
+     *
+     * @return <code>true</code> if requests are dropped above the target
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * Records the queue delay of a request and decides if the request is admitted
+     *
+     * @param delay The time the request waited in nanoseconds
+     * @param now   The current {@link System#nanoTime()}
+     * @return <code>true</code> if the request should be processed, <code>false</code> if it should be dropped
+     */
+    public boolean admit(long delay, long now) {
+        long start = intervalStart.get();
+        if (now - start >= interval && intervalStart.compareAndSet(start, now)) {
+            overloaded = minDelay.getAndSet(Long.MAX_VALUE) > target;
+        }
+
+        minDelay.accumulateAndGet(delay, Math::min);
+        return delay <= (overloaded ? target : interval);
+    }
+}
@@ -0,0 +1,92 @@
+package info.orestes.rest.admission;
+
+import info.orestes.rest.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The queue delay of the requests seen by a {@link LoadSheddingHandler} and the number of admitted and shed requests
+ * <br>
+ * <br>
+ * Concurrency Note: All counters are contention free adders and the delays are recorded in a lock-free
+ * {@link LatencyHistogram}, so one instance can be updated by multiple threads at the same time.
+ */
+public class QueueDelayMetrics implements QueueDelayMetricsMBean {
+
+    private final QueueDelayController controller;
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LatencyHistogram queueDelay = new LatencyHistogram();
+
+    public QueueDelayMetrics(QueueDelayController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Records the queue delay of a request
+     *
+     * @param delay    The queue delay in nanoseconds
+     * @param admitted <code>false</code> if the request was shed
+     */
+    public void record(long delay, boolean admitted) {
+        (admitted ? this.admitted : shed).increment();
+        queueDelay.record(TimeUnit.NANOSECONDS.toMicros(delay));
+    }
+
+    /**
+     * Returns the queue delay histogram of all requests in microseconds
+     *
+     * @return The queue delay histogram
+     */
+    public LatencyHistogram getQueueDelay() {
+        return queueDelay;
+    }
+
+    @Override
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    @Override
+    public long getShed() {
+        return shed.sum();
+    }
+
+    @Override
+    public boolean isOverloaded() {
+        return controller.isOverloaded();
+    }
+
+    @Override
+    public double getQueueDelayMean() {
+        return queueDelay.getMean() / 1000;
+    }
+
+    @Override
+    public double getQueueDelay50thPercentile() {
+        return queueDelay.getValueAtPercentile(50) / 1000d;
+    }
+
+    @Override
+    public double getQueueDelay99thPercentile() {
+        return queueDelay.getValueAtPercentile(99) / 1000d;
+    }
+
+    @Override
+    public double getQueueDelayMax() {
+        return queueDelay.getMax() / 1000d;
+    }
+
+    @Override
+    public void reset() {
+        admitted.reset();
+        shed.reset();
+        queueDelay.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "QueueDelayMetrics: " + getAdmitted() + " admitted, " + getShed() + " shed";
+    }
+}
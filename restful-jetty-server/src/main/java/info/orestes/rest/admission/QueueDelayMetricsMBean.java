@@ -0,0 +1,23 @@
+package info.orestes.rest.admission;
+
+/**
+ * The JMX view of the {@link QueueDelayMetrics}, all delays are reported in milliseconds
+ */
+public interface QueueDelayMetricsMBean {
+
+    long getAdmitted();
+
+    long getShed();
+
+    boolean isOverloaded();
+
+    double getQueueDelayMean();
+
+    double getQueueDelay50thPercentile();
+
+    double getQueueDelay99thPercentile();
+
+    double getQueueDelayMax();
+
+    void reset();
+}
@@ -0,0 +1,81 @@
+package info.orestes.rest.admission;
+
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * A {@link QueuedThreadPool} which measures how long its jobs wait in the queue before a thread runs them. The server
+ * must be created with this pool to let the {@link LoadSheddingHandler} take the thread pool queue into account, e.g.
+ * <pre>
+ * Server server = new Server(new QueueDelayThreadPool());
+ * </pre>
+ * The wait of a job is taken by the first request which is handled while the job runs. Jetty parses and handles
+ * HTTP/1 requests by the job which reads their connection, which is queued when all threads of the pool are busy.
+ * Jobs which are run directly by the thread which produced them, e.g. by the selector while threads are idle, did not
+ * wait in the queue and do not provide a wait.
+ */
+public class QueueDelayThreadPool extends QueuedThreadPool {
+
+    private static final ThreadLocal<long[]> WAIT = ThreadLocal.withInitial(() -> new long[1]);
+
+    public QueueDelayThreadPool() {
+        super();
+    }
+
+    public QueueDelayThreadPool(int maxThreads) {
+        super(maxThreads);
+    }
+
+    public QueueDelayThreadPool(int maxThreads, int minThreads) {
+        super(maxThreads, minThreads);
+    }
+
+    /**
+     * Returns and resets the time the job which is run by the current thread waited in the queue of a
+     * {@link QueueDelayThreadPool}
+     *
+     * @return The wait in nanoseconds or 0 if the wait of the current job was already taken or the current thread
+     * does not run a queued job
+     */
+    public static long takeWait() {
+        long[] wait = WAIT.get();
+        long result = wait[0];
+        wait[0] = 0;
+        return result;
+    }
+
+    @Override
+    public void execute(Runnable job) {
+        super.execute(new TimedJob(job));
+    }
+
+    private static class TimedJob implements Runnable, Invocable {
+        private final Runnable job;
+        private final long queued = System.nanoTime();
+
+        TimedJob(Runnable job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            long[] wait = WAIT.get();
+            wait[0] = Math.max(0, System.nanoTime() - queued);
+            try {
+                job.run();
+            } finally {
+                wait[0] = 0;
+            }
+        }
+
+        @Override
+        public InvocationType getInvocationType() {
+            return Invocable.getInvocationType(job);
+        }
+
+        @Override
+        public String toString() {
+            return job.toString();
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package info.orestes.rest.batch;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.error.BadRequest;
+import info.orestes.rest.error.InternalServerError;
+import info.orestes.rest.error.PayloadTooLarge;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.error.UnsupportedMediaType;
+import info.orestes.rest.service.PathElement;
+import info.orestes.rest.service.RestMethod;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.util.Deadline;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes a batch of requests which are sent in one <code>multipart/mixed</code> request, see {@link BatchFormat}.
+ * Each request is executed through a {@link LocalConnector} of the server, so it passes the same handlers as a
+ * request of a remote client, i.e. the router, the converters and all handlers in between. The requests are executed
+ * in parallel on a bounded executor and their responses are streamed in the order of their completion, they are
+ * related to their requests by the <code>Content-ID</code> of the parts.
+ * <br>
+ * <br>
+ * The batch method is added to the router by {@link #createMethod(String)} and the server must provide a local
+ * connector, e.g.
+ * <pre>
+ * server.addConnector(new LocalConnector(server));
+ * router.add(BatchServlet.createMethod("/batch"));
+ * </pre>
+ * The requests of a batch inherit the Authorization and Cookie headers, the scheme, the remote address, the server name
+ * and port and the {@link Deadline} of the batch request. A request of a batch can not be a batch itself, and batches
+ * which are larger than the {@link #setMaxBodySize(int) maximum body size} are rejected with 413. Requests which can
+ * not be executed, because the executor is saturated or the batch was abandoned, are answered with a 503 part,
+ * requests which exceed the part timeout with a 504 part.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+@SuppressWarnings("serial")
+public class BatchServlet extends RestServlet {
+
+    /**
+     * The name of the rest method which is created by {@link #createMethod(String)}
+     */
+    public static final String METHOD_NAME = "batch";
+    /**
+     * The request attribute which marks the requests of a batch
+     */
+    public static final String SUB_REQUEST_ATTRIBUTE = BatchServlet.class.getName() + ".subRequest";
+    public static final int DEFAULT_PARALLELISM = 16;
+    public static final int DEFAULT_MAX_PARTS = 100;
+    public static final int DEFAULT_MAX_BODY_SIZE = 16 * 1024 * 1024;
+
+    private static final Logger LOG = Log.getLogger(BatchServlet.class);
+    private static final String SCHEME_HEADER = "X-Batch-Scheme";
+    private static final String REMOTE_HEADER = "X-Batch-Remote";
+    private static final String AUTHORITY_HEADER = "X-Batch-Authority";
+    private static final List<String> INTERNAL_HEADERS = Arrays.asList(SCHEME_HEADER, REMOTE_HEADER,
+        AUTHORITY_HEADER);
+    private static final List<String> INHERITED_HEADERS = Arrays.asList(HttpHeader.AUTHORIZATION.asString(),
+        HttpHeader.COOKIE.asString());
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final int maxParts;
+    private volatile long partTimeout = TimeUnit.SECONDS.toMillis(30);
+    private volatile int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private volatile LocalConnector connector;
+
+    /**
+     * Creates a batch servlet with the {@link #DEFAULT_PARALLELISM} and {@link #DEFAULT_MAX_PARTS}
+     */
+    public BatchServlet() {
+        this(DEFAULT_PARALLELISM, DEFAULT_MAX_PARTS);
+    }
+
+    /**
+     * Creates a batch servlet
+     *
+     * @param parallelism The maximum number of requests which are executed in parallel over all batches
+     * @param maxParts    The maximum number of requests of one batch
+     */
+    public BatchServlet(int parallelism, int maxParts) {
+        this.maxParts = maxParts;
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(Math.max(maxParts, 16 * parallelism)), runnable -> {
+            Thread thread = new Thread(runnable, "batch-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates the rest method of the batch endpoint
+     *
+     * @param path The path of the batch endpoint, e.g. <code>/batch</code>
+     * @return The POST method which is handled by this servlet
+     */
+    public static RestMethod createMethod(String path) {
+        return createMethod(path, BatchServlet.class);
+    }
+
+    /**
+     * Creates the rest method of the batch endpoint which is handled by a subclass of this servlet
+     *
+     * @param path    The path of the batch endpoint, e.g. <code>/batch</code>
+     * @param servlet The servlet class which handles the batches
+     * @return The POST method which is handled by the servlet
+     */
+    public static RestMethod createMethod(String path, Class<? extends BatchServlet> servlet) {
+        List<PathElement> signature = new ArrayList<>();
+        for (String element : path.split("/")) {
+            if (!element.isEmpty()) {
+                signature.add(PathElement.createPath(element));
+            }
+        }
+
+        return new RestMethod(METHOD_NAME, "Executes multiple requests in one multipart/mixed request",
+            new String[0], "POST", signature, servlet, Collections.emptyMap(), Collections.emptyMap(),
+            Collections.singletonMap(HttpStatus.OK_200, "The responses of the requests"), null, null, false);
+    }
+
+    public long getPartTimeout(TimeUnit unit) {
+        return unit.convert(partTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the maximum execution time of a single request of a batch, 30 seconds by default
+     *
+     * @param timeout The timeout
+     * @param unit    The unit of the timeout
+     */
+    public void setPartTimeout(long timeout, TimeUnit unit) {
+        this.partTimeout = unit.toMillis(timeout);
+    }
+
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Sets the maximum size of a batch request body, larger batches are rejected with 413. The default is
+     * {@link #DEFAULT_MAX_BODY_SIZE}
+     *
+     * @param maxBodySize The maximum size in bytes
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    public LocalConnector getConnector() {
+        return connector;
+    }
+
+    /**
+     * Sets the connector which executes the requests of the batches. If no connector is set, the first
+     * {@link LocalConnector} of the server is used
+     *
+     * @param connector A local connector of the server which serves HTTP/1.1
+     */
+    public synchronized void setConnector(LocalConnector connector) {
+        HttpConnectionFactory factory = connector.getConnectionFactory(HttpConnectionFactory.class);
+        if (factory == null) {
+            throw new IllegalArgumentException("The connector " + connector + " does not serve HTTP/1.1.");
+        }
+
+        factory.getHttpConfiguration().addCustomizer(new SubRequestCustomizer(connector));
+        this.connector = connector;
+    }
+
+    @Override
+    protected CompletableFuture<Void> doPostAsync(Request request, Response response) throws RestException, IOException {
+        if (request.getAttribute(SUB_REQUEST_ATTRIBUTE) != null) {
+            throw new BadRequest("Batches can not be nested.");
+        }
+
+        String boundary = BatchFormat.getBoundary(request.getContentType());
+        if (boundary == null) {
+            throw new UnsupportedMediaType("The batch must be sent as " + BatchFormat.MULTIPART_MIXED
+                + " with a boundary.");
+        }
+
+        List<BatchPart> parts = BatchFormat.parse(readBody(request), boundary);
+        if (parts.size() > maxParts) {
+            throw new BadRequest("The batch contains " + parts.size() + " requests, at most " + maxParts
+                + " are allowed.");
+        }
+
+        LocalConnector local = getConnector(request);
+        String responseBoundary = BatchFormat.createBoundary();
+        response.setStatus(HttpStatus.OK_200);
+        response.setContentType(BatchFormat.getContentType(responseBoundary));
+        PartWriter writer = new PartWriter(response.getOutputStream(), responseBoundary);
+
+        CompletableFuture<?>[] results = new CompletableFuture<?>[parts.size()];
+        for (int i = 0; i < parts.size(); ++i) {
+            BatchPart part = parts.get(i);
+            CompletableFuture<BatchPart> execution;
+            try {
+                execution = CompletableFuture.supplyAsync(() -> execute(local, request, part), executor);
+                writer.add(execution);
+            } catch (RejectedExecutionException e) {
+                execution = CompletableFuture.completedFuture(error(part, HttpStatus.SERVICE_UNAVAILABLE_503,
+                    "The batch executor is saturated."));
+            }
+
+            results[i] = execution.thenAccept(writer::write);
+        }
+
+        CompletableFuture<Void> result = CompletableFuture.allOf(results).thenRun(writer::end);
+        // the responses of requests which complete after the batch are neither executed nor written
+        request.getCancellation().thenRun(writer::close);
+        result.whenComplete((empty, error) -> writer.close());
+        return result;
+    }
+
+    /**
+     * Executes a single request of a batch
+     *
+     * @param local The connector which executes the request
+     * @param batch The batch request
+     * @param part  The request part
+     * @return The response part
+     */
+    protected BatchPart execute(LocalConnector local, Request batch, BatchPart part) {
+        String target = part.getTarget();
+        if (part.getMethod() == null || target == null || !target.startsWith("/")) {
+            return error(part, HttpStatus.BAD_REQUEST_400, "The request line " + part.getStartLine() + " is invalid.");
+        }
+
+        if (batch.isCancelled()) {
+            return error(part, HttpStatus.SERVICE_UNAVAILABLE_503, "The batch was cancelled.");
+        }
+
+        long timeout = partTimeout;
+        Deadline deadline = batch.getDeadline();
+        if (deadline != null) {
+            timeout = Math.min(timeout, Math.max(1, deadline.getRemaining(TimeUnit.MILLISECONDS)));
+        }
+
+        try {
+            ByteBuffer responseBuffer = local.getResponse(toRequest(batch, part), timeout, TimeUnit.MILLISECONDS);
+            if (responseBuffer == null || !responseBuffer.hasRemaining()) {
+                return error(part, HttpStatus.GATEWAY_TIMEOUT_504, "The request has timed out.");
+            }
+
+            byte[] bytes = BufferUtil.toArray(responseBuffer);
+            BatchPart response = BatchFormat.parseMessage(part.getContentId(), bytes, 0, bytes.length);
+
+            List<Map.Entry<String, String>> headers = new ArrayList<>(response.getHeaders());
+            headers.removeIf(header -> HttpHeader.CONNECTION.is(header.getKey())
+                || HttpHeader.DATE.is(header.getKey()) || HttpHeader.SERVER.is(header.getKey()));
+            return new BatchPart(part.getContentId(), response.getStartLine(), headers, response.getBody());
+        } catch (Exception e) {
+            LOG.warn("The batch request " + part + " has failed.", e);
+            return error(part, HttpStatus.INTERNAL_SERVER_ERROR_500, "The request has failed.");
+        }
+    }
+
+    private byte[] readBody(Request request) throws IOException, RestException {
+        int maxBodySize = this.maxBodySize;
+        long length = request.getContentLengthLong();
+        if (length > maxBodySize) {
+            throw new PayloadTooLarge("The batch is larger than " + maxBodySize + " bytes.");
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(length > 0 ? (int) length : 1024);
+        IO.copy(request.getInputStream(), body, maxBodySize + 1L);
+        if (body.size() > maxBodySize) {
+            throw new PayloadTooLarge("The batch is larger than " + maxBodySize + " bytes.");
+        }
+        return body.toByteArray();
+    }
+
+    private static boolean isInternal(String name) {
+        for (String internal : INTERNAL_HEADERS) {
+            if (internal.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ByteBuffer toRequest(Request batch, BatchPart part) throws IOException {
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        for (Map.Entry<String, String> header : part.getHeaders()) {
+            if (!HttpHeader.HOST.is(header.getKey()) && !HttpHeader.CONNECTION.is(header.getKey())
+                && !Deadline.HEADER.equalsIgnoreCase(header.getKey()) && !isInternal(header.getKey())) {
+                headers.add(header);
+            }
+        }
+
+        String host = batch.getHeader(HttpHeader.HOST.asString());
+        headers.add(new SimpleImmutableEntry<>(HttpHeader.HOST.asString(), host != null ? host : "localhost"));
+        headers.add(new SimpleImmutableEntry<>(HttpHeader.CONNECTION.asString(), "close"));
+        headers.add(new SimpleImmutableEntry<>(SCHEME_HEADER, batch.getScheme()));
+        headers.add(new SimpleImmutableEntry<>(REMOTE_HEADER, batch.getRemoteAddr() + ":" + batch.getRemotePort()));
+        headers.add(new SimpleImmutableEntry<>(AUTHORITY_HEADER, batch.getServerName() + ":" + batch.getServerPort()));
+
+        for (String name : INHERITED_HEADERS) {
+            String value = batch.getHeader(name);
+            if (value != null && part.getHeader(name) == null) {
+                headers.add(new SimpleImmutableEntry<>(name, value));
+            }
+        }
+
+        Deadline deadline = Deadline.min(batch.getDeadline(), Deadline.parse(part.getHeader(Deadline.HEADER)));
+        if (deadline != null) {
+            headers.add(new SimpleImmutableEntry<>(Deadline.HEADER, deadline.toHeaderValue()));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(part.getBody().length + 256);
+        BatchFormat.writeMessage(out, new BatchPart(part.getContentId(),
+            part.getMethod() + " " + part.getTarget() + " HTTP/1.1", headers, part.getBody()));
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static BatchPart error(BatchPart part, int status, String message) {
+        return new BatchPart(part.getContentId(), "HTTP/1.1 " + status + " " + HttpStatus.getMessage(status),
+            Collections.singletonList(new SimpleImmutableEntry<>(HttpHeader.CONTENT_TYPE.asString(),
+                "text/plain;charset=utf-8")), message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the configured local connector or the first local connector of the server which executes the batch
+     */
+    private LocalConnector getConnector(Request request) throws RestException {
+        LocalConnector local = connector;
+        if (local != null) {
+            return local;
+        }
+
+        org.eclipse.jetty.server.Request baseRequest = request instanceof RestRequest
+            ? ((RestRequest) request).getBaseRequest() : null;
+        if (baseRequest == null) {
+            throw new InternalServerError("The batch can not be executed without a server.");
+        }
+
+        synchronized (this) {
+            if (connector == null) {
+                Server server = baseRequest.getHttpChannel().getServer();
+                for (Connector candidate : server.getConnectors()) {
+                    if (candidate instanceof LocalConnector) {
+                        setConnector((LocalConnector) candidate);
+                        break;
+                    }
+                }
+
+                if (connector == null) {
+                    throw new InternalServerError("The server has no local connector to execute the batch.");
+                }
+            }
+            return connector;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        super.destroy();
+    }
+
+    /**
+     * Writes the response parts of a batch until all parts are written or the batch is abandoned
+     */
+    private static class PartWriter {
+        private final OutputStream out;
+        private final String boundary;
+        private final Queue<CompletableFuture<BatchPart>> executions = new ConcurrentLinkedQueue<>();
+        private boolean closed;
+
+        PartWriter(OutputStream out, String boundary) {
+            this.out = out;
+            this.boundary = boundary;
+        }
+
+        void add(CompletableFuture<BatchPart> execution) {
+            executions.add(execution);
+            if (isClosed()) {
+                execution.cancel(false);
+            }
+        }
+
+        void write(BatchPart part) {
+            synchronized (out) {
+                if (closed) {
+                    return;
+                }
+
+                try {
+                    BatchFormat.write(out, boundary, part);
+                    out.flush();
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        void end() {
+            synchronized (out) {
+                if (closed) {
+                    return;
+                }
+
+                try {
+                    BatchFormat.writeEnd(out, boundary);
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    closed = true;
+                }
+            }
+        }
+
+        /**
+         * Stops writing and cancels the requests which have not been started yet
+         */
+        void close() {
+            synchronized (out) {
+                closed = true;
+            }
+
+            for (CompletableFuture<BatchPart> execution : executions) {
+                execution.cancel(false);
+            }
+        }
+
+        private boolean isClosed() {
+            synchronized (out) {
+                return closed;
+            }
+        }
+    }
+
+    /**
+     * Marks the requests of the local connector as requests of a batch and applies the scheme of the batch request
+     */
+    private static class SubRequestCustomizer implements HttpConfiguration.Customizer {
+        private final LocalConnector connector;
+
+        SubRequestCustomizer(LocalConnector connector) {
+            this.connector = connector;
+        }
+
+        @Override
+        public void customize(Connector connector, HttpConfiguration channelConfig,
+            org.eclipse.jetty.server.Request request) {
+            // the configuration may be shared with connectors of remote clients
+            if (connector != this.connector) {
+                return;
+            }
+
+            request.setAttribute(SUB_REQUEST_ATTRIBUTE, Boolean.TRUE);
+            String scheme = request.getHeader(SCHEME_HEADER);
+            if (scheme != null) {
+                request.setScheme(scheme);
+                request.setSecure(HttpScheme.HTTPS.is(scheme));
+            }
+
+            InetSocketAddress remote = parseAddress(request.getHeader(REMOTE_HEADER));
+            if (remote != null) {
+                request.setRemoteAddr(remote);
+            }
+
+            InetSocketAddress authority = parseAddress(request.getHeader(AUTHORITY_HEADER));
+            if (authority != null) {
+                request.setAuthority(authority.getHostString(), authority.getPort());
+            }
+        }
+
+        private static InetSocketAddress parseAddress(String value) {
+            int separator = value == null ? -1 : value.lastIndexOf(':');
+            if (separator < 0) {
+                return null;
+            }
+
+            try {
+                // the address is not resolved, the host is passed on as it is
+                return InetSocketAddress.createUnresolved(value.substring(0, separator),
+                    Integer.parseInt(value.substring(separator + 1)));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package info.orestes.rest.cache;
+
+import org.apache.tika.mime.MediaType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identifies a cached response by the name of the rest method, the bound arguments of the request and the negotiated
+ * media type and content encoding of the response
+ */
+public final class CacheKey {
+
+    private final String methodName;
+    private final Map<String, Object> arguments;
+    private final MediaType mediaType;
+    private final String encoding;
+    private final int hash;
+
+    /**
+     * Creates a cache key
+     *
+     * @param methodName The name of the rest method
+     * @param arguments  The bound path, matrix and query arguments, the map is copied
+     * @param mediaType  The negotiated media type of the response
+     */
+    public CacheKey(String methodName, Map<String, Object> arguments, MediaType mediaType) {
+        this(methodName, arguments, mediaType, null);
+    }
+
+    /**
+     * Creates a cache key
+     *
+     * @param methodName The name of the rest method
+     * @param arguments  The bound path, matrix and query arguments, the map is copied
+     * @param mediaType  The negotiated media type of the response
+     * @param encoding   The negotiated content encoding or <code>null</code> if the response is not compressed
+     */
+    public CacheKey(String methodName, Map<String, Object> arguments, MediaType mediaType, String encoding) {
+        this.methodName = methodName;
+        this.arguments = arguments.isEmpty() ? Collections.emptyMap() : new HashMap<>(arguments);
+        this.mediaType = mediaType;
+        this.encoding = encoding;
+        this.hash = ((methodName.hashCode() * 31 + this.arguments.hashCode()) * 31 + mediaType.hashCode()) * 31
+            + Objects.hashCode(encoding);
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public Map<String, Object> getArguments() {
+        return Collections.unmodifiableMap(arguments);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey)) {
+            return false;
+        }
+
+        CacheKey other = (CacheKey) o;
+        return hash == other.hash && methodName.equals(other.methodName) && mediaType.equals(other.mediaType)
+            && arguments.equals(other.arguments) && Objects.equals(encoding, other.encoding);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return methodName + arguments + " " + mediaType + (encoding == null ? "" : " " + encoding);
+    }
+}
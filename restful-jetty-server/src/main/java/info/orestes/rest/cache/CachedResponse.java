@@ -0,0 +1,69 @@
+package info.orestes.rest.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A serialized response body together with the response headers which are replayed on a cache hit
+ */
+public final class CachedResponse {
+
+    private final List<Map.Entry<String, String>> headers;
+    private final byte[] body;
+    private final long created;
+    private final long expires;
+
+    /**
+     * Creates a cached response
+     *
+     * @param headers    The response headers, excluding the content type, which is part of the {@link CacheKey}
+     * @param body       The serialized response body
+     * @param timeToLive The time to live in nanoseconds
+     */
+    public CachedResponse(List<Map.Entry<String, String>> headers, byte[] body, long timeToLive) {
+        this.headers = Collections.unmodifiableList(headers);
+        this.body = body;
+        this.created = System.nanoTime();
+        this.expires = created + timeToLive;
+    }
+
+    public List<Map.Entry<String, String>> getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the time since the response was cached
+     *
+     * @return The age in nanoseconds
+     */
+    public long getAge() {
+        return System.nanoTime() - created;
+    }
+
+    /**
+     * Indicates if the time to live of the response has elapsed
+     *
+     * @return <code>true</code> if the response must not be served anymore
+     */
+    public boolean isExpired() {
+        return System.nanoTime() - expires >= 0;
+    }
+
+    /**
+     * Returns the estimated memory size of the response, which is used to bound the size of the {@link ResponseCache}
+     *
+     * @return The size in bytes
+     */
+    public int getWeight() {
+        int weight = body.length;
+        for (Map.Entry<String, String> header : headers) {
+            weight += header.getKey().length() + header.getValue().length();
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,160 @@
+package info.orestes.rest.cache;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Copies the serialized response to a buffer while it is written to the client and passes it to a consumer when the
+ * response is completed. The consumer receives <code>null</code> if the response can not be shared with other
+ * clients, i.e. if it is not a 200 response, if it sets a cookie, if it has a <code>no-store</code> or
+ * <code>private</code> cache control, if it varies by other headers than the negotiated media type and content
+ * encoding, which are part of the {@link CacheKey}, or if the body exceeds the maximum size.
+ */
+class CaptureInterceptor implements HttpOutput.Interceptor {
+
+    private static final Set<HttpHeader> EXCLUDED_HEADERS = EnumSet.of(HttpHeader.DATE, HttpHeader.CONTENT_TYPE,
+        HttpHeader.CONTENT_LENGTH, HttpHeader.TRANSFER_ENCODING, HttpHeader.CONNECTION, HttpHeader.SERVER,
+        HttpHeader.AGE);
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final HttpOutput.Interceptor next;
+    private final Response response;
+    private final int maxSize;
+    private final long timeToLive;
+    private final Consumer<CachedResponse> consumer;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    /**
+     * Installs a capture interceptor on the output of the response
+     *
+     * @param response   The response to capture
+     * @param maxSize    The maximum size of the captured body
+     * @param timeToLive The time to live of the captured response in nanoseconds
+     * @param consumer   The consumer which receives the captured response or <code>null</code>
+     */
+    static void install(Response response, int maxSize, long timeToLive, Consumer<CachedResponse> consumer) {
+        HttpOutput output = response.getHttpOutput();
+        output.setInterceptor(new CaptureInterceptor(output.getInterceptor(), response, maxSize, timeToLive,
+            consumer));
+    }
+
+    private CaptureInterceptor(HttpOutput.Interceptor next, Response response, int maxSize, long timeToLive,
+        Consumer<CachedResponse> consumer) {
+        this.next = next;
+        this.response = response;
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void write(ByteBuffer content, boolean last, Callback callback) {
+        if (buffer != null) {
+            int length = content.remaining();
+            if (buffer.size() + length > maxSize) {
+                buffer = null;
+                consumer.accept(null);
+            } else if (content.hasArray()) {
+                buffer.write(content.array(), content.arrayOffset() + content.position(), length);
+            } else {
+                byte[] bytes = new byte[length];
+                content.duplicate().get(bytes);
+                buffer.write(bytes, 0, length);
+            }
+
+            if (last && buffer != null) {
+                byte[] body = buffer.toByteArray();
+                buffer = null;
+                consumer.accept(capture(body));
+            }
+        }
+
+        next.write(content, last, callback);
+    }
+
+    private CachedResponse capture(byte[] body) {
+        if (response.getStatus() != Response.SC_OK) {
+            return null;
+        }
+
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        for (String name : response.getHeaderNames()) {
+            HttpHeader header = HttpHeader.CACHE.get(name);
+            if (header == HttpHeader.SET_COOKIE) {
+                return null;
+            }
+
+            if (header == HttpHeader.VARY) {
+                for (String value : response.getHeaders(name)) {
+                    if (!isVaryingByNegotiation(value)) {
+                        return null;
+                    }
+                }
+            }
+
+            if (EXCLUDED_HEADERS.contains(header) || SERVER_TIMING.equalsIgnoreCase(name)) {
+                continue;
+            }
+
+            for (String value : response.getHeaders(name)) {
+                if (header == HttpHeader.CACHE_CONTROL && isPrivate(value)) {
+                    return null;
+                }
+                headers.add(new SimpleImmutableEntry<>(name, value));
+            }
+        }
+
+        return new CachedResponse(headers, body, timeToLive);
+    }
+
+    private static boolean isVaryingByNegotiation(String vary) {
+        for (String name : vary.split(",")) {
+            name = name.trim();
+            if (!HttpHeader.ACCEPT.is(name) && !HttpHeader.ACCEPT_ENCODING.is(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPrivate(String cacheControl) {
+        for (String directive : cacheControl.split(",")) {
+            directive = directive.trim().toLowerCase(Locale.ROOT);
+            if (directive.equals("no-store") || directive.equals("private") || directive.startsWith("private=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public HttpOutput.Interceptor getNextInterceptor() {
+        return next;
+    }
+
+    @Override
+    public boolean isOptimizedForDirectBuffers() {
+        return false;
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (buffer != null) {
+            buffer.reset();
+        }
+        next.resetBuffer();
+    }
+}
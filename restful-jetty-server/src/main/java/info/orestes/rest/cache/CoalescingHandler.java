@@ -0,0 +1,190 @@
+package info.orestes.rest.cache;
+
+import info.orestes.rest.RestServlet.AsyncTimeoutListener;
+import info.orestes.rest.cache.RequestCoalescer.Flight;
+import info.orestes.rest.compression.ContentEncoding;
+import info.orestes.rest.error.GatewayTimeOut;
+import info.orestes.rest.error.NotAcceptable;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.RestHandler;
+import info.orestes.rest.service.RestMethod;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import info.orestes.rest.service.RestRouter;
+import org.apache.tika.mime.MediaType;
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces concurrent identical GET requests, so that only one of them invokes the servlet while the others wait
+ * asynchronously for its response. The handler must be placed between the {@link RestRouter} and the handler which
+ * dispatches the request, after a {@link ResponseCacheHandler} if both are used, e.g.
+ * <pre>
+ * router.setHandler(coalescingHandler);
+ * coalescingHandler.setHandler(new RestServletHandler());
+ * </pre>
+ * Coalescing is opt-in per method, either by the <code>%coalesce</code> annotation in the service document or by
+ * {@link #setEnabled(String, boolean)}. Requests are identical if they have the same method, bound arguments and
+ * negotiated media type and content encoding, requests with an Authorization or a Cookie header are never coalesced.
+ * The serialized response of the executed request is replayed to all waiting requests if it can be shared, see
+ * {@link ResponseCacheHandler}. Otherwise the waiting requests are dispatched again and are executed by themselves.
+ * <br>
+ * <br>
+ * Waiting requests are completed with 504 Gateway Timeout if the executed request does not complete within their
+ * async timeout.
+ */
+public class CoalescingHandler extends RestHandler {
+
+    /**
+     * The name of the service document annotation which enables coalescing for a method
+     */
+    public static final String ANNOTATION = "coalesce";
+
+    /**
+     * The default maximum size of a response body which is shared with the waiting requests
+     */
+    public static final int DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+
+    private static final Logger LOG = Log.getLogger(CoalescingHandler.class);
+    private static final String EXECUTE = CoalescingHandler.class.getName() + ".execute";
+
+    private final RequestCoalescer coalescer;
+    private final ConcurrentHashMap<String, Boolean> enabled = new ConcurrentHashMap<>();
+    private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+    public CoalescingHandler() {
+        this(new RequestCoalescer());
+    }
+
+    public CoalescingHandler(RequestCoalescer coalescer) {
+        this.coalescer = coalescer;
+    }
+
+    public RequestCoalescer getCoalescer() {
+        return coalescer;
+    }
+
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Sets the maximum size of a response body which is shared with the waiting requests, larger responses are
+     * executed by each waiting request
+     *
+     * @param maxBodySize The size in bytes
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Enables or disables coalescing for a method, which overrides the annotation of the service document
+     *
+     * @param methodName The name of the rest method
+     * @param enabled    <code>true</code> to coalesce the requests of the method
+     */
+    public void setEnabled(String methodName, boolean enabled) {
+        this.enabled.put(methodName, enabled);
+    }
+
+    /**
+     * Indicates if the requests of a method are coalesced
+     *
+     * @param method The rest method
+     * @return <code>true</code> if identical requests are coalesced
+     */
+    protected boolean isEnabled(RestMethod method) {
+        Boolean isEnabled = enabled.get(method.getName());
+        if (isEnabled == null) {
+            isEnabled = enabled.computeIfAbsent(method.getName(), name -> "GET".equals(method.getAction())
+                && method.getResponseType() != null && method.getAnnotation(ANNOTATION) != null);
+        }
+        return isEnabled;
+    }
+
+    @Override
+    public void handle(RestRequest request, RestResponse response) throws IOException, ServletException, RestException {
+        Request baseRequest = request.getBaseRequest();
+        if (baseRequest == null || !"GET".equals(request.getMethod()) || request.getAttribute(EXECUTE) != null
+            || ResponseCacheHandler.hasCredentials(request) || !isEnabled(request.getRestMethod())) {
+            super.handle(request, response);
+            return;
+        }
+
+        RestMethod method = request.getRestMethod();
+        MediaType mediaType;
+        try {
+            mediaType = response.getPreferredContentType(method.getResponseType());
+        } catch (NotAcceptable e) {
+            super.handle(request, response);
+            return;
+        }
+
+        ContentEncoding encoding = response.getNegotiatedEncoding();
+        CacheKey key = new CacheKey(method.getName(), request.getArguments(), mediaType,
+            encoding == null ? null : encoding.getName());
+
+        Flight flight = coalescer.join(key);
+        if (flight.isLeader()) {
+            execute(flight, baseRequest, request, response);
+        } else {
+            await(flight, request, response);
+        }
+    }
+
+    private void execute(Flight flight, Request baseRequest, RestRequest request, RestResponse response)
+        throws IOException, ServletException, RestException {
+        //the last write of a synchronous response happens after the handler returns, so the flight is completed
+        //by the capture and only released without a response if the exchange completes without a last write
+        CaptureInterceptor.install(baseRequest.getResponse(), maxBodySize, 0,
+            captured -> coalescer.complete(flight, captured));
+        baseRequest.getHttpChannel().addListener(new HttpChannel.Listener() {
+            @Override
+            public void onComplete(Request completed) {
+                coalescer.complete(flight, null);
+            }
+        });
+
+        super.handle(request, response);
+    }
+
+    private void await(Flight flight, RestRequest request, RestResponse response) {
+        AsyncContext context = request.startAsync(request, response);
+        CompletableFuture<CachedResponse> result = new CompletableFuture<>();
+
+        context.addListener((AsyncTimeoutListener) event -> {
+            //will invoke result.whenComplete -> context.complete() synchronously
+            result.completeExceptionally(new GatewayTimeOut("The request has timed out."));
+        });
+
+        flight.getResult().thenAccept(result::complete);
+        result.whenComplete((captured, error) -> {
+            if (error != null) {
+                response.sendError(RestException.of(error));
+                context.complete();
+            } else if (captured == null) {
+                request.setAttribute(EXECUTE, Boolean.TRUE);
+                context.dispatch();
+            } else {
+                //replay on a pooled thread instead of blocking the thread of the leader
+                context.start(() -> {
+                    try {
+                        ResponseCacheHandler.send(response, flight.getKey().getMediaType(), captured);
+                    } catch (IOException e) {
+                        LOG.debug(e);
+                    }
+                    context.complete();
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package info.orestes.rest.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the in-flight executions of identical requests. The first request which {@link #join(CacheKey) joins} a key
+ * becomes the leader of the flight and executes the request, all requests which join the key until the leader
+ * {@link #complete(Flight, CachedResponse) completes} the flight wait for the response of the leader.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentHashMap<CacheKey, CompletableFuture<CachedResponse>> flights = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Joins the flight of the given key or starts a new one if no identical request is in flight
+     *
+     * @param key The key of the request
+     * @return The joined flight
+     */
+    public Flight join(CacheKey key) {
+        CompletableFuture<CachedResponse> result = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> inFlight = flights.putIfAbsent(key, result);
+        if (inFlight != null) {
+            coalesced.increment();
+            return new Flight(key, false, inFlight);
+        }
+
+        executions.increment();
+        return new Flight(key, true, result);
+    }
+
+    /**
+     * Completes a flight and passes the response of the leader to all waiting requests. Subsequent calls are ignored.
+     *
+     * @param flight   The flight started by {@link #join(CacheKey)}
+     * @param response The captured response of the leader or <code>null</code> if the response can not be shared, in
+     *                 that case the waiting requests must be executed by themselves
+     */
+    public void complete(Flight flight, CachedResponse response) {
+        if (!flight.isLeader()) {
+            throw new IllegalArgumentException("Only the leader can complete the flight of " + flight.getKey());
+        }
+
+        flights.remove(flight.getKey(), flight.getResult());
+        flight.getResult().complete(response);
+    }
+
+    /**
+     * Returns the number of distinct requests which are currently in flight
+     *
+     * @return The number of in-flight leaders
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    /**
+     * Returns the number of requests which were executed as leader of a flight
+     *
+     * @return The number of executed requests
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * Returns the number of requests which waited for the response of a leader instead of being executed
+     *
+     * @return The number of coalesced requests
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * A request which joined the execution of a key
+     */
+    public static final class Flight {
+        private final CacheKey key;
+        private final boolean leader;
+        private final CompletableFuture<CachedResponse> result;
+
+        private Flight(CacheKey key, boolean leader, CompletableFuture<CachedResponse> result) {
+            this.key = key;
+            this.leader = leader;
+            this.result = result;
+        }
+
+        public CacheKey getKey() {
+            return key;
+        }
+
+        /**
+         * Indicates if the request started the flight and must be executed
+         *
+         * @return <code>true</code> if the request is the leader of the flight
+         */
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * Returns the future which is completed with the captured response of the leader
+         *
+         * @return The response of the leader or <code>null</code> if it can not be shared
+         */
+        public CompletableFuture<CachedResponse> getResult() {
+            return result;
+        }
+    }
+}
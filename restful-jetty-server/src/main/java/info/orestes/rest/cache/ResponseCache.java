@@ -0,0 +1,185 @@
+package info.orestes.rest.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A size bounded store of serialized responses. The least recently used responses are evicted when the total size
+ * exceeds the maximum size and responses are dropped when their time to live elapsed.
+ * <br>
+ * <br>
+ * The cache can be injected into servlets by binding it in the module, e.g.
+ * <code>module.bindInstance(ResponseCache.class, cache)</code>, so they can invalidate the responses of the
+ * resources they modify.
+ * <br>
+ * <br>
+ * Concurrency Note: All operations are synchronized on the cache, the serialized bodies are never copied while the
+ * lock is held.
+ */
+public class ResponseCache {
+
+    /**
+     * The default maximum size of 64 MiB
+     */
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    private final LinkedHashMap<CacheKey, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxSize;
+    private final int maxEntrySize;
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache with the {@link #DEFAULT_MAX_SIZE}
+     */
+    public ResponseCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache
+     *
+     * @param maxSize The maximum total size of the cached responses in bytes, single responses may occupy at most a
+     *                sixteenth of it
+     */
+    public ResponseCache(long maxSize) {
+        this.maxSize = maxSize;
+        this.maxEntrySize = (int) Math.min(Integer.MAX_VALUE, maxSize / 16);
+    }
+
+    /**
+     * Returns the maximum size of a single response which is accepted by the cache
+     *
+     * @return The size in bytes
+     */
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the cached response for the given key
+     *
+     * @param key The key of the response
+     * @return The response or <code>null</code> if it is not cached or expired
+     */
+    public synchronized CachedResponse get(CacheKey key) {
+        CachedResponse response = entries.get(key);
+        if (response != null && response.isExpired()) {
+            remove(key);
+            response = null;
+        }
+
+        if (response == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return response;
+    }
+
+    /**
+     * Caches a response, responses which exceed the {@link #getMaxEntrySize()} are ignored
+     *
+     * @param key      The key of the response
+     * @param response The response to cache
+     */
+    public synchronized void put(CacheKey key, CachedResponse response) {
+        int weight = response.getWeight();
+        if (weight > maxEntrySize) {
+            return;
+        }
+
+        remove(key);
+        entries.put(key, response);
+        size += weight;
+
+        Iterator<CachedResponse> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().getWeight();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the cached response of the given key
+     *
+     * @param key The key of the response
+     */
+    public synchronized void invalidate(CacheKey key) {
+        remove(key);
+    }
+
+    /**
+     * Removes all cached responses of a rest method
+     *
+     * @param methodName The name of the rest method
+     */
+    public void invalidate(String methodName) {
+        invalidateIf(key -> key.getMethodName().equals(methodName));
+    }
+
+    /**
+     * Removes all cached responses whose key matches the given predicate
+     *
+     * @param predicate The predicate which selects the keys to remove
+     */
+    public synchronized void invalidateIf(Predicate<CacheKey> predicate) {
+        for (Iterator<Map.Entry<CacheKey, CachedResponse>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<CacheKey, CachedResponse> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                size -= entry.getValue().getWeight();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached responses
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of cached responses
+     *
+     * @return The number of responses
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total size of the cached responses
+     *
+     * @return The size in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private void remove(CacheKey key) {
+        CachedResponse removed = entries.remove(key);
+        if (removed != null) {
+            size -= removed.getWeight();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package info.orestes.rest.cache;
+
+import info.orestes.rest.compression.ContentEncoding;
+import info.orestes.rest.error.NotAcceptable;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.RestHandler;
+import info.orestes.rest.service.RestMethod;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import info.orestes.rest.service.RestRouter;
+import org.apache.tika.mime.MediaType;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the responses of idempotent GET methods from a {@link ResponseCache} without invoking their servlet. The
+ * handler must be placed between the {@link RestRouter} and the handler which dispatches the request, e.g.
+ * <pre>
+ * router.setHandler(cacheHandler);
+ * cacheHandler.setHandler(new RestServletHandler());
+ * </pre>
+ * Caching is opt-in per method, either by the <code>%cache</code> annotation in the service document, which may
+ * declare the time to live in seconds
+ * <pre>
+ * GET /news/:id info.example.NewsServlet : News
+ * %cache 30
+ * 200 The news
+ * </pre>
+ * or by {@link #setTimeToLive(String, long, TimeUnit)}. Responses are cached by the method, the bound arguments and
+ * the negotiated media type and content encoding. Requests with credentials, i.e. an Authorization or a Cookie header,
+ * bypass the cache, since their responses may be specific to the user. Only complete 200 responses without cookies,
+ * without a <code>no-store</code> or <code>private</code> cache control and without a Vary header other than
+ * Accept and Accept-Encoding are stored. The serialized body is captured while it is
+ * written to the client, so streamed and asynchronous responses are cached as well. Cached responses with an ETag
+ * header are answered with 304 Not Modified if they match the If-None-Match header of the request.
+ */
+public class ResponseCacheHandler extends RestHandler {
+
+    /**
+     * The name of the service document annotation which enables the cache for a method
+     */
+    public static final String ANNOTATION = "cache";
+
+    private static final Logger LOG = Log.getLogger(ResponseCacheHandler.class);
+    private static final long DISABLED = -1;
+
+    private final ResponseCache cache;
+    private final ConcurrentHashMap<String, Long> timeToLives = new ConcurrentHashMap<>();
+    private long defaultTimeToLive = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Creates a handler with a cache of the {@link ResponseCache#DEFAULT_MAX_SIZE}
+     */
+    public ResponseCacheHandler() {
+        this(new ResponseCache());
+    }
+
+    /**
+     * Creates a handler
+     *
+     * @param cache The cache which stores the responses
+     */
+    public ResponseCacheHandler(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the time to live of methods which are annotated without a time to live
+     *
+     * @param unit The unit of the returned time to live
+     * @return The default time to live
+     */
+    public long getDefaultTimeToLive(TimeUnit unit) {
+        return unit.convert(defaultTimeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the time to live of methods which are annotated without a time to live, one minute by default. It must be
+     * set before the handler serves the first request.
+     *
+     * @param timeToLive The default time to live
+     * @param unit       The unit of the time to live
+     */
+    public void setDefaultTimeToLive(long timeToLive, TimeUnit unit) {
+        this.defaultTimeToLive = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Enables or disables the cache for a method, which overrides the annotation of the service document
+     *
+     * @param methodName The name of the rest method
+     * @param timeToLive The time to live of the responses or a negative value to disable the cache
+     * @param unit       The unit of the time to live
+     */
+    public void setTimeToLive(String methodName, long timeToLive, TimeUnit unit) {
+        timeToLives.put(methodName, timeToLive < 0 ? DISABLED : unit.toNanos(timeToLive));
+    }
+
+    /**
+     * Returns the time to live of the responses of a method
+     *
+     * @param method The rest method
+     * @return The time to live in nanoseconds or a negative value if the method is not cached
+     */
+    protected long getTimeToLive(RestMethod method) {
+        Long timeToLive = timeToLives.get(method.getName());
+        if (timeToLive == null) {
+            timeToLive = timeToLives.computeIfAbsent(method.getName(), name -> parseAnnotation(method));
+        }
+        return timeToLive;
+    }
+
+    private long parseAnnotation(RestMethod method) {
+        String value = method.getAnnotation(ANNOTATION);
+        if (value == null || !"GET".equals(method.getAction()) || method.getResponseType() == null) {
+            return DISABLED;
+        }
+
+        if (value.isEmpty()) {
+            return defaultTimeToLive;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            LOG.warn("The cache of " + method.getName() + " is disabled, the time to live " + value + " is invalid.");
+            return DISABLED;
+        }
+    }
+
+    @Override
+    public void handle(RestRequest request, RestResponse response) throws IOException, ServletException, RestException {
+        RestMethod method = request.getRestMethod();
+        //asynchronous dispatches are already captured by the initial dispatch
+        long timeToLive = "GET".equals(request.getMethod()) && request.getDispatcherType() != DispatcherType.ASYNC
+            && !hasCredentials(request) ? getTimeToLive(method) : DISABLED;
+        if (timeToLive < 0) {
+            super.handle(request, response);
+            return;
+        }
+
+        MediaType mediaType;
+        try {
+            mediaType = response.getPreferredContentType(method.getResponseType());
+        } catch (NotAcceptable e) {
+            super.handle(request, response);
+            return;
+        }
+
+        ContentEncoding encoding = response.getNegotiatedEncoding();
+        CacheKey key = new CacheKey(method.getName(), request.getArguments(), mediaType,
+            encoding == null ? null : encoding.getName());
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            send(response, key.getMediaType(), cached);
+            return;
+        }
+
+        Request baseRequest = request.getBaseRequest();
+        if (baseRequest != null) {
+            CaptureInterceptor.install(baseRequest.getResponse(), cache.getMaxEntrySize(), timeToLive, captured -> {
+                if (captured != null) {
+                    cache.put(key, captured);
+                }
+            });
+        }
+
+        super.handle(request, response);
+    }
+
+    /**
+     * Indicates if the request carries credentials, which makes its response specific to the user
+     *
+     * @param request The request
+     * @return <code>true</code> if the request has an Authorization or a Cookie header
+     */
+    static boolean hasCredentials(RestRequest request) {
+        return request.getHeader(HttpHeader.AUTHORIZATION.asString()) != null
+            || request.getHeader(HttpHeader.COOKIE.asString()) != null;
+    }
+
+    /**
+     * Replays a captured response
+     *
+     * @param response  The response to send
+     * @param mediaType The negotiated media type of the captured response
+     * @param cached    The captured response
+     * @throws IOException if the body can not be written
+     */
+    static void send(RestResponse response, MediaType mediaType, CachedResponse cached) throws IOException {
+        response.setStatus(Response.SC_OK);
+        String etag = null;
+        for (Map.Entry<String, String> header : cached.getHeaders()) {
+            if (HttpHeader.ETAG.is(header.getKey())) {
+                etag = header.getValue();
+            }
+            response.addHeader(header.getKey(), header.getValue());
+        }
+        response.setHeader(HttpHeader.AGE.asString(), Long.toString(TimeUnit.NANOSECONDS.toSeconds(cached.getAge())));
+        response.setMediaType(mediaType);
+
+        if (etag != null && response.checkNotModified(etag)) {
+            return;
+        }
+
+        byte[] body = cached.getBody();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,129 @@
+package info.orestes.rest.compression;
+
+import org.eclipse.jetty.util.ByteArrayOutputStream2;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * The compressed content codings which are negotiated by the Accept-Encoding request header
+ */
+public enum ContentEncoding {
+    /**
+     * The gzip file format of RFC 1952
+     */
+    GZIP("gzip", true),
+    /**
+     * The zlib data format of RFC 1950, which is called deflate in HTTP
+     */
+    DEFLATE("deflate", false);
+
+    private final String name;
+    private final DeflaterPool pool;
+
+    ContentEncoding(String name, boolean nowrap) {
+        this.name = name;
+        this.pool = new DeflaterPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 2),
+            Deflater.DEFAULT_COMPRESSION, nowrap);
+    }
+
+    /**
+     * Returns the name which is used in the Content-Encoding header
+     *
+     * @return The content coding name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the pool of the deflaters which produce this encoding
+     *
+     * @return The deflater pool
+     */
+    public DeflaterPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Compresses the given bytes
+     *
+     * @param bytes  The buffer which contains the bytes
+     * @param offset The offset of the bytes in the buffer
+     * @param length The number of bytes to compress
+     * @return A buffer which contains the encoded bytes
+     */
+    public ByteArrayOutputStream2 encode(byte[] bytes, int offset, int length) {
+        ByteArrayOutputStream2 buffer = new ByteArrayOutputStream2(length / 4 + 64);
+        try (EncodingOutputStream out = new EncodingOutputStream(buffer, this)) {
+            out.write(bytes, offset, length);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return buffer;
+    }
+
+    /**
+     * Selects the encoding with the highest quality of an Accept-Encoding header, gzip is preferred on equal
+     * qualities
+     *
+     * @param acceptEncoding The value of the Accept-Encoding header, may be <code>null</code>
+     * @return The negotiated encoding or <code>null</code> if the response should not be compressed
+     */
+    public static ContentEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String coding = part;
+            float quality = 1;
+
+            int index = part.indexOf(';');
+            if (index != -1) {
+                coding = part.substring(0, index);
+                quality = parseQuality(part.substring(index + 1));
+            }
+
+            coding = coding.trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equalsIgnoreCase("deflate")) {
+                deflate = quality;
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        } else if (deflate > 0) {
+            return DEFLATE;
+        } else {
+            return null;
+        }
+    }
+
+    private static float parseQuality(String parameter) {
+        parameter = parameter.trim();
+        if (!parameter.startsWith("q=")) {
+            return 1;
+        }
+
+        try {
+            return Float.parseFloat(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package info.orestes.rest.compression;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of {@link Deflater}s. Creating a deflater allocates about 256 KiB of native memory, which is only
+ * freed by {@link Deflater#end()} or finalization, so the deflaters are reset and reused across responses.
+ * <br>
+ * <br>
+ * Concurrency Note: The pool can be used by multiple threads, a deflater must only be used by the thread which
+ * acquired it until it is released.
+ */
+public class DeflaterPool {
+
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final int level;
+    private final boolean nowrap;
+
+    /**
+     * Creates a pool
+     *
+     * @param capacity The maximum number of idle deflaters, additional released deflaters are ended
+     * @param level    The compression level of the deflaters
+     * @param nowrap   <code>true</code> to create deflaters without the zlib header and checksum
+     */
+    public DeflaterPool(int capacity, int level, boolean nowrap) {
+        this.capacity = capacity;
+        this.level = level;
+        this.nowrap = nowrap;
+    }
+
+    /**
+     * Returns an idle deflater or creates a new one
+     *
+     * @return A deflater which must be returned by {@link #release(Deflater)}
+     */
+    public Deflater acquire() {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            return new Deflater(level, nowrap);
+        }
+
+        size.decrementAndGet();
+        return deflater;
+    }
+
+    /**
+     * Resets the deflater and returns it to the pool
+     *
+     * @param deflater A deflater which was acquired from this pool
+     */
+    public void release(Deflater deflater) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            deflater.end();
+        } else {
+            deflater.reset();
+            deflaters.offer(deflater);
+        }
+    }
+
+    /**
+     * Returns the number of idle deflaters
+     *
+     * @return The number of pooled deflaters
+     */
+    public int getSize() {
+        return size.get();
+    }
+}
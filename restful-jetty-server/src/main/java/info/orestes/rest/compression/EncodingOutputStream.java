@@ -0,0 +1,110 @@
+package info.orestes.rest.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compresses the written bytes with a pooled deflater in the given {@link ContentEncoding}. The stream is flushed
+ * with {@link java.util.zip.Deflater#SYNC_FLUSH}, so all bytes written before a {@link #flush()} can be decoded by
+ * the client, which allows incremental compression of streamed responses.
+ * <br>
+ * <br>
+ * The deflater is returned to the pool by {@link #finish()}, {@link #close()} or {@link #release()}.
+ */
+public class EncodingOutputStream extends DeflaterOutputStream {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final ContentEncoding encoding;
+    private final CRC32 crc;
+    private long length;
+    private boolean released;
+
+    /**
+     * Creates a compressing stream
+     *
+     * @param out      The stream to write the compressed bytes to
+     * @param encoding The content coding of the compressed bytes
+     * @throws IOException if the gzip header can not be written
+     */
+    public EncodingOutputStream(OutputStream out, ContentEncoding encoding) throws IOException {
+        super(out, encoding.getPool().acquire(), BUFFER_SIZE, true);
+        this.encoding = encoding;
+
+        if (encoding == ContentEncoding.GZIP) {
+            crc = new CRC32();
+            out.write(new byte[] {(byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), 8, 0, 0, 0, 0, 0, 0, 0});
+        } else {
+            crc = null;
+        }
+    }
+
+    public ContentEncoding getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (released) {
+            throw new IOException("The stream is already finished.");
+        }
+
+        super.write(b, off, len);
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        length += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (released) {
+            out.flush();
+        } else {
+            super.flush();
+        }
+    }
+
+    /**
+     * Writes the remaining compressed bytes and the gzip trailer and releases the deflater, without closing the
+     * underlying stream
+     *
+     * @throws IOException if an I/O error occurred
+     */
+    @Override
+    public void finish() throws IOException {
+        if (released) {
+            return;
+        }
+
+        try {
+            super.finish();
+            if (crc != null) {
+                writeInt((int) crc.getValue());
+                writeInt((int) length);
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Releases the deflater without writing the remaining bytes, e.g. if the response is aborted
+     */
+    public void release() {
+        if (!released) {
+            released = true;
+            encoding.getPool().release(def);
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
@@ -0,0 +1,72 @@
+package info.orestes.rest.jfr;
+
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event which is emitted by the {@link info.orestes.rest.service.RestRouter} for each routed
+ * request. The event spans the routing and the handling of the request including its asynchronous completion, so CPU
+ * and allocation samples can be attributed to the rest method which was executed by the sampled thread.
+ * <br>
+ * <br>
+ * Must only be used if {@link JfrSupport#AVAILABLE} is <code>true</code>.
+ */
+@Name("info.orestes.rest.Dispatch")
+@Label("Request Dispatch")
+@Category({"Restful Jetty", "Request"})
+@Description("Routing and handling of a rest request")
+@StackTrace(false)
+public class DispatchEvent extends Event {
+
+    @Label("Route")
+    @Description("The name of the rest method")
+    private String route;
+
+    @Label("Action")
+    @Description("The HTTP method of the request")
+    private String action;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Status")
+    private int status;
+
+    /**
+     * Starts the timing of a request
+     *
+     * @return The started event or <code>null</code> if the event is not enabled
+     */
+    public static DispatchEvent start() {
+        DispatchEvent event = new DispatchEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the timing of the completed request and commits the event, if it exceeds the configured threshold
+     *
+     * @param request  The completed request
+     * @param response The response of the request
+     */
+    public void commit(RestRequest request, RestResponse response) {
+        end();
+        if (shouldCommit()) {
+            route = request.getRestMethod().getName();
+            action = request.getMethod();
+            path = request.getRequestURI();
+            status = response.getStatus();
+            commit();
+        }
+    }
+}
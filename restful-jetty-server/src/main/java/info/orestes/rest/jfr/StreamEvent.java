@@ -0,0 +1,104 @@
+package info.orestes.rest.jfr;
+
+import info.orestes.rest.service.EntityType;
+import info.orestes.rest.service.RestRequest;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.apache.tika.mime.MediaType;
+
+/**
+ * A flight recorder event which is emitted by {@link info.orestes.rest.service.RestResponse#sendStream} when a
+ * streamed response is completed or aborted. The event spans all asynchronous writes of the stream.
+ * <br>
+ * <br>
+ * Must only be used if {@link JfrSupport#AVAILABLE} is <code>true</code>.
+ * <br>
+ * <br>
+ * Concurrency Note: The event is updated by the write callbacks of the servlet container, which are never called
+ * concurrently for the same response.
+ */
+@Name("info.orestes.rest.Stream")
+@Label("Stream Send")
+@Category({"Restful Jetty", "Request"})
+@Description("Sending of a streamed response")
+@StackTrace(false)
+public class StreamEvent extends Event {
+
+    @Label("Route")
+    @Description("The name of the rest method")
+    private String route;
+
+    @Label("Media Type")
+    private String mediaType;
+
+    @Label("Entity Type")
+    private String entityType;
+
+    @Label("Entities")
+    @Description("The number of entities written")
+    private long entities;
+
+    @Label("Bytes")
+    @Description("The number of bytes written")
+    @DataAmount(DataAmount.BYTES)
+    private long bytes;
+
+    @Label("Completed")
+    @Description("Whether all entities were sent")
+    private boolean completed;
+
+    /**
+     * Starts the timing of a streamed response
+     *
+     * @param request    The request which is answered
+     * @param mediaType  The media type of the stream
+     * @param entityType The type of the streamed entities
+     * @return The started event or <code>null</code> if the event is not enabled
+     */
+    public static StreamEvent start(RestRequest request, MediaType mediaType, EntityType<?> entityType) {
+        StreamEvent event = new StreamEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.route = request.getRestMethod().getName();
+        event.mediaType = mediaType.toString();
+        event.entityType = entityType.toString();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records an entity which was written to the stream
+     */
+    public void addEntity() {
+        entities++;
+    }
+
+    /**
+     * Records bytes which were written to the response
+     *
+     * @param bytes The number of written bytes
+     */
+    public void addBytes(long bytes) {
+        this.bytes += bytes;
+    }
+
+    /**
+     * Ends the timing of the stream and commits the event, if it exceeds the configured threshold
+     *
+     * @param completed <code>true</code> if all entities were sent, <code>false</code> if the stream was aborted
+     */
+    public void commit(boolean completed) {
+        end();
+        if (shouldCommit()) {
+            this.completed = completed;
+            commit();
+        }
+    }
+}
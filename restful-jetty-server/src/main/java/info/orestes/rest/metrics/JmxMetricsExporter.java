@@ -0,0 +1,69 @@
+package info.orestes.rest.metrics;
+
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers the {@link MethodMetrics} of each rest method as MBean
+ * <code>info.orestes.rest:type=MethodMetrics,name=&lt;method&gt;</code> on the platform MBean server
+ */
+public class JmxMetricsExporter implements MetricsExporter {
+
+    public static final String DOMAIN = "info.orestes.rest";
+
+    private static final Logger LOG = Log.getLogger(JmxMetricsExporter.class);
+
+    private final MBeanServer server;
+    private final Set<ObjectName> registered = ConcurrentHashMap.newKeySet();
+
+    public JmxMetricsExporter() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsExporter(MBeanServer server) {
+        this.server = server;
+    }
+
+    public static ObjectName getObjectName(String methodName) throws Exception {
+        return new ObjectName(DOMAIN + ":type=MethodMetrics,name=" + ObjectName.quote(methodName));
+    }
+
+    @Override
+    public void start(MetricsHandler handler) {
+        for (MethodMetrics metrics : handler.getMetrics()) {
+            onAdded(metrics);
+        }
+    }
+
+    @Override
+    public void onAdded(MethodMetrics metrics) {
+        try {
+            ObjectName name = getObjectName(metrics.getName());
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+            registered.add(name);
+        } catch (Exception e) {
+            LOG.warn("The metrics of " + metrics.getName() + " can not be registered.", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception e) {
+                LOG.debug(e);
+            }
+        }
+        registered.clear();
+    }
+}
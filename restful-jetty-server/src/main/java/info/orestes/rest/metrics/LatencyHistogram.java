@@ -0,0 +1,136 @@
+package info.orestes.rest.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram with log-linear buckets, i.e. each power of two is split into 16 linear sub buckets which
+ * bounds the relative error of the reported percentiles to about 6%.
+ * <br>
+ * <br>
+ * Values from 0 to 2<sup>41</sup> can be recorded, larger values are recorded in the last bucket. Recording a value
+ * costs one atomic increment plus two contention free adders, therefore the histogram can be updated on each request.
+ * <br>
+ * <br>
+ * Concurrency Note: Values can be recorded and read concurrently. The reported values are not an atomic snapshot
+ * while values are recorded.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(SUB_BUCKETS * (MAX_EXPONENT - SUB_BUCKET_BITS + 2));
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+
+        value = Math.min(value, MAX_VALUE);
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS * (shift + 1) + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << shift;
+    }
+
+    static long upperBound(int index) {
+        return lowerBound(index + 1) - 1;
+    }
+
+    /**
+     * Records a value
+     *
+     * @param value The value to record, negative values are recorded as 0
+     */
+    public void record(long value) {
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        sum.add(Math.max(value, 0));
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns the number of recorded values
+     *
+     * @return The number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean of all recorded values
+     *
+     * @return The mean value or 0 if no value was recorded
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns the largest recorded value
+     *
+     * @return The largest value or 0 if no value was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value at the given percentile, the result is the upper bound of the bucket which contains the
+     * percentile
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return The value at the given percentile or 0 if no value was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); ++i) {
+            total += buckets.get(i);
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); ++i) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Removes all recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); ++i) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+}
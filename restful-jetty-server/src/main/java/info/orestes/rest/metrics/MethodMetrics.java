@@ -0,0 +1,172 @@
+package info.orestes.rest.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The request metrics of a single rest method, identified by its name in the service document
+ * <br>
+ * <br>
+ * Concurrency Note: All counters are contention free adders and the latencies are recorded in a lock-free
+ * {@link LatencyHistogram}, so one instance can be updated by multiple threads at the same time.
+ */
+public class MethodMetrics implements MethodMetricsMBean {
+
+    private final String name;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder[] statusClasses = new LongAdder[5];
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public MethodMetrics(String name) {
+        this.name = name;
+        for (int i = 0; i < statusClasses.length; ++i) {
+            statusClasses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the start of a request
+     *
+     * @param requestBytes The size of the request body or a negative value if it is unknown
+     */
+    public void begin(long requestBytes) {
+        inFlight.increment();
+        if (requestBytes > 0) {
+            this.requestBytes.add(requestBytes);
+        }
+    }
+
+    /**
+     * Records the completion of a request which was started by {@link #begin(long)}
+     *
+     * @param status        The response status code
+     * @param responseBytes The size of the response body or a negative value if it is unknown
+     * @param durationNanos The duration of the request in nanoseconds
+     */
+    public void end(int status, long responseBytes, long durationNanos) {
+        inFlight.decrement();
+        requests.increment();
+
+        int statusClass = status / 100 - 1;
+        if (statusClass >= 0 && statusClass < statusClasses.length) {
+            statusClasses[statusClass].increment();
+        }
+
+        if (responseBytes > 0) {
+            this.responseBytes.add(responseBytes);
+        }
+
+        latency.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    /**
+     * Returns the latency histogram of the completed requests in microseconds
+     *
+     * @return The latency histogram
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public long getInformational() {
+        return statusClasses[0].sum();
+    }
+
+    @Override
+    public long getSuccessful() {
+        return statusClasses[1].sum();
+    }
+
+    @Override
+    public long getRedirects() {
+        return statusClasses[2].sum();
+    }
+
+    @Override
+    public long getClientErrors() {
+        return statusClasses[3].sum();
+    }
+
+    @Override
+    public long getServerErrors() {
+        return statusClasses[4].sum();
+    }
+
+    @Override
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    @Override
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    @Override
+    public double getLatencyMean() {
+        return latency.getMean() / 1000;
+    }
+
+    @Override
+    public double getLatency50thPercentile() {
+        return latency.getValueAtPercentile(50) / 1000d;
+    }
+
+    @Override
+    public double getLatency90thPercentile() {
+        return latency.getValueAtPercentile(90) / 1000d;
+    }
+
+    @Override
+    public double getLatency99thPercentile() {
+        return latency.getValueAtPercentile(99) / 1000d;
+    }
+
+    @Override
+    public double getLatency999thPercentile() {
+        return latency.getValueAtPercentile(99.9) / 1000d;
+    }
+
+    @Override
+    public double getLatencyMax() {
+        return latency.getMax() / 1000d;
+    }
+
+    /**
+     * Resets all counters and the latency histogram, the in-flight count is kept
+     */
+    @Override
+    public void reset() {
+        requests.reset();
+        for (LongAdder statusClass : statusClasses) {
+            statusClass.reset();
+        }
+        requestBytes.reset();
+        responseBytes.reset();
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "MethodMetrics " + name + ": " + getRequests() + " requests, " + getInFlight() + " in flight";
+    }
+}
@@ -0,0 +1,41 @@
+package info.orestes.rest.metrics;
+
+/**
+ * The JMX view of the {@link MethodMetrics} of a single rest method, all latencies are reported in milliseconds
+ */
+public interface MethodMetricsMBean {
+
+    String getName();
+
+    long getRequests();
+
+    long getInFlight();
+
+    long getInformational();
+
+    long getSuccessful();
+
+    long getRedirects();
+
+    long getClientErrors();
+
+    long getServerErrors();
+
+    long getRequestBytes();
+
+    long getResponseBytes();
+
+    double getLatencyMean();
+
+    double getLatency50thPercentile();
+
+    double getLatency90thPercentile();
+
+    double getLatency99thPercentile();
+
+    double getLatency999thPercentile();
+
+    double getLatencyMax();
+
+    void reset();
+}
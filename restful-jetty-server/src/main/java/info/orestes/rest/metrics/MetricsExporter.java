@@ -0,0 +1,41 @@
+package info.orestes.rest.metrics;
+
+/**
+ * An exporter publishes the {@link MethodMetrics} collected by a {@link MetricsHandler} to a monitoring system.
+ * <br>
+ * <br>
+ * Exporters are added to the handler by {@link MetricsHandler#addExporter(MetricsExporter)} or are discovered with
+ * the {@link java.util.ServiceLoader} by declaring them in
+ * <code>META-INF/services/info.orestes.rest.metrics.MetricsExporter</code>. Pull based exporters can read
+ * {@link MetricsHandler#getMetrics()} at any time, push based exporters can schedule their own reporting between
+ * {@link #start(MetricsHandler)} and {@link #stop()}.
+ * <br>
+ * <br>
+ * Concurrency Note: {@link #onAdded(MethodMetrics)} is called by request threads, the first time a method is
+ * requested.
+ */
+public interface MetricsExporter {
+
+    /**
+     * Called when the metrics handler is started
+     *
+     * @param handler The handler which collects the metrics
+     * @throws Exception if the exporter can not be started
+     */
+    void start(MetricsHandler handler) throws Exception;
+
+    /**
+     * Called when the metrics of a rest method are created
+     *
+     * @param metrics The new metrics
+     */
+    default void onAdded(MethodMetrics metrics) {
+    }
+
+    /**
+     * Called when the metrics handler is stopped
+     *
+     * @throws Exception if the exporter can not be stopped
+     */
+    void stop() throws Exception;
+}
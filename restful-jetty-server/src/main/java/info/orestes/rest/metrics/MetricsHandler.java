@@ -0,0 +1,224 @@
+package info.orestes.rest.metrics;
+
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.RestHandler;
+import info.orestes.rest.service.RestMethod;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import info.orestes.rest.service.RestRouter;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the {@link MethodMetrics} of each {@link RestMethod}: request counts, status code classes, in-flight
+ * requests, request and response body sizes and a latency histogram. The handler must be placed between the
+ * {@link RestRouter} and the handler which dispatches the request, e.g.
+ * <pre>
+ * router.setHandler(metricsHandler);
+ * metricsHandler.setHandler(new RestServletHandler());
+ * </pre>
+ * The latency is measured from the routed request until the response is completed, this includes asynchronous
+ * processing and streamed responses.
+ * <br>
+ * <br>
+ * The metrics are exported by the registered {@link MetricsExporter}s, by default they are registered as JMX MBeans
+ * by the {@link JmxMetricsExporter}.
+ */
+public class MetricsHandler extends RestHandler {
+
+    private static final Logger LOG = Log.getLogger(MetricsHandler.class);
+
+    private final ConcurrentHashMap<String, MethodMetrics> metrics = new ConcurrentHashMap<>();
+    private final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+    private final List<MetricsExporter> started = new CopyOnWriteArrayList<>();
+    private boolean loadExporters = true;
+
+    /**
+     * Creates a metrics handler which exports the metrics with the {@link JmxMetricsExporter} and all exporters
+     * declared as {@link ServiceLoader} services
+     */
+    public MetricsHandler() {
+        this(true);
+    }
+
+    /**
+     * Creates a metrics handler
+     *
+     * @param jmxEnabled <code>true</code> to export the metrics with the {@link JmxMetricsExporter}
+     */
+    public MetricsHandler(boolean jmxEnabled) {
+        if (jmxEnabled) {
+            exporters.add(new JmxMetricsExporter());
+        }
+    }
+
+    /**
+     * Adds an exporter which is started with this handler
+     *
+     * @param exporter The exporter to add
+     */
+    public void addExporter(MetricsExporter exporter) {
+        if (isStarted()) {
+            throw new IllegalStateException("Exporters can not be added while the handler is running");
+        }
+
+        exporters.add(exporter);
+    }
+
+    /**
+     * Enables the discovery of {@link MetricsExporter}s with the {@link ServiceLoader}, enabled by default
+     *
+     * @param loadExporters <code>true</code> to load the declared exporters on start
+     */
+    public void setLoadExporters(boolean loadExporters) {
+        this.loadExporters = loadExporters;
+    }
+
+    /**
+     * Returns the metrics of all rest methods which were requested so far
+     *
+     * @return The metrics of the requested methods
+     */
+    public Collection<MethodMetrics> getMetrics() {
+        return Collections.unmodifiableCollection(metrics.values());
+    }
+
+    /**
+     * Returns the metrics of the given rest method
+     *
+     * @param methodName The name of the rest method
+     * @return The metrics or <code>null</code> if the method was not requested so far
+     */
+    public MethodMetrics getMetrics(String methodName) {
+        return metrics.get(methodName);
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        List<MetricsExporter> all = new ArrayList<>(exporters);
+        if (loadExporters) {
+            for (MetricsExporter exporter : ServiceLoader.load(MetricsExporter.class)) {
+                all.add(exporter);
+            }
+        }
+
+        for (MetricsExporter exporter : all) {
+            exporter.start(this);
+            started.add(exporter);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        for (MetricsExporter exporter : started) {
+            try {
+                exporter.stop();
+            } catch (Exception e) {
+                LOG.warn(e);
+            }
+        }
+        started.clear();
+
+        super.doStop();
+    }
+
+    @Override
+    public void handle(RestRequest request, RestResponse response) throws IOException, ServletException, RestException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            //the request is completed by the listener of the initial dispatch
+            super.handle(request, response);
+            return;
+        }
+
+        MethodMetrics methodMetrics = getOrCreate(request.getRestMethod());
+        long start = System.nanoTime();
+        methodMetrics.begin(request.getContentLengthLong());
+
+        boolean completed = true;
+        try {
+            super.handle(request, response);
+
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(methodMetrics, request, response, start));
+                completed = false;
+            }
+        } catch (IOException | ServletException | RestException | RuntimeException e) {
+            methodMetrics.end(RestException.of(e).getStatusCode(), -1, System.nanoTime() - start);
+            completed = false;
+            throw e;
+        } finally {
+            if (completed) {
+                complete(methodMetrics, request, response, start);
+            }
+        }
+    }
+
+    private MethodMetrics getOrCreate(RestMethod method) {
+        MethodMetrics methodMetrics = metrics.get(method.getName());
+        if (methodMetrics == null) {
+            MethodMetrics created = new MethodMetrics(method.getName());
+            methodMetrics = metrics.putIfAbsent(method.getName(), created);
+            if (methodMetrics == null) {
+                methodMetrics = created;
+                for (MetricsExporter exporter : started) {
+                    exporter.onAdded(created);
+                }
+            }
+        }
+        return methodMetrics;
+    }
+
+    private static void complete(MethodMetrics methodMetrics, RestRequest request, RestResponse response, long start) {
+        Request baseRequest = request.getBaseRequest();
+        long responseBytes = baseRequest != null ? baseRequest.getResponse().getContentCount() : -1;
+        methodMetrics.end(response.getStatus(), responseBytes, System.nanoTime() - start);
+    }
+
+    private static class CompletionListener implements AsyncListener {
+        private final MethodMetrics methodMetrics;
+        private final RestRequest request;
+        private final RestResponse response;
+        private final long start;
+
+        CompletionListener(MethodMetrics methodMetrics, RestRequest request, RestResponse response, long start) {
+            this.methodMetrics = methodMetrics;
+            this.request = request;
+            this.response = response;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            complete(methodMetrics, request, response, start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
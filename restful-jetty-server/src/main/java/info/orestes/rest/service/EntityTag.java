@@ -0,0 +1,74 @@
+package info.orestes.rest.service;
+
+import java.util.zip.CRC32;
+
+/**
+ * Creates and compares the entity tags of the ETag and If-None-Match headers
+ */
+public final class EntityTag {
+
+    private EntityTag() {
+    }
+
+    /**
+     * Computes a strong entity tag of a serialized representation. The tag combines the CRC-32 checksum, which is
+     * hardware accelerated by the JVM, with the length of the representation.
+     *
+     * @param bytes  The buffer which contains the representation
+     * @param offset The offset of the representation in the buffer
+     * @param length The length of the representation
+     * @return The quoted entity tag, e.g. <code>"3610a686-5"</code>
+     */
+    public static String of(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return '"' + Long.toHexString(crc.getValue()) + '-' + Integer.toHexString(length) + '"';
+    }
+
+    /**
+     * Quotes the given version or entity tag, if it is not already quoted
+     *
+     * @param tag The version or entity tag
+     * @return The quoted entity tag
+     */
+    public static String quote(String tag) {
+        if (tag.length() > 1 && tag.endsWith("\"") && (tag.startsWith("\"") || tag.startsWith("W/\""))) {
+            return tag;
+        }
+        return '"' + tag + '"';
+    }
+
+    /**
+     * Checks if an entity tag is listed in an If-None-Match header. The weak comparison is used as required by RFC
+     * 7232, so weak tags match their strong counterpart.
+     *
+     * @param ifNoneMatch The value of the If-None-Match header, may be <code>null</code>
+     * @param tag         The quoted entity tag of the current representation
+     * @return <code>true</code> if the client has a matching representation
+     */
+    public static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null || tag == null) {
+            return false;
+        }
+
+        String opaque = opaque(tag);
+        int start = 0;
+        while (start < ifNoneMatch.length()) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end == -1) {
+                end = ifNoneMatch.length();
+            }
+
+            String candidate = ifNoneMatch.substring(start, end).trim();
+            if (candidate.equals("*") || opaque(candidate).equals(opaque)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,163 @@
+package info.orestes.rest.service;
+
+import java.util.Locale;
+
+/**
+ * Collects the time spent in each processing phase of a routed request. The checkpoints are taken with
+ * {@link System#nanoTime()} by the {@link RestRouter}, the {@link RestRequest}, the {@link RestResponse} and the
+ * {@link info.orestes.rest.RestServlet}.
+ * <br>
+ * <br>
+ * The {@link Phase#HANDLER} phase is measured around the servlet method including its asynchronous completion. Since
+ * servlets usually read and send their entities themselves, the decoding, negotiation and serialization phases are
+ * nested in the handler phase and are subtracted from it by {@link #getDuration(Phase)}.
+ * <br>
+ * <br>
+ * Concurrency Note: The timing is updated by the thread which currently processes the request, asynchronous
+ * continuations are ordered by the servlet container.
+ */
+public class RequestTiming {
+
+    /**
+     * The processing phases of a request
+     */
+    public enum Phase {
+        /**
+         * Path decoding and route matching in the {@link RestRouter}
+         */
+        ROUTING("routing"),
+        /**
+         * Conversion of the path, matrix and query arguments
+         */
+        BINDING("binding"),
+        /**
+         * Reading and decoding of the request entity
+         */
+        DECODING("decoding"),
+        /**
+         * The servlet method, excluding the nested decoding, negotiation and serialization phases
+         */
+        HANDLER("handler"),
+        /**
+         * Content negotiation of the response media type
+         */
+        NEGOTIATION("negotiation"),
+        /**
+         * Encoding and writing of the response entity
+         */
+        SERIALIZATION("serialization");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /**
+         * Returns the metric name used in the Server-Timing header
+         *
+         * @return The metric name
+         */
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long start;
+    private final boolean serverTimingEnabled;
+    private final long[] durations = new long[PHASES.length];
+
+    /**
+     * Creates a timing which starts now
+     */
+    public RequestTiming() {
+        this(System.nanoTime(), false);
+    }
+
+    /**
+     * Creates a timing
+     *
+     * @param start               The {@link System#nanoTime()} when the request processing was started
+     * @param serverTimingEnabled <code>true</code> if the phases should be sent in the Server-Timing header
+     */
+    public RequestTiming(long start, boolean serverTimingEnabled) {
+        this.start = start;
+        this.serverTimingEnabled = serverTimingEnabled;
+    }
+
+    /**
+     * Adds the time elapsed since the given checkpoint to the phase
+     *
+     * @param phase      The phase to record
+     * @param checkpoint The {@link System#nanoTime()} when the phase was entered
+     */
+    public void record(Phase phase, long checkpoint) {
+        durations[phase.ordinal()] += System.nanoTime() - checkpoint;
+    }
+
+    /**
+     * Returns the time spent in the given phase
+     *
+     * @param phase The phase
+     * @return The duration in nanoseconds
+     */
+    public long getDuration(Phase phase) {
+        long duration = durations[phase.ordinal()];
+        if (phase == Phase.HANDLER) {
+            duration -= durations[Phase.DECODING.ordinal()] + durations[Phase.NEGOTIATION.ordinal()]
+                + durations[Phase.SERIALIZATION.ordinal()];
+        }
+        return Math.max(0, duration);
+    }
+
+    /**
+     * Returns the time elapsed since the request processing was started
+     *
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsed() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Indicates if the phases are sent in the Server-Timing header
+     *
+     * @return <code>true</code> if the Server-Timing header is enabled
+     */
+    public boolean isServerTimingEnabled() {
+        return serverTimingEnabled;
+    }
+
+    /**
+     * Returns the value of the Server-Timing header, which contains all phases that were recorded so far and the total
+     * elapsed time, e.g. <code>routing;dur=0.021, binding;dur=0.004, total;dur=1.250</code>
+     *
+     * @return The Server-Timing header value
+     */
+    public String toServerTiming() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : PHASES) {
+            if (durations[phase.ordinal()] > 0) {
+                appendMillis(builder.append(phase.getMetricName()).append(";dur="), getDuration(phase));
+                builder.append(", ");
+            }
+        }
+        appendMillis(builder.append("total;dur="), getElapsed());
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : PHASES) {
+            appendMillis(builder.append(phase.getMetricName()).append('='), getDuration(phase)).append("ms ");
+        }
+        return appendMillis(builder.append("total="), getElapsed()).append("ms").toString();
+    }
+
+    private static StringBuilder appendMillis(StringBuilder builder, long nanos) {
+        return builder.append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+    }
+}
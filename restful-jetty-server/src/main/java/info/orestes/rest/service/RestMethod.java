@@ -31,6 +31,7 @@ public class RestMethod {
 	private final Map<String, HeaderElement> responseHeader;
     private final EntityType<?> requestType;
     private final EntityType<?> responseType;
+    private final Map<String, String> annotations;
 
 	/**
 	 * A rest method represents a single routable path plus its dynamic components like required and optional query and matrix parameters
@@ -51,6 +52,30 @@ public RestMethod(String name, String description, String[] longDescription, Str
 		Class<? extends RestServlet> target, Map<String, HeaderElement> requestHeader, Map<String,
         HeaderElement> responseHeader, Map<Integer, String> expectedResults, EntityType<?> requestType,
 		EntityType<?> responseType, boolean forceSSL) {
+		this(name, description, longDescription, action, signature, target, requestHeader, responseHeader,
+			expectedResults, requestType, responseType, forceSSL, Collections.emptyMap());
+	}
+
+	/**
+	 * A rest method represents a single routable path plus its dynamic components like required and optional query and matrix parameters
+	 * @param name The unique name of the method
+	 * @param description A short description of the method
+	 * @param longDescription A detailed multiline description of the method
+	 * @param action The HTTP action of the method, i.e. GET, POST, PUT, DELETE etc.
+	 * @param signature The signature of the methods described by one or more path elements
+	 * @param target The target RestServlet which handle the method
+	 * @param requestHeader Optional request headers which can be applied to the method
+	 * @param responseHeader Optional Response headers which the method will return
+	 * @param expectedResults The expected status codes which will be returned by this method
+	 * @param requestType The entity type of the request body, or null if the method does not expect any request body
+	 * @param responseType The entity type of the response body, or null if the method does not expect any response body
+	 * @param forceSSL A flag, that indicates that the method should only be invoked over a secure encrypted connection
+	 * @param annotations The annotations of the method, e.g. <code>%cache 60</code> is stored as cache -&gt; 60
+	 */
+	public RestMethod(String name, String description, String[] longDescription, String action, List<PathElement> signature,
+		Class<? extends RestServlet> target, Map<String, HeaderElement> requestHeader, Map<String,
+		HeaderElement> responseHeader, Map<Integer, String> expectedResults, EntityType<?> requestType,
+		EntityType<?> responseType, boolean forceSSL, Map<String, String> annotations) {
 		this.name = name;
 		this.action = action;
 		this.description = description;
@@ -63,6 +88,7 @@ public RestMethod(String name, String description, String[] longDescription, Str
 		this.requestType = requestType;
 		this.responseType = responseType;
         this.forceSSL = forceSSL;
+		this.annotations = Collections.unmodifiableMap(annotations);
 
 		int required = 0;
 		int dynamicIndex = 0;
@@ -217,6 +243,25 @@ public Map<String, HeaderElement> getResponseHeader() {
 
     public boolean isForceSSL() { return forceSSL; }
 
+	/**
+	 * Returns the annotations which are declared by <code>%name value</code> lines in the service document
+	 *
+	 * @return The annotation values by their names
+	 */
+	public Map<String, String> getAnnotations() {
+		return annotations;
+	}
+
+	/**
+	 * Returns the value of an annotation
+	 *
+	 * @param name The name of the annotation
+	 * @return The value, an empty string if the annotation has no value or <code>null</code> if it is not declared
+	 */
+	public String getAnnotation(String name) {
+		return annotations.get(name);
+	}
+
 	public String getSignatureAsString() {
 		String result = "";
 
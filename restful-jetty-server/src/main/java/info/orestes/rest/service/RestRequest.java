@@ -3,12 +3,18 @@
 import info.orestes.rest.Request;
 import info.orestes.rest.conversion.ConverterFormat.EntityReader;
 import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.conversion.InternedMediaType;
 import info.orestes.rest.error.BadRequest;
 import info.orestes.rest.error.RestException;
 import info.orestes.rest.error.UnsupportedMediaType;
 import info.orestes.rest.service.RestRouter.Route;
+import info.orestes.rest.util.Deadline;
 import org.apache.tika.mime.MediaType;
+import org.eclipse.jetty.io.Connection;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.IOException;
@@ -16,16 +22,26 @@
 import java.util.Map;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class RestRequest extends HttpServletRequestWrapper implements Request {
 
+    /**
+     * The name of the service document annotation which declares the timeout of a method in milliseconds
+     */
+    public static final String TIMEOUT_ANNOTATION = "timeout";
+
     private final org.eclipse.jetty.server.Request baseRequest;
     private final Map<String, Object> arguments = new HashMap<>();
     private final Route route;
     private Object entity;
     private ConverterService converterService;
+    private RequestTiming timing;
+    private Deadline deadline;
+    private final CompletableFuture<Void> cancellation = new CompletableFuture<>();
 
     @SuppressWarnings("unchecked")
     public RestRequest(org.eclipse.jetty.server.Request baseRequest, HttpServletRequest request, Route route, ConverterService converterService) {
@@ -49,6 +65,94 @@ void setMatches(Map<String, String> matches) throws BadRequest {
         }
     }
 
+    /**
+     * Returns the phase timing of this request
+     *
+     * @return The timing which is started by the {@link RestRouter}
+     */
+    public RequestTiming getTiming() {
+        if (timing == null) {
+            timing = new RequestTiming();
+        }
+        return timing;
+    }
+
+    void setTiming(RequestTiming timing) {
+        this.timing = timing;
+    }
+
+    @Override
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancellation.isDone();
+    }
+
+    @Override
+    public CompletionStage<Void> getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Cancels this request and completes the {@link #getCancellation() cancellation signal}
+     *
+     * @return <code>true</code> if the request was not cancelled before
+     */
+    public boolean cancel() {
+        return cancellation.complete(null);
+    }
+
+    /**
+     * Cancels this request when the async processing fails, times out or when the connection to the client is closed
+     * before the request is completed
+     *
+     * @param context The async context of this request
+     */
+    public void cancelWhenAbandoned(AsyncContext context) {
+        Connection connection = baseRequest != null ? baseRequest.getHttpChannel().getConnection() : null;
+        Connection.Listener connectionListener = new Connection.Listener.Adapter() {
+            @Override
+            public void onClosed(Connection connection) {
+                cancel();
+            }
+        };
+
+        if (connection != null) {
+            connection.addListener(connectionListener);
+        }
+
+        context.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                if (connection != null) {
+                    connection.removeListener(connectionListener);
+                }
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                cancel();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                cancel();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                event.getAsyncContext().addListener(this);
+            }
+        });
+    }
+
     public org.eclipse.jetty.server.Request getBaseRequest() {
         return baseRequest;
     }
@@ -91,15 +195,16 @@ public <E> E readEntity() throws RestException {
             return null;
         }
 
+        long checkpoint = System.nanoTime();
         try {
-            MediaType contentType = MediaType.parse(getContentType());
+            MediaType contentType = InternedMediaType.parseMediaType(getContentType());
 
             if (contentType == null) {
                 throw new BadRequest("Illegal ContentType " + getContentType());
             }
 
             if (Stream.class.equals(type.getRawType())) {
-                EntityType<?> entityType = new EntityType<>(type.getActualTypeArguments()[0]);
+                EntityType<?> entityType = EntityType.of(type.getActualTypeArguments()[0]);
                 return (E) readStream(entityType);
             } else {
                 return readSingleEntity((EntityType<E>) type);
@@ -108,12 +213,14 @@ public <E> E readEntity() throws RestException {
             throw e;
         } catch (Exception e) {
             throw new BadRequest("The requested entity is not valid.", e);
+        } finally {
+            getTiming().record(RequestTiming.Phase.DECODING, checkpoint);
         }
     }
 
     @Override
     public MediaType getMediaType() {
-        return MediaType.parse(getContentType());
+        return InternedMediaType.parseMediaType(getContentType());
     }
 
     /**
@@ -1,17 +1,23 @@
 package info.orestes.rest.service;
 
 import info.orestes.rest.Response;
+import info.orestes.rest.compression.ContentEncoding;
+import info.orestes.rest.compression.EncodingOutputStream;
 import info.orestes.rest.conversion.ConverterFormat.EntityWriter;
 import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.conversion.InternedMediaType;
 import info.orestes.rest.conversion.MediaTypeNegotiation;
 import info.orestes.rest.conversion.WritableContext;
 import info.orestes.rest.error.InternalServerError;
 import info.orestes.rest.error.NotAcceptable;
 import info.orestes.rest.error.RestException;
 import info.orestes.rest.error.ServiceUnavailable;
+import info.orestes.rest.jfr.JfrSupport;
+import info.orestes.rest.jfr.StreamEvent;
 import org.apache.tika.mime.MediaType;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.util.ByteArrayOutputStream2;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 
@@ -20,7 +26,6 @@
 import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -29,14 +34,41 @@
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 public class RestResponse extends HttpServletResponseWrapper implements Response {
 
     private final Logger LOG = Log.getLogger(RestResponse.class);
     private static final List<MediaType> ANY = Arrays.asList(MediaTypeNegotiation.ALL);
+    private static final EntityType<RestException> ERROR_TYPE = EntityType.of(RestException.class);
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    /**
+     * The name of the service document annotation which enables automatic entity tags for a method
+     */
+    public static final String ETAG_ANNOTATION = "etag";
+
+    /**
+     * The name of the service document annotation which enables compression for a method, it may declare the minimum
+     * size of compressed responses in bytes
+     */
+    public static final String COMPRESS_ANNOTATION = "compress";
+
+    /**
+     * The minimum size of compressed responses, if the compress annotation declares none
+     */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
     private final RestRequest request;
     private MediaType mediaType;
+    private boolean autoETag;
+    private boolean notModified;
+    private int compressionThreshold = -1;
+    private ContentEncoding encoding;
+    private boolean encodingNegotiated;
+    private CompletableFuture<Void> streamCompletion;
+    private ServletWriteContext streamContext;
 
     /**
      * Parse the Accept header and extract the contained list of media types
@@ -48,7 +80,7 @@ public static List<MediaType> parseMediaTypes(String acceptHeader) {
         if (acceptHeader != null) {
             List<MediaType> mediaTypes = new ArrayList<>();
             for (String part : acceptHeader.split(",")) {
-                MediaType mediaType = MediaType.parse(part);
+                MediaType mediaType = InternedMediaType.parseMediaType(part);
                 if (mediaType != null)
                     mediaTypes.add(mediaType);
             }
@@ -69,15 +101,31 @@ public RestResponse(RestRequest request, HttpServletResponse response) {
     public void setMediaType(MediaType mediaType) {
         this.mediaType = mediaType;
         setContentType(mediaType.toString());
+        setServerTiming();
+    }
+
+    /**
+     * Sets the Server-Timing header with the phases recorded so far, if it is enabled for the request
+     */
+    private void setServerTiming() {
+        RequestTiming timing = request.getTiming();
+        if (timing.isServerTimingEnabled() && !isCommitted()) {
+            setHeader(SERVER_TIMING, timing.toServerTiming());
+        }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void sendEntity(Object entity) {
+        if (notModified) {
+            return;
+        }
+
         if (entity == null) {
             if (getStatus() == HttpStatus.OK_200) {
                 setStatus(HttpStatus.NO_CONTENT_204);
             }
+            setServerTiming();
             return;
         }
 
@@ -92,8 +140,8 @@ public void sendEntity(Object entity) {
                     throw new IllegalArgumentException(
                         "Expected to send a stream. Object was: " + entity.getClass().getSimpleName());
                 }
-                EntityType<Object> entityType = new EntityType<Object>(type.getActualTypeArguments()[0]);
-                sendStream((Stream<Object>) entity, entityType);
+                EntityType<?> entityType = EntityType.of(type.getActualTypeArguments()[0]);
+                sendStream((Stream<Object>) entity, (EntityType<Object>) entityType);
             } else {
                 sendBody(entity, type);
             }
@@ -104,6 +152,93 @@ public void sendEntity(Object entity) {
         }
     }
 
+    /**
+     * Indicates if entity tags are generated for the entities sent by {@link #sendEntity(Object)}
+     *
+     * @return <code>true</code> if entity tags are generated
+     */
+    public boolean isAutoETag() {
+        return autoETag;
+    }
+
+    /**
+     * Enables the generation of entity tags. If enabled, the entity of a successful GET or HEAD request is serialized
+     * into a buffer and tagged with a strong entity tag, which is computed over the serialized bytes. If the tag
+     * matches the If-None-Match header, 304 Not Modified is sent without the body. Responses which already carry an
+     * ETag header, e.g. set by {@link #checkNotModified(String)}, and streams are sent unchanged.
+     *
+     * @param autoETag <code>true</code> to generate entity tags
+     */
+    public void setAutoETag(boolean autoETag) {
+        this.autoETag = autoETag;
+    }
+
+    /**
+     * Returns the minimum size of the responses which are compressed
+     *
+     * @return The size in bytes or a negative value if compression is disabled
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Enables the compression of the entities sent by {@link #sendEntity(Object)} in the encoding which is negotiated
+     * by the Accept-Encoding header. Single entities are serialized into a buffer and only compressed if they reach
+     * the threshold, streams are always compressed and flushed after each entity.
+     *
+     * @param compressionThreshold The minimum size in bytes or a negative value to disable compression, which is the
+     *                             default
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Returns the encoding which is negotiated by the Accept-Encoding header of the request
+     *
+     * @return The encoding or <code>null</code> if compression is disabled or not accepted by the client
+     */
+    public ContentEncoding getNegotiatedEncoding() {
+        if (!encodingNegotiated) {
+            encodingNegotiated = true;
+            if (compressionThreshold >= 0) {
+                encoding = ContentEncoding.negotiate(request.getHeader(HttpHeader.ACCEPT_ENCODING.asString()));
+            }
+        }
+        return encoding;
+    }
+
+    /**
+     * Negotiates the encoding of the response entity and declares that the response varies by it
+     */
+    private ContentEncoding startEncoding() {
+        if (compressionThreshold < 0) {
+            return null;
+        }
+
+        addHeader(HttpHeader.VARY.asString(), HttpHeader.ACCEPT_ENCODING.asString());
+        return getNegotiatedEncoding();
+    }
+
+    @Override
+    public boolean checkNotModified(String etag) {
+        String tag = EntityTag.quote(etag);
+        setHeader(HttpHeader.ETAG.asString(), tag);
+
+        if (isConditionalMethod() && EntityTag.matches(request.getHeader(HttpHeader.IF_NONE_MATCH.asString()), tag)) {
+            setStatus(SC_NOT_MODIFIED);
+            setServerTiming();
+            notModified = true;
+        }
+        return notModified;
+    }
+
+    private boolean isConditionalMethod() {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
     /**
      * Returns the preferred content type for the client by parsing the accepted media types agains the available media types for the given response type
      * @param responseType The response type
@@ -111,7 +246,12 @@ public void sendEntity(Object entity) {
      * @throws NotAcceptable when there does not exists any acceptable media type that is supported for the response type
      */
     public MediaType getPreferredContentType(EntityType<?> responseType) throws NotAcceptable {
-        return getContentType(parseMediaTypes(request.getHeader(HttpHeader.ACCEPT.asString())), responseType);
+        long checkpoint = System.nanoTime();
+        try {
+            return getContentType(parseMediaTypes(request.getHeader(HttpHeader.ACCEPT.asString())), responseType);
+        } finally {
+            request.getTiming().record(RequestTiming.Phase.NEGOTIATION, checkpoint);
+        }
     }
 
     private MediaType getContentType(List<MediaType> preferredMediaTypes, EntityType<?> responseType) throws NotAcceptable {
@@ -149,12 +289,20 @@ public void sendError(int code, String message) {
     @Override
     @SuppressWarnings("deprecation")
     public void sendError(RestException error) {
-        if ((error instanceof InternalServerError || error instanceof ServiceUnavailable) && !error.isRemote()) {
+        //a service unavailable with a Retry-After header is an intended rejection of an overloaded server
+        boolean rejected = error instanceof ServiceUnavailable && containsHeader(HttpHeader.RETRY_AFTER.asString());
+        if ((error instanceof InternalServerError || error instanceof ServiceUnavailable) && !error.isRemote()
+            && !rejected) {
             LOG.warn(error);
         } else {
             LOG.debug(error);
         }
 
+        //the deflater of an aborted compressed stream is returned to its pool
+        if (streamContext != null) {
+            streamContext.release();
+        }
+
         try {
             resetBuffer();
             setStatus(error.getStatusCode(), error.getReason());
@@ -162,6 +310,7 @@ public void sendError(RestException error) {
             setHeader(HttpHeader.LAST_MODIFIED.asString(), null);
             setHeader(HttpHeader.CONTENT_TYPE.asString(), null);
             setHeader(HttpHeader.CONTENT_LENGTH.asString(), null);
+            setHeader(HttpHeader.CONTENT_ENCODING.asString(), null);
             setHeader(HttpHeader.CACHE_CONTROL.asString(), "no-cache, no-store, max-age=0");
 
             if (error.isRemote()) {
@@ -172,7 +321,7 @@ public void sendError(RestException error) {
                 return;
             }
 
-            EntityType<RestException> type = new EntityType<>(RestException.class);
+            EntityType<RestException> type = ERROR_TYPE;
             MediaType contentType;
 
             try {
@@ -197,6 +346,16 @@ public MediaType getMediaType() {
         return mediaType;
     }
 
+    /**
+     * Returns the future which completes when the stream sent by {@link #sendStream(Stream, EntityType)} is written
+     * or has failed
+     *
+     * @return The stream completion or <code>null</code> if no stream is sent
+     */
+    public CompletableFuture<Void> getStreamCompletion() {
+        return streamCompletion;
+    }
+
     /**
      * Sends the given stream using the underlying outputstream.
      *
@@ -213,10 +372,18 @@ public <T> void sendStream(Stream<T> objectStream, EntityType<T> entityType) thr
         Iterator<T> iterator = objectStream.iterator();
 
         AsyncContext context = request.startAsync(request, this);
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        streamCompletion = completion;
         ServletOutputStream outputStream = getOutputStream();
-        ServletWriteContext writeContext = new ServletWriteContext();
+        ContentEncoding encoding = startEncoding();
+        if (encoding != null) {
+            setHeader(HttpHeader.CONTENT_ENCODING.asString(), encoding.getName());
+        }
+        ServletWriteContext writeContext = new ServletWriteContext(encoding);
+        streamContext = writeContext;
         EntityWriter<T> entityWriter = request.getConverterService()
             .newEntityWriter(writeContext, entityType, contentType);
+        StreamEvent event = JfrSupport.AVAILABLE ? StreamEvent.start(request, contentType, entityType) : null;
 
         outputStream.setWriteListener(new WriteListener() {
             @Override
@@ -225,32 +392,64 @@ public void onWritePossible() throws IOException {
                     if (iterator.hasNext()) {
                         T elem = iterator.next();
 
+                        long checkpoint = System.nanoTime();
                         try {
                             entityWriter.writeNext(elem);
+                            if (event != null) {
+                                event.addEntity();
+                            }
 
                             writeToJetty();
                         } catch (RestException e) {
-                            sendError(e);
+                            abort(e);
+                            break;
+                        } finally {
+                            request.getTiming().record(RequestTiming.Phase.SERIALIZATION, checkpoint);
                         }
                     } else {
                         entityWriter.close();
+                        writeContext.finish();
                         writeToJetty();
+                        completion.complete(null);
                         context.complete();
                         objectStream.close();
+                        if (event != null) {
+                            event.commit(true);
+                        }
                         break;
                     }
                 }
             }
 
+            /**
+             * Sends the error of an element which can not be serialized and ends the stream
+             */
+            private void abort(RestException e) {
+                objectStream.close();
+                if (event != null) {
+                    event.commit(false);
+                }
+                sendError(e);
+                completion.complete(null);
+                context.complete();
+            }
+
             private void writeToJetty() throws IOException {
                 writeContext.getWriter().flush();
+                if (event != null) {
+                    event.addBytes(writeContext.getBuffer().size());
+                }
                 writeContext.getBuffer().writeTo(outputStream);
                 writeContext.getBuffer().reset();
             }
 
             @Override
             public void onError(Throwable t) {
+                completion.complete(null);
                 objectStream.close();
+                if (event != null) {
+                    event.commit(false);
+                }
                 sendError(RestException.of(t));
             }
         });
@@ -258,12 +457,72 @@ public void onError(Throwable t) {
 
     private void sendBody(Object entity, EntityType<?> type) throws IOException, RestException {
         MediaType contentType = getPreferredContentType(type);
-        sendBody(entity, type, contentType);
+        boolean tagged = autoETag && getStatus() == SC_OK && isConditionalMethod()
+            && !containsHeader(HttpHeader.ETAG.asString());
+        ContentEncoding encoding = startEncoding();
+        if (tagged || encoding != null) {
+            sendBufferedBody(entity, type, contentType, tagged, encoding);
+        } else {
+            sendBody(entity, type, contentType);
+        }
+    }
+
+    /**
+     * Serializes the entity into a buffer to tag or compress it before it is sent
+     */
+    private void sendBufferedBody(Object entity, EntityType<?> type, MediaType contentType, boolean tagged,
+        ContentEncoding encoding) throws IOException, RestException {
+        setMediaType(contentType);
+
+        ServletWriteContext context = new ServletWriteContext();
+        long checkpoint = System.nanoTime();
+        try {
+            request.getConverterService().toRepresentation(context, type, entity);
+            context.getWriter().flush();
+        } finally {
+            request.getTiming().record(RequestTiming.Phase.SERIALIZATION, checkpoint);
+        }
+
+        ByteArrayOutputStream2 buffer = context.getBuffer();
+        if (buffer.getCount() < compressionThreshold) {
+            encoding = null;
+        }
+
+        if (tagged) {
+            String tag = EntityTag.of(buffer.getBuf(), 0, buffer.getCount());
+            if (encoding != null) {
+                //the compressed representation needs its own strong entity tag
+                tag = tag.substring(0, tag.length() - 1) + '-' + encoding.getName() + '"';
+            }
+
+            if (checkNotModified(tag)) {
+                return;
+            }
+        }
+
+        if (encoding != null) {
+            checkpoint = System.nanoTime();
+            try {
+                buffer = encoding.encode(buffer.getBuf(), 0, buffer.getCount());
+            } finally {
+                request.getTiming().record(RequestTiming.Phase.SERIALIZATION, checkpoint);
+            }
+            setHeader(HttpHeader.CONTENT_ENCODING.asString(), encoding.getName());
+        }
+
+        setContentLength(buffer.getCount());
+        buffer.writeTo(getOutputStream());
     }
 
     private void sendBody(Object entity, EntityType<?> type, MediaType contentType) throws IOException, RestException {
         setMediaType(contentType);
-        request.getConverterService().toRepresentation(this, type, entity);
+
+        long checkpoint = System.nanoTime();
+        try {
+            request.getConverterService().toRepresentation(this, type, entity);
+        } finally {
+            request.getTiming().record(RequestTiming.Phase.SERIALIZATION, checkpoint);
+        }
     }
 
     @Override
@@ -286,18 +545,50 @@ public void sendRedirect(int sc, String location) throws IOException {
     }
 
     private class ServletWriteContext implements WritableContext {
-        private final ByteArrayOutputStream buffer;
+        private final ByteArrayOutputStream2 buffer;
+        private final EncodingOutputStream encoder;
         private final PrintWriter writer;
 
-        public ServletWriteContext() {
-            this.buffer = new ByteArrayOutputStream(8 * 1024);
-            this.writer = new PrintWriter(new OutputStreamWriter(this.buffer, StandardCharsets.UTF_8));
+        public ServletWriteContext() throws IOException {
+            this(null);
+        }
+
+        /**
+         * Creates a context which compresses the written entities into the buffer, each flush of the writer
+         * completes a decodable block
+         *
+         * @param encoding The encoding of the buffer or <code>null</code> to buffer the entities uncompressed
+         */
+        public ServletWriteContext(ContentEncoding encoding) throws IOException {
+            this.buffer = new ByteArrayOutputStream2(8 * 1024);
+            this.encoder = encoding == null ? null : new EncodingOutputStream(buffer, encoding);
+            this.writer = new PrintWriter(new OutputStreamWriter(encoder == null ? buffer : encoder,
+                StandardCharsets.UTF_8));
         }
 
-        public ByteArrayOutputStream getBuffer() {
+        public ByteArrayOutputStream2 getBuffer() {
             return buffer;
         }
 
+        /**
+         * Flushes the writer and completes the compressed stream
+         */
+        public void finish() throws IOException {
+            writer.flush();
+            if (encoder != null) {
+                encoder.finish();
+            }
+        }
+
+        /**
+         * Releases the deflater of an aborted compressed stream
+         */
+        public void release() {
+            if (encoder != null) {
+                encoder.release();
+            }
+        }
+
         @Override
         public PrintWriter getWriter() throws IOException {
             return writer;
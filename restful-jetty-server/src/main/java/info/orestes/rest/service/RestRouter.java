@@ -1,10 +1,16 @@
 package info.orestes.rest.service;
 
 import info.orestes.rest.RestServlet;
+import info.orestes.rest.admission.AdmissionHandler;
 import info.orestes.rest.conversion.ConverterService;
 import info.orestes.rest.error.BadRequest;
+import info.orestes.rest.error.GatewayTimeOut;
 import info.orestes.rest.error.RestException;
+import info.orestes.rest.jfr.DispatchEvent;
+import info.orestes.rest.jfr.JfrSupport;
 import info.orestes.rest.service.PathElement.Type;
+import info.orestes.rest.service.RequestTiming.Phase;
+import info.orestes.rest.util.Deadline;
 import info.orestes.rest.util.Inject;
 import info.orestes.rest.util.Module;
 import org.eclipse.jetty.http.HttpURI;
@@ -13,23 +19,42 @@
 import org.eclipse.jetty.util.MultiMap;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.jetty.util.UrlEncoded;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class RestRouter extends HandlerWrapper {
 
     public static final String REST_REQUEST = RestRequest.class.getName();
     public static final String REST_RESPONSE = RestResponse.class.getName();
 
+    /**
+     * The default maximum of the {@link Deadline#HEADER} of a request in milliseconds, which is the default async
+     * timeout of Jetty
+     */
+    public static final long DEFAULT_MAX_REQUEST_TIMEOUT = 30000;
+
+    private static final Logger LOG = Log.getLogger(RestRouter.class);
+
 	private final Module module;
 	private final ConverterService converterService;
 	private final List<RestMethod> methods = new ArrayList<>();
 	private final ArrayList<ArrayList<Route>> routeLists = new ArrayList<>(10);
     private final List<Route> dynamicRoutes = new ArrayList<>(0);
+    private boolean serverTimingEnabled;
+    private boolean autoETagEnabled;
+    private int compressionThreshold = -1;
+    private long slowRequestThreshold = -1;
+    private long defaultTimeout = -1;
+    private long maxRequestTimeout = DEFAULT_MAX_REQUEST_TIMEOUT;
 
 	@Inject
 	public RestRouter(Module module) {
@@ -43,7 +68,13 @@ public void handle(String path, Request request, HttpServletRequest req, HttpSer
         RestRequest restRequest = (RestRequest) request.getAttribute(REST_REQUEST);
         RestResponse restResponse = (RestResponse) request.getAttribute(REST_RESPONSE);
 
-        if (restRequest == null) {
+        boolean dispatched = restRequest == null;
+        DispatchEvent event = null;
+        if (dispatched) {
+			long start = System.nanoTime();
+			if (JfrSupport.AVAILABLE) {
+				event = DispatchEvent.start();
+			}
 			HttpURI uri = request.getHttpURI();
 
 			// jetty decodes the path param
@@ -89,11 +120,23 @@ public void handle(String path, Request request, HttpServletRequest req, HttpSer
 
 					restRequest = creatRequest(request, req, route);
 					restResponse = createResponse(request, restRequest, res);
+					restResponse.setAutoETag(autoETagEnabled
+						|| route.getMethod().getAnnotation(RestResponse.ETAG_ANNOTATION) != null);
+					restResponse.setCompressionThreshold(route.getCompressionThreshold() != null
+						? route.getCompressionThreshold() : compressionThreshold);
+
+					restRequest.setDeadline(createDeadline(request, route));
+
+					RequestTiming timing = new RequestTiming(start, serverTimingEnabled);
+					timing.record(Phase.ROUTING, start);
+					restRequest.setTiming(timing);
 
 					request.setAttribute(REST_REQUEST, restRequest);
 					request.setAttribute(REST_RESPONSE, restResponse);
 					try {
+						long binding = System.nanoTime();
 						restRequest.setMatches(matches);
+						timing.record(Phase.BINDING, binding);
 						break;
 					} catch (RestException e) {
 						restResponse.sendError(e);
@@ -105,9 +148,194 @@ public void handle(String path, Request request, HttpServletRequest req, HttpSer
 		}
 
 		if (restRequest != null) {
-			super.handle(path, request, restRequest, restResponse);
+			Deadline deadline = restRequest.getDeadline();
+			if (dispatched && deadline != null && deadline.isExpired()) {
+				restResponse.sendError(new GatewayTimeOut("The deadline of the request has expired."));
+				request.setHandled(true);
+				return;
+			}
+
+			try (Deadline.Scope scope = Deadline.attach(deadline)) {
+				super.handle(path, request, restRequest, restResponse);
+			}
 			request.setHandled(true);
+
+			if (dispatched && (slowRequestThreshold >= 0 || event != null)) {
+				if (restRequest.isAsyncStarted()) {
+					restRequest.getAsyncContext().addListener(new CompletionListener(restRequest, restResponse, event));
+				} else {
+					complete(restRequest, restResponse, event);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the deadline of a request, which is the earlier of the {@link Deadline#HEADER} of the request and the
+	 * timeout of the route. The header is capped by the maximum request timeout.
+	 *
+	 * @param request The request
+	 * @param route   The matched route
+	 * @return The deadline or <code>null</code> if the request has no deadline
+	 */
+	protected Deadline createDeadline(Request request, Route route) {
+		long timeout = route.getTimeout() != null ? route.getTimeout() : defaultTimeout;
+		Deadline deadline = timeout < 0 ? null : Deadline.after(timeout, TimeUnit.MILLISECONDS);
+		Deadline requested = Deadline.parse(request.getHeader(Deadline.HEADER));
+		if (requested != null && maxRequestTimeout >= 0) {
+			// a client can shorten but not extend the time spent on its request
+			requested = Deadline.min(requested, Deadline.after(maxRequestTimeout, TimeUnit.MILLISECONDS));
+		}
+		return Deadline.min(deadline, requested);
+	}
+
+	private void complete(RestRequest request, RestResponse response, DispatchEvent event) {
+		if (event != null) {
+			event.commit(request, response);
 		}
+
+		if (slowRequestThreshold >= 0) {
+			logSlowRequest(request);
+		}
+	}
+
+	/**
+	 * Logs the phase timing of the request if it exceeds the slow request threshold
+	 *
+	 * @param request The completed request
+	 */
+	protected void logSlowRequest(RestRequest request) {
+		RequestTiming timing = request.getTiming();
+		long elapsed = timing.getElapsed();
+		if (elapsed >= slowRequestThreshold) {
+			LOG.warn("Slow request {} {} ({}) took {}ms: {}", request.getMethod(), request.getRequestURI(),
+				request.getRestMethod().getName(), TimeUnit.NANOSECONDS.toMillis(elapsed), timing);
+		}
+	}
+
+	/**
+	 * Indicates if the request phase timing is sent in the Server-Timing response header
+	 *
+	 * @return <code>true</code> if the Server-Timing header is enabled
+	 */
+	public boolean isServerTimingEnabled() {
+		return serverTimingEnabled;
+	}
+
+	/**
+	 * Enables the Server-Timing response header, which contains the duration of the request phases which are
+	 * completed before the response entity is sent, see {@link RequestTiming#toServerTiming()}
+	 *
+	 * @param serverTimingEnabled <code>true</code> to send the Server-Timing header
+	 */
+	public void setServerTimingEnabled(boolean serverTimingEnabled) {
+		this.serverTimingEnabled = serverTimingEnabled;
+	}
+
+	/**
+	 * Indicates if entity tags are generated for the responses of all methods
+	 *
+	 * @return <code>true</code> if entity tags are generated for all methods
+	 */
+	public boolean isAutoETagEnabled() {
+		return autoETagEnabled;
+	}
+
+	/**
+	 * Enables the generation of entity tags for the responses of all methods, see
+	 * {@link RestResponse#setAutoETag(boolean)}. Single methods can be enabled by the <code>%etag</code> annotation in
+	 * the service document.
+	 *
+	 * @param autoETagEnabled <code>true</code> to generate entity tags for all methods
+	 */
+	public void setAutoETagEnabled(boolean autoETagEnabled) {
+		this.autoETagEnabled = autoETagEnabled;
+	}
+
+	/**
+	 * Returns the minimum size of compressed responses of methods without a <code>%compress</code> annotation
+	 *
+	 * @return The size in bytes or a negative value if compression is disabled by default
+	 */
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	/**
+	 * Enables the compression of the responses of all methods, see {@link RestResponse#setCompressionThreshold(int)}.
+	 * Single methods can be enabled or configured by the <code>%compress [bytes]</code> annotation in the service
+	 * document, <code>%compress -1</code> disables the compression of a method.
+	 *
+	 * @param compressionThreshold The minimum size of compressed responses in bytes or a negative value to disable
+	 *                             compression, which is the default
+	 */
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	/**
+	 * Returns the timeout of requests to methods without a <code>%timeout</code> annotation
+	 *
+	 * @param unit The unit of the returned timeout
+	 * @return The timeout or a negative value if requests have no default deadline
+	 */
+	public long getDefaultTimeout(TimeUnit unit) {
+		return defaultTimeout < 0 ? -1 : unit.convert(defaultTimeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sets the timeout of requests to methods without a <code>%timeout &lt;millis&gt;</code> annotation. The timeout
+	 * starts when the request is routed and is shortened by a smaller {@link Deadline#HEADER} of the request. The
+	 * resulting {@link Deadline} limits the async timeout of the request and is propagated to the {@link
+	 * info.orestes.rest.client.RestClient} requests sent while the request is dispatched.
+	 *
+	 * @param timeout The timeout or a negative value to only use the deadline of the request header, which is the
+	 *                default
+	 * @param unit    The unit of the timeout
+	 */
+	public void setDefaultTimeout(long timeout, TimeUnit unit) {
+		this.defaultTimeout = timeout < 0 ? -1 : unit.toMillis(timeout);
+	}
+
+	/**
+	 * Returns the maximum timeout a request can ask for by its {@link Deadline#HEADER}
+	 *
+	 * @param unit The unit of the returned timeout
+	 * @return The maximum timeout or a negative value if the header is not capped
+	 */
+	public long getMaxRequestTimeout(TimeUnit unit) {
+		return maxRequestTimeout < 0 ? -1 : unit.convert(maxRequestTimeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sets the maximum timeout a request can ask for by its {@link Deadline#HEADER}, larger values are capped. The
+	 * default is {@value #DEFAULT_MAX_REQUEST_TIMEOUT} milliseconds.
+	 *
+	 * @param timeout The maximum timeout or a negative value to not cap the header
+	 * @param unit    The unit of the timeout
+	 */
+	public void setMaxRequestTimeout(long timeout, TimeUnit unit) {
+		this.maxRequestTimeout = timeout < 0 ? -1 : unit.toMillis(timeout);
+	}
+
+	/**
+	 * Returns the threshold above which requests are logged with their phase timing
+	 *
+	 * @param unit The unit of the returned threshold
+	 * @return The threshold or a negative value if the slow request log is disabled
+	 */
+	public long getSlowRequestThreshold(TimeUnit unit) {
+		return slowRequestThreshold < 0 ? -1 : unit.convert(slowRequestThreshold, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Sets the threshold above which requests are logged with their phase timing
+	 *
+	 * @param threshold The threshold or a negative value to disable the slow request log, which is the default
+	 * @param unit      The unit of the threshold
+	 */
+	public void setSlowRequestThreshold(long threshold, TimeUnit unit) {
+		this.slowRequestThreshold = threshold < 0 ? -1 : unit.toNanos(threshold);
 	}
 
 	protected List<String> decodePath(String path) throws BadRequest {
@@ -250,14 +478,65 @@ protected List<Route> getRoutes(int parts) {
 		}
 	}
 
+	private class CompletionListener implements AsyncListener {
+		private final RestRequest request;
+		private final RestResponse response;
+		private final DispatchEvent dispatchEvent;
+
+		CompletionListener(RestRequest request, RestResponse response, DispatchEvent dispatchEvent) {
+			this.request = request;
+			this.response = response;
+			this.dispatchEvent = dispatchEvent;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			complete(request, response, dispatchEvent);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+	}
+
 	public class Route implements Comparable<Route> {
 
 		private final RestMethod method;
 		private final RestServlet servlet;
+		private final Integer compressionThreshold;
+		private final Long timeout;
 
 		public Route(RestMethod method) {
 			this.method = method;
             this.servlet = module.inject(method.getTarget());
+
+			String compress = method.getAnnotation(RestResponse.COMPRESS_ANNOTATION);
+			try {
+				this.compressionThreshold = compress == null ? null
+					: compress.isEmpty() ? RestResponse.DEFAULT_COMPRESSION_THRESHOLD : Integer.valueOf(compress);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("The method " + method.getName()
+					+ " declares an invalid compression threshold " + compress, e);
+			}
+
+			String timeout = method.getAnnotation(RestRequest.TIMEOUT_ANNOTATION);
+			try {
+				this.timeout = timeout == null ? null : Long.valueOf(timeout);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("The method " + method.getName()
+					+ " declares an invalid timeout " + timeout, e);
+			}
+
+			AdmissionHandler.parseLimit(method);
 		}
 
         public boolean isDynamic() {
@@ -272,6 +551,24 @@ public RestServlet getServlet() {
             return servlet;
         }
 
+		/**
+		 * Returns the compression threshold which is declared by the <code>%compress</code> annotation
+		 *
+		 * @return The threshold in bytes or <code>null</code> if the method is not annotated
+		 */
+		public Integer getCompressionThreshold() {
+			return compressionThreshold;
+		}
+
+		/**
+		 * Returns the timeout which is declared by the <code>%timeout</code> annotation
+		 *
+		 * @return The timeout in milliseconds or <code>null</code> if the method is not annotated
+		 */
+		public Long getTimeout() {
+			return timeout;
+		}
+
         public RestRouter getRouter() {
 			return RestRouter.this;
 		}
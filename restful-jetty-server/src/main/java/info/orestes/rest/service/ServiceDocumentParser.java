@@ -24,6 +24,7 @@ public static enum State {
 	private static final Pattern ENTITY_TYPE_PATTERN = Pattern
 		.compile("\\s*(\\w+)\\s*(\\[\\s*(\\w+\\s*(,\\s*\\w+\\s*)*)\\])?");
     private static final Pattern HEADER_PATTERN = Pattern.compile("([\\w_-]+):\\s*(\\S+)\\s+(.*)");
+    private static final Pattern ANNOTATION_PATTERN = Pattern.compile("%(\\w+)(\\s+(.*))?");
 
 
     private final ServiceDocumentTypes types;
@@ -39,6 +40,7 @@ public static enum State {
 	private Map<Integer, String> currentResults;
     private Map<String, HeaderElement> currentRequestHeader;
     private Map<String, HeaderElement> currentResponseHeader;
+    private Map<String, String> currentAnnotations;
     private String methodAction;
     private List<PathElement> methodPathElements;
     private Class<? extends RestServlet> methodServletClass;
@@ -165,6 +167,10 @@ private void parseLine(String line) throws IOException {
 					break;
 				}
 			case REQUEST_HEADER:
+				if (parseAnnotation(line)) {
+					state = State.REQUEST_HEADER;
+					break;
+				}
 				if (parseHeader(line, currentRequestHeader)) {
 					state = State.REQUEST_HEADER;
 					break;
@@ -221,6 +227,7 @@ private boolean parseName(String line) throws IOException {
 			currentResults = new TreeMap<>();
             currentRequestHeader = new HashMap<>();
             currentResponseHeader = new HashMap<>();
+            currentAnnotations = new HashMap<>();
 			return true;
 		} else {
 			return false;
@@ -254,6 +261,24 @@ private boolean parseArgument(String line) throws IOException {
 		}
 	}
 	
+	private boolean parseAnnotation(String line) throws IOException {
+		if (line.charAt(0) == '%') {
+			Matcher matcher = ANNOTATION_PATTERN.matcher(line);
+			if (matcher.matches()) {
+				if (currentAnnotations.containsKey(matcher.group(1))) {
+					throw new IOException("Duplicated annotation found " + matcher.group(1));
+				}
+
+				currentAnnotations.put(matcher.group(1), matcher.group(3) == null ? "" : matcher.group(3).trim());
+			} else {
+				throw new IOException("Illegal annotation definition " + line);
+			}
+			return true;
+		} else {
+			return false;
+		}
+	}
+
 	private boolean parseHeader(String line, Map<String, HeaderElement> headers) throws IOException {
 		if (!Character.isDigit(line.charAt(0)) && !line.startsWith("#")) {
 			Matcher matcher = HEADER_PATTERN.matcher(line);
@@ -316,7 +341,7 @@ private void endMethod() throws IOException {
         RestMethod method = new RestMethod(
                 currentName, currentDescription, currentLongDescription.toArray(new String[currentLongDescription.size()]),
                 methodAction, methodPathElements, methodServletClass, currentRequestHeader, currentResponseHeader,
-                currentResults,methodRequestType, methodResponseType, methodForceSSL);
+                currentResults,methodRequestType, methodResponseType, methodForceSSL, currentAnnotations);
 
         currentGroup.add(method);
     }
@@ -444,14 +469,14 @@ private EntityType<?> parseEntityType(String entityType) throws IOException {
 			if (matcher.matches()) {
 				Class<?> type = getClassForEntity(matcher.group(1));
 				if (matcher.group(3) == null) {
-					return new EntityType<>(type);
+					return EntityType.of(type);
 				} else {
 					String[] genericTypes = matcher.group(3).split(",");
 					Class<?>[] genericParams = new Class<?>[genericTypes.length];
 					for (int i = 0; i < genericTypes.length; ++i) {
 						genericParams[i] = getClassForEntity(genericTypes[i].trim());
 					}
-					return new EntityType<>(type, genericParams);
+					return EntityType.of(type, genericParams);
 				}
 			} else {
 				throw new IOException("An invalid entity type definition is used " + entityType);
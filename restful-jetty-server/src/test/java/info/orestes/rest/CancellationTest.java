@@ -0,0 +1,189 @@
+package info.orestes.rest;
+
+import info.orestes.rest.client.EntityResponse;
+import info.orestes.rest.client.RestClient;
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.RestHandler;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import info.orestes.rest.util.Deadline;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CancellationTest {
+
+    private static final BlockingQueue<PendingCall> calls = new LinkedBlockingQueue<>();
+
+    private final BlockingQueue<RestException> errors = new LinkedBlockingQueue<>();
+    private RestTestServer server;
+    private volatile long containerTimeout;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RestTestServer(
+            "#cancellation : Cancellation",
+            "##pending : A method which never completes by itself",
+            "GET /pending info.orestes.rest.CancellationTest$PendingServlet : String",
+            "200 ok",
+            "##limited : A method which never completes within its timeout",
+            "GET /limited info.orestes.rest.CancellationTest$PendingServlet : String",
+            "%timeout 100",
+            "200 ok");
+        // records the errors which the servlet sends
+        server.addRestHandler(new RestHandler() {
+            @Override
+            public void handle(RestRequest request, RestResponse response)
+                throws IOException, ServletException, RestException {
+                super.handle(request, new RestResponse(request, response) {
+                    @Override
+                    public void sendError(RestException error) {
+                        errors.add(error);
+                        super.sendError(error);
+                    }
+                });
+            }
+        });
+        // shortens the default async timeout of the container
+        server.wrap(new HandlerWrapper() {
+            @Override
+            public void handle(String target, org.eclipse.jetty.server.Request baseRequest,
+                HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                if (containerTimeout > 0) {
+                    baseRequest.getHttpChannelState().setTimeout(containerTimeout);
+                }
+                super.handle(target, baseRequest, request, response);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        calls.clear();
+    }
+
+    @Test
+    public void testConnectionClose() throws Exception {
+        server.newRequest("/pending").send(result -> {
+        });
+        PendingCall call = calls.poll(5, TimeUnit.SECONDS);
+        assertNotNull(call);
+
+        // the connection is closed as if the server noticed that the client has gone
+        call.request.getBaseRequest().getHttpChannel().getEndPoint().close();
+
+        call.cancellation.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertTrue(call.request.isCancelled());
+        assertTrue(call.result.isCancelled());
+        // the abandoned request is completed without an error response
+        assertNull(errors.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testAsyncTimeout() throws Exception {
+        ContentResponse response = server.newRequest("/limited").send();
+        assertEquals(504, response.getStatus());
+
+        PendingCall call = calls.poll(5, TimeUnit.SECONDS);
+        assertNotNull(call);
+        call.cancellation.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertTrue(call.result.isDone());
+        // the timeout is sent once and not followed by the error of the cancelled result
+        assertEquals(504, errors.poll(5, TimeUnit.SECONDS).getStatusCode());
+        assertNull(errors.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRequestTimeoutDoesNotExtendContainerTimeout() throws Exception {
+        containerTimeout = 100;
+        ContentResponse response = server.newRequest("/pending").header(Deadline.HEADER, "86400000")
+            .timeout(5, TimeUnit.SECONDS).send();
+
+        assertEquals(504, response.getStatus());
+    }
+
+    @Test
+    public void testRequestTimeoutIsCapped() throws Exception {
+        server.getRouter().setMaxRequestTimeout(100, TimeUnit.MILLISECONDS);
+        ContentResponse response = server.newRequest("/pending").header(Deadline.HEADER, "86400000")
+            .timeout(5, TimeUnit.SECONDS).send();
+
+        assertEquals(504, response.getStatus());
+        assertEquals(100, server.getRouter().getMaxRequestTimeout(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testAsyncError() throws Exception {
+        server.newRequest("/pending").send(result -> {
+        });
+        PendingCall call = calls.poll(5, TimeUnit.SECONDS);
+        assertNotNull(call);
+
+        call.request.getBaseRequest().getHttpChannelState().asyncError(new IOException("The write has failed."));
+
+        call.cancellation.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertTrue(call.result.isCancelled());
+        assertNull(errors.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCancelWith() throws Exception {
+        RestClient client = new RestClient(server.getURI(""),
+            server.getModule().moduleInstance(ConverterService.class));
+        client.start();
+        try {
+            CompletableFuture<Void> signal = new CompletableFuture<>();
+            CompletableFuture<EntityResponse<String>> response = client.newRequest("/pending").cancelWith(signal)
+                .send(String.class);
+            PendingCall call = calls.poll(5, TimeUnit.SECONDS);
+            assertNotNull(call);
+
+            signal.complete(null);
+
+            Throwable failure = response.handle((entity, error) -> error).get(5, TimeUnit.SECONDS);
+            assertTrue(String.valueOf(failure), failure instanceof CancellationException);
+        } finally {
+            client.stop();
+        }
+    }
+
+    private static class PendingCall {
+        final RestRequest request;
+        final CompletionStage<Void> cancellation;
+        final CompletableFuture<Void> result;
+
+        PendingCall(RestRequest request, CompletableFuture<Void> result) {
+            this.request = request;
+            this.cancellation = request.getCancellation();
+            this.result = result;
+        }
+    }
+
+    public static class PendingServlet extends RestServlet {
+        @Override
+        public CompletableFuture<Void> doGetAsync(Request request, Response response)
+            throws RestException, IOException {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            calls.add(new PendingCall((RestRequest) request, result));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package info.orestes.rest;
+
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.service.MethodGroup;
+import info.orestes.rest.service.RestHandler;
+import info.orestes.rest.service.RestRouter;
+import info.orestes.rest.service.RestServletHandler;
+import info.orestes.rest.service.ServiceDocumentParser;
+import info.orestes.rest.util.Module;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.io.StringReader;
+
+/**
+ * An embedded server which routes the methods of an inline service document to their servlets, and a plain client
+ * to send requests to it. Besides the bundled formats, the server streams CharSequences in the {@link LineFormat}.
+ * Rest handlers can be inserted in front of the servlets and handler wrappers in front of the router.
+ */
+public class RestTestServer {
+
+    private final Module module = new Module();
+    private final Server server;
+    private final ServerConnector connector;
+    private final HttpClient client = new HttpClient();
+    private final RestRouter router;
+    private HandlerWrapper lastRestHandler;
+    private Handler outermost;
+
+    /**
+     * Creates a server for the given service document
+     *
+     * @param spec The lines of the service document
+     */
+    public RestTestServer(String... spec) {
+        this(new QueuedThreadPool(), spec);
+    }
+
+    /**
+     * Creates a server for the given service document which runs on the given thread pool
+     *
+     * @param threadPool The thread pool of the server
+     * @param spec       The lines of the service document
+     */
+    public RestTestServer(ThreadPool threadPool, String... spec) {
+        server = new Server(threadPool);
+        connector = new ServerConnector(server);
+
+        module.bind(ConverterService.class, ConverterService.class);
+        ConverterService converterService = module.moduleInstance(ConverterService.class);
+        converterService.addFormat(new LineFormat());
+        converterService.add(new LineConverter());
+
+        StringBuilder builder = new StringBuilder();
+        for (String line : spec) {
+            builder.append(line).append('\n');
+        }
+
+        router = new RestRouter(module);
+        ServiceDocumentParser parser = new ServiceDocumentParser(converterService.createServiceDocumentTypes());
+        for (MethodGroup group : parser.parse(new StringReader(builder.toString()))) {
+            router.addAll(group);
+        }
+
+        router.setHandler(new RestServletHandler());
+        lastRestHandler = router;
+        outermost = router;
+        server.addConnector(connector);
+    }
+
+    public Module getModule() {
+        return module;
+    }
+
+    public RestRouter getRouter() {
+        return router;
+    }
+
+    public Server getServer() {
+        return server;
+    }
+
+    public ServerConnector getConnector() {
+        return connector;
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Inserts a rest handler between the previously inserted rest handlers and the servlets
+     *
+     * @param handler The rest handler
+     */
+    public void addRestHandler(RestHandler handler) {
+        handler.setHandler(lastRestHandler.getHandler());
+        lastRestHandler.setHandler(handler);
+        lastRestHandler = handler;
+    }
+
+    /**
+     * Wraps the router and all previously added wrappers
+     *
+     * @param wrapper The handler wrapper
+     */
+    public void wrap(HandlerWrapper wrapper) {
+        wrapper.setHandler(outermost);
+        outermost = wrapper;
+    }
+
+    public void start() throws Exception {
+        server.setHandler(outermost);
+        server.start();
+        client.start();
+    }
+
+    public void stop() throws Exception {
+        client.stop();
+        server.stop();
+    }
+
+    public String getURI(String path) {
+        return "http://localhost:" + connector.getLocalPort() + path;
+    }
+
+    public Request newRequest(String path) {
+        return client.newRequest(getURI(path));
+    }
+}
@@ -0,0 +1,70 @@
+package info.orestes.rest;
+
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.EntityType;
+import info.orestes.rest.service.RequestTiming;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class StreamTimingTest {
+
+    private static final BlockingQueue<RequestTiming> timings = new LinkedBlockingQueue<>();
+
+    private RestTestServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RestTestServer(
+            "#stream : Stream",
+            "##stream : Streams slowly produced elements",
+            "GET /stream info.orestes.rest.StreamTimingTest$StreamServlet : String",
+            "200 ok");
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        timings.clear();
+    }
+
+    @Test
+    public void testHandlerPhaseIncludesStream() throws Exception {
+        ContentResponse response = server.newRequest("/stream").accept(LineFormat.MEDIA_TYPE).send();
+        assertEquals(200, response.getStatus());
+        assertEquals("a\nb\nc\n", response.getContentAsString());
+
+        RequestTiming timing = timings.poll(5, TimeUnit.SECONDS);
+        assertNotNull(timing);
+        assertTrue(timing.toString(),
+            timing.getDuration(RequestTiming.Phase.HANDLER) >= TimeUnit.MILLISECONDS.toNanos(60));
+    }
+
+    public static class StreamServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            // the handler phase is recorded before the response is completed
+            timings.add(((RestRequest) request).getTiming());
+            Stream<CharSequence> elements = Stream.<CharSequence>of("a", "b", "c").peek(element -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            ((RestResponse) response).sendStream(elements, EntityType.of(CharSequence.class));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package info.orestes.rest.admission;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.RestTestServer;
+import info.orestes.rest.error.RestException;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.util.FutureResponseListener;
+import org.eclipse.jetty.http.HttpHeader;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdmissionHandlerTest {
+
+    private static volatile CountDownLatch entered;
+    private static volatile CountDownLatch released;
+
+    private RestTestServer server;
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testRejectExceededLimit() throws Exception {
+        entered = new CountDownLatch(1);
+        released = new CountDownLatch(1);
+        server = new RestTestServer(
+            "#admission : Admission",
+            "##limited : A method which admits one request at a time",
+            "GET /limited info.orestes.rest.admission.AdmissionHandlerTest$BlockingServlet : String",
+            "%limit 1",
+            "200 ok");
+        AdmissionHandler handler = new AdmissionHandler();
+        handler.setRetryAfter(3);
+        server.addRestHandler(handler);
+        server.start();
+
+        org.eclipse.jetty.client.api.Request first = server.newRequest("/limited");
+        FutureResponseListener listener = new FutureResponseListener(first);
+        first.send(listener);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        ContentResponse rejected = server.newRequest("/limited").send();
+        assertEquals(503, rejected.getStatus());
+        assertEquals("3", rejected.getHeaders().get(HttpHeader.RETRY_AFTER));
+
+        released.countDown();
+        assertEquals(200, listener.get(5, TimeUnit.SECONDS).getStatus());
+
+        ConcurrencyLimiter limiter = handler.getLimiters().iterator().next();
+        assertEquals(1, limiter.getAdmitted());
+        assertEquals(1, limiter.getRejected());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroLimit() {
+        new RestTestServer(
+            "#admission : Admission",
+            "##limited : A method which admits no request",
+            "GET /limited info.orestes.rest.admission.AdmissionHandlerTest$BlockingServlet : String",
+            "%limit 0",
+            "200 ok");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedLimit() {
+        new RestTestServer(
+            "#admission : Admission",
+            "##limited : A method with a malformed limit",
+            "GET /limited info.orestes.rest.admission.AdmissionHandlerTest$BlockingServlet : String",
+            "%limit many",
+            "200 ok");
+    }
+
+    public static class BlockingServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            entered.countDown();
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.sendEntity("admitted");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package info.orestes.rest.admission;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void testFixedLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("get", new FixedLimit(2));
+        assertEquals(1, limiter.tryAcquire());
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+
+        limiter.release(System.nanoTime(), 2, false);
+        assertEquals(2, limiter.tryAcquire());
+
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(3, limiter.getAdmitted());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFixedLimit() {
+        new FixedLimit(0);
+    }
+
+    @Test
+    public void testAdaptiveLimitGrowsWithStableLatency() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100);
+        for (int i = 0; i < 100; ++i) {
+            limit.onSample(LATENCY, limit.getLimit(), false);
+        }
+
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    public void testAdaptiveLimitDoesNotGrowWhenIdle() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100);
+        for (int i = 0; i < 100; ++i) {
+            limit.onSample(LATENCY, 1, false);
+        }
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    public void testAdaptiveLimitShrinksWithRisingLatency() {
+        AdaptiveLimit limit = new AdaptiveLimit(50, 1, 100);
+        for (int i = 0; i < 10; ++i) {
+            limit.onSample(LATENCY, limit.getLimit(), false);
+        }
+        int stable = limit.getLimit();
+
+        for (int i = 0; i < 50; ++i) {
+            limit.onSample(LATENCY * 10, limit.getLimit(), false);
+        }
+
+        assertTrue(limit.getLimit() < stable / 2);
+    }
+
+    @Test
+    public void testAdaptiveLimitBacksOffOnDrops() {
+        AdaptiveLimit limit = new AdaptiveLimit(20, 4, 100);
+        limit.onSample(LATENCY, 20, true);
+        assertEquals(18, limit.getLimit());
+
+        for (int i = 0; i < 100; ++i) {
+            limit.onSample(LATENCY, 20, true);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+}
@@ -0,0 +1,139 @@
+package info.orestes.rest.admission;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.RestTestServer;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.util.Deadline;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LoadSheddingHandlerTest {
+
+    private RestTestServer server;
+    private QueueDelayThreadPool threadPool;
+    private LoadSheddingHandler handler;
+    private volatile long stall;
+
+    @Before
+    public void setUp() throws Exception {
+        threadPool = new QueueDelayThreadPool(16);
+        // reserved threads would run the request without queueing it
+        threadPool.setReservedThreads(0);
+        server = new RestTestServer(threadPool,
+            "#shedding : Shedding",
+            "##method : A method behind the shedding handler",
+            "GET /method info.orestes.rest.admission.LoadSheddingHandlerTest$OkServlet : String",
+            "200 ok");
+        handler = new LoadSheddingHandler(QueueDelayController.fixed(50, TimeUnit.MILLISECONDS), false);
+        handler.setRetryAfter(2);
+        server.wrap(handler);
+        // stalls the request between the parsing of its header and the shedding handler
+        server.wrap(new HandlerWrapper() {
+            @Override
+            public void handle(String target, org.eclipse.jetty.server.Request baseRequest,
+                HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                if (stall > 0) {
+                    try {
+                        Thread.sleep(stall);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.handle(target, baseRequest, request, response);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void testAdmitRequest() throws Exception {
+        ContentResponse response = server.newRequest("/method").send();
+        assertEquals(200, response.getStatus());
+
+        assertEquals(1, handler.getMetrics().getAdmitted());
+        assertEquals(0, handler.getMetrics().getShed());
+    }
+
+    @Test
+    public void testShedDelayedRequest() throws Exception {
+        stall = 200;
+        ContentResponse response = server.newRequest("/method").send();
+
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeaders().get(HttpHeader.RETRY_AFTER));
+        assertEquals(0, response.getContent().length);
+        assertEquals(0, handler.getMetrics().getAdmitted());
+        assertEquals(1, handler.getMetrics().getShed());
+        // the JMX view reports milliseconds
+        assertTrue(handler.getMetrics().getQueueDelayMax() >= 200);
+    }
+
+    @Test
+    public void testShedQueuedRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // occupies all threads of the pool, so the job which reads the request waits in the queue
+        for (int i = 0; i < threadPool.getMaxThreads(); ++i) {
+            threadPool.execute(() -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        });
+        releaser.start();
+
+        ContentResponse response = server.newRequest("/method").timeout(5, TimeUnit.SECONDS).send();
+        releaser.join();
+
+        assertEquals(503, response.getStatus());
+        assertEquals(1, handler.getMetrics().getShed());
+        assertTrue(handler.getMetrics().getQueueDelayMax() >= 100);
+    }
+
+    @Test
+    public void testShedExpiredRequest() throws Exception {
+        stall = 30;
+        // the queue delay is tolerated, but the client does not wait for the response anymore
+        ContentResponse response = server.newRequest("/method").header(Deadline.HEADER, "10").send();
+
+        assertEquals(503, response.getStatus());
+        assertEquals(1, handler.getMetrics().getShed());
+    }
+
+    public static class OkServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.sendEntity("ok");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package info.orestes.rest.admission;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueueDelayControllerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testFixed() {
+        QueueDelayController controller = QueueDelayController.fixed(50, TimeUnit.MILLISECONDS);
+        long now = System.nanoTime();
+        assertTrue(controller.admit(50 * MS, now));
+        assertFalse(controller.admit(51 * MS, now));
+    }
+
+    @Test
+    public void testBurstIsTolerated() {
+        QueueDelayController controller = new QueueDelayController(10, 100, TimeUnit.MILLISECONDS);
+        long now = System.nanoTime();
+        assertTrue(controller.admit(80 * MS, now));
+        assertTrue(controller.admit(0, now + 10 * MS));
+
+        //the queue drained in the first interval
+        assertTrue(controller.admit(80 * MS, now + 110 * MS));
+        assertFalse(controller.isOverloaded());
+        assertFalse(controller.admit(120 * MS, now + 120 * MS));
+    }
+
+    @Test
+    public void testStandingQueueIsShed() {
+        QueueDelayController controller = new QueueDelayController(10, 100, TimeUnit.MILLISECONDS);
+        long now = System.nanoTime();
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(controller.admit(20 * MS, now + i * 10 * MS));
+        }
+
+        //the minimum delay of the first interval exceeded the target
+        assertFalse(controller.admit(20 * MS, now + 100 * MS));
+        assertTrue(controller.isOverloaded());
+        assertTrue(controller.admit(5 * MS, now + 110 * MS));
+
+        //the queue drained in the second interval
+        assertTrue(controller.admit(20 * MS, now + 200 * MS));
+        assertFalse(controller.isOverloaded());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTarget() {
+        new QueueDelayController(100, 10, TimeUnit.MILLISECONDS);
+    }
+}
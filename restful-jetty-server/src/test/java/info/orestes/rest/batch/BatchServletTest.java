@@ -0,0 +1,201 @@
+package info.orestes.rest.batch;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.RestTestServer;
+import info.orestes.rest.error.RestException;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.LocalConnector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BatchServletTest {
+
+    private static volatile CountDownLatch release;
+
+    private RestTestServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        release = new CountDownLatch(1);
+        server = new RestTestServer(
+            "#batch : Batch",
+            "##hello : A method which greets",
+            "GET /hello info.orestes.rest.batch.BatchServletTest$HelloServlet : String",
+            "200 ok",
+            "##scheme : A method which returns the scheme",
+            "GET /scheme info.orestes.rest.batch.BatchServletTest$SchemeServlet : String",
+            "200 ok",
+            "##address : A method which returns the remote address and the authority",
+            "GET /address info.orestes.rest.batch.BatchServletTest$AddressServlet : String",
+            "200 ok",
+            "##slow : A method which waits until it is released",
+            "GET /slow info.orestes.rest.batch.BatchServletTest$SlowServlet : String",
+            "200 ok");
+        server.getRouter().add(BatchServlet.createMethod("/batch", LimitedBatchServlet.class));
+        server.getServer().addConnector(new LocalConnector(server.getServer()));
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        server.stop();
+    }
+
+    @Test
+    public void testExecution() throws Exception {
+        Map<String, BatchPart> responses = send(request("a", "GET /hello"), request("b", "GET /hello"));
+
+        assertEquals(2, responses.size());
+        for (BatchPart response : responses.values()) {
+            assertEquals(200, response.getStatus());
+            assertEquals("hello", new String(response.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testErrorParts() throws Exception {
+        Map<String, BatchPart> responses = send(request("missing", "GET /missing"),
+            request("invalid", "GET hello"), request("nested", "POST /batch"), request("ok", "GET /hello"));
+
+        assertEquals(404, responses.get("missing").getStatus());
+        assertEquals(400, responses.get("invalid").getStatus());
+        assertEquals(400, responses.get("nested").getStatus());
+        assertEquals(200, responses.get("ok").getStatus());
+    }
+
+    @Test
+    public void testPartTimeout() throws Exception {
+        Map<String, BatchPart> responses = send(request("slow", "GET /slow"), request("ok", "GET /hello"));
+
+        assertEquals(504, responses.get("slow").getStatus());
+        assertEquals(200, responses.get("ok").getStatus());
+    }
+
+    @Test
+    public void testSchemeIsInherited() throws Exception {
+        BatchPart spoofed = new BatchPart("scheme", "GET /scheme HTTP/1.1",
+            Collections.singletonList(new SimpleImmutableEntry<>("X-Batch-Scheme", "https")),
+            new byte[0]);
+        BatchPart response = send(spoofed).get("scheme");
+
+        assertEquals(200, response.getStatus());
+        assertEquals("http false", new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testAddressIsInherited() throws Exception {
+        ContentResponse direct = server.newRequest("/address").send();
+        assertEquals(200, direct.getStatus());
+
+        BatchPart spoofed = new BatchPart("address", "GET /address HTTP/1.1",
+            Arrays.asList(new SimpleImmutableEntry<>("X-Batch-Remote", "10.0.0.1:1"),
+                new SimpleImmutableEntry<>("X-Batch-Authority", "example.com:1")),
+            new byte[0]);
+        BatchPart response = send(spoofed).get("address");
+
+        assertEquals(200, response.getStatus());
+        assertEquals(direct.getContentAsString(), new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBodyTooLarge() throws Exception {
+        BatchPart[] parts = new BatchPart[64];
+        Arrays.fill(parts, new BatchPart("large", "POST /hello HTTP/1.1", Collections.emptyList(), new byte[64]));
+        String boundary = BatchFormat.createBoundary();
+
+        ContentResponse response = server.newRequest("/batch").method("POST")
+            .content(new BytesContentProvider(BatchFormat.getContentType(boundary), toBody(boundary, parts))).send();
+        assertEquals(413, response.getStatus());
+    }
+
+    private Map<String, BatchPart> send(BatchPart... parts) throws Exception {
+        String boundary = BatchFormat.createBoundary();
+        ContentResponse response = server.newRequest("/batch").method("POST")
+            .content(new BytesContentProvider(BatchFormat.getContentType(boundary), toBody(boundary, parts)))
+            .timeout(10, TimeUnit.SECONDS).send();
+        assertEquals(200, response.getStatus());
+
+        String responseBoundary = BatchFormat.getBoundary(response.getHeaders().get(HttpHeader.CONTENT_TYPE));
+        List<BatchPart> responseParts = BatchFormat.parse(response.getContent(), responseBoundary);
+        Map<String, BatchPart> responses = new HashMap<>();
+        for (BatchPart part : responseParts) {
+            assertTrue(part.isResponse());
+            responses.put(part.getContentId(), part);
+        }
+        return responses;
+    }
+
+    private static byte[] toBody(String boundary, BatchPart... parts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (BatchPart part : parts) {
+            BatchFormat.write(out, boundary, part);
+        }
+        BatchFormat.writeEnd(out, boundary);
+        return out.toByteArray();
+    }
+
+    private static BatchPart request(String contentId, String requestLine) {
+        return new BatchPart(contentId, requestLine + " HTTP/1.1", Collections.emptyList(), new byte[0]);
+    }
+
+    public static class LimitedBatchServlet extends BatchServlet {
+        public LimitedBatchServlet() {
+            setPartTimeout(200, TimeUnit.MILLISECONDS);
+            setMaxBodySize(4096);
+        }
+    }
+
+    public static class HelloServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.sendEntity("hello");
+        }
+    }
+
+    public static class SchemeServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.sendEntity(request.getScheme() + " " + request.isSecure());
+        }
+    }
+
+    public static class AddressServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.sendEntity(
+                request.getRemoteAddr() + " " + request.getServerName() + ":" + request.getServerPort());
+        }
+    }
+
+    public static class SlowServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.sendEntity("slow");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package info.orestes.rest.cache;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.RestTestServer;
+import info.orestes.rest.error.RestException;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.util.FutureResponseListener;
+import org.eclipse.jetty.http.HttpHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CoalescingHandlerTest {
+
+    private static final int REQUESTS = 5;
+    private static final AtomicInteger calls = new AtomicInteger();
+    private static volatile RequestCoalescer coalescer;
+
+    private RestTestServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RestTestServer(
+            "#coalesce : Coalesce",
+            "##coalesced : A coalesced method",
+            "GET /coalesced info.orestes.rest.cache.CoalescingHandlerTest$WaitingServlet : String",
+            "%coalesce",
+            "200 ok");
+        CoalescingHandler handler = new CoalescingHandler();
+        coalescer = handler.getCoalescer();
+        server.addRestHandler(handler);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        calls.set(0);
+    }
+
+    @Test
+    public void testSynchronousRequestsExecuteOnce() throws Exception {
+        List<FutureResponseListener> listeners = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            org.eclipse.jetty.client.api.Request request = server.newRequest("/coalesced");
+            FutureResponseListener listener = new FutureResponseListener(request);
+            request.send(listener);
+            listeners.add(listener);
+        }
+
+        for (FutureResponseListener listener : listeners) {
+            ContentResponse response = listener.get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.getStatus());
+            assertEquals("call 1", response.getContentAsString());
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(1, coalescer.getExecutions());
+        assertEquals(REQUESTS - 1, coalescer.getCoalesced());
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    public void testCredentialsAreNotCoalesced() throws Exception {
+        server.newRequest("/coalesced").header(HttpHeader.AUTHORIZATION, "Bearer a").send();
+
+        assertEquals(1, calls.get());
+        assertEquals(0, coalescer.getExecutions());
+    }
+
+    public static class WaitingServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            int call = calls.incrementAndGet();
+            // the synchronous leader waits until the other requests have joined its flight
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (coalescer.getExecutions() > 0 && coalescer.getCoalesced() < REQUESTS - 1
+                && System.nanoTime() < deadline) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            response.sendEntity("call " + call);
+        }
+    }
+}
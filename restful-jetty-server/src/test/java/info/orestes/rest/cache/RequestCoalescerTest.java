@@ -0,0 +1,63 @@
+package info.orestes.rest.cache;
+
+import info.orestes.rest.cache.RequestCoalescer.Flight;
+import org.apache.tika.mime.MediaType;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RequestCoalescerTest {
+
+    @Test
+    public void testCoalesce() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        Flight leader = coalescer.join(key(1));
+        Flight follower = coalescer.join(key(1));
+        Flight other = coalescer.join(key(2));
+
+        assertTrue(leader.isLeader());
+        assertFalse(follower.isLeader());
+        assertTrue(other.isLeader());
+        assertSame(leader.getResult(), follower.getResult());
+        assertEquals(2, coalescer.getInFlight());
+
+        CachedResponse response = new CachedResponse(Collections.emptyList(), new byte[] {1, 2}, 0);
+        coalescer.complete(leader, response);
+        assertSame(response, follower.getResult().join());
+        assertFalse(other.getResult().isDone());
+
+        assertEquals(1, coalescer.getInFlight());
+        assertEquals(2, coalescer.getExecutions());
+        assertEquals(1, coalescer.getCoalesced());
+    }
+
+    @Test
+    public void testCompleteStartsNewFlight() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        Flight first = coalescer.join(key(1));
+        coalescer.complete(first, null);
+        assertNull(first.getResult().join());
+
+        Flight second = coalescer.join(key(1));
+        assertTrue(second.isLeader());
+
+        //a repeated completion of the first flight must not complete the second one
+        coalescer.complete(first, new CachedResponse(Collections.emptyList(), new byte[0], 0));
+        assertNull(first.getResult().join());
+        assertFalse(second.getResult().isDone());
+        assertEquals(1, coalescer.getInFlight());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFollowerCanNotComplete() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        coalescer.join(key(1));
+        coalescer.complete(coalescer.join(key(1)), null);
+    }
+
+    private static CacheKey key(int id) {
+        return new CacheKey("get", Collections.singletonMap("id", id), MediaType.TEXT_PLAIN);
+    }
+}
@@ -0,0 +1,102 @@
+package info.orestes.rest.cache;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.RestTestServer;
+import info.orestes.rest.error.RestException;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheHandlerTest {
+
+    private static final AtomicInteger calls = new AtomicInteger();
+
+    private RestTestServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RestTestServer(
+            "#cache : Cache",
+            "##cached : A cached method",
+            "GET /cached info.orestes.rest.cache.ResponseCacheHandlerTest$CountingServlet : String",
+            "%cache 60",
+            "200 ok",
+            "##varying : A cached method which varies by the origin",
+            "GET /varying info.orestes.rest.cache.ResponseCacheHandlerTest$VaryingServlet : String",
+            "%cache 60",
+            "200 ok");
+        server.addRestHandler(new ResponseCacheHandler());
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        calls.set(0);
+    }
+
+    @Test
+    public void testCachedResponse() throws Exception {
+        ContentResponse first = server.newRequest("/cached").send();
+        ContentResponse second = server.newRequest("/cached").send();
+
+        assertEquals(200, second.getStatus());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertNotNull(second.getHeaders().get(HttpHeader.AGE));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testCredentialsBypassCache() throws Exception {
+        server.newRequest("/cached").send();
+        ContentResponse authorized = server.newRequest("/cached").header(HttpHeader.AUTHORIZATION, "Bearer a").send();
+        ContentResponse cookie = server.newRequest("/cached").header(HttpHeader.COOKIE, "session=b").send();
+
+        assertNull(authorized.getHeaders().get(HttpHeader.AGE));
+        assertNull(cookie.getHeaders().get(HttpHeader.AGE));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testAuthorizedResponseIsNotStored() throws Exception {
+        server.newRequest("/cached").header(HttpHeader.AUTHORIZATION, "Bearer a").send();
+        ContentResponse response = server.newRequest("/cached").send();
+
+        assertNull(response.getHeaders().get(HttpHeader.AGE));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testVaryingResponseIsNotStored() throws Exception {
+        server.newRequest("/varying").send();
+        ContentResponse response = server.newRequest("/varying").send();
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeaders().get(HttpHeader.AGE));
+        assertEquals(2, calls.get());
+    }
+
+    public static class CountingServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.sendEntity("call " + calls.incrementAndGet());
+        }
+    }
+
+    public static class VaryingServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.setHeader(HttpHeader.VARY.asString(), "Origin");
+            response.sendEntity("call " + calls.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package info.orestes.rest.cache;
+
+import org.apache.tika.mime.MediaType;
+import org.junit.Test;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void testKey() {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("id", 1);
+        CacheKey key = new CacheKey("get", arguments, MediaType.TEXT_PLAIN);
+        arguments.put("id", 2);
+
+        assertEquals(new CacheKey("get", Collections.singletonMap("id", 1), MediaType.TEXT_PLAIN), key);
+        assertEquals(new CacheKey("get", Collections.singletonMap("id", 1), MediaType.TEXT_PLAIN).hashCode(),
+            key.hashCode());
+        assertNotEquals(new CacheKey("get", Collections.singletonMap("id", 2), MediaType.TEXT_PLAIN), key);
+        assertNotEquals(new CacheKey("get", Collections.singletonMap("id", 1), MediaType.APPLICATION_XML), key);
+    }
+
+    @Test
+    public void testGetAndPut() {
+        ResponseCache cache = new ResponseCache();
+        CacheKey key = key("get", 1);
+        assertNull(cache.get(key));
+
+        CachedResponse response = response(10, TTL);
+        cache.put(key, response);
+        assertSame(response, cache.get(key));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(response.getWeight(), cache.getSize());
+    }
+
+    @Test
+    public void testExpiration() {
+        ResponseCache cache = new ResponseCache();
+        cache.put(key("get", 1), response(10, 0));
+
+        assertNull(cache.get(key("get", 1)));
+        assertEquals(0, cache.getCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        ResponseCache cache = new ResponseCache(16 * 100);
+        cache.put(key("get", 1), response(60, TTL));
+        cache.put(key("get", 2), response(60, TTL));
+        assertNotNull(cache.get(key("get", 1)));
+
+        for (int i = 3; i <= 27; ++i) {
+            cache.put(key("get", i), response(60, TTL));
+        }
+        assertNotNull(cache.get(key("get", 1)));
+        assertNull(cache.get(key("get", 2)));
+        assertTrue(cache.getSize() <= 16 * 100);
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    public void testMaxEntrySize() {
+        ResponseCache cache = new ResponseCache(16 * 100);
+        cache.put(key("get", 1), response(101, TTL));
+
+        assertEquals(0, cache.getCount());
+    }
+
+    @Test
+    public void testInvalidation() {
+        ResponseCache cache = new ResponseCache();
+        cache.put(key("get", 1), response(10, TTL));
+        cache.put(key("get", 2), response(10, TTL));
+        cache.put(key("list", 1), response(10, TTL));
+
+        cache.invalidate(key("get", 1));
+        assertNull(cache.get(key("get", 1)));
+        assertEquals(2, cache.getCount());
+
+        cache.invalidate("get");
+        assertNull(cache.get(key("get", 2)));
+        assertNotNull(cache.get(key("list", 1)));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    private static CacheKey key(String method, int id) {
+        return new CacheKey(method, Collections.singletonMap("id", id), MediaType.TEXT_PLAIN);
+    }
+
+    private static CachedResponse response(int size, long timeToLive) {
+        return new CachedResponse(Collections.singletonList(new SimpleImmutableEntry<>("A", "b")), new byte[size - 2],
+            timeToLive);
+    }
+}
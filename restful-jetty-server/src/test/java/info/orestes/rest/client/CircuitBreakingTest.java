@@ -0,0 +1,124 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.error.ServiceUnavailable;
+import info.orestes.rest.util.Module;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakingTest {
+
+    private static final int TEST_PORT = 1247;
+
+    private static final Server server = new Server(TEST_PORT);
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static volatile boolean failing;
+    private RestClient client;
+    private CircuitBreakers breakers;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request,
+                HttpServletResponse response) throws IOException {
+                requests.incrementAndGet();
+                if (failing) {
+                    response.setStatus(500);
+                } else {
+                    response.setContentType("text/plain");
+                    response.getWriter().print("ok");
+                }
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Module module = new Module();
+        module.bind(ConverterService.class, ConverterService.class);
+        client = new RestClient("http://localhost:" + TEST_PORT, module.moduleInstance(ConverterService.class));
+        breakers = new CircuitBreakers();
+        breakers.setMinimumCalls(5);
+        breakers.setOpenDuration(1, TimeUnit.MINUTES);
+        breakers.setProbes(1);
+        client.setCircuitBreakers(breakers);
+        client.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        requests.set(0);
+        failing = false;
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        failing = true;
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(500, client.newRequest("/").send().getStatus());
+        }
+
+        CircuitBreaker breaker = breakers.get("http://localhost:" + TEST_PORT);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getCurrentState());
+
+        try {
+            client.newRequest("/").send(String.class).get(5, TimeUnit.SECONDS);
+            fail("The request must be rejected by the open circuit breaker");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ServiceUnavailable);
+            assertTrue(((RestException) e.getCause()).isRemote());
+        }
+
+        try {
+            client.newRequest("/").send();
+            fail("The request must be rejected by the open circuit breaker");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ServiceUnavailable);
+        }
+
+        assertEquals(5, requests.get());
+        assertEquals(2, breaker.getRejected());
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        failing = true;
+        for (int i = 0; i < 5; ++i) {
+            client.newRequest("/").send();
+        }
+
+        failing = false;
+        breakers.setOpenDuration(0, TimeUnit.MILLISECONDS);
+        EntityResponse<String> response = client.newRequest("/").send(String.class).get(5, TimeUnit.SECONDS);
+        assertEquals("ok", response.getEntity());
+
+        CircuitBreaker breaker = breakers.get("http://localhost:" + TEST_PORT);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getCurrentState());
+        assertEquals(1, breaker.getClosed());
+    }
+}
@@ -5,6 +5,7 @@
 import info.orestes.rest.error.NotFound;
 import info.orestes.rest.error.RestException;
 import info.orestes.rest.error.UnsupportedMediaType;
+import info.orestes.rest.util.Deadline;
 import info.orestes.rest.util.Module;
 import org.apache.tika.mime.MediaType;
 import org.eclipse.jetty.client.api.Request;
@@ -288,6 +289,40 @@ public void onComplete(EntityResult<String> result) {
 		assertTrue(countDownLatch.await(5, TimeUnit.SECONDS));
 	}
 	
+	@Test
+	public void testBlockingSendDeadline() throws Exception {
+		BlockingQueue<String> headers = new LinkedBlockingQueue<>();
+		handler = new Handler() {
+			@Override
+			public void handle(String path, HttpServletRequest request, HttpServletResponse response) {
+				headers.add(String.valueOf(request.getHeader(Deadline.HEADER)));
+			}
+		};
+
+		RestRequest request = client.newRequest("/").deadline(Deadline.after(5, TimeUnit.SECONDS));
+		assertEquals(200, request.send().getStatus());
+
+		long remaining = Long.parseLong(headers.poll(5, TimeUnit.SECONDS));
+		assertTrue(remaining > 0 && remaining <= 5000);
+		assertTrue(request.getTimeout() > 0 && request.getTimeout() <= 5000);
+	}
+
+	@Test(expected = TimeoutException.class)
+	public void testBlockingSendDeadlineTimeout() throws Exception {
+		handler = new Handler() {
+			@Override
+			public void handle(String path, HttpServletRequest request, HttpServletResponse response) {
+				try {
+					Thread.sleep(1000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		client.newRequest("/").deadline(Deadline.after(100, TimeUnit.MILLISECONDS)).send();
+	}
+
 	@AfterClass
 	public static void tearDownClass() throws Exception {
 		server.stop();
@@ -0,0 +1,99 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.util.Module;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConnectionWarmingTest {
+
+    private static final int TEST_PORT = 1248;
+
+    private static final Server server = new Server(TEST_PORT);
+    private static final AtomicInteger probes = new AtomicInteger();
+    private RestClient client;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request,
+                HttpServletResponse response) {
+                if ("HEAD".equals(request.getMethod())) {
+                    probes.incrementAndGet();
+                }
+                response.setStatus(204);
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Module module = new Module();
+        module.bind(ConverterService.class, ConverterService.class);
+        client = new RestClient("http://localhost:" + TEST_PORT, module.moduleInstance(ConverterService.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        probes.set(0);
+    }
+
+    @Test
+    public void testWarmup() throws Exception {
+        ConnectionWarmer warmer = new ConnectionWarmer(client, 3);
+        warmer.setProbeInterval(0, TimeUnit.SECONDS);
+        client.setConnectionWarmer(warmer);
+        client.start();
+        warmer.getWarmup().get(5, TimeUnit.SECONDS);
+
+        ServerConnector connector = (ServerConnector) server.getConnectors()[0];
+        assertEquals(3, connector.getConnectedEndPoints().size());
+
+        List<ConnectionPoolStats> stats = client.getConnectionPoolStats();
+        assertEquals(1, stats.size());
+        assertEquals(3, stats.get(0).getIdle());
+        assertEquals(0, stats.get(0).getActive());
+        assertEquals(client.getMaxConnectionsPerDestination(), stats.get(0).getMax());
+
+        assertEquals(204, client.newRequest("/").send().getStatus());
+        assertEquals(3, connector.getConnectedEndPoints().size());
+        assertEquals(0, probes.get());
+    }
+
+    @Test
+    public void testProbes() throws Exception {
+        ConnectionWarmer warmer = new ConnectionWarmer(client, 2);
+        warmer.setProbeInterval(50, TimeUnit.MILLISECONDS);
+        client.setConnectionWarmer(warmer);
+        client.start();
+        warmer.getWarmup().get(5, TimeUnit.SECONDS);
+
+        Thread.sleep(500);
+        assertTrue(probes.get() >= 2);
+        assertTrue(warmer.getProbes() >= probes.get());
+    }
+}
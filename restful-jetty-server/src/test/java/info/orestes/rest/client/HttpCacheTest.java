@@ -0,0 +1,187 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.client.balancing.RoundRobinBalancer;
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.service.EntityType;
+import info.orestes.rest.util.Module;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HttpCacheTest {
+
+    private static final int TEST_PORT = 1246;
+    private static final String ETAG = "\"v1\"";
+
+    private static final Server server = new Server(TEST_PORT);
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final AtomicInteger notModified = new AtomicInteger();
+    private RestClient client;
+    private HttpCache cache;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request,
+                HttpServletResponse response) throws IOException {
+                requests.incrementAndGet();
+                baseRequest.setHandled(true);
+
+                if (request.getHeader("X-Fail") != null) {
+                    response.setStatus(500);
+                    return;
+                }
+
+                if (target.equals("/fresh")) {
+                    response.setHeader("Cache-Control", "max-age=60");
+                } else if (target.equals("/validated")) {
+                    response.setHeader("Cache-Control", "no-cache");
+                    response.setHeader("ETag", ETAG);
+                    if (ETAG.equals(request.getHeader("If-None-Match"))) {
+                        notModified.incrementAndGet();
+                        response.setStatus(304);
+                        return;
+                    }
+                } else if (target.equals("/private")) {
+                    response.setHeader("Cache-Control", "no-store");
+                }
+
+                response.setContentType("text/plain");
+                response.getWriter().print("response " + target);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Module module = new Module();
+        module.bind(ConverterService.class, ConverterService.class);
+        client = new RestClient("http://localhost:" + TEST_PORT, module.moduleInstance(ConverterService.class));
+        cache = new HttpCache();
+        client.setCache(cache);
+        client.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        requests.set(0);
+        notModified.set(0);
+    }
+
+    @Test
+    public void testFreshResponse() throws Exception {
+        assertEquals("response /fresh", get("/fresh"));
+        assertEquals("response /fresh", get("/fresh"));
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getCount());
+    }
+
+    @Test
+    public void testRevalidation() throws Exception {
+        assertEquals("response /validated", get("/validated"));
+        assertEquals("response /validated", get("/validated"));
+        assertEquals(2, requests.get());
+        assertEquals(1, notModified.get());
+        assertEquals(1, cache.getRevalidations());
+    }
+
+    @Test
+    public void testNoStore() throws Exception {
+        assertEquals("response /private", get("/private"));
+        assertEquals("response /private", get("/private"));
+        assertEquals(2, requests.get());
+        assertEquals(0, cache.getCount());
+    }
+
+    @Test
+    public void testEntityStorage() throws Exception {
+        cache.setStorage(EntityType.of(String.class), HttpCache.Storage.ENTITY);
+
+        String first = get("/fresh");
+        assertSame(first, get("/fresh"));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        get("/fresh");
+
+        RestRequest request = client.newRequest("/fresh");
+        request.method(HttpMethod.DELETE);
+        EntityResponse<String> response = request.send(String.class).get(5, TimeUnit.SECONDS);
+        assertEquals(0, cache.getCount());
+        //only responses which may be stored keep their raw body
+        assertNull(response.getContent());
+
+        get("/fresh");
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testFailedRequestKeepsCache() throws Exception {
+        get("/fresh");
+
+        RestRequest request = client.newRequest("/fresh");
+        request.method(HttpMethod.DELETE);
+        request.header("X-Fail", "true");
+        try {
+            request.send(String.class).get(5, TimeUnit.SECONDS);
+            fail("The request must fail");
+        } catch (ExecutionException e) {
+            assertEquals(1, cache.getCount());
+        }
+
+        get("/fresh");
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testReplicasShareCache() throws Exception {
+        Module module = new Module();
+        module.bind(ConverterService.class, ConverterService.class);
+        RestClient balanced = new RestClient(Arrays.asList("http://localhost:" + TEST_PORT,
+            "http://127.0.0.1:" + TEST_PORT), new RoundRobinBalancer(), module.moduleInstance(ConverterService.class));
+        HttpCache balancedCache = new HttpCache();
+        balanced.setCache(balancedCache);
+        balanced.start();
+        try {
+            for (int i = 0; i < 4; ++i) {
+                assertEquals("response /fresh",
+                    balanced.newRequest("/fresh").send(String.class).get(5, TimeUnit.SECONDS).getEntity());
+            }
+            assertEquals(1, requests.get());
+            assertEquals(3, balancedCache.getHits());
+        } finally {
+            balanced.stop();
+        }
+    }
+
+    private String get(String path) throws Exception {
+        return client.newRequest(path).send(String.class).get(5, TimeUnit.SECONDS).getEntity();
+    }
+}
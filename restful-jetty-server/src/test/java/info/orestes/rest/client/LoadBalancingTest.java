@@ -0,0 +1,125 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.client.balancing.Endpoint;
+import info.orestes.rest.client.balancing.RoundRobinBalancer;
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.util.Module;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LoadBalancingTest {
+
+    private static final int FIRST_PORT = 1240;
+    private static final int REPLICAS = 3;
+
+    private static final List<Server> servers = new ArrayList<>();
+    private static final AtomicInteger[] requests = new AtomicInteger[REPLICAS];
+    private static volatile int failingReplica = -1;
+    private static final List<String> baseURIs = new ArrayList<>();
+    private RestClient client;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        for (int i = 0; i < REPLICAS; ++i) {
+            int replica = i;
+            requests[i] = new AtomicInteger();
+
+            Server server = new Server(FIRST_PORT + i);
+            server.setHandler(new AbstractHandler() {
+                @Override
+                public void handle(String target, Request baseRequest, HttpServletRequest request,
+                    HttpServletResponse response) {
+                    requests[replica].incrementAndGet();
+                    response.setStatus(replica == failingReplica ? 503 : 204);
+                    baseRequest.setHandled(true);
+                }
+            });
+            server.start();
+            servers.add(server);
+            baseURIs.add("http://localhost:" + (FIRST_PORT + i));
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        for (Server server : servers) {
+            server.stop();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Module module = new Module();
+        module.bind(ConverterService.class, ConverterService.class);
+        client = new RestClient(baseURIs, new RoundRobinBalancer(), module.moduleInstance(ConverterService.class));
+        client.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        failingReplica = -1;
+        for (AtomicInteger counter : requests) {
+            counter.set(0);
+        }
+    }
+
+    @Test
+    public void testBalancing() throws Exception {
+        for (int i = 0; i < 30; ++i) {
+            assertEquals(204, client.newRequest("/").send().getStatus());
+        }
+
+        for (AtomicInteger counter : requests) {
+            assertEquals(10, counter.get());
+        }
+
+        for (Endpoint endpoint : client.getEndpoints().getEndpoints()) {
+            assertEquals(0, endpoint.getOutstanding());
+            assertTrue(endpoint.getLatency(TimeUnit.NANOSECONDS) > 0);
+        }
+    }
+
+    @Test
+    public void testEjection() throws Exception {
+        client.getEndpoints().setEjectionTime(1, TimeUnit.MINUTES);
+        failingReplica = 1;
+
+        for (int i = 0; i < 30; ++i) {
+            client.newRequest("/").send();
+        }
+
+        Endpoint failing = client.getEndpoints().getEndpoints().get(1);
+        assertTrue(failing.isEjected(System.nanoTime()));
+        assertEquals(5, requests[1].get());
+
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(204, client.newRequest("/").send().getStatus());
+        }
+        assertEquals(5, requests[1].get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoBaseURI() {
+        Module module = new Module();
+        module.bind(ConverterService.class, ConverterService.class);
+        new RestClient(Collections.emptyList(), new RoundRobinBalancer(),
+            module.moduleInstance(ConverterService.class));
+    }
+}
@@ -0,0 +1,121 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.RestTestServer;
+import info.orestes.rest.batch.BatchServlet;
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.error.RestException;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.server.LocalConnector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class RequestBatcherTest {
+
+    private RestTestServer server;
+    private RestClient client;
+    private RequestBatcher batcher;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RestTestServer(
+            "#batching : Batching",
+            "##hello : A method which greets",
+            "GET /hello info.orestes.rest.client.RequestBatcherTest$HelloServlet : String",
+            "200 ok",
+            "##slow : A method which answers after a second",
+            "GET /slow info.orestes.rest.client.RequestBatcherTest$SlowServlet : String",
+            "200 ok");
+        server.getRouter().add(BatchServlet.createMethod("/batch", ShortBatchServlet.class));
+        server.getServer().addConnector(new LocalConnector(server.getServer()));
+        server.start();
+
+        client = new RestClient(server.getURI(""), server.getModule().moduleInstance(ConverterService.class));
+        batcher = new RequestBatcher(client, "/batch", 32, 100, TimeUnit.MILLISECONDS);
+        client.setBatcher(batcher);
+        client.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        server.stop();
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        CompletableFuture<EntityResponse<String>> first = client.newRequest("/hello").send(String.class);
+        CompletableFuture<EntityResponse<String>> second = client.newRequest("/hello").send(String.class);
+
+        assertEquals("hello", first.get(5, TimeUnit.SECONDS).getEntity());
+        assertEquals("hello", second.get(5, TimeUnit.SECONDS).getEntity());
+        assertEquals(1, batcher.getBatches());
+        assertEquals(2, batcher.getBatchedRequests());
+    }
+
+    @Test
+    public void testRequestTimeout() throws Exception {
+        RestRequest slow = client.newRequest("/slow");
+        slow.timeout(50, TimeUnit.MILLISECONDS);
+        RestRequest hello = client.newRequest("/hello");
+        hello.timeout(5, TimeUnit.SECONDS);
+
+        CompletableFuture<EntityResponse<String>> slowResponse = slow.send(String.class);
+        CompletableFuture<EntityResponse<String>> helloResponse = hello.send(String.class);
+
+        // the slow request fails on its own timeout and not with the timeout part of the batch
+        Throwable failure = slowResponse.handle((entity, error) -> error).get(5, TimeUnit.SECONDS);
+        assertTrue(String.valueOf(failure), failure instanceof TimeoutException);
+        assertEquals("hello", helloResponse.get(5, TimeUnit.SECONDS).getEntity());
+        assertEquals(1, batcher.getBatches());
+    }
+
+    @Test
+    public void testUnsafeMethodsAreNotBatched() throws Exception {
+        RestRequest post = client.newRequest("/hello");
+        post.method(HttpMethod.POST);
+        RestRequest put = client.newRequest("/hello");
+        put.method(HttpMethod.PUT);
+
+        assertFalse(batcher.isBatchable(post));
+        assertTrue(batcher.isBatchable(put));
+
+        batcher.setUnsafeMethodsBatched(true);
+        assertTrue(batcher.isBatchable(post));
+    }
+
+    public static class ShortBatchServlet extends BatchServlet {
+        public ShortBatchServlet() {
+            setPartTimeout(500, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static class HelloServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.sendEntity("hello");
+        }
+    }
+
+    public static class SlowServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.sendEntity("slow");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.error.ServiceUnavailable;
+import info.orestes.rest.util.Module;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RetryTest {
+
+    private static final int TEST_PORT = 1245;
+
+    private static final Server server = new Server(TEST_PORT);
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static volatile int failures;
+    private static volatile long firstDelay;
+    private static final Map<String, List<String>> lastHeaders = new ConcurrentHashMap<>();
+    private RestClient client;
+    private RetryPolicy policy;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request,
+                HttpServletResponse response) throws IOException {
+                int attempt = requests.incrementAndGet();
+                for (String name : Collections.list(request.getHeaderNames())) {
+                    lastHeaders.put(name.toLowerCase(Locale.ENGLISH), Collections.list(request.getHeaders(name)));
+                }
+                if (attempt == 1 && firstDelay > 0) {
+                    try {
+                        Thread.sleep(firstDelay);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                if (attempt <= failures) {
+                    response.setStatus(503);
+                } else {
+                    response.setContentType("text/plain");
+                    response.getWriter().print("attempt " + attempt);
+                }
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Module module = new Module();
+        module.bind(ConverterService.class, ConverterService.class);
+        client = new RestClient("http://localhost:" + TEST_PORT, module.moduleInstance(ConverterService.class));
+        policy = new RetryPolicy(new RetryBudget(0.5, 10, 10));
+        policy.setBackoff(1, TimeUnit.MILLISECONDS);
+        client.setRetryPolicy(policy);
+        client.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        requests.set(0);
+        failures = 0;
+        firstDelay = 0;
+        lastHeaders.clear();
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        failures = 2;
+
+        EntityResponse<String> response = client.newRequest("/").send(String.class).get(5, TimeUnit.SECONDS);
+        assertEquals("attempt 3", response.getEntity());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testRetryHeaders() throws Exception {
+        failures = 1;
+
+        RestRequest request = client.newRequest("/");
+        request.agent("retry-test");
+        request.header("X-Trace", "a");
+        request.header("X-Trace", "b");
+        request.send(String.class).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, requests.get());
+        assertEquals(Collections.singletonList("retry-test"), lastHeaders.get("user-agent"));
+        assertEquals(1, lastHeaders.get("host").size());
+        assertEquals(1, lastHeaders.get("accept").size());
+        assertEquals(1, lastHeaders.get("accept-encoding").size());
+        assertEquals(Arrays.asList("a", "b"), lastHeaders.get("x-trace"));
+    }
+
+    @Test
+    public void testMaxAttempts() throws Exception {
+        failures = 5;
+
+        try {
+            client.newRequest("/").send(String.class).get(5, TimeUnit.SECONDS);
+            fail("The request must fail after the last attempt");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ServiceUnavailable);
+        }
+        assertEquals(RetryPolicy.DEFAULT_MAX_ATTEMPTS, requests.get());
+    }
+
+    @Test
+    public void testExhaustedBudget() throws Exception {
+        failures = 5;
+        client.setRetryPolicy(new RetryPolicy(new RetryBudget(0, 0, 1)));
+        client.getRetryPolicy().getBudget().tryWithdraw();
+
+        try {
+            client.newRequest("/").send(String.class).get(5, TimeUnit.SECONDS);
+            fail("The request must not be retried without budget");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ServiceUnavailable);
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testNonIdempotentRequest() throws Exception {
+        failures = 1;
+
+        try {
+            RestRequest request = client.newRequest("/");
+            request.method(HttpMethod.POST);
+            request.send(String.class).get(5, TimeUnit.SECONDS);
+            fail("A POST request must not be retried");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ServiceUnavailable);
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testHedging() throws Exception {
+        firstDelay = 2000;
+        policy.setHedging(true);
+        policy.setHedgeDelay(50, 50, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        EntityResponse<String> response = client.newRequest("/").send(String.class).get(5, TimeUnit.SECONDS);
+        assertEquals("attempt 2", response.getEntity());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+    }
+}
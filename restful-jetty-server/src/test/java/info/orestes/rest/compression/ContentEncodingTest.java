@@ -0,0 +1,110 @@
+package info.orestes.rest.compression;
+
+import org.eclipse.jetty.util.ByteArrayOutputStream2;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+
+public class ContentEncodingTest {
+
+    private static final byte[] CONTENT = repeat("Hello compressed world! ", 200).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testNegotiate() {
+        assertNull(ContentEncoding.negotiate(null));
+        assertNull(ContentEncoding.negotiate(""));
+        assertNull(ContentEncoding.negotiate("identity"));
+        assertNull(ContentEncoding.negotiate("br"));
+        assertSame(ContentEncoding.GZIP, ContentEncoding.negotiate("gzip"));
+        assertSame(ContentEncoding.GZIP, ContentEncoding.negotiate("gzip, deflate, br"));
+        assertSame(ContentEncoding.GZIP, ContentEncoding.negotiate("deflate, gzip"));
+        assertSame(ContentEncoding.GZIP, ContentEncoding.negotiate("x-gzip"));
+        assertSame(ContentEncoding.GZIP, ContentEncoding.negotiate("*"));
+        assertSame(ContentEncoding.DEFLATE, ContentEncoding.negotiate("deflate"));
+        assertSame(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0.5, deflate"));
+        assertSame(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, *"));
+        assertNull(ContentEncoding.negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(ContentEncoding.negotiate("*;q=0"));
+    }
+
+    @Test
+    public void testEncodeGzip() throws IOException {
+        ByteArrayOutputStream2 encoded = ContentEncoding.GZIP.encode(CONTENT, 0, CONTENT.length);
+
+        assertTrue(encoded.getCount() < CONTENT.length / 10);
+        assertArrayEquals(CONTENT, readAll(new GZIPInputStream(new ByteArrayInputStream(encoded.toByteArray()))));
+    }
+
+    @Test
+    public void testEncodeDeflate() throws IOException {
+        ByteArrayOutputStream2 encoded = ContentEncoding.DEFLATE.encode(CONTENT, 0, CONTENT.length);
+
+        assertTrue(encoded.getCount() < CONTENT.length / 10);
+        assertArrayEquals(CONTENT, readAll(new InflaterInputStream(new ByteArrayInputStream(encoded.toByteArray()))));
+    }
+
+    @Test
+    public void testFlushedBlocksAreDecodable() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        EncodingOutputStream out = new EncodingOutputStream(buffer, ContentEncoding.DEFLATE);
+
+        out.write("first element".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(buffer.toByteArray());
+        byte[] decoded = new byte[64];
+        int length = inflater.inflate(decoded);
+        assertEquals("first element", new String(decoded, 0, length, StandardCharsets.UTF_8));
+
+        out.write(" second element".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        assertEquals("first element second element", new String(readAll(
+            new InflaterInputStream(new ByteArrayInputStream(buffer.toByteArray()))), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDeflaterIsReleased() throws IOException {
+        DeflaterPool pool = ContentEncoding.GZIP.getPool();
+        ContentEncoding.GZIP.encode(CONTENT, 0, CONTENT.length);
+        int size = pool.getSize();
+        assertTrue(size > 0);
+
+        EncodingOutputStream out = new EncodingOutputStream(new ByteArrayOutputStream(), ContentEncoding.GZIP);
+        assertEquals(size - 1, pool.getSize());
+
+        out.release();
+        assertEquals(size, pool.getSize());
+
+        out.close();
+        assertEquals(size, pool.getSize());
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; ++i) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
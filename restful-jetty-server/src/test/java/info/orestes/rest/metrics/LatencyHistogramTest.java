@@ -0,0 +1,51 @@
+package info.orestes.rest.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789, 1L << 40}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(value + " >= lower bound", value >= LatencyHistogram.lowerBound(index));
+            assertTrue(value + " <= upper bound", value <= LatencyHistogram.upperBound(index));
+        }
+
+        assertEquals(LatencyHistogram.index(Long.MAX_VALUE), LatencyHistogram.index(1L << 42));
+        assertEquals(0, LatencyHistogram.index(-5));
+    }
+
+    @Test
+    public void testRelativeError() {
+        for (long value = 16; value < 1L << 40; value = value * 3 + 1) {
+            int index = LatencyHistogram.index(value);
+            long width = LatencyHistogram.upperBound(index) - LatencyHistogram.lowerBound(index);
+            assertTrue(width <= value / 16);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+        for (int i = 1; i <= 1000; ++i) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500, histogram.getValueAtPercentile(50), 500 / 16);
+        assertEquals(990, histogram.getValueAtPercentile(99), 990 / 16);
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
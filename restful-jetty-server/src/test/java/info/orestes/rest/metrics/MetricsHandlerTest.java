@@ -0,0 +1,129 @@
+package info.orestes.rest.metrics;
+
+import info.orestes.rest.service.RestHandler;
+import info.orestes.rest.service.RestMethod;
+import info.orestes.rest.service.RestRequest;
+import info.orestes.rest.service.RestResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class MetricsHandlerTest {
+
+    private MetricsHandler handler;
+
+    @After
+    public void tearDown() throws Exception {
+        handler.stop();
+    }
+
+    @Test
+    public void testRecordRequests() throws Exception {
+        RecordingExporter exporter = new RecordingExporter();
+        handler = createHandler(false);
+        handler.addExporter(exporter);
+        handler.start();
+
+        handler.handle(mockRequest("A1", 42), mockResponse(200));
+        handler.handle(mockRequest("A1", -1), mockResponse(404));
+        handler.handle(mockRequest("A2", -1), mockResponse(503));
+
+        MethodMetrics a1 = handler.getMetrics("A1");
+        assertEquals(2, a1.getRequests());
+        assertEquals(0, a1.getInFlight());
+        assertEquals(1, a1.getSuccessful());
+        assertEquals(1, a1.getClientErrors());
+        assertEquals(0, a1.getServerErrors());
+        assertEquals(42, a1.getRequestBytes());
+        assertEquals(200, a1.getResponseBytes());
+        assertEquals(2, a1.getLatency().getCount());
+
+        MethodMetrics a2 = handler.getMetrics("A2");
+        assertEquals(1, a2.getRequests());
+        assertEquals(1, a2.getServerErrors());
+
+        assertEquals(2, handler.getMetrics().size());
+        assertTrue(exporter.started);
+        assertEquals(2, exporter.added.size());
+
+        handler.stop();
+        assertFalse(exporter.started);
+    }
+
+    @Test
+    public void testJmxExport() throws Exception {
+        handler = createHandler(true);
+        handler.start();
+
+        handler.handle(mockRequest("Jmx1", -1), mockResponse(204));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(JmxMetricsExporter.getObjectName("Jmx1"), "Requests"));
+        assertEquals(1L, server.getAttribute(JmxMetricsExporter.getObjectName("Jmx1"), "Successful"));
+
+        handler.stop();
+        assertFalse(server.isRegistered(JmxMetricsExporter.getObjectName("Jmx1")));
+    }
+
+    private MetricsHandler createHandler(boolean jmxEnabled) {
+        MetricsHandler handler = new MetricsHandler(jmxEnabled);
+        handler.setLoadExporters(false);
+        handler.setHandler(new RestHandler() {
+            @Override
+            public void handle(RestRequest request, RestResponse response) {
+            }
+        });
+        return handler;
+    }
+
+    private RestRequest mockRequest(String methodName, long contentLength) {
+        RestMethod method = mock(RestMethod.class);
+        when(method.getName()).thenReturn(methodName);
+
+        Response baseResponse = mock(Response.class);
+        when(baseResponse.getContentCount()).thenReturn(100L);
+        Request baseRequest = mock(Request.class);
+        when(baseRequest.getResponse()).thenReturn(baseResponse);
+
+        RestRequest request = mock(RestRequest.class);
+        when(request.getRestMethod()).thenReturn(method);
+        when(request.getContentLengthLong()).thenReturn(contentLength);
+        when(request.getBaseRequest()).thenReturn(baseRequest);
+        return request;
+    }
+
+    private RestResponse mockResponse(int status) {
+        RestResponse response = mock(RestResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        return response;
+    }
+
+    private static class RecordingExporter implements MetricsExporter {
+        private final List<MethodMetrics> added = new ArrayList<>();
+        private boolean started;
+
+        @Override
+        public void start(MetricsHandler handler) {
+            started = true;
+        }
+
+        @Override
+        public void onAdded(MethodMetrics metrics) {
+            added.add(metrics);
+        }
+
+        @Override
+        public void stop() {
+            started = false;
+        }
+    }
+}
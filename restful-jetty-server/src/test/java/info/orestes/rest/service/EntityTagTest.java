@@ -0,0 +1,40 @@
+package info.orestes.rest.service;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class EntityTagTest {
+
+    @Test
+    public void testOf() {
+        byte[] bytes = "xhello".getBytes(StandardCharsets.UTF_8);
+        String tag = EntityTag.of(bytes, 1, 5);
+
+        assertEquals("\"3610a686-5\"", tag);
+        assertEquals(tag, EntityTag.of("hello".getBytes(StandardCharsets.UTF_8), 0, 5));
+        assertNotEquals(tag, EntityTag.of("hellp".getBytes(StandardCharsets.UTF_8), 0, 5));
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals("\"42\"", EntityTag.quote("42"));
+        assertEquals("\"42\"", EntityTag.quote("\"42\""));
+        assertEquals("W/\"42\"", EntityTag.quote("W/\"42\""));
+        assertEquals("\"\"\"", EntityTag.quote("\""));
+    }
+
+    @Test
+    public void testMatches() {
+        assertTrue(EntityTag.matches("\"42\"", "\"42\""));
+        assertTrue(EntityTag.matches("\"1\", \"42\"", "\"42\""));
+        assertTrue(EntityTag.matches("W/\"42\"", "\"42\""));
+        assertTrue(EntityTag.matches("*", "\"42\""));
+
+        assertFalse(EntityTag.matches(null, "\"42\""));
+        assertFalse(EntityTag.matches("\"4\"", "\"42\""));
+        assertFalse(EntityTag.matches("\"1\",\"2\"", "\"42\""));
+    }
+}
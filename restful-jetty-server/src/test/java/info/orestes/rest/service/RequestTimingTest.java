@@ -0,0 +1,48 @@
+package info.orestes.rest.service;
+
+import info.orestes.rest.service.RequestTiming.Phase;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RequestTimingTest {
+
+    @Test
+    public void testRecord() {
+        RequestTiming timing = new RequestTiming(System.nanoTime(), true);
+        long checkpoint = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2);
+        timing.record(Phase.ROUTING, checkpoint);
+        timing.record(Phase.ROUTING, checkpoint);
+
+        assertTrue(timing.getDuration(Phase.ROUTING) >= TimeUnit.MILLISECONDS.toNanos(4));
+        assertEquals(0, timing.getDuration(Phase.BINDING));
+        assertTrue(timing.isServerTimingEnabled());
+    }
+
+    @Test
+    public void testHandlerExcludesNestedPhases() {
+        RequestTiming timing = new RequestTiming();
+        long now = System.nanoTime();
+        timing.record(Phase.HANDLER, now - TimeUnit.MILLISECONDS.toNanos(10));
+        timing.record(Phase.SERIALIZATION, now - TimeUnit.MILLISECONDS.toNanos(4));
+
+        long handler = timing.getDuration(Phase.HANDLER);
+        assertTrue(handler >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(handler < TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testServerTiming() {
+        RequestTiming timing = new RequestTiming(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(3), true);
+        timing.record(Phase.ROUTING, System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(1500));
+
+        String header = timing.toServerTiming();
+        assertTrue(header, header.matches("routing;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"));
+        assertFalse(header.contains("binding"));
+
+        assertTrue(timing.toString().startsWith("routing="));
+        assertTrue(timing.toString().contains("binding=0.000ms"));
+    }
+}
@@ -0,0 +1,180 @@
+package info.orestes.rest.service;
+
+import info.orestes.rest.LineFormat;
+import info.orestes.rest.Request;
+import info.orestes.rest.Response;
+import info.orestes.rest.RestServlet;
+import info.orestes.rest.RestTestServer;
+import info.orestes.rest.error.RestException;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class RestResponseTest {
+
+    private static final String LARGE_ENTITY = String.join("", Collections.nCopies(64, "large"));
+
+    private RestTestServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RestTestServer(
+            "#response : Response",
+            "##tagged : A method with automatic entity tags",
+            "GET /tagged info.orestes.rest.service.RestResponseTest$EntityServlet : String",
+            "%etag",
+            "200 ok",
+            "##versioned : A method which checks the version itself",
+            "GET /versioned info.orestes.rest.service.RestResponseTest$VersionServlet : String",
+            "200 ok",
+            "##compressed : A method which compresses large entities",
+            "GET /compressed info.orestes.rest.service.RestResponseTest$LargeServlet : String",
+            "%compress 16",
+            "200 ok",
+            "##small : A method which compresses entities of the default size",
+            "GET /small info.orestes.rest.service.RestResponseTest$EntityServlet : String",
+            "%compress",
+            "200 ok",
+            "##broken : A method which compresses a stream that fails",
+            "GET /broken info.orestes.rest.service.RestResponseTest$BrokenStreamServlet : String",
+            "%compress",
+            "200 ok");
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void testAutoETag() throws Exception {
+        ContentResponse response = server.newRequest("/tagged").send();
+        assertEquals(200, response.getStatus());
+
+        String etag = response.getHeaders().get(HttpHeader.ETAG);
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("\""));
+        assertEquals(etag, server.newRequest("/tagged").send().getHeaders().get(HttpHeader.ETAG));
+    }
+
+    @Test
+    public void testAutoETagNotModified() throws Exception {
+        String etag = server.newRequest("/tagged").send().getHeaders().get(HttpHeader.ETAG);
+
+        ContentResponse response = server.newRequest("/tagged").header(HttpHeader.IF_NONE_MATCH, etag).send();
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContent().length);
+        assertEquals(etag, response.getHeaders().get(HttpHeader.ETAG));
+    }
+
+    @Test
+    public void testAutoETagModified() throws Exception {
+        ContentResponse response = server.newRequest("/tagged").header(HttpHeader.IF_NONE_MATCH, "\"outdated\"")
+            .send();
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getContent().length > 0);
+    }
+
+    @Test
+    public void testWeakETagMatches() throws Exception {
+        String etag = server.newRequest("/tagged").send().getHeaders().get(HttpHeader.ETAG);
+
+        ContentResponse response = server.newRequest("/tagged")
+            .header(HttpHeader.IF_NONE_MATCH, "\"other\", W/" + etag).send();
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    public void testCheckNotModified() throws Exception {
+        ContentResponse response = server.newRequest("/versioned").send();
+        assertEquals(200, response.getStatus());
+        assertEquals("\"v1\"", response.getHeaders().get(HttpHeader.ETAG));
+
+        response = server.newRequest("/versioned").header(HttpHeader.IF_NONE_MATCH, "W/\"v1\"").send();
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContent().length);
+
+        response = server.newRequest("/versioned").header(HttpHeader.IF_NONE_MATCH, "*").send();
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    public void testCompression() throws Exception {
+        ContentResponse response = server.newRequest("/compressed").header(HttpHeader.ACCEPT_ENCODING, "gzip")
+            .send();
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+        assertTrue(response.getHeaders().get(HttpHeader.VARY).contains("Accept-Encoding"));
+        // the client decodes gzip transparently
+        assertEquals(LARGE_ENTITY, response.getContentAsString());
+    }
+
+    @Test
+    public void testEncodingNegotiation() throws Exception {
+        ContentResponse response = server.newRequest("/compressed")
+            .header(HttpHeader.ACCEPT_ENCODING, "gzip;q=0.5, deflate").send();
+        assertEquals("deflate", response.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+
+        response = server.newRequest("/compressed").header(HttpHeader.ACCEPT_ENCODING, "identity").send();
+        assertNull(response.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+        assertTrue(response.getHeaders().get(HttpHeader.VARY).contains("Accept-Encoding"));
+        assertEquals(LARGE_ENTITY, response.getContentAsString());
+    }
+
+    @Test
+    public void testCompressionThreshold() throws Exception {
+        ContentResponse response = server.newRequest("/small").header(HttpHeader.ACCEPT_ENCODING, "gzip").send();
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+        assertTrue(response.getHeaders().get(HttpHeader.VARY).contains("Accept-Encoding"));
+        assertEquals("A tagged entity", response.getContentAsString());
+    }
+
+    @Test
+    public void testErrorAfterEncoding() throws Exception {
+        ContentResponse response = server.newRequest("/broken").header(HttpHeader.ACCEPT_ENCODING, "gzip")
+            .accept(LineFormat.MEDIA_TYPE).send();
+        assertEquals(400, response.getStatus());
+        assertNull(response.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+    }
+
+    public static class EntityServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.sendEntity("A tagged entity");
+        }
+    }
+
+    public static class LargeServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            response.sendEntity(LARGE_ENTITY);
+        }
+    }
+
+    public static class BrokenStreamServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            // the line format rejects null elements
+            ((RestResponse) response).sendStream(Stream.of((CharSequence) null), EntityType.of(CharSequence.class));
+        }
+    }
+
+    public static class VersionServlet extends RestServlet {
+        @Override
+        public void doGet(Request request, Response response) throws RestException, IOException {
+            if (!response.checkNotModified("v1")) {
+                response.sendEntity("Version 1");
+            }
+        }
+    }
+}
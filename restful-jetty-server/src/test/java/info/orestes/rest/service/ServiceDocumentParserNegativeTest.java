@@ -23,6 +23,17 @@ public final void testInlineParsing() {
 		assertEquals(1, groups.get(0).size());
 	}
 
+	@Test(expected = ServiceDocumentParserException.class)
+	public final void testDuplicatedAnnotation() {
+		parse(
+			"#test : Test",
+			"##method:Test method",
+			"GET / info.orestes.rest.Testing1(String) : String",
+			"%cache 30",
+			"%cache 60",
+			"200 everything ok");
+	}
+
     @Test(expected = ServiceDocumentParserException.class)
 	public final void testMissingResult() {
 		parse(
@@ -672,6 +672,16 @@ public void routeI2() {
         assertResult(200, "ok");
     }
 
+    @Test
+    public void routeI3() {
+        assertAction("GET");
+        assertPath(0, "annotated");
+
+        assertEquals("30", method.getAnnotation("cache"));
+        assertEquals("", method.getAnnotation("deprecated"));
+        assertNull(method.getAnnotation("missing"));
+    }
+
 	private void assertPath(int index, String name) {
 		assertPathElement(index, Type.PATH, name, null, false, null, null);
 	}
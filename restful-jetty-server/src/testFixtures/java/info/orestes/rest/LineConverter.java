@@ -0,0 +1,23 @@
+package info.orestes.rest;
+
+import info.orestes.rest.conversion.Accept;
+import info.orestes.rest.conversion.Context;
+import info.orestes.rest.conversion.Converter;
+import info.orestes.rest.error.BadRequest;
+
+@Accept(LineFormat.MEDIA_TYPE)
+public class LineConverter extends Converter<CharSequence, CharSequence> {
+
+    @Override
+    public CharSequence toFormat(Context context, CharSequence source, Class<?>[] genericParams) throws BadRequest {
+        if (source == null) {
+            throw new BadRequest("A line can not be null.");
+        }
+        return source;
+    }
+
+    @Override
+    public CharSequence toObject(Context context, CharSequence source, Class<?>[] genericParams) {
+        return source;
+    }
+}
@@ -0,0 +1,83 @@
+package info.orestes.rest;
+
+import info.orestes.rest.conversion.Converter;
+import info.orestes.rest.conversion.ConverterFormat;
+import info.orestes.rest.conversion.ReadableContext;
+import info.orestes.rest.conversion.WritableContext;
+import info.orestes.rest.error.RestException;
+import info.orestes.rest.service.EntityType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * A newline delimited text format which supports streaming, the bundled formats can only send single entities
+ */
+public class LineFormat extends ConverterFormat<CharSequence> {
+
+    public static final String MEDIA_TYPE = "text/x-lines";
+
+    public LineFormat() {
+        // the converter is registered explicitly by the test server and the load harness
+        super(null);
+    }
+
+    @Override
+    public <T> EntityWriter<T> newEntityWriter(WritableContext context, EntityType<T> entityType,
+        Converter<T, CharSequence> converter) {
+        return new EntityWriter<T>() {
+            @Override
+            public void write(T entity) throws IOException, RestException {
+                writeNext(entity);
+            }
+
+            @Override
+            public void writeNext(T entity) throws IOException, RestException {
+                context.getWriter()
+                    .append(converter.toFormat(context, entity, entityType.getActualTypeArguments()))
+                    .append('\n');
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+    }
+
+    @Override
+    public <T> EntityReader<T> newEntityReader(ReadableContext context, EntityType<T> entityType,
+        Converter<T, CharSequence> converter) {
+        return new EntityReader<T>() {
+            private BufferedReader reader;
+            private String next;
+
+            @Override
+            public T read() throws IOException, RestException {
+                return readNext();
+            }
+
+            @Override
+            public T readNext() throws IOException, RestException {
+                if (!hasNext()) {
+                    return null;
+                }
+
+                String line = next;
+                next = null;
+                return converter.toObject(context, line, entityType.getActualTypeArguments());
+            }
+
+            @Override
+            public boolean hasNext() throws IOException {
+                if (reader == null) {
+                    reader = new BufferedReader(context.getReader());
+                }
+
+                if (next == null) {
+                    next = reader.readLine();
+                }
+                return next != null;
+            }
+        };
+    }
+}
@@ -0,0 +1,351 @@
+package info.orestes.rest.batch;
+
+import info.orestes.rest.error.BadRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads and writes batches of HTTP messages as <code>multipart/mixed</code> body, where each part is an
+ * <code>application/http</code> message with a <code>Content-ID</code> header:
+ * <pre>
+ * --batch_1
+ * Content-Type: application/http
+ * Content-ID: 1
+ *
+ * GET /news/1 HTTP/1.1
+ * Accept: text/plain
+ *
+ * --batch_1--
+ * </pre>
+ * Chunked messages are decoded while they are parsed, written messages always declare their Content-Length.
+ */
+public final class BatchFormat {
+
+    public static final String MULTIPART_MIXED = "multipart/mixed";
+    public static final String APPLICATION_HTTP = "application/http";
+    public static final String CONTENT_ID = "Content-ID";
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final String TRANSFER_ENCODING = "Transfer-Encoding";
+
+    private BatchFormat() {
+    }
+
+    /**
+     * Extracts the boundary of a <code>multipart/mixed</code> content type
+     *
+     * @param contentType The content type header
+     * @return The boundary or <code>null</code> if the content type is not a multipart content type with a boundary
+     */
+    public static String getBoundary(String contentType) {
+        if (contentType == null || !contentType.regionMatches(true, 0, MULTIPART_MIXED, 0, MULTIPART_MIXED.length())) {
+            return null;
+        }
+
+        for (String parameter : contentType.split(";")) {
+            int index = parameter.indexOf('=');
+            if (index != -1 && parameter.substring(0, index).trim().equalsIgnoreCase("boundary")) {
+                String boundary = parameter.substring(index + 1).trim();
+                if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a random boundary
+     *
+     * @return The new boundary
+     */
+    public static String createBoundary() {
+        return "batch_" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Returns the content type of a batch with the given boundary
+     *
+     * @param boundary The boundary of the batch
+     * @return The <code>multipart/mixed</code> content type
+     */
+    public static String getContentType(String boundary) {
+        return MULTIPART_MIXED + "; boundary=" + boundary;
+    }
+
+    /**
+     * Parses the parts of a batch
+     *
+     * @param content  The <code>multipart/mixed</code> body
+     * @param boundary The boundary of the body
+     * @return The parts, parts without a Content-ID get their 1-based index as id
+     * @throws BadRequest if the body is not a valid batch
+     */
+    public static List<BatchPart> parse(byte[] content, String boundary) throws BadRequest {
+        byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        List<BatchPart> parts = new ArrayList<>();
+
+        int position = indexOf(content, delimiter, 0);
+        while (true) {
+            if (position == -1) {
+                throw new BadRequest("The batch is not terminated by the boundary " + boundary + ".");
+            }
+
+            position += delimiter.length;
+            if (startsWith(content, position, "--")) {
+                return parts;
+            }
+
+            int start = lineEnd(content, position);
+            int end = indexOf(content, delimiter, start);
+            if (end == -1) {
+                throw new BadRequest("The batch is not terminated by the boundary " + boundary + ".");
+            }
+
+            //the line break before the delimiter belongs to the delimiter
+            int partEnd = end;
+            if (partEnd > start && content[partEnd - 1] == '\n') {
+                partEnd--;
+                if (partEnd > start && content[partEnd - 1] == '\r') {
+                    partEnd--;
+                }
+            }
+
+            parts.add(parsePart(content, start, partEnd, parts.size() + 1));
+            position = end;
+        }
+    }
+
+    private static BatchPart parsePart(byte[] content, int start, int end, int index) throws BadRequest {
+        List<Map.Entry<String, String>> partHeaders = new ArrayList<>();
+        int position = parseHeaders(content, start, end, partHeaders);
+
+        String contentId = null;
+        for (Map.Entry<String, String> header : partHeaders) {
+            if (header.getKey().equalsIgnoreCase(CONTENT_ID)) {
+                contentId = header.getValue();
+            }
+        }
+
+        return parseMessage(contentId != null ? contentId : Integer.toString(index), content, position, end);
+    }
+
+    /**
+     * Parses a single HTTP message
+     *
+     * @param contentId The id of the message
+     * @param content   The buffer which contains the message
+     * @param start     The offset of the start line
+     * @param end       The end of the message
+     * @return The parsed message
+     * @throws BadRequest if the message is not a valid HTTP message
+     */
+    public static BatchPart parseMessage(String contentId, byte[] content, int start, int end) throws BadRequest {
+        int lineEnd = lineEnd(content, start);
+        String startLine = new String(content, start, trimLineBreak(content, start, lineEnd) - start,
+            StandardCharsets.ISO_8859_1).trim();
+        if (startLine.isEmpty()) {
+            throw new BadRequest("The batch part " + contentId + " does not contain a HTTP message.");
+        }
+
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        int bodyStart = parseHeaders(content, lineEnd, end, headers);
+
+        String contentLength = null;
+        boolean chunked = false;
+        for (Map.Entry<String, String> header : headers) {
+            if (header.getKey().equalsIgnoreCase(CONTENT_LENGTH)) {
+                contentLength = header.getValue();
+            } else if (header.getKey().equalsIgnoreCase(TRANSFER_ENCODING)) {
+                chunked = header.getValue().toLowerCase(Locale.ROOT).contains("chunked");
+            }
+        }
+
+        byte[] body;
+        if (chunked) {
+            body = decodeChunks(content, bodyStart, end, contentId);
+            headers.removeIf(header -> header.getKey().equalsIgnoreCase(TRANSFER_ENCODING)
+                || header.getKey().equalsIgnoreCase(CONTENT_LENGTH));
+        } else {
+            int length = end - bodyStart;
+            if (contentLength != null) {
+                try {
+                    length = Math.min(length, Integer.parseInt(contentLength.trim()));
+                } catch (NumberFormatException e) {
+                    throw new BadRequest("The batch part " + contentId + " has an invalid Content-Length.");
+                }
+            }
+            body = new byte[Math.max(0, length)];
+            System.arraycopy(content, bodyStart, body, 0, body.length);
+        }
+
+        return new BatchPart(contentId, startLine, headers, body);
+    }
+
+    /**
+     * Writes a part of a batch
+     *
+     * @param out      The stream to write to
+     * @param boundary The boundary of the batch
+     * @param part     The part to write
+     * @throws IOException if the part can not be written
+     */
+    public static void write(OutputStream out, String boundary, BatchPart part) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(part.getBody().length + 256);
+        writeLine(buffer, "--" + boundary);
+        writeLine(buffer, "Content-Type: " + APPLICATION_HTTP);
+        writeLine(buffer, CONTENT_ID + ": " + part.getContentId());
+        buffer.write(CRLF);
+        writeMessage(buffer, part);
+        buffer.write(CRLF);
+        buffer.writeTo(out);
+    }
+
+    /**
+     * Writes the closing delimiter of a batch
+     *
+     * @param out      The stream to write to
+     * @param boundary The boundary of the batch
+     * @throws IOException if the delimiter can not be written
+     */
+    public static void writeEnd(OutputStream out, String boundary) throws IOException {
+        writeLine(out, "--" + boundary + "--");
+    }
+
+    /**
+     * Writes a HTTP message with a Content-Length header instead of a chunked transfer encoding
+     *
+     * @param out  The stream to write to
+     * @param part The message
+     * @throws IOException if the message can not be written
+     */
+    public static void writeMessage(OutputStream out, BatchPart part) throws IOException {
+        writeLine(out, part.getStartLine());
+        for (Map.Entry<String, String> header : part.getHeaders()) {
+            if (!header.getKey().equalsIgnoreCase(CONTENT_LENGTH)
+                && !header.getKey().equalsIgnoreCase(TRANSFER_ENCODING)) {
+                writeLine(out, header.getKey() + ": " + header.getValue());
+            }
+        }
+
+        if (part.getBody().length > 0 || part.isResponse()) {
+            writeLine(out, CONTENT_LENGTH + ": " + part.getBody().length);
+        }
+
+        out.write(CRLF);
+        out.write(part.getBody());
+    }
+
+    private static int parseHeaders(byte[] content, int position, int end, List<Map.Entry<String, String>> headers)
+        throws BadRequest {
+        while (position < end) {
+            int lineEnd = lineEnd(content, position);
+            int valueEnd = trimLineBreak(content, position, lineEnd);
+            if (valueEnd == position) {
+                return Math.min(lineEnd, end);
+            }
+
+            String line = new String(content, position, valueEnd - position, StandardCharsets.ISO_8859_1);
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new BadRequest("The batch contains the invalid header " + line + ".");
+            }
+
+            headers.add(new SimpleImmutableEntry<>(line.substring(0, colon).trim(), line.substring(colon + 1).trim()));
+            position = lineEnd;
+        }
+        return end;
+    }
+
+    private static byte[] decodeChunks(byte[] content, int position, int end, String contentId) throws BadRequest {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (position < end) {
+            int lineEnd = lineEnd(content, position);
+            String sizeLine = new String(content, position, trimLineBreak(content, position, lineEnd) - position,
+                StandardCharsets.ISO_8859_1);
+            int extension = sizeLine.indexOf(';');
+            int size;
+            try {
+                size = Integer.parseInt((extension == -1 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new BadRequest("The batch part " + contentId + " contains an invalid chunk.");
+            }
+
+            if (size == 0) {
+                break;
+            }
+
+            if (lineEnd + size > end) {
+                throw new BadRequest("The batch part " + contentId + " contains a truncated chunk.");
+            }
+
+            body.write(content, lineEnd, size);
+            position = lineEnd(content, lineEnd + size);
+        }
+        return body.toByteArray();
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(CRLF);
+    }
+
+    /**
+     * Returns the position after the next line feed
+     */
+    private static int lineEnd(byte[] content, int position) {
+        while (position < content.length && content[position] != '\n') {
+            position++;
+        }
+        return Math.min(position + 1, content.length);
+    }
+
+    private static int trimLineBreak(byte[] content, int start, int lineEnd) {
+        int end = lineEnd;
+        if (end > start && content[end - 1] == '\n') {
+            end--;
+        }
+        if (end > start && content[end - 1] == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean startsWith(byte[] content, int position, String prefix) {
+        if (position + prefix.length() > content.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length(); ++i) {
+            if (content[position + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] content, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= content.length - pattern.length; ++i) {
+            for (int j = 0; j < pattern.length; ++j) {
+                if (content[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,111 @@
+package info.orestes.rest.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single HTTP request or response which is transferred as <code>application/http</code> part of a batch
+ */
+public final class BatchPart {
+
+    private final String contentId;
+    private final String startLine;
+    private final List<Map.Entry<String, String>> headers;
+    private final byte[] body;
+
+    /**
+     * Creates a part
+     *
+     * @param contentId The id which relates the response part to its request part
+     * @param startLine The request line, e.g. <code>GET /news/1 HTTP/1.1</code>, or the status line, e.g.
+     *                  <code>HTTP/1.1 200 OK</code>
+     * @param headers   The headers of the message
+     * @param body      The body of the message, which is empty if the message has no body
+     */
+    public BatchPart(String contentId, String startLine, List<Map.Entry<String, String>> headers, byte[] body) {
+        this.contentId = contentId;
+        this.startLine = startLine;
+        this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+        this.body = body;
+    }
+
+    public String getContentId() {
+        return contentId;
+    }
+
+    public String getStartLine() {
+        return startLine;
+    }
+
+    public List<Map.Entry<String, String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the first value of a header
+     *
+     * @param name The case insensitive name of the header
+     * @return The header value or <code>null</code> if the header is not set
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, String> header : headers) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Indicates if this part is a response
+     *
+     * @return <code>true</code> if the start line is a status line
+     */
+    public boolean isResponse() {
+        return startLine.startsWith("HTTP/");
+    }
+
+    /**
+     * Returns the HTTP method of a request part
+     *
+     * @return The method, e.g. <code>GET</code>
+     */
+    public String getMethod() {
+        return token(0);
+    }
+
+    /**
+     * Returns the request target of a request part
+     *
+     * @return The path and query, e.g. <code>/news/1?lang=en</code>
+     */
+    public String getTarget() {
+        return token(1);
+    }
+
+    /**
+     * Returns the status code of a response part
+     *
+     * @return The status code
+     * @throws NumberFormatException if this part is not a response
+     */
+    public int getStatus() {
+        return Integer.parseInt(token(1));
+    }
+
+    private String token(int index) {
+        String[] tokens = startLine.split(" ", 3);
+        return index < tokens.length ? tokens[index] : null;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchPart " + contentId + ": " + startLine;
+    }
+}
@@ -0,0 +1,226 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.jfr.CircuitBreakerEvent;
+import info.orestes.rest.jfr.JfrSupport;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * The circuit breaker of a single destination of a {@link RestClient}. It records the outcome of the last calls in a
+ * sliding window and opens if the rate of failed or slow calls exceeds the thresholds of its
+ * {@link CircuitBreakers}. While it is open, calls are rejected without contacting the destination. After the open
+ * duration it lets a limited number of probe calls pass, it closes again if they stay below the thresholds and opens
+ * again otherwise.
+ * <br>
+ * <br>
+ * Concurrency Note: All operations are synchronized on the circuit breaker.
+ */
+public class CircuitBreaker implements CircuitBreakerMBean {
+
+    /**
+     * The states of a circuit breaker
+     */
+    public enum State {
+        /**
+         * All calls are permitted
+         */
+        CLOSED,
+        /**
+         * All calls are rejected
+         */
+        OPEN,
+        /**
+         * A limited number of probe calls is permitted
+         */
+        HALF_OPEN
+    }
+
+    private static final Logger LOG = Log.getLogger(CircuitBreaker.class);
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String destination;
+    private final CircuitBreakers settings;
+    private State state = State.CLOSED;
+    private byte[] window;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private int probes;
+    private long calls;
+    private long rejected;
+    private long opened;
+    private long halfOpened;
+    private long closed;
+
+    CircuitBreaker(String destination, CircuitBreakers settings) {
+        this.destination = destination;
+        this.settings = settings;
+        this.window = new byte[settings.getWindowSize()];
+    }
+
+    @Override
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Returns the current state, an open circuit breaker becomes half open when its open duration has elapsed
+     *
+     * @return The current state
+     */
+    public synchronized State getCurrentState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= settings.getOpenDuration()) {
+            transition(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    @Override
+    public String getState() {
+        return getCurrentState().name();
+    }
+
+    /**
+     * Acquires the permission for a call
+     *
+     * @return <code>true</code> if the call may be sent, <code>false</code> if it must be rejected
+     */
+    public synchronized boolean tryAcquire() {
+        State current = getCurrentState();
+        if (current == State.CLOSED || current == State.HALF_OPEN && probes < settings.getProbes()) {
+            if (current == State.HALF_OPEN) {
+                probes++;
+            }
+            return true;
+        }
+
+        rejected++;
+        return false;
+    }
+
+    /**
+     * Records the outcome of a call which was permitted by {@link #tryAcquire()}
+     *
+     * @param failed   <code>true</code> if the call has failed or was answered with a server error
+     * @param duration The duration of the call in nanoseconds
+     */
+    public synchronized void onComplete(boolean failed, long duration) {
+        calls++;
+        if (state == State.OPEN) {
+            //the call was permitted before the circuit breaker opened
+            return;
+        }
+
+        byte outcome = (byte) ((failed ? FAILED : 0) | (duration >= settings.getSlowCallDuration() ? SLOW : 0));
+        if (recorded == window.length) {
+            byte evicted = window[position];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        window[position] = outcome;
+        position = (position + 1) % window.length;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (state == State.HALF_OPEN) {
+            if (recorded >= settings.getProbes()) {
+                transition(isExceeded() ? State.OPEN : State.CLOSED);
+            }
+        } else if (recorded >= settings.getMinimumCalls() && isExceeded()) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Releases the permission of a call which was not sent or whose outcome tells nothing about the destination,
+     * e.g. a cancelled call
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probes > 0) {
+            probes--;
+        }
+    }
+
+    @Override
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : 100d * failures / recorded;
+    }
+
+    @Override
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0 : 100d * slowCalls / recorded;
+    }
+
+    @Override
+    public synchronized long getCalls() {
+        return calls;
+    }
+
+    @Override
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public synchronized long getOpened() {
+        return opened;
+    }
+
+    @Override
+    public synchronized long getHalfOpened() {
+        return halfOpened;
+    }
+
+    @Override
+    public synchronized long getClosed() {
+        return closed;
+    }
+
+    private boolean isExceeded() {
+        return getFailureRate() >= settings.getFailureRateThreshold()
+            || getSlowCallRate() >= settings.getSlowCallRateThreshold();
+    }
+
+    private void transition(State next) {
+        State previous = state;
+        state = next;
+        recorded = 0;
+        position = 0;
+        failures = 0;
+        slowCalls = 0;
+        probes = 0;
+
+        switch (next) {
+            case OPEN:
+                opened++;
+                openedAt = System.nanoTime();
+                break;
+            case HALF_OPEN:
+                halfOpened++;
+                //the probes are evaluated on their own
+                window = new byte[settings.getProbes()];
+                break;
+            case CLOSED:
+                closed++;
+                window = new byte[settings.getWindowSize()];
+                break;
+        }
+
+        LOG.info("The circuit breaker of " + destination + " changed from " + previous + " to " + next + ".");
+        if (JfrSupport.AVAILABLE) {
+            CircuitBreakerEvent.emit(destination, previous.name(), next.name());
+        }
+        settings.onStateChange(this, previous, next);
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker " + destination + ": " + getState();
+    }
+}
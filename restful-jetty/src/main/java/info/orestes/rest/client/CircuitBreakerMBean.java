@@ -0,0 +1,25 @@
+package info.orestes.rest.client;
+
+/**
+ * The JMX view of a {@link CircuitBreaker}, the rates are reported in percent of the calls in the sliding window
+ */
+public interface CircuitBreakerMBean {
+
+    String getDestination();
+
+    String getState();
+
+    double getFailureRate();
+
+    double getSlowCallRate();
+
+    long getCalls();
+
+    long getRejected();
+
+    long getOpened();
+
+    long getHalfOpened();
+
+    long getClosed();
+}
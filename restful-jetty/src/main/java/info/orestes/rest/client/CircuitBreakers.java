@@ -0,0 +1,289 @@
+package info.orestes.rest.client;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one {@link CircuitBreaker} per destination of a {@link RestClient} and their common thresholds, e.g.
+ * <pre>
+ * CircuitBreakers breakers = new CircuitBreakers();
+ * breakers.setFailureRateThreshold(25);
+ * client.setCircuitBreakers(breakers);
+ * </pre>
+ * A destination is identified by the scheme, host and port of the request. A request to a destination with an open
+ * circuit breaker fails immediately with a remote {@link info.orestes.rest.error.ServiceUnavailable}.
+ * <br>
+ * <br>
+ * The settings are shared by all circuit breakers, a changed window size applies to a circuit breaker the next time
+ * it changes its state. Therefore the settings should be configured before the first request is sent.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+public class CircuitBreakers {
+
+    /**
+     * The state change listener of the circuit breakers
+     */
+    public interface Listener {
+        /**
+         * Is called after a circuit breaker has changed its state, while the circuit breaker is locked. Therefore the
+         * listener must not block.
+         *
+         * @param breaker  The circuit breaker
+         * @param previous The previous state
+         * @param state    The new state
+         */
+        void onStateChange(CircuitBreaker breaker, CircuitBreaker.State previous, CircuitBreaker.State state);
+    }
+
+    public static final String DOMAIN = "info.orestes.rest";
+
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 80;
+    public static final long DEFAULT_SLOW_CALL_DURATION = TimeUnit.SECONDS.toNanos(2);
+    public static final long DEFAULT_OPEN_DURATION = TimeUnit.SECONDS.toNanos(10);
+    public static final int DEFAULT_PROBES = 5;
+
+    private static final Logger LOG = Log.getLogger(CircuitBreakers.class);
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+    private volatile MBeanServer mBeanServer;
+    private volatile int windowSize = DEFAULT_WINDOW_SIZE;
+    private volatile int minimumCalls = DEFAULT_MINIMUM_CALLS;
+    private volatile double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    private volatile double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+    private volatile long slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+    private volatile long openDuration = DEFAULT_OPEN_DURATION;
+    private volatile int probes = DEFAULT_PROBES;
+
+    public static ObjectName getObjectName(String destination) throws Exception {
+        return new ObjectName(DOMAIN + ":type=CircuitBreaker,name=" + ObjectName.quote(destination));
+    }
+
+    /**
+     * Returns the circuit breaker of the destination of the given request
+     *
+     * @param request The request
+     * @return The circuit breaker of the destination
+     */
+    public CircuitBreaker get(Request request) {
+        return get(request.getScheme() + "://" + request.getHost() + ":" + request.getPort());
+    }
+
+    /**
+     * Returns the circuit breaker of the given destination
+     *
+     * @param destination The destination in the form <code>scheme://host:port</code>
+     * @return The circuit breaker of the destination
+     */
+    public CircuitBreaker get(String destination) {
+        CircuitBreaker breaker = breakers.get(destination);
+        if (breaker != null) {
+            return breaker;
+        }
+
+        CircuitBreaker created = new CircuitBreaker(destination, this);
+        breaker = breakers.putIfAbsent(destination, created);
+        if (breaker != null) {
+            return breaker;
+        }
+
+        if (mBeanServer != null) {
+            register(created);
+        }
+        return created;
+    }
+
+    public Collection<CircuitBreaker> getCircuitBreakers() {
+        return new ArrayList<>(breakers.values());
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers each circuit breaker as MBean <code>info.orestes.rest:type=CircuitBreaker,name=&lt;destination&gt;</code>
+     * on the platform MBean server
+     */
+    public void registerMBeans() {
+        registerMBeans(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Registers each circuit breaker as MBean <code>info.orestes.rest:type=CircuitBreaker,name=&lt;destination&gt;</code>
+     *
+     * @param server The MBean server
+     */
+    public void registerMBeans(MBeanServer server) {
+        mBeanServer = server;
+        for (CircuitBreaker breaker : breakers.values()) {
+            register(breaker);
+        }
+    }
+
+    /**
+     * Unregisters all MBeans of the circuit breakers
+     */
+    public void unregisterMBeans() {
+        MBeanServer server = mBeanServer;
+        mBeanServer = null;
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception e) {
+                LOG.debug(e);
+            }
+        }
+        registered.clear();
+    }
+
+    private void register(CircuitBreaker breaker) {
+        try {
+            ObjectName name = getObjectName(breaker.getDestination());
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+            mBeanServer.registerMBean(breaker, name);
+            registered.add(name);
+        } catch (Exception e) {
+            LOG.warn("The circuit breaker of " + breaker.getDestination() + " can not be registered.", e);
+        }
+    }
+
+    void onStateChange(CircuitBreaker breaker, CircuitBreaker.State previous, CircuitBreaker.State state) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onStateChange(breaker, previous, state);
+            } catch (RuntimeException e) {
+                LOG.warn("The state change listener has failed.", e);
+            }
+        }
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Sets the number of the last calls whose outcome is evaluated, 100 by default
+     *
+     * @param windowSize The size of the sliding window
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("The window must contain at least one call.");
+        }
+        this.windowSize = windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * Sets the number of calls which must be recorded before a circuit breaker can open, 20 by default
+     *
+     * @param minimumCalls The minimum number of calls
+     */
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Sets the percentage of failed calls at which a circuit breaker opens, 50 by default. A call has failed if it
+     * could not be sent or received, or if it was answered with a server error.
+     *
+     * @param failureRateThreshold The threshold in percent
+     */
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * Sets the percentage of slow calls at which a circuit breaker opens, 80 by default
+     *
+     * @param slowCallRateThreshold The threshold in percent
+     */
+    public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    public long getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    /**
+     * Sets the duration from which on a call is slow, 2 seconds by default
+     *
+     * @param duration The duration
+     * @param unit     The unit of the duration
+     */
+    public void setSlowCallDuration(long duration, TimeUnit unit) {
+        this.slowCallDuration = unit.toNanos(duration);
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * Sets the duration a circuit breaker stays open before it permits probe calls, 10 seconds by default
+     *
+     * @param duration The duration
+     * @param unit     The unit of the duration
+     */
+    public void setOpenDuration(long duration, TimeUnit unit) {
+        this.openDuration = unit.toNanos(duration);
+    }
+
+    public int getProbes() {
+        return probes;
+    }
+
+    /**
+     * Sets the number of probe calls a half open circuit breaker permits, 5 by default
+     *
+     * @param probes The number of probe calls
+     */
+    public void setProbes(int probes) {
+        if (probes < 1) {
+            throw new IllegalArgumentException("At least one probe call is required.");
+        }
+        this.probes = probes;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakers " + breakers.values();
+    }
+}
@@ -0,0 +1,82 @@
+package info.orestes.rest.client;
+
+/**
+ * A snapshot of the connection pool of one destination of a {@link RestClient}, which helps to size the maximum
+ * number of connections per destination. A pool whose active connections often reach the maximum while requests are
+ * queued is too small, a pool with many idle connections is larger than needed.
+ */
+public class ConnectionPoolStats {
+
+    private final String destination;
+    private final int active;
+    private final int idle;
+    private final int pending;
+    private final int max;
+    private final int queuedRequests;
+
+    public ConnectionPoolStats(String destination, int active, int idle, int pending, int max, int queuedRequests) {
+        this.destination = destination;
+        this.active = active;
+        this.idle = idle;
+        this.pending = pending;
+        this.max = max;
+        this.queuedRequests = queuedRequests;
+    }
+
+    /**
+     * @return The destination in the form <code>scheme://host:port</code>
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return The number of connections which currently serve a request
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * @return The number of open connections which wait for a request
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * @return The number of connections which are being opened
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * @return The maximum number of connections of the pool
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return The number of requests which wait for a connection
+     */
+    public int getQueuedRequests() {
+        return queuedRequests;
+    }
+
+    /**
+     * Returns the share of the maximum number of connections which currently serve a request
+     *
+     * @return The utilisation between 0 and 1
+     */
+    public double getUtilisation() {
+        return max == 0 ? 0 : (double) active / max;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats " + destination + ": active=" + active + ", idle=" + idle + ", pending=" + pending
+            + ", max=" + max + ", queued=" + queuedRequests;
+    }
+}
@@ -0,0 +1,221 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.client.balancing.Endpoint;
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.ConnectionPool;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opens a number of connections to each destination of a {@link RestClient} when the client is started, so the first
+ * requests do not pay for the TCP and TLS handshakes, e.g.
+ * <pre>
+ * client.setConnectionWarmer(new ConnectionWarmer(client, 8));
+ * client.start();
+ * </pre>
+ * By default the destinations are the base URIs of the client. While the client is running, the warmer periodically
+ * replaces the connections which were closed in the meantime and sends lightweight <code>HEAD</code> probes over the
+ * idle connections, so they are not closed by the idle timeout of the client or of an intermediary. The probes are
+ * ordinary requests of the client, their outcome is recorded by the circuit breakers and endpoints of the client.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+public class ConnectionWarmer {
+
+    public static final long DEFAULT_PROBE_INTERVAL = TimeUnit.SECONDS.toNanos(15);
+    public static final String DEFAULT_PROBE_PATH = "/";
+
+    private static final Logger LOG = Log.getLogger(ConnectionWarmer.class);
+
+    private final RestClient client;
+    private final int connections;
+    private final List<URI> destinations = new CopyOnWriteArrayList<>();
+    private final LongAdder probes = new LongAdder();
+    private volatile long probeInterval = DEFAULT_PROBE_INTERVAL;
+    private volatile String probePath = DEFAULT_PROBE_PATH;
+    private volatile Scheduler.Task task;
+    private volatile CompletableFuture<Void> warmup = CompletableFuture.completedFuture(null);
+
+    /**
+     * Creates a warmer for the base URIs of the given client
+     *
+     * @param client      The client whose connections are opened
+     * @param connections The number of connections which are kept open per destination, limited by the maximum
+     *                    number of connections per destination of the client
+     */
+    public ConnectionWarmer(RestClient client, int connections) {
+        this.client = client;
+        this.connections = connections;
+
+        if (client.getEndpoints() != null) {
+            for (Endpoint endpoint : client.getEndpoints().getEndpoints()) {
+                destinations.add(endpoint.getBaseURI());
+            }
+        } else if (client.getBaseURI().getHost() != null) {
+            destinations.add(client.getBaseURI());
+        }
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public List<URI> getDestinations() {
+        return new ArrayList<>(destinations);
+    }
+
+    /**
+     * Adds a destination whose connections are opened in addition to the base URIs of the client
+     *
+     * @param uri An absolute URI of the destination
+     */
+    public void addDestination(String uri) {
+        destinations.add(URI.create(uri));
+    }
+
+    /**
+     * Sets the interval of the probes and of the replacement of closed connections, 15 seconds by default. It should
+     * be shorter than the idle timeout of the client.
+     *
+     * @param interval The interval or 0 to disable the probes
+     * @param unit     The unit of the interval
+     */
+    public void setProbeInterval(long interval, TimeUnit unit) {
+        this.probeInterval = unit.toNanos(interval);
+    }
+
+    /**
+     * Sets the path the <code>HEAD</code> probes are sent to, <code>/</code> by default
+     *
+     * @param probePath The path relative to the destination
+     */
+    public void setProbePath(String probePath) {
+        this.probePath = probePath;
+    }
+
+    /**
+     * Returns the number of probes sent so far
+     *
+     * @return The number of probes
+     */
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /**
+     * Returns the future of the last warmup, which completes when the connections are open. It completes
+     * exceptionally if a connection could not be opened.
+     *
+     * @return The future of the warmup
+     */
+    public CompletableFuture<Void> getWarmup() {
+        return warmup;
+    }
+
+    /**
+     * Opens the missing connections to each destination
+     *
+     * @return The future which completes when the connections are open
+     */
+    public CompletableFuture<Void> warm() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(destinations.size());
+        for (URI uri : destinations) {
+            ConnectionPool pool = getConnectionPool(uri);
+            if (pool instanceof AbstractConnectionPool) {
+                int missing = Math.min(connections, ((AbstractConnectionPool) pool).getMaxConnectionCount())
+                    - ((AbstractConnectionPool) pool).getConnectionCount();
+                if (missing > 0) {
+                    futures.add(pool.preCreateConnections(missing));
+                }
+            }
+        }
+
+        warmup = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+        return warmup;
+    }
+
+    /**
+     * Is called by the client when it is started
+     */
+    void start() {
+        warm().whenComplete((result, e) -> {
+            if (e != null) {
+                LOG.warn("The connections could not be opened.", e);
+            }
+        });
+        schedule();
+    }
+
+    /**
+     * Is called by the client when it is stopped
+     */
+    void stop() {
+        Scheduler.Task current = task;
+        task = null;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private void schedule() {
+        long interval = probeInterval;
+        if (interval > 0 && client.isRunning()) {
+            task = client.getScheduler().schedule(this::probe, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void probe() {
+        if (task == null) {
+            return;
+        }
+
+        try {
+            warm();
+            for (URI uri : destinations) {
+                ConnectionPool pool = getConnectionPool(uri);
+                if (!(pool instanceof AbstractConnectionPool)) {
+                    continue;
+                }
+
+                int idle = ((AbstractConnectionPool) pool).getIdleConnectionCount();
+
+                //concurrent probes are sent over different connections
+                for (int i = 0; i < Math.min(idle, connections); ++i) {
+                    RestRequest request = client.newRequest(uri);
+                    request.method(HttpMethod.HEAD).path(request.getPath() + probePath);
+                    request.send(result -> {
+                        if (result.isFailed()) {
+                            LOG.debug("The probe of " + uri + " has failed.", result.getFailure());
+                        }
+                    });
+                    probes.increment();
+                }
+            }
+        } finally {
+            schedule();
+        }
+    }
+
+    private ConnectionPool getConnectionPool(URI uri) {
+        HttpDestination destination = (HttpDestination) client.getDestination(uri.getScheme(), uri.getHost(),
+            uri.getPort());
+        return destination.getConnectionPool();
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionWarmer " + connections + " connections to " + destinations;
+    }
+}
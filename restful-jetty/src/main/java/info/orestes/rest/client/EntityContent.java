@@ -30,7 +30,7 @@ public EntityContent(EntityType<E> entityType, E entity) {
     }
 
     public EntityContent(Class<E> type, E entity, MediaType contentType) {
-        this(new EntityType<E>(type), entity, contentType);
+        this(EntityType.of(type), entity, contentType);
     }
 
     public EntityContent(Class<E> type, E entity) {
@@ -66,6 +66,14 @@ public long getLength() {
         return getBuffer() == null ? 0 : getBuffer().remaining();
     }
 
+    /**
+     * The converted entity is kept, so it can be sent again by retries and hedged attempts
+     */
+    @Override
+    public boolean isReproducible() {
+        return true;
+    }
+
     @Override
     public Iterator<ByteBuffer> iterator() {
         return new Iterator<ByteBuffer>() {
@@ -80,7 +88,7 @@ public boolean hasNext() {
             public ByteBuffer next() {
                 if (next) {
                     next = false;
-                    return getBuffer();
+                    return getBuffer().slice();
                 } else {
                     throw new NoSuchElementException();
                 }
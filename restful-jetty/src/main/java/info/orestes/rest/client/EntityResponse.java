@@ -11,7 +11,19 @@
     private final EntityType<T> entityType;
 
     public EntityResponse(Response response, EntityType<T> entityType, T entity) {
-        super(response, null, null, null);
+        this(response, entityType, entity, null);
+    }
+
+    /**
+     * Creates an entity response which also provides the received body by {@link #getContent()}
+     *
+     * @param response   The response
+     * @param entityType The type of the entity
+     * @param entity     The decoded entity
+     * @param content    The received body or <code>null</code>
+     */
+    public EntityResponse(Response response, EntityType<T> entityType, T entity, byte[] content) {
+        super(response, content, null, null);
 
         this.entityType = entityType;
         this.entity = entity;
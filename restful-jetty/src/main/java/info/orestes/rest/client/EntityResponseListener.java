@@ -11,6 +11,7 @@
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public abstract class EntityResponseListener<E> extends ResponseListener<E> {
 
@@ -55,6 +56,15 @@ public void onContent(Response response, ByteBuffer content) {
         bufferOffset = newBufferOffset;
     }
 
+    /**
+     * Returns the received response body
+     *
+     * @return The body, an empty array if the response has no body
+     */
+    protected byte[] getContent() {
+        return bufferOffset == buffer.length ? buffer : Arrays.copyOf(buffer, bufferOffset);
+    }
+
     @Override
     public final void onComplete(Result result) {
         InputStream data = buffer.length > 0 ? new ByteArrayInputStream(buffer, 0, bufferOffset) : null;
@@ -29,7 +29,7 @@
     private EntityWriteContext context = new EntityWriteContext();
 
     public EntityStreamContent(Class<E> type, Stream<E> objects) {
-        this(new EntityType<>(type), objects);
+        this(EntityType.of(type), objects);
     }
 
     public EntityStreamContent(EntityType<E> entityType, Stream<E> objects) {
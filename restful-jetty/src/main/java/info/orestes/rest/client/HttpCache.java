@@ -0,0 +1,443 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.client.balancing.Endpoint;
+import info.orestes.rest.client.balancing.EndpointGroup;
+import info.orestes.rest.service.EntityType;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpResponse;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A size bounded in-memory cache of the responses received by {@link RestRequest#send(EntityType)}, which is
+ * enabled per client by {@link RestClient#setCache(HttpCache)}.
+ * <br>
+ * <br>
+ * GET responses with status 200 are cached as long as their <code>Cache-Control: max-age</code> or their
+ * <code>Expires</code> header allow. Responses with <code>no-store</code> are never cached. Stale responses and
+ * responses with <code>no-cache</code> are revalidated with <code>If-None-Match</code> and
+ * <code>If-Modified-Since</code> if they have an <code>ETag</code> or <code>Last-Modified</code> header, a 304
+ * response reuses the cached entity. Requests with credentials, i.e. an Authorization or a Cookie header, are not
+ * cached, since a client usually sends requests on behalf of multiple users. Requests with other methods invalidate
+ * the cached responses of their URI when they succeed. The responses of a client which balances its requests are
+ * cached by the path and query of the request, so they are shared among the replicas.
+ * <br>
+ * <br>
+ * By default the raw response bodies are cached and decoded on each hit, so every caller receives its own entity.
+ * Decoded entities can be cached instead for immutable entity types by {@link #setStorage(EntityType, Storage)},
+ * which also saves the decoding. Decoded entities are weighted by the <code>Content-Length</code> of their response
+ * and are not cached without it.
+ * <br>
+ * <br>
+ * Concurrency Note: All operations are synchronized on the cache, entities are never decoded while the lock is held.
+ */
+public class HttpCache {
+
+    /**
+     * The default maximum size of 32 MiB
+     */
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    /**
+     * Defines whether the raw body or the decoded entity of a response is cached
+     */
+    public enum Storage {
+        /**
+         * The raw body is cached and decoded on each hit
+         */
+        BYTES,
+        /**
+         * The decoded entity is cached and shared by all hits, which requires immutable entities
+         */
+        ENTITY
+    }
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<EntityType<?>, Storage> storage = new ConcurrentHashMap<>();
+    private final long maxSize;
+    private final int maxEntrySize;
+    private long size;
+    private long hits;
+    private long misses;
+    private long revalidations;
+    private long evictions;
+
+    /**
+     * Creates a cache with the {@link #DEFAULT_MAX_SIZE}
+     */
+    public HttpCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache
+     *
+     * @param maxSize The maximum total size of the cached responses in bytes, single responses may occupy at most a
+     *                sixteenth of it
+     */
+    public HttpCache(long maxSize) {
+        this.maxSize = maxSize;
+        this.maxEntrySize = (int) Math.min(Integer.MAX_VALUE, maxSize / 16);
+    }
+
+    /**
+     * Sets whether the raw bodies or the decoded entities of the given type are cached, {@link Storage#BYTES} by
+     * default
+     *
+     * @param entityType The entity type
+     * @param storage    The storage of the entity type
+     */
+    public void setStorage(EntityType<?> entityType, Storage storage) {
+        this.storage.put(entityType, storage);
+    }
+
+    /**
+     * Returns whether the raw bodies or the decoded entities of the given type are cached
+     *
+     * @param entityType The entity type
+     * @return The storage of the entity type
+     */
+    public Storage getStorage(EntityType<?> entityType) {
+        return storage.getOrDefault(entityType, Storage.BYTES);
+    }
+
+    /**
+     * Sends the request or completes it from the cache
+     *
+     * @param request    The request to send
+     * @param entityType The expected response entity type
+     * @param <T>        The type of the response entity
+     * @return The future response
+     */
+    <T> CompletableFuture<EntityResponse<T>> send(RestRequest request, EntityType<T> entityType) {
+        if (!HttpMethod.GET.is(request.getMethod())) {
+            if (HttpMethod.HEAD.is(request.getMethod()) || HttpMethod.OPTIONS.is(request.getMethod())) {
+                return request.sendUncached(entityType, false);
+            }
+
+            //a failed request has not changed the resource
+            String resource = getResource(request);
+            return request.sendUncached(entityType, false).thenApply(response -> {
+                invalidateResource(resource);
+                return response;
+            });
+        }
+
+        HttpFields requestHeaders = request.getHeaders();
+        if (requestHeaders.containsKey(HttpHeader.AUTHORIZATION.asString())
+            || requestHeaders.containsKey(HttpHeader.COOKIE.asString())
+            || hasDirective(requestHeaders, "no-store")) {
+            return request.sendUncached(entityType, false);
+        }
+
+        String key = getResource(request) + ' ' + entityType;
+        Entry entry = get(key);
+        if (entry != null && entry.isFresh() && !hasDirective(requestHeaders, "no-cache")) {
+            return entry.toResponse(request, entityType);
+        }
+
+        if (entry != null) {
+            if (entry.etag != null) {
+                request.header(HttpHeader.IF_NONE_MATCH, entry.etag);
+            }
+            if (entry.lastModified != null) {
+                request.header(HttpHeader.IF_MODIFIED_SINCE, entry.lastModified);
+            }
+        }
+
+        return request.sendUncached(entityType, getStorage(entityType) == Storage.BYTES).thenCompose(response -> {
+            if (entry != null && response.getStatus() == HttpStatus.NOT_MODIFIED_304) {
+                synchronized (this) {
+                    revalidations++;
+                }
+                entry.refresh(getFreshness(response.getHeaders()));
+                return entry.toResponse(request, entityType);
+            }
+
+            if (response.getStatus() == HttpStatus.OK_200) {
+                store(key, entityType, response);
+            }
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    /**
+     * Removes the cached responses of the given URI. The responses of a client which balances its requests are
+     * cached by the URI relative to its first base URI.
+     *
+     * @param uri The URI of the resource
+     */
+    public void invalidate(URI uri) {
+        String target = uri.getRawQuery() != null ? uri.getRawPath() + "?" + uri.getRawQuery() : uri.getRawPath();
+        invalidateResource(getOrigin(uri.getScheme(), uri.getHost(), uri.getPort()) + target);
+    }
+
+    private synchronized void invalidateResource(String resource) {
+        String prefix = resource + ' ';
+        for (Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                size -= entry.getValue().weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached responses
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of cached responses
+     *
+     * @return The number of responses
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total size of the cached responses
+     *
+     * @return The size in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of stale responses which were revalidated by a 304 response
+     *
+     * @return The number of revalidations
+     */
+    public synchronized long getRevalidations() {
+        return revalidations;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isFresh()) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    private void store(String key, EntityType<?> entityType, EntityResponse<?> response) {
+        HttpFields headers = response.getHeaders();
+        String vary = headers.get(HttpHeader.VARY);
+        if (hasDirective(headers, "no-store") || vary != null && !isVaryingByNegotiation(vary)) {
+            return;
+        }
+
+        long freshness = getFreshness(headers);
+        String etag = headers.get(HttpHeader.ETAG);
+        String lastModified = headers.get(HttpHeader.LAST_MODIFIED);
+        if (freshness <= 0 && etag == null && lastModified == null) {
+            return;
+        }
+
+        Entry entry;
+        if (getStorage(entityType) == Storage.ENTITY) {
+            //the body is not captured for decoded entities
+            long length = headers.getLongField(HttpHeader.CONTENT_LENGTH.asString());
+            if (length < 0) {
+                return;
+            }
+            entry = new Entry(response.getStatus(), response.getReason(), headers, null, response.getEntity(),
+                (int) Math.min(Integer.MAX_VALUE - ENTRY_OVERHEAD, length) + ENTRY_OVERHEAD, etag, lastModified,
+                hasDirective(headers, "no-cache") ? 0 : freshness);
+        } else {
+            byte[] body = response.getContent() != null ? response.getContent() : new byte[0];
+            entry = new Entry(response.getStatus(), response.getReason(), headers, body, null,
+                body.length + ENTRY_OVERHEAD, etag, lastModified, hasDirective(headers, "no-cache") ? 0 : freshness);
+        }
+
+        synchronized (this) {
+            if (entry.weight > maxEntrySize) {
+                return;
+            }
+
+            Entry removed = entries.put(key, entry);
+            if (removed != null) {
+                size -= removed.weight;
+            }
+            size += entry.weight;
+
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                size -= iterator.next().weight;
+                iterator.remove();
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Returns the resource of the request, which does not depend on the replica the request is sent to if the client
+     * balances its requests
+     */
+    private static String getResource(RestRequest request) {
+        String target = request.getQuery() != null ? request.getPath() + "?" + request.getQuery() : request.getPath();
+        String origin = getOrigin(request.getScheme(), request.getHost(), request.getPort());
+
+        EndpointGroup endpoints = request.getClient().getEndpoints();
+        if (endpoints != null) {
+            for (Endpoint endpoint : endpoints.getEndpoints()) {
+                URI baseURI = endpoint.getBaseURI();
+                if (origin.equals(getOrigin(baseURI.getScheme(), baseURI.getHost(), baseURI.getPort()))) {
+                    URI first = endpoints.getEndpoints().get(0).getBaseURI();
+                    return getOrigin(first.getScheme(), first.getHost(), first.getPort()) + target;
+                }
+            }
+        }
+
+        return origin + target;
+    }
+
+    private static String getOrigin(String scheme, String host, int port) {
+        scheme = scheme.toLowerCase(Locale.ROOT);
+        return scheme + "://" + host.toLowerCase(Locale.ROOT) + ":" + HttpClient.normalizePort(scheme, port);
+    }
+
+    /**
+     * The Accept header is derived from the entity type, which is part of the key, and the content encoding is
+     * decoded transparently by the client
+     */
+    private static boolean isVaryingByNegotiation(String vary) {
+        for (String name : vary.split(",")) {
+            name = name.trim();
+            if (!HttpHeader.ACCEPT.is(name) && !HttpHeader.ACCEPT_ENCODING.is(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasDirective(HttpFields headers, String directive) {
+        for (String value : headers.getCSV(HttpHeader.CACHE_CONTROL, false)) {
+            if (value.trim().toLowerCase(Locale.ROOT).equals(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the freshness lifetime of a response from its max-age directive or its Expires header
+     *
+     * @param headers The response headers
+     * @return The lifetime in nanoseconds, <code>0</code> if the response must be revalidated
+     */
+    static long getFreshness(HttpFields headers) {
+        for (String value : headers.getCSV(HttpHeader.CACHE_CONTROL, false)) {
+            String directive = value.trim().toLowerCase(Locale.ROOT);
+            if (directive.startsWith("max-age=")) {
+                try {
+                    long maxAge = Long.parseLong(directive.substring(8).trim());
+                    long age = headers.getLongField(HttpHeader.AGE.asString());
+                    return TimeUnit.SECONDS.toNanos(Math.max(0, maxAge - Math.max(0, age)));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        if (headers.containsKey(HttpHeader.EXPIRES.asString())) {
+            long expires = headers.getDateField(HttpHeader.EXPIRES.asString());
+            long date = headers.getDateField(HttpHeader.DATE.asString());
+            long now = date != -1 ? date : System.currentTimeMillis();
+            return expires != -1 ? TimeUnit.MILLISECONDS.toNanos(Math.max(0, expires - now)) : 0;
+        }
+
+        return 0;
+    }
+
+    private static class Entry {
+        private final int status;
+        private final String reason;
+        private final HttpFields headers;
+        private final byte[] body;
+        private final Object entity;
+        private final int weight;
+        private final String etag;
+        private final String lastModified;
+        private volatile long expires;
+
+        Entry(int status, String reason, HttpFields headers, byte[] body, Object entity, int weight, String etag,
+            String lastModified, long freshness) {
+            this.status = status;
+            this.reason = reason;
+            this.headers = new HttpFields(headers.size());
+            for (HttpField field : headers) {
+                this.headers.add(field);
+            }
+            this.body = body;
+            this.entity = entity;
+            this.weight = weight;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            refresh(freshness);
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - expires < 0;
+        }
+
+        void refresh(long freshness) {
+            expires = System.nanoTime() + freshness;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> CompletableFuture<EntityResponse<T>> toResponse(RestRequest request, EntityType<T> entityType) {
+            HttpResponse response = new HttpResponse(request, Collections.emptyList());
+            response.version(HttpVersion.HTTP_1_1).status(status).reason(reason);
+            for (HttpField field : headers) {
+                response.getHeaders().add(field);
+            }
+
+            if (body == null) {
+                return CompletableFuture.completedFuture(new EntityResponse<>(response, entityType, (T) entity));
+            }
+
+            CompletableFuture<EntityResponse<T>> future = new CompletableFuture<>();
+            EntityResponseListener<T> listener = request.newEntityListener(entityType, future);
+            request.prepare(listener);
+            request.replay(listener, response, body);
+            return future;
+        }
+    }
+}
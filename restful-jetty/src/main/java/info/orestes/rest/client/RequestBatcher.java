@@ -0,0 +1,458 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.batch.BatchFormat;
+import info.orestes.rest.batch.BatchPart;
+import info.orestes.rest.error.BadRequest;
+import info.orestes.rest.error.RestException;
+import org.eclipse.jetty.client.HttpResponse;
+import org.eclipse.jetty.client.api.ContentProvider;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the entity requests which are sent to the same destination within a short window and sends them as one
+ * <code>multipart/mixed</code> batch to the batch endpoint of the server, see {@link BatchFormat}. A batch is sent
+ * when the window elapses or when it contains the maximum number of requests. The response of each request is read
+ * from its part of the batch response and completes the future returned by {@link RestRequest#send(Class)} as if the
+ * request was sent on its own.
+ * <br>
+ * <br>
+ * Batching is enabled per client, e.g.
+ * <pre>
+ * client.setBatcher(new RequestBatcher(client, "/batch"));
+ * </pre>
+ * Only requests with an idempotent method are batched, unless {@link #setUnsafeMethodsBatched(boolean)} is enabled,
+ * because a request of a failed batch may have been executed or not. Requests with a streamed or not reproducible
+ * content are always sent on their own, so is a batch which contains a single request. The timeout of each request
+ * is applied to the request itself, a request which is not answered in time fails with a {@link TimeoutException}
+ * while the other requests of its batch proceed. If a destination answers the batch with 404, 405, 415 or 501 it has no batch endpoint, the requests
+ * of the batch are sent on their own and later requests to that destination are not batched anymore.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+public class RequestBatcher {
+
+    public static final int DEFAULT_MAX_SIZE = 32;
+    public static final long DEFAULT_WINDOW_MICROS = 500;
+    public static final int DEFAULT_MAX_RESPONSE_SIZE = 16 * 1024 * 1024;
+
+    private static final Logger LOG = Log.getLogger(RequestBatcher.class);
+
+    private final RestClient client;
+    private final String path;
+    private final int maxSize;
+    private final long windowNanos;
+    private final ConcurrentHashMap<String, Destination> destinations = new ConcurrentHashMap<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private volatile boolean unsafeMethodsBatched;
+
+    /**
+     * Creates a batcher with a window of {@link #DEFAULT_WINDOW_MICROS} and at most {@link #DEFAULT_MAX_SIZE}
+     * requests per batch
+     *
+     * @param client The client which sends the batches
+     * @param path   The path of the batch endpoint on each destination, e.g. <code>/batch</code>
+     */
+    public RequestBatcher(RestClient client, String path) {
+        this(client, path, DEFAULT_MAX_SIZE, DEFAULT_WINDOW_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Creates a batcher
+     *
+     * @param client  The client which sends the batches
+     * @param path    The path of the batch endpoint on each destination, e.g. <code>/batch</code>
+     * @param maxSize The maximum number of requests of one batch
+     * @param window  The time a batch collects requests after its first request
+     * @param unit    The unit of the window
+     */
+    public RequestBatcher(RestClient client, String path, int maxSize, long window, TimeUnit unit) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size must be positive.");
+        }
+
+        this.client = client;
+        this.path = path;
+        this.maxSize = maxSize;
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    public boolean isUnsafeMethodsBatched() {
+        return unsafeMethodsBatched;
+    }
+
+    /**
+     * Enables batching of requests with a method which is not idempotent, e.g. <code>POST</code>. If a batch fails,
+     * the caller can not tell whether such a request was executed. Disabled by default.
+     *
+     * @param unsafeMethodsBatched <code>true</code> to batch requests of all methods
+     */
+    public void setUnsafeMethodsBatched(boolean unsafeMethodsBatched) {
+        this.unsafeMethodsBatched = unsafeMethodsBatched;
+    }
+
+    /**
+     * Indicates if the given request can be sent as part of a batch
+     *
+     * @param request The request to send
+     * @return <code>true</code> if the request can be batched
+     */
+    public boolean isBatchable(RestRequest request) {
+        if (path.equals(request.getPath()) || HttpMethod.CONNECT.is(request.getMethod())) {
+            return false;
+        }
+
+        if (!unsafeMethodsBatched && !RetryPolicy.isIdempotent(request.getMethod())) {
+            return false;
+        }
+
+        ContentProvider content = request.getContent();
+        if (content != null && (content.getLength() < 0
+            || !(content instanceof EntityContent || content.isReproducible()))) {
+            return false;
+        }
+
+        Destination destination = destinations.get(getOrigin(request));
+        return destination == null || destination.supported;
+    }
+
+    /**
+     * Returns the number of batches which were sent so far
+     *
+     * @return The number of sent batches
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Returns the number of requests which were sent as part of a batch so far
+     *
+     * @return The number of batched requests
+     */
+    public long getBatchedRequests() {
+        return batchedRequests.sum();
+    }
+
+    /**
+     * Adds a request to the next batch of its destination
+     *
+     * @param request  The request to send
+     * @param listener The listener which receives the response of the request
+     */
+    void add(RestRequest request, EntityResponseListener<?> listener) {
+        request.prepare(listener);
+        Pending pending = new Pending(request, listener);
+        pending.scheduleTimeout(client.getScheduler());
+        destinations.computeIfAbsent(getOrigin(request), Destination::new).add(pending);
+    }
+
+    private static String getOrigin(RestRequest request) {
+        return request.getScheme() + "://" + request.getHost() + ":" + request.getPort();
+    }
+
+    private class Destination {
+        private final String origin;
+        private volatile boolean supported = true;
+        private List<Pending> pending = new ArrayList<>();
+        private Scheduler.Task flushTask;
+
+        Destination(String origin) {
+            this.origin = origin;
+        }
+
+        void add(Pending request) {
+            List<Pending> ready = null;
+            synchronized (this) {
+                pending.add(request);
+                if (pending.size() >= maxSize) {
+                    ready = drain();
+                } else if (pending.size() == 1) {
+                    flushTask = client.getScheduler().schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            if (ready != null) {
+                //dispatch from the client executor, so the batch does not inherit the deadline of the sending thread
+                List<Pending> batch = ready;
+                client.getExecutor().execute(() -> dispatch(batch));
+            }
+        }
+
+        private void flush() {
+            List<Pending> ready;
+            synchronized (this) {
+                ready = drain();
+            }
+            dispatch(ready);
+        }
+
+        private List<Pending> drain() {
+            if (flushTask != null) {
+                flushTask.cancel();
+                flushTask = null;
+            }
+
+            List<Pending> ready = pending;
+            pending = new ArrayList<>();
+            return ready;
+        }
+
+        private void dispatch(List<Pending> ready) {
+            ready.removeIf(request -> request.isDone() || request.request.getAbortCause() != null);
+            if (ready.isEmpty()) {
+                return;
+            }
+
+            if (ready.size() == 1 || !supported) {
+                ready.forEach(Pending::sendDirect);
+                return;
+            }
+
+            String boundary = BatchFormat.createBoundary();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long timeout = 0;
+            try {
+                for (int i = 0; i < ready.size(); ++i) {
+                    Pending request = ready.get(i);
+                    BatchFormat.write(out, boundary, request.toPart(Integer.toString(i)));
+                    // each request fails on its own timeout, the longest one only bounds the batch request
+                    timeout = timeout < 0 || request.request.getTimeout() <= 0 ? -1
+                        : Math.max(timeout, request.request.getTimeout());
+                }
+                BatchFormat.writeEnd(out, boundary);
+            } catch (IOException e) {
+                ready.forEach(request -> request.fail(e));
+                return;
+            }
+
+            RestRequest batch = client.newRequest(URI.create(origin));
+            batch.path(path);
+            batch.method(HttpMethod.POST);
+            batch.content(new BytesContentProvider(BatchFormat.getContentType(boundary), out.toByteArray()));
+            if (timeout > 0) {
+                batch.timeout(timeout, TimeUnit.MILLISECONDS);
+            }
+
+            batches.increment();
+            batchedRequests.add(ready.size());
+            batch.send(new BufferingResponseListener(DEFAULT_MAX_RESPONSE_SIZE) {
+                @Override
+                public void onComplete(Result result) {
+                    if (result.isFailed()) {
+                        ready.forEach(request -> request.fail(result.getFailure()));
+                    } else {
+                        complete(batch, result.getResponse(), getContent(), ready);
+                    }
+                }
+            });
+        }
+
+        private void complete(RestRequest batch, Response response, byte[] content, List<Pending> ready) {
+            int status = response.getStatus();
+            if (status == HttpStatus.NOT_FOUND_404 || status == HttpStatus.METHOD_NOT_ALLOWED_405
+                || status == HttpStatus.UNSUPPORTED_MEDIA_TYPE_415 || status == HttpStatus.NOT_IMPLEMENTED_501) {
+                LOG.info("The destination " + origin + " has no batch endpoint at " + path + ", batching is disabled.");
+                supported = false;
+                ready.forEach(Pending::sendDirect);
+                return;
+            }
+
+            String boundary = BatchFormat.getBoundary(response.getHeaders().get(HttpHeader.CONTENT_TYPE));
+            if (status != HttpStatus.OK_200 || boundary == null) {
+                RestException e = ResponseListener.handleError(batch, response,
+                    content.length > 0 ? new ByteArrayInputStream(content) : null);
+                ready.forEach(request -> request.fail(e));
+                return;
+            }
+
+            List<BatchPart> parts;
+            try {
+                parts = BatchFormat.parse(content, boundary);
+            } catch (BadRequest e) {
+                ready.forEach(request -> request.fail(e));
+                return;
+            }
+
+            boolean[] completed = new boolean[ready.size()];
+            for (BatchPart part : parts) {
+                int index = getIndex(part);
+                if (index >= 0 && index < completed.length && !completed[index]) {
+                    completed[index] = true;
+                    ready.get(index).complete(part);
+                }
+            }
+
+            for (int i = 0; i < completed.length; ++i) {
+                if (!completed[i]) {
+                    ready.get(i).fail(RestException.create(HttpStatus.BAD_GATEWAY_502,
+                        "The batch response does not contain the response of the request.", null));
+                }
+            }
+        }
+
+        private int getIndex(BatchPart part) {
+            try {
+                return part.getContentId() != null ? Integer.parseInt(part.getContentId().trim()) : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+
+    private static class Pending {
+        private final RestRequest request;
+        private final EntityResponseListener<?> listener;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile long expiry;
+        private volatile Scheduler.Task timeoutTask;
+
+        Pending(RestRequest request, EntityResponseListener<?> listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+
+        /**
+         * Fails the request when its timeout elapses before it is answered, independently of its batch
+         */
+        void scheduleTimeout(Scheduler scheduler) {
+            long timeout = request.getTimeout();
+            if (timeout > 0) {
+                expiry = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+                timeoutTask = scheduler.schedule(() -> fail(newTimeout()), timeout, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        boolean isDone() {
+            return done.get();
+        }
+
+        BatchPart toPart(String contentId) {
+            String target = request.getPath();
+            if (request.getQuery() != null) {
+                target += "?" + request.getQuery();
+            }
+
+            List<Map.Entry<String, String>> headers = new ArrayList<>();
+            for (HttpField field : request.getHeaders()) {
+                headers.add(new SimpleImmutableEntry<>(field.getName(), field.getValue()));
+            }
+
+            byte[] body = new byte[0];
+            ContentProvider content = request.getContent();
+            if (content != null) {
+                if (content instanceof ContentProvider.Typed && !request.getHeaders().containsKey(
+                    HttpHeader.CONTENT_TYPE.asString())) {
+                    headers.add(new SimpleImmutableEntry<>(HttpHeader.CONTENT_TYPE.asString(),
+                        ((ContentProvider.Typed) content).getContentType()));
+                }
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream((int) content.getLength());
+                for (ByteBuffer buffer : content) {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.duplicate().get(bytes);
+                    out.write(bytes, 0, bytes.length);
+                }
+                body = out.toByteArray();
+            }
+
+            return new BatchPart(contentId, request.getMethod() + " " + target + " HTTP/1.1", headers, body);
+        }
+
+        void complete(BatchPart part) {
+            if (!finish()) {
+                return;
+            }
+
+            String startLine = part.getStartLine();
+            int reasonStart = startLine.indexOf(' ', startLine.indexOf(' ') + 1);
+
+            HttpResponse response = new HttpResponse(request, Collections.emptyList());
+            response.version(HttpVersion.HTTP_1_1).status(part.getStatus());
+            if (reasonStart != -1) {
+                response.reason(startLine.substring(reasonStart + 1));
+            }
+            for (Map.Entry<String, String> header : part.getHeaders()) {
+                response.getHeaders().add(header.getKey(), header.getValue());
+            }
+
+            request.replay(listener, response, part.getBody());
+        }
+
+        void fail(Throwable failure) {
+            if (finish()) {
+                notifyFailure(failure);
+            }
+        }
+
+        void sendDirect() {
+            if (!finish()) {
+                return;
+            }
+
+            if (expiry != 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(expiry - System.nanoTime());
+                if (remaining <= 0) {
+                    notifyFailure(newTimeout());
+                    return;
+                }
+                request.timeout(remaining, TimeUnit.MILLISECONDS);
+            }
+
+            request.sendPrepared(listener);
+        }
+
+        /**
+         * Marks the request as answered and cancels its timeout
+         *
+         * @return <code>true</code> if the request was not answered before
+         */
+        private boolean finish() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+
+            Scheduler.Task task = timeoutTask;
+            if (task != null) {
+                task.cancel();
+            }
+            return true;
+        }
+
+        private void notifyFailure(Throwable failure) {
+            listener.onComplete(new Result(request, failure, new HttpResponse(request, Collections.emptyList())));
+        }
+
+        private TimeoutException newTimeout() {
+            return new TimeoutException("Total timeout " + request.getTimeout() + " ms elapsed");
+        }
+    }
+}
@@ -2,6 +2,7 @@
 
 import info.orestes.rest.conversion.ConverterFormat.EntityReader;
 import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.conversion.InternedMediaType;
 import info.orestes.rest.conversion.ReadableContext;
 import info.orestes.rest.error.RestException;
 import info.orestes.rest.error.UnsupportedMediaType;
@@ -20,14 +21,14 @@
 import java.nio.charset.StandardCharsets;
 
 public abstract class ResponseListener<E> extends Adapter {
-    private static final EntityType<RestException> ERROR_TYPE = new EntityType<>(RestException.class);
+    private static final EntityType<RestException> ERROR_TYPE = EntityType.of(RestException.class);
 
     private final EntityType<E> entityType;
     private MediaType contentType;
     private RestRequest request;
 
     public ResponseListener(Class<E> type) {
-        this(new EntityType<>(type));
+        this(EntityType.of(type));
     }
 
     public ResponseListener(EntityType<E> entityType) {
@@ -61,7 +62,7 @@ public void onHeaders(Response response) {
 
         String cType = response.getHeaders().get(HttpHeader.CONTENT_TYPE);
         if (cType != null) {
-            contentType = MediaType.parse(cType);
+            contentType = InternedMediaType.parseMediaType(cType);
         }
     }
 
@@ -110,7 +111,7 @@ public static RestException handleError(RestRequest request, Response response,
 
         if (inputStream != null) {
             try {
-                MediaType contentType = MediaType.parse(response.getHeaders().get(HttpHeader.CONTENT_TYPE));
+                MediaType contentType = InternedMediaType.parseMediaType(response.getHeaders().get(HttpHeader.CONTENT_TYPE));
                 EntityContext context = new EntityContext(request, contentType, inputStream);
                 exception = context.getEntityReader(ERROR_TYPE).read();
             } catch (Exception suppressed) {
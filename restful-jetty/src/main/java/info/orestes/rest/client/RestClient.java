@@ -1,19 +1,55 @@
 package info.orestes.rest.client;
 
+import info.orestes.rest.client.balancing.Endpoint;
+import info.orestes.rest.client.balancing.EndpointGroup;
+import info.orestes.rest.client.balancing.LoadBalancer;
 import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.util.Deadline;
 import info.orestes.rest.util.Inject;
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.ConnectionPool;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.HttpClientTransport;
 import org.eclipse.jetty.client.HttpConversation;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.api.Destination;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 
+import java.net.HttpCookie;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
 
 public class RestClient extends HttpClient {
+
+    //the headers which are added when a request is created or sent
+    private static final List<String> GENERATED_HEADERS = Arrays.asList(HttpHeader.USER_AGENT.asString(),
+        HttpHeader.ACCEPT_ENCODING.asString(), HttpHeader.COOKIE.asString(), HttpHeader.HOST.asString(),
+        HttpHeader.ACCEPT.asString(), Deadline.HEADER);
 	
 	private ConverterService converterService;
 	private final URI baseURI;
+	private EndpointGroup endpoints;
+	private volatile RequestBatcher batcher;
+	private volatile RetryPolicy retryPolicy;
+	private volatile HttpCache cache;
+	private volatile CircuitBreakers circuitBreakers;
+	private volatile ConnectionWarmer connectionWarmer;
 
 	@Inject
 	public RestClient(ConverterService converterService) {
@@ -28,6 +64,24 @@ public RestClient(String baseURI, ConverterService converterService, SslContextF
         this(baseURI, converterService, sslContextFactory, new HttpClientTransportOverHTTP());
     }
 
+    /**
+     * Creates a client which balances its requests among multiple replicas of a service
+     *
+     * @param baseURIs         The base URIs of the replicas
+     * @param balancer         The balancer which selects the replica of each request
+     * @param converterService The converter service used to convert the entities
+     * @throws IllegalArgumentException if no base URI is given
+     */
+    public RestClient(List<String> baseURIs, LoadBalancer balancer, ConverterService converterService) {
+        this(getFirst(baseURIs), converterService);
+
+        List<URI> uris = new ArrayList<>(baseURIs.size());
+        for (String baseURI : baseURIs) {
+            uris.add(URI.create(baseURI));
+        }
+        this.endpoints = new EndpointGroup(uris, balancer);
+    }
+
 	public RestClient(String baseURI, ConverterService converterService, SslContextFactory sslContextFactory, HttpClientTransport httpClientTransport) {
 		/*useHttp2? new HttpClientTransportOverHTTP2(new HTTP2Client()): new HttpClientTransportOverHTTP(), */
 
@@ -40,6 +94,13 @@ public RestClient(String baseURI, ConverterService converterService, SslContextF
 		this.converterService = converterService;
 	}
 
+    private static String getFirst(List<String> baseURIs) {
+        if (baseURIs.isEmpty()) {
+            throw new IllegalArgumentException("The client requires at least one base URI.");
+        }
+        return baseURIs.get(0);
+    }
+
     @Override
 	protected RestRequest newHttpRequest(HttpConversation conversation, URI uri) {
 		return new RestRequest(this, conversation, uri);
@@ -52,10 +113,53 @@ public RestRequest newRequest(URI uri) {
 
 	@Override
 	public RestRequest newRequest(String path) {
+		if (endpoints != null) {
+			return newRequest(endpoints.select(), path);
+		}
+
 		RestRequest request = newRequest(baseURI);
 		request.path(request.getPath() + path);
 		return request;
 	}
+
+    /**
+     * Creates a request to the given endpoint, the outcome of the request is recorded by the endpoint group
+     *
+     * @param endpoint The endpoint which receives the request
+     * @param path     The path relative to the base URI of the endpoint
+     * @return The new request
+     */
+    public RestRequest newRequest(Endpoint endpoint, String path) {
+        if (endpoints == null) {
+            throw new IllegalStateException("The client has a single base URI.");
+        }
+
+        RestRequest request = newRequest(endpoint.getBaseURI());
+        request.path(request.getPath() + path);
+
+        EndpointListener listener = new EndpointListener(endpoints, endpoint);
+        request.onRequestQueued(listener);
+        request.onComplete(listener);
+        return request;
+    }
+
+    /**
+     * Returns the replicas among which the requests of this client are balanced
+     *
+     * @return The endpoint group or <code>null</code> if the client has a single base URI
+     */
+    public EndpointGroup getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Returns the base URI of the requests of this client, the first base URI if the requests are balanced
+     *
+     * @return The base URI
+     */
+    public URI getBaseURI() {
+        return baseURI;
+    }
 	
 	public ConverterService getConverterService() {
 		return converterService;
@@ -67,4 +171,248 @@ public void setConverterService(ConverterService converterService) {
 
         this.converterService = converterService;
     }
+
+    /**
+     * Returns the batcher which combines the entity requests of this client
+     *
+     * @return The batcher or <code>null</code> if batching is disabled
+     */
+    public RequestBatcher getBatcher() {
+        return batcher;
+    }
+
+    /**
+     * Enables the batching of entity requests, which is disabled by default, e.g.
+     * <pre>
+     * client.setBatcher(new RequestBatcher(client, "/batch"));
+     * </pre>
+     *
+     * @param batcher The batcher or <code>null</code> to disable batching
+     */
+    public void setBatcher(RequestBatcher batcher) {
+        this.batcher = batcher;
+    }
+
+    /**
+     * Returns the policy which retries and hedges the idempotent entity requests of this client
+     *
+     * @return The retry policy or <code>null</code> if retries are disabled
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Enables retries and hedged attempts of the idempotent entity requests, which are disabled by default
+     *
+     * @param retryPolicy The retry policy or <code>null</code> to disable retries
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Returns the cache of the entity responses of this client
+     *
+     * @return The cache or <code>null</code> if caching is disabled
+     */
+    public HttpCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Enables the caching of entity responses, which is disabled by default
+     *
+     * @param cache The cache or <code>null</code> to disable caching
+     */
+    public void setCache(HttpCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the circuit breakers of the destinations of this client
+     *
+     * @return The circuit breakers or <code>null</code> if circuit breaking is disabled
+     */
+    public CircuitBreakers getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    /**
+     * Enables a circuit breaker per destination, which is disabled by default
+     *
+     * @param circuitBreakers The circuit breakers or <code>null</code> to disable circuit breaking
+     */
+    public void setCircuitBreakers(CircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    /**
+     * Returns the warmer which keeps connections to the destinations of this client open
+     *
+     * @return The connection warmer or <code>null</code> if the connections are opened on demand
+     */
+    public ConnectionWarmer getConnectionWarmer() {
+        return connectionWarmer;
+    }
+
+    /**
+     * Opens connections to the destinations when this client is started, which is disabled by default. Must be set
+     * before the client is started.
+     *
+     * @param connectionWarmer The connection warmer or <code>null</code> to open the connections on demand
+     */
+    public void setConnectionWarmer(ConnectionWarmer connectionWarmer) {
+        if (isStarted())
+            throw new IllegalStateException();
+
+        this.connectionWarmer = connectionWarmer;
+    }
+
+    /**
+     * Returns the utilisation of the connection pool of each destination this client has sent requests to
+     *
+     * @return The connection pool stats
+     */
+    public List<ConnectionPoolStats> getConnectionPoolStats() {
+        List<ConnectionPoolStats> stats = new ArrayList<>();
+        for (Destination destination : getDestinations()) {
+            ConnectionPool pool = ((HttpDestination) destination).getConnectionPool();
+            if (pool instanceof AbstractConnectionPool) {
+                AbstractConnectionPool connections = (AbstractConnectionPool) pool;
+                stats.add(new ConnectionPoolStats(
+                    destination.getScheme() + "://" + destination.getHost() + ":" + destination.getPort(),
+                    connections.getActiveConnectionCount(), connections.getIdleConnectionCount(),
+                    connections.getPendingConnectionCount(), connections.getMaxConnectionCount(),
+                    ((HttpDestination) destination).getQueuedRequestCount()));
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        ConnectionWarmer warmer = connectionWarmer;
+        if (warmer != null) {
+            warmer.start();
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        ConnectionWarmer warmer = connectionWarmer;
+        if (warmer != null) {
+            warmer.stop();
+        }
+
+        super.doStop();
+    }
+
+    /**
+     * Creates a copy of the given request for another attempt, which is sent to another endpoint if the requests
+     * are balanced
+     *
+     * @param request The request to copy
+     * @return The new attempt
+     */
+    RestRequest newAttempt(RestRequest request) {
+        RestRequest attempt;
+        if (endpoints != null) {
+            Endpoint endpoint = endpoints.select();
+            if (endpoints.getEndpoints().size() > 1 && isSameOrigin(endpoint.getBaseURI(), request)) {
+                endpoint = endpoints.select();
+            }
+
+            attempt = newRequest(endpoint, "");
+            attempt.path(request.getQuery() != null ? request.getPath() + "?" + request.getQuery() : request.getPath());
+        } else {
+            attempt = newRequest(request.getURI());
+        }
+
+        attempt.method(request.getMethod())
+            .version(request.getVersion())
+            .idleTimeout(request.getIdleTimeout(), TimeUnit.MILLISECONDS)
+            .timeout(request.getTimeout(), TimeUnit.MILLISECONDS)
+            .followRedirects(request.isFollowRedirects())
+            .agent(request.getAgent());
+
+        for (HttpCookie cookie : request.getCookies()) {
+            attempt.cookie(cookie);
+        }
+
+        HttpFields headers = attempt.getHeaders();
+        Set<String> copied = new HashSet<>();
+        for (HttpField field : request.getHeaders()) {
+            if (!isGenerated(field)) {
+                //replace the value of the new request, but keep the repeated values of the original one
+                if (copied.add(field.getName().toLowerCase(Locale.ENGLISH))) {
+                    headers.put(field);
+                } else {
+                    headers.add(field);
+                }
+            }
+        }
+
+        for (Map.Entry<String, Object> attribute : request.getAttributes().entrySet()) {
+            attempt.attribute(attribute.getKey(), attribute.getValue());
+        }
+
+        if (request.getContent() != null) {
+            attempt.content(request.getContent());
+        }
+
+        return attempt;
+    }
+
+    /**
+     * Indicates if the header is added when a request is created or sent, and must therefore not be copied
+     */
+    private static boolean isGenerated(HttpField field) {
+        for (String name : GENERATED_HEADERS) {
+            if (name.equalsIgnoreCase(field.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSameOrigin(URI uri, RestRequest request) {
+        return uri.getHost().equalsIgnoreCase(request.getHost())
+            && normalizePort(uri.getScheme(), uri.getPort()) == request.getPort();
+    }
+
+    private static class EndpointListener implements Request.QueuedListener, Response.CompleteListener {
+        private final EndpointGroup group;
+        private final Endpoint endpoint;
+        private volatile long start;
+
+        EndpointListener(EndpointGroup group, Endpoint endpoint) {
+            this.group = group;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void onQueued(Request request) {
+            start = System.nanoTime();
+            endpoint.begin();
+        }
+
+        @Override
+        public void onComplete(Result result) {
+            if (start == 0) {
+                return;
+            }
+
+            long latency = System.nanoTime() - start;
+            if (result.getFailure() instanceof CancellationException) {
+                //an abandoned request tells nothing about the endpoint
+                endpoint.cancel();
+            } else {
+                group.onComplete(endpoint, latency, result.isFailed()
+                    || result.getResponse().getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR_500);
+            }
+        }
+    }
 }
@@ -1,21 +1,38 @@
 package info.orestes.rest.client;
 
+import info.orestes.rest.conversion.InternedMediaType;
 import info.orestes.rest.error.RestException;
+import info.orestes.rest.error.ServiceUnavailable;
 import info.orestes.rest.service.EntityType;
-import org.apache.tika.mime.MediaType;
+import info.orestes.rest.util.Deadline;
 import org.eclipse.jetty.client.HttpConversation;
 import org.eclipse.jetty.client.HttpRequest;
+import org.eclipse.jetty.client.HttpResponse;
 import org.eclipse.jetty.client.api.ContentProvider;
+import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
 import org.eclipse.jetty.client.api.Response.CompleteListener;
+import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 public class RestRequest extends HttpRequest {
     private final RestClient client;
+    private Deadline deadline;
+    private RetryPolicy retryPolicy;
 
     public RestRequest(RestClient client, HttpConversation conversation, URI uri) {
         super(client, conversation, uri);
@@ -30,30 +47,108 @@ public Request content(ContentProvider content, String contentType) {
             entityContent.setRequest(this);
 
             if (contentType != null) {
-                entityContent.setMediaType(MediaType.parse(contentType));
+                entityContent.setMediaType(InternedMediaType.parseMediaType(contentType));
             }
         }
 
         return super.content(content, contentType);
     }
 
+    /**
+     * Sets the deadline of this request, which is used instead of the deadline attached to the sending thread
+     *
+     * @param deadline The deadline of the request
+     * @return This request
+     * @see Deadline#attach(Deadline)
+     */
+    public RestRequest deadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Returns the deadline which limits the timeout of this request and which is passed to the server in the
+     * {@link Deadline#HEADER}
+     *
+     * @return The deadline of the request or the deadline attached to the current thread
+     */
+    public Deadline getDeadline() {
+        return deadline != null ? deadline : Deadline.current();
+    }
+
+    /**
+     * Sets the retry policy of this request, which is used instead of the retry policy of the client
+     *
+     * @param retryPolicy The retry policy of the request
+     * @return This request
+     */
+    public RestRequest retryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Returns the policy which retries and hedges this request if it is sent by {@link #send(EntityType)}
+     *
+     * @return The retry policy of the request or the client, <code>null</code> if retries are disabled
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy != null ? retryPolicy : client.getRetryPolicy();
+    }
+
+    /**
+     * Aborts this request when the given signal completes, e.g. the cancellation signal of the server request on
+     * whose behalf this request is sent. The signal only references this request until it is completed, so a long
+     * living signal does not retain the requests sent on its behalf.
+     *
+     * @param signal The cancellation signal
+     * @return This request
+     */
+    public RestRequest cancelWith(CompletionStage<?> signal) {
+        AtomicReference<RestRequest> dependent = new AtomicReference<>(this);
+        onComplete(result -> dependent.set(null));
+        signal.whenComplete((result, error) -> {
+            RestRequest request = dependent.getAndSet(null);
+            if (request != null) {
+                request.abort(new CancellationException("The request was cancelled."));
+            }
+        });
+        return this;
+    }
+
     public <T> CompletableFuture<EntityResponse<T>> send(Class<T> cls) {
-        return send(new EntityType<T>(cls));
+        return send(EntityType.of(cls));
     }
 
     public <T> CompletableFuture<EntityResponse<T>> send(EntityType<T> entityType) {
+        HttpCache cache = client.getCache();
+        if (cache != null) {
+            return cache.send(this, entityType);
+        }
+
+        return sendUncached(entityType, false);
+    }
+
+    /**
+     * Sends this request without consulting the {@link HttpCache} of the client
+     *
+     * @param entityType     The expected response entity type
+     * @param captureContent <code>true</code> if the received body is provided by {@link EntityResponse#getContent()}
+     * @param <T>            The type of the response entity
+     * @return The future response
+     */
+    <T> CompletableFuture<EntityResponse<T>> sendUncached(EntityType<T> entityType, boolean captureContent) {
         CompletableFuture<EntityResponse<T>> future = new CompletableFuture<>();
 
-        send(new EntityResponseListener<T>(entityType) {
-            @Override
-            public void onComplete(EntityResult<T> result) {
-                if (result.isSucceeded()) {
-                    future.complete(new EntityResponse<T>(result.getResponse(), getEntityType(), result.getEntity()));
-                } else {
-                    future.completeExceptionally(result.getFailure());
-                }
-            }
-        });
+        RequestBatcher batcher = client.getBatcher();
+        RetryPolicy policy = getRetryPolicy();
+        if (batcher != null && batcher.isBatchable(this)) {
+            batcher.add(this, newEntityListener(entityType, future, captureContent));
+        } else if (policy != null && policy.isApplicable(this)) {
+            new RetryingExecution<>(this, entityType, future, policy, captureContent).start();
+        } else {
+            send(newEntityListener(entityType, future, captureContent));
+        }
 
         future.exceptionally(t -> {
             if (future.isCancelled()) {
@@ -90,8 +185,79 @@ public void onComplete(EntityResult<Stream<T>> result) {
         return future;
     }
 
+    @Override
+    public ContentResponse send() throws InterruptedException, TimeoutException, ExecutionException {
+        //the blocking send of Jetty does not pass through send(CompleteListener)
+        prepare(null);
+        ServiceUnavailable rejection = acquireCircuitBreaker();
+        if (rejection != null) {
+            throw new ExecutionException(rejection);
+        }
+
+        return super.send();
+    }
+
     @Override
     public void send(CompleteListener listener) {
+        prepare(listener);
+        sendPrepared(listener);
+    }
+
+    /**
+     * Sends this request after it was prepared by {@link #prepare(CompleteListener)}
+     *
+     * @param listener The prepared listener
+     */
+    void sendPrepared(CompleteListener listener) {
+        ServiceUnavailable rejection = acquireCircuitBreaker();
+        if (rejection != null) {
+            listener.onComplete(new Result(this, rejection, new HttpResponse(this, Collections.emptyList())));
+            return;
+        }
+
+        super.send(listener);
+    }
+
+    /**
+     * Acquires the permission of the circuit breaker of the destination and records the outcome of this request
+     *
+     * @return <code>null</code> if the request may be sent, otherwise the failure of the rejected request
+     */
+    private ServiceUnavailable acquireCircuitBreaker() {
+        CircuitBreakers breakers = client.getCircuitBreakers();
+        if (breakers == null) {
+            return null;
+        }
+
+        CircuitBreaker breaker = breakers.get(this);
+        if (!breaker.tryAcquire()) {
+            ServiceUnavailable e = new ServiceUnavailable("The circuit breaker of " + breaker.getDestination()
+                + " is open.");
+            e.setRemote(true);
+            return e;
+        }
+
+        long start = System.nanoTime();
+        onComplete(result -> {
+            Throwable failure = result.getFailure();
+            if (failure instanceof CancellationException) {
+                //an abandoned request tells nothing about the destination
+                breaker.release();
+            } else {
+                breaker.onComplete(failure != null
+                    || result.getResponse().getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR_500,
+                    System.nanoTime() - start);
+            }
+        });
+        return null;
+    }
+
+    /**
+     * Sets the Accept header for the expected entity type and applies the deadline of this request
+     *
+     * @param listener The listener which receives the response
+     */
+    void prepare(CompleteListener listener) {
         if (listener instanceof ResponseListener<?>) {
             ResponseListener<?> responseListener = ((ResponseListener<?>) listener);
 
@@ -115,7 +281,61 @@ public void send(CompleteListener listener) {
 
             header(HttpHeader.ACCEPT.asString(), accepted.toString());
         }
-        super.send(listener);
+
+        Deadline deadline = getDeadline();
+        if (deadline != null) {
+            long remaining = deadline.getRemaining(TimeUnit.MILLISECONDS);
+            if (getTimeout() <= 0 || remaining < getTimeout()) {
+                //an expired deadline fails the request with a timeout
+                timeout(Math.max(1, remaining), TimeUnit.MILLISECONDS);
+            }
+            getHeaders().put(Deadline.HEADER, Long.toString(remaining));
+        }
+    }
+
+    <T> EntityResponseListener<T> newEntityListener(EntityType<T> entityType,
+        CompletableFuture<EntityResponse<T>> future) {
+        return newEntityListener(entityType, future, false);
+    }
+
+    /**
+     * Creates a listener which completes the given future with the decoded entity
+     *
+     * @param entityType     The expected response entity type
+     * @param future         The future to complete
+     * @param captureContent <code>true</code> if the received body is passed to the {@link EntityResponse}
+     * @param <T>            The type of the response entity
+     * @return The listener
+     */
+    <T> EntityResponseListener<T> newEntityListener(EntityType<T> entityType,
+        CompletableFuture<EntityResponse<T>> future, boolean captureContent) {
+        return new EntityResponseListener<T>(entityType) {
+            @Override
+            public void onComplete(EntityResult<T> result) {
+                if (result.isSucceeded()) {
+                    future.complete(new EntityResponse<T>(result.getResponse(), getEntityType(), result.getEntity(),
+                        captureContent ? getContent() : null));
+                } else {
+                    future.completeExceptionally(result.getFailure());
+                }
+            }
+        };
+    }
+
+    /**
+     * Passes a response which was not received by this request to the given listener, e.g. a part of a batch
+     * response or a cached response
+     *
+     * @param listener The listener which receives the response
+     * @param response The status and headers of the response
+     * @param body     The response body
+     */
+    void replay(EntityResponseListener<?> listener, Response response, byte[] body) {
+        listener.onHeaders(response);
+        if (body.length > 0) {
+            listener.onContent(response, ByteBuffer.wrap(body));
+        }
+        listener.onComplete(new Result(this, response));
     }
 
     protected RestClient getClient() {
@@ -0,0 +1,108 @@
+package info.orestes.rest.client;
+
+/**
+ * A token bucket which limits the retries and hedged attempts of a client relative to its requests. Each request
+ * deposits a fraction of a token and each additional attempt withdraws a whole token, so the additional attempts
+ * are at most the given ratio of the requests. A minimum number of tokens per second is refilled over time, so
+ * clients with a low request rate can still retry.
+ * <br>
+ * <br>
+ * Since the budget is drained when a service fails persistently, retries stop amplifying the load of an overloaded
+ * service.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+public class RetryBudget {
+
+    public static final double DEFAULT_RATIO = 0.1;
+    public static final int DEFAULT_MIN_PER_SECOND = 10;
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double capacity;
+    private double balance;
+    private long refilled = System.nanoTime();
+    private long rejected;
+
+    /**
+     * Creates a budget with the {@link #DEFAULT_RATIO}, {@link #DEFAULT_MIN_PER_SECOND} and
+     * {@link #DEFAULT_CAPACITY}
+     */
+    public RetryBudget() {
+        this(DEFAULT_RATIO, DEFAULT_MIN_PER_SECOND, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a budget
+     *
+     * @param ratio        The additional attempts per request, e.g. 0.1 for 10% additional attempts
+     * @param minPerSecond The tokens which are refilled per second regardless of the requests
+     * @param capacity     The maximum number of tokens which can be saved up
+     */
+    public RetryBudget(double ratio, int minPerSecond, int capacity) {
+        if (ratio < 0 || minPerSecond < 0 || capacity < 1) {
+            throw new IllegalArgumentException("The budget must have a positive capacity and no negative rates.");
+        }
+
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.capacity = capacity;
+        this.balance = Math.min(minPerSecond, capacity);
+    }
+
+    /**
+     * Deposits the share of a request
+     */
+    public synchronized void deposit() {
+        refill();
+        balance = Math.min(capacity, balance + ratio);
+    }
+
+    /**
+     * Withdraws a token for an additional attempt
+     *
+     * @return <code>true</code> if the attempt is within the budget
+     */
+    public synchronized boolean tryWithdraw() {
+        refill();
+        if (balance >= 1) {
+            balance -= 1;
+            return true;
+        }
+
+        rejected++;
+        return false;
+    }
+
+    /**
+     * Returns the available tokens
+     *
+     * @return The number of additional attempts which can currently be made
+     */
+    public synchronized double getBalance() {
+        refill();
+        return balance;
+    }
+
+    /**
+     * Returns the number of attempts which were rejected by this budget so far
+     *
+     * @return The rejected attempts
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(capacity, balance + (now - refilled) * minPerSecond / 1e9);
+        refilled = now;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget " + getBalance() + " of " + capacity;
+    }
+}
@@ -0,0 +1,242 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.error.RestException;
+import org.eclipse.jetty.client.api.ContentProvider;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Configures the retries and hedged attempts of the idempotent requests sent by
+ * {@link RestRequest#send(info.orestes.rest.service.EntityType)}. Retries and hedging are enabled per client by
+ * {@link RestClient#setRetryPolicy(RetryPolicy)} or per request by {@link RestRequest#retryPolicy(RetryPolicy)}.
+ * <br>
+ * <br>
+ * A failed attempt is retried after an exponential backoff with full jitter if it failed with an I/O error or
+ * with a 502, 503 or 504 response. If hedging is enabled, a second attempt is sent when the first attempt takes
+ * longer than the given percentile of the recent latencies, the first successful attempt completes the request
+ * and the other attempt is aborted. All additional attempts are withdrawn from the {@link RetryBudget}, they are
+ * sent to another endpoint if the client balances its requests and they are not sent after the deadline of the
+ * request has expired.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_BACKOFF = TimeUnit.MILLISECONDS.toNanos(10);
+    public static final double DEFAULT_HEDGE_PERCENTILE = 95;
+
+    private static final String[] IDEMPOTENT_METHODS = {HttpMethod.GET.asString(), HttpMethod.HEAD.asString(),
+        HttpMethod.OPTIONS.asString(), HttpMethod.TRACE.asString(), HttpMethod.PUT.asString(),
+        HttpMethod.DELETE.asString()};
+    private static final int SAMPLES = 1024;
+    private static final int MIN_SAMPLES = 32;
+    private static final int UPDATE_INTERVAL = 64;
+
+    private final RetryBudget budget;
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    private final AtomicLong sampleCount = new AtomicLong();
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile long backoff = DEFAULT_BACKOFF;
+    private volatile boolean hedging;
+    private volatile double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+    private volatile long minHedgeDelay = TimeUnit.MILLISECONDS.toNanos(1);
+    private volatile long maxHedgeDelay = TimeUnit.SECONDS.toNanos(1);
+    private volatile long hedgeDelay = -1;
+
+    /**
+     * Creates a policy which retries failed attempts within a default {@link RetryBudget}
+     */
+    public RetryPolicy() {
+        this(new RetryBudget());
+    }
+
+    /**
+     * Creates a policy which retries failed attempts within the given budget, the budget can be shared by multiple
+     * policies
+     *
+     * @param budget The budget of the additional attempts
+     */
+    public RetryPolicy(RetryBudget budget) {
+        this.budget = budget;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Sets the maximum number of attempts of a request including the first attempt, 3 by default
+     *
+     * @param maxAttempts The maximum number of attempts
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Sets the base of the exponential backoff between the retries, 10 milliseconds by default
+     *
+     * @param backoff The backoff before the first retry
+     * @param unit    The unit of the backoff
+     */
+    public void setBackoff(long backoff, TimeUnit unit) {
+        this.backoff = unit.toNanos(backoff);
+    }
+
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    /**
+     * Enables hedged attempts, disabled by default
+     *
+     * @param hedging <code>true</code> to send a second attempt when the first attempt is slow
+     */
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    /**
+     * Sets the percentile of the recent latencies after which a hedged attempt is sent, 95 by default
+     *
+     * @param hedgePercentile The percentile between 0 and 100
+     */
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeDelay = -1;
+    }
+
+    /**
+     * Bounds the delay of the hedged attempts, 1 millisecond to 1 second by default. The maximum is used until
+     * enough latencies are recorded.
+     *
+     * @param min  The minimum delay
+     * @param max  The maximum delay
+     * @param unit The unit of the delays
+     */
+    public void setHedgeDelay(long min, long max, TimeUnit unit) {
+        this.minHedgeDelay = unit.toNanos(min);
+        this.maxHedgeDelay = unit.toNanos(max);
+    }
+
+    /**
+     * Returns the delay after which a hedged attempt is sent
+     *
+     * @param unit The unit of the delay
+     * @return The hedge delay
+     */
+    public long getHedgeDelay(TimeUnit unit) {
+        long delay = hedgeDelay;
+        if (delay < 0) {
+            delay = maxHedgeDelay;
+        }
+        return unit.convert(Math.max(minHedgeDelay, Math.min(maxHedgeDelay, delay)), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the backoff before the given retry, drawn uniformly up to the exponentially growing bound
+     *
+     * @param retry The number of the retry, starting at 1
+     * @param unit  The unit of the backoff
+     * @return The backoff
+     */
+    public long getBackoff(int retry, TimeUnit unit) {
+        long bound = backoff << Math.min(retry - 1, 20);
+        return unit.convert(bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Indicates if the given request may be sent multiple times
+     *
+     * @param request The request
+     * @return <code>true</code> if the request is idempotent and its content can be sent again
+     */
+    public boolean isApplicable(RestRequest request) {
+        if (!isIdempotent(request.getMethod())) {
+            return false;
+        }
+
+        ContentProvider content = request.getContent();
+        return content == null || content.isReproducible();
+    }
+
+    /**
+     * Indicates if the given HTTP method is idempotent
+     *
+     * @param method The HTTP method
+     * @return <code>true</code> if the method may be executed multiple times with the same effect
+     */
+    static boolean isIdempotent(String method) {
+        return Arrays.asList(IDEMPOTENT_METHODS).contains(method);
+    }
+
+    /**
+     * Indicates if an attempt which failed with the given failure should be retried
+     *
+     * @param failure The failure of the attempt
+     * @return <code>true</code> if the failure is transient
+     */
+    public boolean isRetryable(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+            && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause instanceof CancellationException || cause instanceof TimeoutException) {
+            return false;
+        }
+
+        if (cause instanceof RestException) {
+            RestException e = (RestException) cause;
+            int status = e.getStatusCode();
+            return e.isRemote() && (status == HttpStatus.BAD_GATEWAY_502
+                || status == HttpStatus.SERVICE_UNAVAILABLE_503 || status == HttpStatus.GATEWAY_TIMEOUT_504);
+        }
+
+        return cause instanceof IOException;
+    }
+
+    /**
+     * Records the latency of a successful attempt, which determines the hedge delay
+     *
+     * @param latency The latency in nanoseconds
+     */
+    void onLatency(long latency) {
+        long count = sampleCount.incrementAndGet();
+        samples.set((int) ((count - 1) & (SAMPLES - 1)), latency);
+
+        if (count >= MIN_SAMPLES && (count % UPDATE_INTERVAL == 0 || hedgeDelay < 0)) {
+            int size = (int) Math.min(count, SAMPLES);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; ++i) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            hedgeDelay = sorted[Math.max(0, Math.min(size - 1, (int) Math.ceil(hedgePercentile / 100 * size) - 1))];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy " + maxAttempts + " attempts" + (hedging ? ", hedged after "
+            + getHedgeDelay(TimeUnit.MILLISECONDS) + "ms" : "");
+    }
+}
@@ -0,0 +1,144 @@
+package info.orestes.rest.client;
+
+import info.orestes.rest.service.EntityType;
+import info.orestes.rest.util.Deadline;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the attempts of a request as configured by its {@link RetryPolicy} and completes the future of the request
+ * with the first successful attempt or the failure of the last attempt
+ * <br>
+ * <br>
+ * Concurrency Note: The attempts complete on different threads, the state of the execution is guarded by its lock.
+ */
+class RetryingExecution<T> {
+
+    private final RestRequest request;
+    private final EntityType<T> entityType;
+    private final CompletableFuture<EntityResponse<T>> future;
+    private final RetryPolicy policy;
+    private final Deadline deadline;
+    private final boolean captureContent;
+    private final List<RestRequest> inFlight = new ArrayList<>(2);
+    private int attempts;
+    private int outstanding;
+    private volatile Scheduler.Task hedge;
+
+    RetryingExecution(RestRequest request, EntityType<T> entityType, CompletableFuture<EntityResponse<T>> future,
+        RetryPolicy policy, boolean captureContent) {
+        this.request = request;
+        this.entityType = entityType;
+        this.future = future;
+        this.policy = policy;
+        this.deadline = request.getDeadline();
+        this.captureContent = captureContent;
+    }
+
+    void start() {
+        policy.getBudget().deposit();
+        future.whenComplete((response, failure) -> abortInFlight());
+
+        synchronized (this) {
+            attempts++;
+            outstanding++;
+        }
+        send(request);
+
+        if (policy.isHedging() && !future.isDone()) {
+            hedge = getClient().getScheduler().schedule(this::hedge, policy.getHedgeDelay(TimeUnit.NANOSECONDS),
+                TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void hedge() {
+        if (reserve()) {
+            send(getClient().newAttempt(request));
+        }
+    }
+
+    /**
+     * Reserves an additional attempt if the request is not completed yet, the maximum number of attempts is not
+     * reached, the deadline is not expired and the budget is not exhausted
+     */
+    private synchronized boolean reserve() {
+        if (future.isDone() || attempts >= policy.getMaxAttempts() || deadline != null && deadline.isExpired()) {
+            return false;
+        }
+
+        if (!policy.getBudget().tryWithdraw()) {
+            return false;
+        }
+
+        attempts++;
+        outstanding++;
+        return true;
+    }
+
+    private void send(RestRequest attempt) {
+        synchronized (this) {
+            if (future.isDone()) {
+                outstanding--;
+                return;
+            }
+            inFlight.add(attempt);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<EntityResponse<T>> result = new CompletableFuture<>();
+        result.whenComplete((response, failure) -> onComplete(attempt, start, response, failure));
+
+        attempt.deadline(deadline);
+        attempt.send(attempt.newEntityListener(entityType, result, captureContent));
+    }
+
+    private void onComplete(RestRequest attempt, long start, EntityResponse<T> response, Throwable failure) {
+        int retry;
+        boolean last;
+        synchronized (this) {
+            inFlight.remove(attempt);
+            outstanding--;
+            retry = attempts;
+            last = outstanding == 0;
+        }
+
+        if (future.isDone()) {
+            return;
+        }
+
+        if (failure == null) {
+            policy.onLatency(System.nanoTime() - start);
+            future.complete(response);
+        } else if (policy.isRetryable(failure) && reserve()) {
+            getClient().getScheduler().schedule(() -> send(getClient().newAttempt(request)),
+                policy.getBackoff(retry, TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        } else if (last) {
+            future.completeExceptionally(failure);
+        }
+    }
+
+    private void abortInFlight() {
+        Scheduler.Task task = hedge;
+        if (task != null) {
+            task.cancel();
+        }
+
+        List<RestRequest> losers;
+        synchronized (this) {
+            losers = new ArrayList<>(inFlight);
+        }
+
+        for (RestRequest loser : losers) {
+            loser.abort(new CancellationException("The attempt is no longer needed."));
+        }
+    }
+
+    private RestClient getClient() {
+        return request.getClient();
+    }
+}
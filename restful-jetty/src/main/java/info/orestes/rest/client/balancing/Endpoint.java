@@ -0,0 +1,142 @@
+package info.orestes.rest.client.balancing;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A replica of a service, identified by its base URI, with the load observed by the client: the outstanding
+ * requests, an exponentially weighted moving average of the latency and the consecutive failures.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be updated by multiple threads at the same time.
+ */
+public class Endpoint {
+
+    private static final double SMOOTHING = 0.2;
+
+    private final URI baseURI;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong latency = new AtomicLong(-1);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile long ejectedUntil;
+    private volatile int ejections;
+
+    public Endpoint(URI baseURI) {
+        this.baseURI = baseURI;
+    }
+
+    public URI getBaseURI() {
+        return baseURI;
+    }
+
+    /**
+     * Returns the number of requests which were sent to this endpoint and are not completed yet
+     *
+     * @return The outstanding requests
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Returns the moving average of the latency of the successful requests
+     *
+     * @param unit The unit of the latency
+     * @return The average latency or <code>-1</code> if no request has succeeded so far
+     */
+    public long getLatency(TimeUnit unit) {
+        long nanos = latency.get();
+        return nanos < 0 ? -1 : unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * Returns how often this endpoint was ejected so far
+     *
+     * @return The number of ejections
+     */
+    public int getEjections() {
+        return ejections;
+    }
+
+    /**
+     * Indicates if this endpoint is currently ejected from the load balancing
+     *
+     * @param now The current {@link System#nanoTime()}
+     * @return <code>true</code> if the endpoint is ejected
+     */
+    public boolean isEjected(long now) {
+        long until = ejectedUntil;
+        return until != 0 && until - now > 0;
+    }
+
+    /**
+     * Records the start of a request
+     */
+    public void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Records the completion of a request which was started by {@link #begin()}
+     *
+     * @param latencyNanos The latency of the request in nanoseconds
+     * @param failed       <code>true</code> if the request has failed or was answered with a server error
+     * @return The number of consecutive failures including this request
+     */
+    public int end(long latencyNanos, boolean failed) {
+        outstanding.decrementAndGet();
+        requests.increment();
+
+        if (failed) {
+            failures.increment();
+            return consecutiveFailures.incrementAndGet();
+        }
+
+        latency.updateAndGet(average -> average < 0 ? latencyNanos
+            : (long) (average + SMOOTHING * (latencyNanos - average)));
+        consecutiveFailures.set(0);
+        return 0;
+    }
+
+    /**
+     * Records the end of a request which was started by {@link #begin()} and was abandoned before it completed, e.g.
+     * by a cancellation. The request neither counts as request nor as failure and does not affect the latency.
+     */
+    public void cancel() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Ejects this endpoint from the load balancing
+     *
+     * @param until The {@link System#nanoTime()} when the endpoint is reconsidered
+     */
+    void eject(long until) {
+        ejections++;
+        consecutiveFailures.set(0);
+        ejectedUntil = until;
+    }
+
+    @Override
+    public String toString() {
+        return "Endpoint " + baseURI + ": " + getOutstanding() + " outstanding, " + getConsecutiveFailures()
+            + " consecutive failures";
+    }
+}
@@ -0,0 +1,151 @@
+package info.orestes.rest.client.balancing;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The replicas of a service among which the requests of a client are balanced by a {@link LoadBalancer}.
+ * <br>
+ * <br>
+ * Endpoints are ejected passively: an endpoint which fails the configured number of consecutive requests is not
+ * selected for the ejection time, which grows with each further ejection of the endpoint. At most the configured
+ * share of endpoints is ejected at the same time, and if all endpoints are ejected the requests are balanced among
+ * all of them, so a failure of the whole service does not make it unreachable for the client.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time.
+ */
+public class EndpointGroup {
+
+    public static final int DEFAULT_CONSECUTIVE_FAILURES = 5;
+    public static final long DEFAULT_EJECTION_TIME = TimeUnit.SECONDS.toNanos(30);
+    public static final double DEFAULT_MAX_EJECTED = 0.5;
+
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    private final List<Endpoint> endpoints;
+    private final LoadBalancer balancer;
+    private volatile int consecutiveFailures = DEFAULT_CONSECUTIVE_FAILURES;
+    private volatile long ejectionTime = DEFAULT_EJECTION_TIME;
+    private volatile double maxEjected = DEFAULT_MAX_EJECTED;
+
+    /**
+     * Creates a group of endpoints
+     *
+     * @param baseURIs The base URIs of the endpoints
+     * @param balancer The balancer which selects the endpoint of each request
+     */
+    public EndpointGroup(List<URI> baseURIs, LoadBalancer balancer) {
+        if (baseURIs.isEmpty()) {
+            throw new IllegalArgumentException("The group must contain at least one endpoint.");
+        }
+
+        List<Endpoint> endpoints = new ArrayList<>(baseURIs.size());
+        for (URI baseURI : baseURIs) {
+            endpoints.add(new Endpoint(baseURI));
+        }
+
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.balancer = balancer;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public LoadBalancer getBalancer() {
+        return balancer;
+    }
+
+    /**
+     * Sets the number of consecutive failures after which an endpoint is ejected, 5 by default
+     *
+     * @param consecutiveFailures The number of consecutive failures
+     */
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    /**
+     * Sets the time an endpoint is ejected the first time, 30 seconds by default. Further ejections of the same
+     * endpoint last a multiple of this time.
+     *
+     * @param time The ejection time
+     * @param unit The unit of the ejection time
+     */
+    public void setEjectionTime(long time, TimeUnit unit) {
+        this.ejectionTime = unit.toNanos(time);
+    }
+
+    /**
+     * Sets the maximum share of the endpoints which are ejected at the same time, 0.5 by default
+     *
+     * @param maxEjected The share between 0 and 1
+     */
+    public void setMaxEjected(double maxEjected) {
+        this.maxEjected = maxEjected;
+    }
+
+    /**
+     * Selects the endpoint of the next request
+     *
+     * @return The selected endpoint
+     */
+    public Endpoint select() {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+
+        long now = System.nanoTime();
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+
+        return balancer.select(candidates.isEmpty() ? endpoints : candidates);
+    }
+
+    /**
+     * Records the completion of a request which was sent to the given endpoint and ejects the endpoint if it has
+     * failed too often in a row
+     *
+     * @param endpoint     The endpoint of the request
+     * @param latencyNanos The latency of the request in nanoseconds
+     * @param failed       <code>true</code> if the request has failed or was answered with a server error
+     */
+    public void onComplete(Endpoint endpoint, long latencyNanos, boolean failed) {
+        int failures = endpoint.end(latencyNanos, failed);
+        if (failed && failures >= consecutiveFailures) {
+            eject(endpoint);
+        }
+    }
+
+    private synchronized void eject(Endpoint endpoint) {
+        long now = System.nanoTime();
+        if (endpoint.isEjected(now)) {
+            return;
+        }
+
+        int ejected = 0;
+        for (Endpoint candidate : endpoints) {
+            if (candidate.isEjected(now)) {
+                ejected++;
+            }
+        }
+
+        if (ejected + 1 <= endpoints.size() * maxEjected) {
+            int multiplier = Math.min(endpoint.getEjections() + 1, MAX_EJECTION_MULTIPLIER);
+            endpoint.eject(now + ejectionTime * multiplier);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointGroup " + endpoints + " balanced by " + balancer;
+    }
+}
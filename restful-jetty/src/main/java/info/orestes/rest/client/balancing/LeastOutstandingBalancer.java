@@ -0,0 +1,30 @@
+package info.orestes.rest.client.balancing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects the endpoint with the fewest outstanding requests, ties are broken randomly
+ */
+public class LeastOutstandingBalancer implements LoadBalancer {
+
+    @Override
+    public Endpoint select(List<Endpoint> endpoints) {
+        int size = endpoints.size();
+        int offset = ThreadLocalRandom.current().nextInt(size);
+
+        Endpoint selected = null;
+        for (int i = 0; i < size; ++i) {
+            Endpoint endpoint = endpoints.get((offset + i) % size);
+            if (selected == null || endpoint.getOutstanding() < selected.getOutstanding()) {
+                selected = endpoint;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return "LeastOutstandingBalancer";
+    }
+}
@@ -0,0 +1,20 @@
+package info.orestes.rest.client.balancing;
+
+import java.util.List;
+
+/**
+ * Selects the endpoint which receives the next request of an {@link EndpointGroup}
+ * <br>
+ * <br>
+ * Concurrency Note: {@link #select(List)} is called by multiple threads at the same time.
+ */
+public interface LoadBalancer {
+
+    /**
+     * Selects the endpoint for the next request
+     *
+     * @param endpoints The endpoints which are not ejected, contains at least one endpoint
+     * @return The selected endpoint
+     */
+    Endpoint select(List<Endpoint> endpoints);
+}
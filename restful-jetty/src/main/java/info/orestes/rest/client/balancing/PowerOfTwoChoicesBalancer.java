@@ -0,0 +1,43 @@
+package info.orestes.rest.client.balancing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks two random endpoints and selects the one with the lower expected cost, which is the average latency
+ * weighted by the outstanding requests. Endpoints without a latency sample are preferred, so new and recovered
+ * endpoints are probed. Comparing only two random endpoints avoids that all clients pile onto the same endpoint
+ * with the best statistics.
+ */
+public class PowerOfTwoChoicesBalancer implements LoadBalancer {
+
+    @Override
+    public Endpoint select(List<Endpoint> endpoints) {
+        int size = endpoints.size();
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Endpoint a = endpoints.get(first);
+        Endpoint b = endpoints.get(second);
+        return getCost(b) < getCost(a) ? b : a;
+    }
+
+    private static long getCost(Endpoint endpoint) {
+        long latency = endpoint.getLatency(TimeUnit.NANOSECONDS);
+        return latency < 0 ? 0 : latency * (endpoint.getOutstanding() + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "PowerOfTwoChoicesBalancer";
+    }
+}
@@ -0,0 +1,22 @@
+package info.orestes.rest.client.balancing;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects the endpoints in turn
+ */
+public class RoundRobinBalancer implements LoadBalancer {
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public Endpoint select(List<Endpoint> endpoints) {
+        return endpoints.get((next.getAndIncrement() & Integer.MAX_VALUE) % endpoints.size());
+    }
+
+    @Override
+    public String toString() {
+        return "RoundRobinBalancer";
+    }
+}
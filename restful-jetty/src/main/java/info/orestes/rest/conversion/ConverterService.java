@@ -3,6 +3,8 @@
 import info.orestes.rest.conversion.ConverterFormat.EntityReader;
 import info.orestes.rest.conversion.ConverterFormat.EntityWriter;
 import info.orestes.rest.error.*;
+import info.orestes.rest.jfr.ConversionEvent;
+import info.orestes.rest.jfr.JfrSupport;
 import info.orestes.rest.service.EntityType;
 import info.orestes.rest.service.ServiceDocumentTypes;
 import info.orestes.rest.util.ClassUtil;
@@ -100,9 +102,12 @@ public ConverterService(Module module, boolean loadConverters) {
     /**
      * Load all {@link ConverterFormat}s form the {@value #FORMAT_PACKAGE_NAME} package and add them to the {@link
      * ConverterService}
+     * <p>
+     * Packages which are indexed at compile time by the restful-jetty-processor are loaded from their index, all other
+     * packages are scanned on the classpath.
      */
     public void loadConverters() {
-        for (Class<?> cls : ClassUtil.getPackageClasses(FORMAT_PACKAGE_NAME)) {
+        for (Class<?> cls : ClassUtil.getIndexedPackageClasses(FORMAT_PACKAGE_NAME)) {
             try {
                 if (!Modifier.isAbstract(cls.getModifiers()) && ConverterFormat.class.isAssignableFrom(cls)) {
                     addFormat(cls.asSubclass(ConverterFormat.class).getDeclaredConstructor().newInstance());
@@ -192,6 +197,7 @@ public <F> void add(Converter<?, F> converter) {
             Accept accepted = converter.getClass().getAnnotation(Accept.class);
             for (String mediaTypeString : accepted.value()) {
                 MediaType mediaType = MediaType.parse(mediaTypeString);
+                InternedMediaType.register(mediaType);
 
                 Map<MediaType, Converter<?, ?>> acceptTypes = accept.get(converter.getTargetClass());
                 if (acceptTypes == null) {
@@ -246,13 +252,14 @@ private <T, F> Converter<T, F> getConverter(MediaType mimeType, Class<?> type, C
     private <T, F> Converter<T, F> getCompatibleConverter(MediaType mimeType, Class<?> type) {
         Map<MediaType, Converter<?, ?>> acceptTypes = accept.get(type);
         if (acceptTypes != null) {
-            Converter<?, ?> converter = acceptTypes.get(mimeType.getBaseType());
+            InternedMediaType interned = InternedMediaType.of(mimeType);
+            Converter<?, ?> converter = acceptTypes.get(interned.getBaseType().getMediaType());
             if (converter != null) {
                 return (Converter<T, F>) converter;
             }
 
             for (Map.Entry<MediaType, Converter<?, ?>> entry : acceptTypes.entrySet()) {
-                if (MediaTypeNegotiation.isSubtypeOf(mimeType, entry.getKey())) {
+                if (interned.isSubtypeOf(InternedMediaType.of(entry.getKey()))) {
                     return (Converter<T, F>) entry.getValue();
                 }
             }
@@ -273,7 +280,7 @@ private <T, F> Converter<T, F> getCompatibleConverter(MediaType mimeType, Class<
      * @throws IOException                   if an unexpected exception occurred while reading or decoding the value
      */
     public <T> T toObject(ReadableContext context, Class<T> target) throws IOException, RestException {
-        return toObject(context, target, EntityType.EMPTY_GENERIC_ARRAY);
+        return toObject(context, EntityType.of(target));
     }
 
     /**
@@ -288,7 +295,7 @@ public <T> T toObject(ReadableContext context, Class<T> target) throws IOExcepti
      * @throws IOException                   if an unexpected exception occurred while reading or decoding the value
      */
     public <T> T toObject(ReadableContext context, EntityType<T> target) throws IOException, RestException {
-        return toObject(context, target.getRawType(), target.getActualTypeArguments());
+        return read(context, target);
     }
 
     /**
@@ -329,21 +336,27 @@ public <T> T toObject(MediaType sourceType, EntityType<T> target, String source)
      * @param <T>           The class of the type to convert
      * @param <F>           The base class of the format
      * @param context       The {@link ReadableContext} to read from
-     * @param target        The java type of the decoded value
-     * @param genericParams The used java types of the generic parameters if the java type is generic otherwise the
-     *                      array must be empty
+     * @param entityType    The java type with generic parameters of the decoded value
      * @return The read and decoded value
      * @throws UnsupportedOperationException if no converter is available to handle the conversion
      * @throws RestException                 if an exception occurred while decoding the value
      * @throws IOException                   if an unexpected exception occurred while reading or decoding the value
      */
-    private <T, F> T toObject(ReadableContext context, Class<T> target, Class<?>[] genericParams) throws IOException, RestException {
+    private <T, F> T read(ReadableContext context, EntityType<T> entityType) throws IOException, RestException {
         Objects.requireNonNull(context, "The ReadableContext must be set.");
+        ConversionEvent event = JfrSupport.AVAILABLE ? ConversionEvent.start(ConversionEvent.READ,
+            context.getMediaType()) : null;
         try {
-            EntityType<T> entityType = new EntityType<>(target, genericParams);
-            Converter<T, F> converter = getConverter(context.getMediaType(), target, genericParams);
+            Converter<T, F> converter = getConverter(context.getMediaType(), entityType.getRawType(),
+                entityType.getActualTypeArguments());
+
+            if (event == null) {
+                return converter.getFormat().newEntityReader(context, entityType, converter).read();
+            }
 
-            return converter.getFormat().newEntityReader(context, entityType, converter).read();
+            T entity = converter.getFormat().newEntityReader(event.track(context), entityType, converter).read();
+            event.commit(converter, entityType);
+            return entity;
         } catch (RuntimeException e) {
             throw new BadRequest("The body can't be processed", e);
         }
@@ -362,7 +375,7 @@ private <T, F> T toObject(ReadableContext context, Class<T> target, Class<?>[] g
      */
     public <T> void toRepresentation(WritableContext context, Class<T> source, Object entity) throws
         IOException, RestException {
-        toRepresentation(context, entity, source, EntityType.EMPTY_GENERIC_ARRAY);
+        write(context, EntityType.of(source), entity);
     }
 
     /**
@@ -378,7 +391,7 @@ public <T> void toRepresentation(WritableContext context, Class<T> source, Objec
      */
     public <T> void toRepresentation(WritableContext context, EntityType<T> source, Object entity) throws
         IOException, RestException {
-        toRepresentation(context, entity, source.getRawType(), source.getActualTypeArguments());
+        write(context, source, entity);
     }
 
     /**
@@ -419,29 +432,36 @@ public <T> EntityReader<T> newEntityReader(ReadableContext context, EntityType<T
      * @param <T>           The class of the type to convert
      * @param <F>           The base class of the format
      * @param context       The {@link WritableContext} to write to
+     * @param entityType    The java type with generic parameters of the decoded value
      * @param entity        The value which will be encoded and written
-     * @param source        The java type of the decoded value
-     * @param genericParams The used java types of the generic parameters if the java type is generic otherwise the
-     *                      array must be empty
      * @throws UnsupportedOperationException if no converter is available to handle the conversion
      * @throws RestException                 if an exception occurred while encoding the value
      * @throws IOException                   if an unexpected exception occurred while writing or encoding the value
      */
-    private <T, F> void toRepresentation(WritableContext context, Object entity, Class<T> source, Class<?>[] genericParams)
+    private <T, F> void write(WritableContext context, EntityType<T> entityType, Object entity)
         throws IOException, RestException {
         Objects.requireNonNull(context, "The WritableContext must be set.");
+        ConversionEvent event = JfrSupport.AVAILABLE ? ConversionEvent.start(ConversionEvent.WRITE,
+            context.getMediaType()) : null;
         try {
-            EntityType<T> entityType = new EntityType<>(source, genericParams);
-            Converter<T, F> converter = getConverter(context.getMediaType(), source, genericParams);
-
-            converter.getFormat().newEntityWriter(context, entityType, converter).write(source.cast(entity));
+            Class<T> source = entityType.getRawType();
+            Converter<T, F> converter = getConverter(context.getMediaType(), source,
+                entityType.getActualTypeArguments());
+
+            if (event == null) {
+                converter.getFormat().newEntityWriter(context, entityType, converter).write(source.cast(entity));
+            } else {
+                converter.getFormat().newEntityWriter(event.track(context), entityType, converter)
+                    .write(source.cast(entity));
+                event.commit(converter, entityType);
+            }
         } catch (RuntimeException e) {
             throw new InternalServerError("The body can't be processed", e);
         }
     }
 
     public <T, F> F toRepresentation(Class<T> sourceType, Class<F> targetType, T source) {
-        return toRepresentation(new EntityType<>(sourceType), targetType, source);
+        return toRepresentation(EntityType.of(sourceType), targetType, source);
     }
 
     public <T, F> F toRepresentation(EntityType<T> sourceType, Class<F> targetType, T source) {
@@ -460,7 +480,7 @@ public <T, F> F toRepresentation(Context context, EntityType<T> sourceType, Clas
     }
 
     public <T, F> T toObject(Class<F> sourceType, Class<T> targetType, F source) {
-        return toObject(sourceType, new EntityType<T>(targetType), source);
+        return toObject(sourceType, EntityType.of(targetType), source);
     }
 
     public <T, F> T toObject(Class<F> sourceType, EntityType<T> targetType, F source) {
@@ -489,7 +509,7 @@ public <T, F> T toObject(Context context, Class<F> sourceType, EntityType<T> tar
      * @throws UnsupportedOperationException if the conversion can not be performed
      */
     public <T> T toObject(Context context, Class<T> type, String source) {
-        return toObject(context, String.class, new EntityType<T>(type), source);
+        return toObject(context, String.class, EntityType.of(type), source);
     }
 
     /**
@@ -502,7 +522,7 @@ public <T> T toObject(Context context, Class<T> type, String source) {
      * @throws UnsupportedOperationException if the conversion can not be performed
      */
     public <T> T toObject(Class<T> type, String source) {
-        return toObject(String.class, new EntityType<T>(type), source);
+        return toObject(String.class, EntityType.of(type), source);
     }
 
     /**
@@ -516,7 +536,7 @@ public <T> T toObject(Class<T> type, String source) {
      * @throws UnsupportedOperationException if the conversion can not be performed
      */
     public <T> String toString(Context context, Class<T> type, T source) {
-        return toRepresentation(context, new EntityType<>(type), String.class, source);
+        return toRepresentation(context, EntityType.of(type), String.class, source);
     }
 
     /**
@@ -529,7 +549,7 @@ public <T> String toString(Context context, Class<T> type, T source) {
      * @throws UnsupportedOperationException if the conversion can not be performed
      */
     public <T> String toString(Class<T> type, T source) {
-        return toRepresentation(new EntityType<>(type), String.class, source);
+        return toRepresentation(EntityType.of(type), String.class, source);
     }
 
     /**
@@ -573,7 +593,7 @@ public <T> String toString(EntityType<T> source, MediaType targetType, Object en
      * @return A list of all found {@link Converter} classes
      */
     private void loadConverterPackage(String pkgName) {
-        List<Class<?>> classes = ClassUtil.getPackageClasses(pkgName);
+        List<Class<?>> classes = ClassUtil.getIndexedPackageClasses(pkgName);
 
         for (Class<?> cls : classes) {
             if (!Modifier.isAbstract(cls.getModifiers()) && Converter.class.isAssignableFrom(cls)) {
@@ -632,8 +652,9 @@ public MediaType getPreferredMediaType(List<MediaType> acceptedMediaTypes, Entit
         Set<MediaType> supportedMediaTypes = getAcceptableMediaTypes(type);
 
         for (MediaType acceptType : acceptedMediaTypes) {
+            InternedMediaType accepted = InternedMediaType.of(acceptType);
             for (MediaType supportedType : supportedMediaTypes) {
-                if (MediaTypeNegotiation.isSubtypeOf(supportedType, acceptType)) {
+                if (InternedMediaType.of(supportedType).isSubtypeOf(accepted)) {
                     return supportedType;
                 }
             }
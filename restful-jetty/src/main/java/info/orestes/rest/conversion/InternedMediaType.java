@@ -0,0 +1,255 @@
+package info.orestes.rest.conversion;
+
+import org.apache.tika.mime.MediaType;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A canonical representation of a {@link MediaType} which precomputes everything that is required for content
+ * negotiation: The interned base type, the quality parameter and the closure of all supertypes of the base type.
+ * <p>
+ * The types declared by the {@link MediaTypeHierarchy} and all {@link #register(MediaType) registered} types are
+ * interned permanently. Other parsed header values and media types are kept in caches of up to
+ * {@value #MAX_CACHE_SIZE} entries each, which are dropped as a whole when they are full, so that arbitrary client
+ * headers can neither exhaust the memory nor displace the known types.
+ */
+public final class InternedMediaType {
+
+    public static final int MAX_CACHE_SIZE = 1024;
+
+    private static final Map<MediaType, InternedMediaType> KNOWN = new ConcurrentHashMap<>();
+    private static final Map<String, InternedMediaType> PARSED = new ConcurrentHashMap<>();
+    private static final Map<MediaType, InternedMediaType> INTERNED = new ConcurrentHashMap<>();
+
+    static {
+        for (MediaType mediaType : MediaTypeHierarchy.getDeclaredTypes()) {
+            register(mediaType);
+        }
+    }
+
+    private final MediaType mediaType;
+    private final InternedMediaType baseType;
+    private final float quality;
+    private final Set<MediaType> supertypes;
+
+    /**
+     * Parses the given media type string, e.g. a Content-Type header or a single element of an Accept header
+     *
+     * @param str The media type string to parse
+     * @return The interned media type or <code>null</code> if the string is not a valid media type
+     */
+    public static InternedMediaType parse(String str) {
+        if (str == null) {
+            return null;
+        }
+
+        InternedMediaType interned = PARSED.get(str);
+        if (interned == null) {
+            MediaType mediaType = MediaType.parse(str);
+            if (mediaType == null) {
+                return null;
+            }
+
+            interned = of(mediaType);
+            cache(PARSED, str, interned);
+        }
+
+        return interned;
+    }
+
+    /**
+     * Parses the given media type string, e.g. a Content-Type header, by using the parse cache
+     *
+     * @param str The media type string to parse
+     * @return The parsed media type or <code>null</code> if the string is not a valid media type
+     */
+    public static MediaType parseMediaType(String str) {
+        InternedMediaType interned = parse(str);
+        return interned == null ? null : interned.getMediaType();
+    }
+
+    /**
+     * Returns the interned representation of the given media type
+     *
+     * @param mediaType The media type
+     * @return The interned media type
+     */
+    public static InternedMediaType of(MediaType mediaType) {
+        InternedMediaType interned = KNOWN.get(mediaType);
+        if (interned == null) {
+            interned = INTERNED.get(mediaType);
+        }
+
+        if (interned == null) {
+            interned = cache(INTERNED, mediaType, new InternedMediaType(mediaType));
+        }
+
+        return interned;
+    }
+
+    /**
+     * Interns the given media type permanently, e.g. a media type which is accepted by a registered converter
+     *
+     * @param mediaType The media type to intern
+     * @return The interned media type
+     */
+    public static InternedMediaType register(MediaType mediaType) {
+        InternedMediaType interned = KNOWN.get(mediaType);
+        if (interned == null) {
+            interned = new InternedMediaType(mediaType);
+            InternedMediaType existing = KNOWN.putIfAbsent(mediaType, interned);
+            if (existing != null) {
+                interned = existing;
+            }
+        }
+
+        return interned;
+    }
+
+    private static <K> InternedMediaType cache(Map<K, InternedMediaType> cache, K key, InternedMediaType interned) {
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            cache.clear();
+        }
+
+        InternedMediaType existing = cache.putIfAbsent(key, interned);
+        return existing != null ? existing : interned;
+    }
+
+    /**
+     * Drops all cached values and reinterns the known types, must be called when the {@link MediaTypeHierarchy}
+     * changes
+     */
+    static void clear() {
+        PARSED.clear();
+        INTERNED.clear();
+
+        Set<MediaType> known = new HashSet<>(KNOWN.keySet());
+        KNOWN.clear();
+        for (MediaType mediaType : known) {
+            register(mediaType);
+        }
+    }
+
+    private InternedMediaType(MediaType mediaType) {
+        this.mediaType = mediaType;
+        this.quality = parseQuality(mediaType);
+
+        if (mediaType.hasParameters()) {
+            baseType = of(mediaType.getBaseType());
+            supertypes = baseType.supertypes;
+        } else {
+            baseType = this;
+
+            Set<MediaType> closure = new HashSet<>();
+            for (MediaType type = mediaType; type != null; type = MediaTypeHierarchy.getSupertype(type)) {
+                closure.add(type);
+            }
+            supertypes = Collections.unmodifiableSet(closure);
+        }
+    }
+
+    private static float parseQuality(MediaType mediaType) {
+        String quality = mediaType.getParameters().get("q");
+
+        if (quality != null) {
+            try {
+                float q = Float.parseFloat(quality);
+                if (q > 1.0)
+                    return 1f;
+                if (q < 0.0)
+                    return 0f;
+                return q;
+            } catch (NumberFormatException ignored) { }
+        }
+
+        return 1f;
+    }
+
+    /**
+     * The represented media type
+     *
+     * @return The media type including all parameters
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The interned base type without any parameters
+     *
+     * @return The base type, which is this instance if the media type doesn't declare any parameter
+     */
+    public InternedMediaType getBaseType() {
+        return baseType;
+    }
+
+    /**
+     * The quality declared by the q parameter
+     *
+     * @return The quality between 0 and 1, defaults to 1 if the media type doesn't declare a valid quality
+     */
+    public float getQuality() {
+        return quality;
+    }
+
+    /**
+     * The closure of all supertypes of the base type including the base type itself
+     *
+     * @return All base types which the media type is an instance of
+     */
+    public Set<MediaType> getSupertypes() {
+        return supertypes;
+    }
+
+    /**
+     * Checks if the base type of this media type is the same or a specialisation of the base type of the given one
+     *
+     * @param superType The super type to check for
+     * @return <code>true</code> if this media type is an instance of the super type
+     */
+    public boolean isInstanceOf(InternedMediaType superType) {
+        return supertypes.contains(superType.baseType.mediaType);
+    }
+
+    /**
+     * Checks if this media type is compatible to the given one, see
+     * {@link MediaTypeNegotiation#isSubtypeOf(MediaType, MediaType)}
+     *
+     * @param superType The base or super type of this media type which may declare wildcards
+     * @return <code>true</code> if this media type is compatible to the given one
+     */
+    public boolean isSubtypeOf(InternedMediaType superType) {
+        if (superType.mediaType.getType().equals("*")) {
+            return true;
+        } else if (mediaType.getType().equals(superType.mediaType.getType())) {
+            if (superType.mediaType.getSubtype().equals("*")) {
+                return true;
+            }
+        }
+
+        return isInstanceOf(superType);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        return o instanceof InternedMediaType && mediaType.equals(((InternedMediaType) o).mediaType);
+    }
+
+    @Override
+    public int hashCode() {
+        return mediaType.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mediaType.toString();
+    }
+}
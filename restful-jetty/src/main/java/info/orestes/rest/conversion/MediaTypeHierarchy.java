@@ -0,0 +1,147 @@
+package info.orestes.rest.conversion;
+
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A lightweight media type inheritance hierarchy which replaces the full Tika {@link MediaTypeRegistry} for content
+ * negotiation.
+ * <p>
+ * The built-in hierarchy declares the types used by the bundled converters and the common web types, all other
+ * types are resolved by the same structural rules the Tika registry applies, i.e. <code>+xml</code> types are
+ * specialisations of <code>application/xml</code> and text types are specialisations of <code>text/plain</code>.
+ * Optionally the Tika registry can be used as fallback for types which are not declared in the built-in hierarchy.
+ * The Tika registry is loaded lazily when it is needed the first time.
+ */
+public class MediaTypeHierarchy {
+
+    /**
+     * The system property which enables the Tika registry fallback for unknown media types
+     */
+    public static final String TIKA_FALLBACK_PROPERTY = "info.orestes.rest.conversion.tikaFallback";
+
+    private static final Map<MediaType, MediaType> SUPERTYPES = new HashMap<>();
+    private static volatile boolean tikaFallbackEnabled = Boolean.getBoolean(TIKA_FALLBACK_PROPERTY);
+
+    static {
+        addSupertype("application/javascript", "text/plain");
+        addSupertype("application/json", "application/javascript");
+        addSupertype("application/ld+json", "application/json");
+        addSupertype("application/xml", "text/plain");
+        addSupertype("application/xhtml+xml", "application/xml");
+        addSupertype("application/xslt+xml", "application/xml");
+        addSupertype("text/html", "text/plain");
+        addSupertype("text/css", "text/plain");
+        addSupertype("text/csv", "text/plain");
+        addSupertype("text/uri-list", "text/plain");
+        addSupertype("text/plain", "application/octet-stream");
+        addSupertype("application/x-www-form-urlencoded", "application/octet-stream");
+        addSupertype("multipart/form-data", "application/octet-stream");
+    }
+
+    private static void addSupertype(String type, String supertype) {
+        SUPERTYPES.put(MediaType.parse(type), MediaType.parse(supertype));
+    }
+
+    /**
+     * Returns all media types which are declared in the built-in hierarchy
+     *
+     * @return The declared types and their supertypes
+     */
+    static Set<MediaType> getDeclaredTypes() {
+        Set<MediaType> types = new HashSet<>(SUPERTYPES.keySet());
+        types.addAll(SUPERTYPES.values());
+        return types;
+    }
+
+    /**
+     * Indicates if unknown media types are resolved by the Tika registry
+     *
+     * @return <code>true</code> if the Tika registry is used for media types which are not declared in the built-in
+     * hierarchy
+     */
+    public static boolean isTikaFallbackEnabled() {
+        return tikaFallbackEnabled;
+    }
+
+    /**
+     * Enables the Tika registry fallback for media types which are not declared in the built-in hierarchy. The
+     * fallback can also be enabled by the {@value #TIKA_FALLBACK_PROPERTY} system property.
+     *
+     * @param tikaFallbackEnabled <code>true</code> to resolve unknown media types by the Tika registry
+     */
+    public static void setTikaFallbackEnabled(boolean tikaFallbackEnabled) {
+        MediaTypeHierarchy.tikaFallbackEnabled = tikaFallbackEnabled;
+        InternedMediaType.clear();
+    }
+
+    /**
+     * Returns the direct supertype of the given media type
+     *
+     * @param type The media type to get the supertype for
+     * @return The supertype or <code>null</code> if the type is the root type <code>application/octet-stream</code>
+     */
+    public static MediaType getSupertype(MediaType type) {
+        if (type == null) {
+            return null;
+        } else if (type.hasParameters()) {
+            return type.getBaseType();
+        }
+
+        MediaType supertype = SUPERTYPES.get(type);
+        if (supertype != null) {
+            return supertype;
+        } else if (tikaFallbackEnabled) {
+            return TikaRegistry.INSTANCE.getSupertype(type);
+        } else if (type.getSubtype().endsWith("+xml")) {
+            return MediaType.APPLICATION_XML;
+        } else if (type.getSubtype().endsWith("+zip")) {
+            return MediaType.APPLICATION_ZIP;
+        } else if (type.getType().equals("text") && !MediaType.TEXT_PLAIN.equals(type)) {
+            return MediaType.TEXT_PLAIN;
+        } else if (type.getType().contains("empty") && !MediaType.EMPTY.equals(type)) {
+            return MediaType.EMPTY;
+        } else if (!MediaType.OCTET_STREAM.equals(type)) {
+            return MediaType.OCTET_STREAM;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the media type a is the same or a specialisation of the media type b
+     *
+     * @param a The media type to check
+     * @param b The media type which is the same or a supertype of a
+     * @return <code>true</code> if a is an instance of b
+     */
+    public static boolean isInstanceOf(MediaType a, MediaType b) {
+        for (MediaType type = a; type != null; type = getSupertype(type)) {
+            if (type.equals(b)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if the media type a is a specialisation of the media type b
+     *
+     * @param a The media type to check
+     * @param b The media type which is a supertype of a
+     * @return <code>true</code> if a is a specialisation of b
+     */
+    public static boolean isSpecializationOf(MediaType a, MediaType b) {
+        return isInstanceOf(getSupertype(a), b);
+    }
+
+    private static class TikaRegistry {
+        private static final MediaTypeRegistry INSTANCE = MediaTypeRegistry.getDefaultRegistry();
+    }
+}
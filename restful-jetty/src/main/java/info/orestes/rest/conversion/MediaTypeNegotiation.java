@@ -1,7 +1,6 @@
 package info.orestes.rest.conversion;
 
 import org.apache.tika.mime.MediaType;
-import org.apache.tika.mime.MediaTypeRegistry;
 
 import java.util.Arrays;
 import java.util.Comparator;
@@ -15,8 +14,6 @@ public class MediaTypeNegotiation {
     public static final MediaType ALL = MediaType.parse("*/*");
     public static final List<MediaType> ANY = Arrays.asList(ALL);
 
-    private static final MediaTypeRegistry TYPE_REGISTRY = MediaTypeRegistry.getDefaultRegistry();
-
     private static final Comparator<MediaType> QUALITY_COMPARATOR = (o1, o2) -> {
         float q1 = getQuality(o1);
         float q2 = getQuality(o2);
@@ -47,13 +44,13 @@ public class MediaTypeNegotiation {
     };
 
     private static final Comparator<MediaType> INHERITANCE_COMPARATOR = (o1, o2) -> {
-        MediaType m1 = o1.getBaseType();
-        MediaType m2 = o2.getBaseType();
+        InternedMediaType m1 = InternedMediaType.of(o1);
+        InternedMediaType m2 = InternedMediaType.of(o2);
 
-        if (TYPE_REGISTRY.isInstanceOf(m1, m2)) {
+        if (m1.isInstanceOf(m2)) {
             //m1 is a specialisation of m2
             return -1;
-        } else if (TYPE_REGISTRY.isInstanceOf(m2, m1)) {
+        } else if (m2.isInstanceOf(m1)) {
             //m2 is a specialisation of m1
             return 1;
         } else {
@@ -83,27 +80,14 @@ public static Comparator<Entry<MediaType, Converter<?,?>>> acceptableComparator(
     }
 
     public static float getQuality(MediaType mediaType) {
-        String quality = mediaType.getParameters().get("q");
-
-        if (quality != null) {
-            try {
-                float q = java.lang.Float.parseFloat(quality);
-                if (q > 1.0)
-                    return 1f;
-                if (q < 0.0)
-                    return 0f;
-                return q;
-            } catch (NumberFormatException ignored) { }
-        }
-
-        return 1f;
+        return InternedMediaType.of(mediaType).getQuality();
     }
 
     /**
      * Compare this {@link MediaType} with the given one if they are compatible.
      * {@link MediaType}s are compatible if they declare the same main and sub
      * type or one or both declare the main and or sub type as a wildcard or
-     * they are compatible by mediatype {@link MediaTypeRegistry#isInstanceOf} inheritance
+     * they are compatible by mediatype {@link MediaTypeHierarchy#isInstanceOf} inheritance
      *
      * @param subtype The {@link MediaType} the media type to check
      * @param superType The {@link MediaType} tha base or super type of the media type
@@ -112,15 +96,7 @@ public static float getQuality(MediaType mediaType) {
      *         given one, otherwise <code>false</code>
      */
     public static boolean isSubtypeOf(MediaType subtype, MediaType superType) {
-        if (superType.getType().equals("*")) {
-            return true;
-        } else if (subtype.getType().equals(superType.getType())) {
-            if (superType.getSubtype().equals("*")) {
-                return true;
-            }
-        }
-
-        return TYPE_REGISTRY.isInstanceOf(subtype.getBaseType(), superType.getBaseType());
+        return InternedMediaType.of(subtype).isSubtypeOf(InternedMediaType.of(superType));
     }
 
 }
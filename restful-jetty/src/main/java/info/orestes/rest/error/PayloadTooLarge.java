@@ -0,0 +1,17 @@
+package info.orestes.rest.error;
+
+
+import org.eclipse.jetty.http.HttpStatus;
+
+@SuppressWarnings("serial")
+@HttpError(status = HttpStatus.PAYLOAD_TOO_LARGE_413)
+public class PayloadTooLarge extends RestException {
+	
+	public PayloadTooLarge(String message) {
+		super(message);
+	}
+	
+	public PayloadTooLarge(String message, Throwable rootCause) {
+		super(message, rootCause);
+	}
+}
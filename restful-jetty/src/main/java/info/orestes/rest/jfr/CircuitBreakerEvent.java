@@ -0,0 +1,47 @@
+package info.orestes.rest.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event which is emitted by the {@link info.orestes.rest.client.CircuitBreaker} of a destination
+ * each time it changes its state.
+ * <br>
+ * <br>
+ * Must only be used if {@link JfrSupport#AVAILABLE} is <code>true</code>.
+ */
+@Name("info.orestes.rest.CircuitBreaker")
+@Label("Circuit Breaker State Change")
+@Category({"Restful Jetty", "Client"})
+@Description("A state change of the circuit breaker of a destination")
+public class CircuitBreakerEvent extends Event {
+
+    @Label("Destination")
+    private String destination;
+
+    @Label("Previous State")
+    private String previous;
+
+    @Label("State")
+    private String state;
+
+    /**
+     * Commits an event for a state change, if the event is enabled
+     *
+     * @param destination The destination of the circuit breaker
+     * @param previous    The previous state
+     * @param state       The new state
+     */
+    public static void emit(String destination, String previous, String state) {
+        CircuitBreakerEvent event = new CircuitBreakerEvent();
+        if (event.isEnabled()) {
+            event.destination = destination;
+            event.previous = previous;
+            event.state = state;
+            event.commit();
+        }
+    }
+}
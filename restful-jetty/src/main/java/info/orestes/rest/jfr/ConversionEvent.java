@@ -0,0 +1,204 @@
+package info.orestes.rest.jfr;
+
+import info.orestes.rest.conversion.Context;
+import info.orestes.rest.conversion.Converter;
+import info.orestes.rest.conversion.ReadableContext;
+import info.orestes.rest.conversion.WritableContext;
+import info.orestes.rest.service.EntityType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.apache.tika.mime.MediaType;
+
+import java.io.FilterReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * A flight recorder event which is emitted by the {@link info.orestes.rest.conversion.ConverterService} for each
+ * entity which is read or written by a {@link Converter}. The converters operate on readers and writers, therefore
+ * the size of the entity is recorded in characters.
+ * <br>
+ * <br>
+ * Must only be used if {@link JfrSupport#AVAILABLE} is <code>true</code>.
+ */
+@Name("info.orestes.rest.Conversion")
+@Label("Entity Conversion")
+@Category({"Restful Jetty", "Conversion"})
+@Description("Reading or writing of an entity by a converter")
+public class ConversionEvent extends Event {
+
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+
+    @Label("Direction")
+    @Description("Whether the entity was read or written")
+    private String direction;
+
+    @Label("Converter")
+    private Class<?> converter;
+
+    @Label("Media Type")
+    private String mediaType;
+
+    @Label("Entity Type")
+    private String entityType;
+
+    @Label("Characters")
+    @Description("The number of characters read or written")
+    private long characters;
+
+    /**
+     * Starts the timing of a conversion
+     *
+     * @param direction Either {@link #READ} or {@link #WRITE}
+     * @param mediaType The media type of the conversion
+     * @return The started event or <code>null</code> if the event is not enabled
+     */
+    public static ConversionEvent start(String direction, MediaType mediaType) {
+        ConversionEvent event = new ConversionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.direction = direction;
+        event.mediaType = mediaType == null ? null : mediaType.toString();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Returns a context which counts the characters read by the converter
+     *
+     * @param context The context to read from
+     * @return The counting context
+     */
+    public ReadableContext track(ReadableContext context) {
+        return new CountingReadableContext(context);
+    }
+
+    /**
+     * Returns a context which counts the characters written by the converter
+     *
+     * @param context The context to write to
+     * @return The counting context
+     */
+    public WritableContext track(WritableContext context) {
+        return new CountingWritableContext(context);
+    }
+
+    /**
+     * Ends the timing of the conversion and commits the event, if it exceeds the configured threshold
+     *
+     * @param converter  The converter which has handled the entity
+     * @param entityType The type of the converted entity
+     */
+    public void commit(Converter<?, ?> converter, EntityType<?> entityType) {
+        end();
+        if (shouldCommit()) {
+            this.converter = converter.getClass();
+            this.entityType = entityType.toString();
+            commit();
+        }
+    }
+
+    private abstract class CountingContext {
+        public abstract Context getDelegate();
+
+        public <T> T getArgument(String name) {
+            return getDelegate().getArgument(name);
+        }
+
+        public void setArgument(String name, Object value) {
+            getDelegate().setArgument(name, value);
+        }
+
+        public MediaType getMediaType() {
+            return getDelegate().getMediaType();
+        }
+    }
+
+    private class CountingReadableContext extends CountingContext implements ReadableContext {
+        private final ReadableContext delegate;
+        private Reader reader;
+
+        CountingReadableContext(ReadableContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ReadableContext getDelegate() {
+            return delegate;
+        }
+
+        @Override
+        public Reader getReader() throws IOException {
+            if (reader == null) {
+                reader = new FilterReader(delegate.getReader()) {
+                    @Override
+                    public int read() throws IOException {
+                        int c = super.read();
+                        if (c != -1) {
+                            characters++;
+                        }
+                        return c;
+                    }
+
+                    @Override
+                    public int read(char[] buffer, int off, int len) throws IOException {
+                        int read = super.read(buffer, off, len);
+                        if (read > 0) {
+                            characters += read;
+                        }
+                        return read;
+                    }
+                };
+            }
+            return reader;
+        }
+    }
+
+    private class CountingWritableContext extends CountingContext implements WritableContext {
+        private final WritableContext delegate;
+        private Writer writer;
+
+        CountingWritableContext(WritableContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public WritableContext getDelegate() {
+            return delegate;
+        }
+
+        @Override
+        public Writer getWriter() throws IOException {
+            if (writer == null) {
+                writer = new FilterWriter(delegate.getWriter()) {
+                    @Override
+                    public void write(int c) throws IOException {
+                        super.write(c);
+                        characters++;
+                    }
+
+                    @Override
+                    public void write(char[] buffer, int off, int len) throws IOException {
+                        super.write(buffer, off, len);
+                        characters += len;
+                    }
+
+                    @Override
+                    public void write(String str, int off, int len) throws IOException {
+                        super.write(str, off, len);
+                        characters += len;
+                    }
+                };
+            }
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package info.orestes.rest.jfr;
+
+/**
+ * Detects if the Java Flight Recorder API is available. The event classes of this package extend
+ * <code>jdk.jfr.Event</code>, which is not part of every Java 8 runtime. Therefore they must only be referenced behind
+ * a check of {@link #AVAILABLE}, e.g.
+ * <pre>
+ * ConversionEvent event = JfrSupport.AVAILABLE ? ConversionEvent.start(ConversionEvent.READ, mediaType) : null;
+ * </pre>
+ * The JIT removes the guarded code if the API is not available, and the events return <code>null</code> from their
+ * <code>start</code> methods if they are not enabled in a running recording.
+ * <br>
+ * <br>
+ * The flight recorder support can be disabled by setting the system property <code>info.orestes.rest.jfr</code> to
+ * <code>false</code>.
+ */
+public final class JfrSupport {
+
+    /**
+     * The system property which disables the flight recorder events, if set to <code>false</code>
+     */
+    public static final String PROPERTY = "info.orestes.rest.jfr";
+
+    /**
+     * <code>true</code> if the flight recorder API can be used
+     */
+    public static final boolean AVAILABLE = isAvailable();
+
+    private JfrSupport() {
+    }
+
+    private static boolean isAvailable() {
+        if ("false".equalsIgnoreCase(System.getProperty(PROPERTY))) {
+            return false;
+        }
+
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
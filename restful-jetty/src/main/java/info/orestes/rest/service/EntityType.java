@@ -1,30 +1,102 @@
 package info.orestes.rest.service;
 
 import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * A java type with its generic parameters, e.g. <code>List&lt;String&gt;</code>
+ * <br>
+ * <br>
+ * Use {@link #of(Class, Class[])} to obtain canonical instances, which are cached and can be compared by identity.
+ * Generic instances are only weakly cached per raw type, so they don't pin their classes and class loaders once they
+ * are not used anymore. The hash code is computed once on construction.
+ *
+ * @param <T> The raw java type
+ */
 @SuppressWarnings("serial")
 public class EntityType<T> implements ParameterizedType, Serializable {
 	public static final Class<?>[] EMPTY_GENERIC_ARRAY = new Class[0];
+
+	private static final ClassValue<EntityType<?>> RAW_TYPES = new ClassValue<EntityType<?>>() {
+		@Override
+		protected EntityType<?> computeValue(Class<?> type) {
+			return new EntityType<>(type);
+		}
+	};
+
+	private static final ClassValue<ConcurrentMap<List<Class<?>>, GenericTypeReference>> GENERIC_TYPES =
+		new ClassValue<ConcurrentMap<List<Class<?>>, GenericTypeReference>>() {
+			@Override
+			protected ConcurrentMap<List<Class<?>>, GenericTypeReference> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<>();
+			}
+		};
+
+	private static final ReferenceQueue<EntityType<?>> RELEASED_TYPES = new ReferenceQueue<>();
 	
 	private final Class<T> rawType;
 	private final Class<?>[] actualTypeArguments;
+	private final transient int hashCode;
 
+	/**
+	 * Returns the canonical instance of the entity type
+	 *
+	 * @param rawType The raw java type
+	 * @param actualTypeArguments The generic parameters of the raw java type
+	 * @param <T> The raw java type
+	 * @return The cached entity type instance
+	 */
+	@SuppressWarnings("unchecked")
 	public static <T> EntityType<T> of(Class<T> rawType, Class<?>... actualTypeArguments) {
-		return new EntityType<>(rawType, actualTypeArguments);
+		if (actualTypeArguments.length == 0) {
+			return (EntityType<T>) RAW_TYPES.get(rawType);
+		}
+
+		expungeReleasedTypes();
+
+		ConcurrentMap<List<Class<?>>, GenericTypeReference> types = GENERIC_TYPES.get(rawType);
+		GenericTypeReference ref = types.get(Arrays.asList(actualTypeArguments));
+		EntityType<?> canonical = ref == null ? null : ref.get();
+		while (canonical == null) {
+			EntityType<T> type = new EntityType<>(rawType, actualTypeArguments.clone());
+			// the key must reference the arguments of the type and not the array of the caller
+			GenericTypeReference newRef = new GenericTypeReference(types, type);
+			if (ref == null ? types.putIfAbsent(newRef.key, newRef) == null : types.replace(newRef.key, ref, newRef)) {
+				return type;
+			}
+
+			ref = types.get(newRef.key);
+			canonical = ref == null ? null : ref.get();
+		}
+
+		return (EntityType<T>) canonical;
+	}
+
+	private static void expungeReleasedTypes() {
+		GenericTypeReference ref;
+		while ((ref = (GenericTypeReference) RELEASED_TYPES.poll()) != null) {
+			ref.types.remove(ref.key, ref);
+		}
 	}
 
 	public EntityType(Class<T> type) {
 		this.rawType = type;
 		this.actualTypeArguments = EMPTY_GENERIC_ARRAY;
+		this.hashCode = computeHashCode();
 	}
 	
 	@SuppressWarnings("unchecked")
 	public EntityType(Class<?> rawType, Class<?>... actualTypeArguments) {
 		this.rawType = (Class<T>) rawType;
 		this.actualTypeArguments = actualTypeArguments;
+		this.hashCode = computeHashCode();
 	}
 	
 	@Override
@@ -44,6 +116,10 @@ public Type getOwnerType() {
 	
 	@Override
 	public int hashCode() {
+		return hashCode;
+	}
+
+	private int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + Arrays.hashCode(actualTypeArguments);
@@ -63,6 +139,9 @@ public boolean equals(Object obj) {
 			return false;
 		}
 		EntityType<?> other = (EntityType<?>) obj;
+		if (hashCode != other.hashCode) {
+			return false;
+		}
 		if (!Arrays.equals(actualTypeArguments, other.actualTypeArguments)) {
 			return false;
 		}
@@ -76,6 +155,16 @@ public boolean equals(Object obj) {
 		return true;
 	}
 	
+	/**
+	 * Replaces deserialized instances by their canonical instance
+	 *
+	 * @return The canonical entity type
+	 */
+	private Object readResolve() {
+		// the hash code of classes differs between JVMs and must be recomputed
+		return rawType == null ? new EntityType<>(null, actualTypeArguments) : of(rawType, actualTypeArguments);
+	}
+
 	@Override
 	public String toString() {
 		String generics = "";
@@ -89,4 +178,15 @@ public String toString() {
 		
 		return "EntityType: " + getRawType() + (generics.isEmpty() ? "" : "<" + generics + ">");
 	}
+
+	private static class GenericTypeReference extends WeakReference<EntityType<?>> {
+		private final ConcurrentMap<List<Class<?>>, GenericTypeReference> types;
+		private final List<Class<?>> key;
+
+		GenericTypeReference(ConcurrentMap<List<Class<?>>, GenericTypeReference> types, EntityType<?> type) {
+			super(type, RELEASED_TYPES);
+			this.types = types;
+			this.key = Arrays.asList(type.actualTypeArguments);
+		}
+	}
 }
@@ -1,15 +1,24 @@
 package info.orestes.rest.util;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 
 public class ClassUtil {
+	/**
+	 * The resource path of the package indices which are generated by the restful-jetty-processor
+	 */
+	public static final String PACKAGE_INDEX_PATH = "META-INF/orestes/index/";
+
 	private static final Class<?>[] EMPTY_CLASSES = new Class<?>[0];
 	
 	/**
@@ -117,42 +126,54 @@ private static Class<?>[] resolveGenerics(ParameterizedType parameterizedType, C
 	 * @return All {@link Class}es of the given package
 	 */
 	public static List<Class<?>> getPackageClasses(String pkgName) {
+		return getPackageClasses(pkgName, false);
+	}
+
+	/**
+	 * Gets the indexed {@link Class} objects form the package. Classpath locations which provide a package index
+	 * under {@value #PACKAGE_INDEX_PATH} are not scanned, instead the listed classes are loaded. All other locations
+	 * are scanned like in {@link #getPackageClasses(String)}.
+	 *
+	 * @param pkgName
+	 *            The package name of the classes
+	 * @return The indexed {@link Class}es and all {@link Class}es of not indexed locations of the given package
+	 */
+	public static List<Class<?>> getIndexedPackageClasses(String pkgName) {
+		return getPackageClasses(pkgName, true);
+	}
+
+	private static List<Class<?>> getPackageClasses(String pkgName, boolean useIndex) {
+		return getPackageClasses(ClassUtil.class.getClassLoader(), pkgName, useIndex);
+	}
+
+	static List<Class<?>> getPackageClasses(ClassLoader classLoader, String pkgName, boolean useIndex) {
 		try {
-			ClassLoader classLoader = ClassUtil.class.getClassLoader();
 			String pkgPath = pkgName.replace('.', '/');
 
-            List<Class<?>> classes = new LinkedList<>();
-            for (Enumeration<URL> iter = classLoader.getResources(pkgPath); iter.hasMoreElements();) {
-				URI uri = iter.nextElement().toURI();
-
-                Path path;
-                String spec = uri.getRawSchemeSpecificPart();
-                int sep = spec.indexOf("!/");
-                String file = spec;
-                //TODO: May be removed in Java 8
-				//http://bugs.java.com/bugdatabase/view_bug.do?bug_id=7156873
-                //handle classes in jar file
-
-                FileSystem fileSystem = null;
-                if (sep != -1) {
-                    file = file.substring(0, sep);
-					URI fileUri = new URI(file);
-                    fileSystem = FileSystems.newFileSystem(Paths.get(fileUri).toAbsolutePath(), classLoader);
-                    path = fileSystem.getPath(spec.substring(sep + 1));
-                } else {
-                    path = Paths.get(uri);
-                }
-//
-                for (Path filePath: Files.newDirectoryStream(path, "*.class")) {
-                    if (Files.isRegularFile(filePath)) {
-                        String fileName = filePath.getFileName().toString();
-                        String className = pkgName + '.' + fileName.substring(0, fileName.length() - 6);
-                        classes.add(classLoader.loadClass(className));
-                    }
-                }
-
-                if (fileSystem != null)
-                    fileSystem.close();
+			Map<String, URL> indices = new LinkedHashMap<>();
+			if (useIndex) {
+				String indexPath = PACKAGE_INDEX_PATH + pkgName;
+				for (Enumeration<URL> iter = classLoader.getResources(indexPath); iter.hasMoreElements();) {
+					URL index = iter.nextElement();
+					indices.put(getLocation(index, indexPath), index);
+				}
+			}
+
+			List<Class<?>> classes = new LinkedList<>();
+			for (Enumeration<URL> iter = classLoader.getResources(pkgPath); iter.hasMoreElements();) {
+				URL url = iter.nextElement();
+
+				URL index = indices.remove(getLocation(url, pkgPath));
+				if (index != null) {
+					loadIndexedClasses(classLoader, index, classes);
+				} else {
+					loadPackageClasses(classLoader, url.toURI(), pkgName, classes);
+				}
+			}
+
+			// jars without directory entries only expose their index
+			for (URL index : indices.values()) {
+				loadIndexedClasses(classLoader, index, classes);
 			}
 
 			return classes;
@@ -160,4 +181,61 @@ public static List<Class<?>> getPackageClasses(String pkgName) {
 			throw new RuntimeException("The package " + pkgName + " can't be loaded.", e);
 		}
 	}
+
+	private static String getLocation(URL url, String path) {
+		String location = url.toString();
+		if (location.endsWith("/")) {
+			location = location.substring(0, location.length() - 1);
+		}
+
+		if (location.endsWith(path)) {
+			location = location.substring(0, location.length() - path.length());
+		}
+
+		return location;
+	}
+
+	private static void loadIndexedClasses(ClassLoader classLoader, URL index, List<Class<?>> classes)
+			throws IOException, ClassNotFoundException {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+			String className;
+			while ((className = reader.readLine()) != null) {
+				className = className.trim();
+				if (!className.isEmpty() && !className.startsWith("#")) {
+					classes.add(classLoader.loadClass(className));
+				}
+			}
+		}
+	}
+
+	private static void loadPackageClasses(ClassLoader classLoader, URI uri, String pkgName, List<Class<?>> classes)
+			throws Exception {
+		Path path;
+		String spec = uri.getRawSchemeSpecificPart();
+		int sep = spec.indexOf("!/");
+		String file = spec;
+		//handle classes in jar file
+
+		FileSystem fileSystem = null;
+		if (sep != -1) {
+			file = file.substring(0, sep);
+			URI fileUri = new URI(file);
+			fileSystem = FileSystems.newFileSystem(Paths.get(fileUri).toAbsolutePath(), classLoader);
+			path = fileSystem.getPath(spec.substring(sep + 1));
+		} else {
+			path = Paths.get(uri);
+		}
+
+		for (Path filePath: Files.newDirectoryStream(path, "*.class")) {
+			if (Files.isRegularFile(filePath)) {
+				String fileName = filePath.getFileName().toString();
+				String className = pkgName + '.' + fileName.substring(0, fileName.length() - 6);
+				classes.add(classLoader.loadClass(className));
+			}
+		}
+
+		if (fileSystem != null)
+			fileSystem.close();
+	}
 }
@@ -0,0 +1,145 @@
+package info.orestes.rest.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time after which the result of a request is not needed anymore. The deadline of a server request is
+ * {@link #attach(Deadline) attached} to the thread which processes it, so that client requests which are sent from
+ * that thread inherit the remaining time as timeout and pass it on in the {@link #HEADER} to the next server.
+ * <br>
+ * <br>
+ * The deadline is transferred as relative timeout in milliseconds, so that the clocks of the servers do not need to
+ * be synchronized. Continuations which run on other threads, e.g. callbacks of a
+ * {@link java.util.concurrent.CompletableFuture}, must attach the deadline themselves or pass it explicitly to the
+ * client request.
+ */
+public final class Deadline {
+
+    /**
+     * The request header which contains the remaining time of the deadline in milliseconds
+     */
+    public static final String HEADER = "Request-Timeout";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expires;
+
+    private Deadline(long expires) {
+        this.expires = expires;
+    }
+
+    /**
+     * Creates a deadline which expires after the given timeout
+     *
+     * @param timeout The timeout
+     * @param unit    The unit of the timeout
+     * @return The new deadline
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Parses the value of the {@link #HEADER}
+     *
+     * @param value The remaining time in milliseconds
+     * @return The deadline or <code>null</code> if the value is missing or invalid
+     */
+    public static Deadline parse(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            long timeout = Long.parseLong(value.trim());
+            return timeout < 0 ? null : after(timeout, TimeUnit.MILLISECONDS);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the earlier of two deadlines
+     *
+     * @param a A deadline or <code>null</code>
+     * @param b A deadline or <code>null</code>
+     * @return The earlier deadline or <code>null</code> if both are <code>null</code>
+     */
+    public static Deadline min(Deadline a, Deadline b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+
+        return a.expires - b.expires <= 0 ? a : b;
+    }
+
+    /**
+     * Returns the deadline of the request which is processed by the current thread
+     *
+     * @return The attached deadline or <code>null</code> if no deadline is attached
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attaches a deadline to the current thread until the returned scope is closed
+     *
+     * @param deadline The deadline to attach or <code>null</code> to detach the current deadline
+     * @return The scope which restores the previously attached deadline when it is closed
+     */
+    public static Scope attach(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns the time until the deadline expires
+     *
+     * @param unit The unit of the returned time
+     * @return The remaining time, which is 0 if the deadline has expired
+     */
+    public long getRemaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, expires - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Indicates if the deadline has expired
+     *
+     * @return <code>true</code> if the deadline has expired
+     */
+    public boolean isExpired() {
+        return expires - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Returns the value of the {@link #HEADER} which passes the remaining time to the next server
+     *
+     * @return The remaining time in milliseconds
+     */
+    public String toHeaderValue() {
+        return Long.toString(getRemaining(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline in " + getRemaining(TimeUnit.MILLISECONDS) + "ms";
+    }
+
+    /**
+     * The scope of an attached deadline
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
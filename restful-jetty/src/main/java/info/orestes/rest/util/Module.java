@@ -3,15 +3,26 @@
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * A minimal dependency injection container which lazily creates singletons of bound classes.
+ * <br>
+ * <br>
+ * Concurrency Note: One instance can be used by multiple threads at the same time. Already created singletons are
+ * returned without locking, the creation of singletons is guarded by a single module lock. A lock per class would
+ * deadlock if two threads resolve dependent classes in opposite order.
+ */
 public class Module {
-    private final Map<Class<?>, Constructor<?>> constructors = new HashMap<>();
-    private final Map<Class<?>, Object> instances = new HashMap<>();
+    private final Map<Class<?>, Constructor<?>> constructors = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Object> instances = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private final Set<Class<?>> pending = new HashSet<>();
 
     public Module() {
         instances.put(Module.class, this);
@@ -27,41 +38,35 @@ public <T> void bind(Class<T> interf, Class<? extends T> binding) {
 
     public <T> void bindInstance(Class<T> interf, T binding) {
         Objects.requireNonNull(binding);
-        resolve(interf, binding);
+        synchronized (lock) {
+            resolve(interf, binding);
+        }
     }
 
     @SuppressWarnings("unchecked")
     public <T> T moduleInstance(Class<T> cls) {
         T instance = (T) instances.get(cls);
-
-        if (instance == null) {
-            // Check if an implementation for the interface is registered.
-            if (constructors.containsKey(cls)) {
-                Class<?> subClass = constructors.get(cls).getDeclaringClass();
-                Class<T> implementation = (Class<T>) subClass.asSubclass(cls);
-                if (!cls.equals(implementation)) {
-                    instance = moduleInstance(implementation);
-                    // Remember that we have resolved the instance for the cls.
-                    resolve(cls, instance);
-                }
-            }
+        if (instance != null) {
+            return instance;
         }
 
-        if (instance == null) {
-            Constructor<? extends T> constr = (Constructor<? extends T>) constructors.get(cls);
-
-            if (constr == null) {
-                constr = getInjectableConstructor(cls);
+        synchronized (lock) {
+            instance = (T) instances.get(cls);
+            if (instance != null) {
+                return instance;
             }
 
-            if (instances.containsKey(cls)) {
+            // The lock is reentrant, therefore only the current thread can have marked the class as pending
+            if (!pending.add(cls)) {
                 throw new RuntimeException("Cycle dependency detected. Can not initialize " + cls);
             }
 
-            instance = create(cls, constr);
+            try {
+                return create(cls);
+            } finally {
+                pending.remove(cls);
+            }
         }
-
-        return instance;
     }
 
     /**
@@ -79,21 +84,32 @@ public <T> Set<? extends T> getCurrentInstances(Class<T> cls) {
             .collect(Collectors.toSet());
     }
 
-    private <T> T create(Class<T> cls, Constructor<? extends T> constructor) {
-        resolve(cls, null);
-        T instance = inject(constructor);
+    @SuppressWarnings("unchecked")
+    private <T> T create(Class<T> cls) {
+        Constructor<? extends T> constr = (Constructor<? extends T>) constructors.get(cls);
+
+        if (constr != null) {
+            // Check if an implementation for the interface is registered.
+            Class<T> implementation = (Class<T>) constr.getDeclaringClass().asSubclass(cls);
+            if (!cls.equals(implementation)) {
+                T instance = moduleInstance(implementation);
+                // Remember that we have resolved the instance for the cls.
+                resolve(cls, instance);
+                return instance;
+            }
+        } else {
+            constr = getInjectableConstructor(cls);
+        }
+
+        T instance = inject(constr);
         resolve(cls, instance);
 
         return instance;
     }
 
     private <T> void resolve(Class<T> cls, T instance) {
-        if (instances.get(cls) == null) {
-            instances.put(cls, instance);
-
-            if (instance != null) {
-                instances.put(instance.getClass(), instance);
-            }
+        if (instances.putIfAbsent(cls, instance) == null) {
+            instances.put(instance.getClass(), instance);
         }
     }
 
@@ -0,0 +1,107 @@
+package info.orestes.rest.batch;
+
+import info.orestes.rest.error.BadRequest;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchFormatTest {
+
+    @Test
+    public void testBoundary() {
+        assertEquals("abc", BatchFormat.getBoundary("multipart/mixed; boundary=abc"));
+        assertEquals("a b", BatchFormat.getBoundary("Multipart/Mixed;charset=utf-8; boundary=\"a b\""));
+        assertNull(BatchFormat.getBoundary("multipart/mixed"));
+        assertNull(BatchFormat.getBoundary("text/plain; boundary=abc"));
+        assertNull(BatchFormat.getBoundary(null));
+    }
+
+    @Test
+    public void testParse() throws BadRequest {
+        String body = "preamble\r\n"
+            + "--b\r\n"
+            + "Content-Type: application/http\r\n"
+            + "Content-ID: first\r\n"
+            + "\r\n"
+            + "GET /news/1?lang=en HTTP/1.1\r\n"
+            + "Accept: text/plain\r\n"
+            + "\r\n"
+            + "\r\n"
+            + "--b\r\n"
+            + "Content-Type: application/http\r\n"
+            + "\r\n"
+            + "POST /news HTTP/1.1\r\n"
+            + "Content-Type: text/plain\r\n"
+            + "\r\n"
+            + "hello\r\nworld\r\n"
+            + "--b--\r\n";
+
+        List<BatchPart> parts = BatchFormat.parse(body.getBytes(StandardCharsets.ISO_8859_1), "b");
+        assertEquals(2, parts.size());
+
+        BatchPart get = parts.get(0);
+        assertEquals("first", get.getContentId());
+        assertEquals("GET", get.getMethod());
+        assertEquals("/news/1?lang=en", get.getTarget());
+        assertEquals("text/plain", get.getHeader("accept"));
+        assertEquals(0, get.getBody().length);
+        assertFalse(get.isResponse());
+
+        BatchPart post = parts.get(1);
+        assertEquals("2", post.getContentId());
+        assertEquals("POST", post.getMethod());
+        assertEquals("hello\r\nworld", new String(post.getBody(), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test(expected = BadRequest.class)
+    public void testUnterminated() throws BadRequest {
+        String body = "--b\r\nContent-Type: application/http\r\n\r\nGET / HTTP/1.1\r\n\r\n";
+        BatchFormat.parse(body.getBytes(StandardCharsets.ISO_8859_1), "b");
+    }
+
+    @Test
+    public void testChunkedMessage() throws BadRequest {
+        String message = "HTTP/1.1 200 OK\r\n"
+            + "Content-Type: text/plain\r\n"
+            + "Transfer-Encoding: chunked\r\n"
+            + "\r\n"
+            + "5\r\nhello\r\n"
+            + "6;ext=1\r\n world\r\n"
+            + "0\r\n\r\n";
+
+        byte[] bytes = message.getBytes(StandardCharsets.ISO_8859_1);
+        BatchPart part = BatchFormat.parseMessage("1", bytes, 0, bytes.length);
+        assertTrue(part.isResponse());
+        assertEquals(200, part.getStatus());
+        assertEquals("hello world", new String(part.getBody(), StandardCharsets.ISO_8859_1));
+        assertNull(part.getHeader("Transfer-Encoding"));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        BatchPart response = new BatchPart("7", "HTTP/1.1 404 Not Found",
+            Collections.singletonList(new SimpleImmutableEntry<>("Content-Type", "text/plain")),
+            "missing".getBytes(StandardCharsets.ISO_8859_1));
+        BatchPart empty = new BatchPart("8", "HTTP/1.1 204 No Content", Collections.emptyList(), new byte[0]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchFormat.write(out, "xyz", response);
+        BatchFormat.write(out, "xyz", empty);
+        BatchFormat.writeEnd(out, "xyz");
+
+        List<BatchPart> parts = BatchFormat.parse(out.toByteArray(), "xyz");
+        assertEquals(Arrays.asList("7", "8"), Arrays.asList(parts.get(0).getContentId(), parts.get(1).getContentId()));
+        assertEquals(404, parts.get(0).getStatus());
+        assertEquals("7", parts.get(0).getHeader("Content-Length"));
+        assertEquals("missing", new String(parts.get(0).getBody(), StandardCharsets.ISO_8859_1));
+        assertEquals(204, parts.get(1).getStatus());
+        assertEquals(0, parts.get(1).getBody().length);
+    }
+}
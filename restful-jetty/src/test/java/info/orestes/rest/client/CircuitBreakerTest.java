@@ -0,0 +1,109 @@
+package info.orestes.rest.client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    private CircuitBreakers breakers;
+    private CircuitBreaker breaker;
+    private final List<CircuitBreaker.State> changes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        breakers = new CircuitBreakers();
+        breakers.setWindowSize(10);
+        breakers.setMinimumCalls(4);
+        breakers.setSlowCallDuration(100, TimeUnit.MILLISECONDS);
+        breakers.setOpenDuration(1, TimeUnit.MINUTES);
+        breakers.setProbes(2);
+        breakers.addListener((breaker, previous, state) -> changes.add(state));
+        breaker = breakers.get("http://localhost:80");
+    }
+
+    @Test
+    public void testFailureRate() {
+        record(false, FAST, 2);
+        record(true, FAST, 1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getCurrentState());
+
+        record(true, FAST, 1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getCurrentState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getRejected());
+        assertEquals(1, breaker.getOpened());
+    }
+
+    @Test
+    public void testSlowCallRate() {
+        record(false, FAST, 2);
+        record(false, SLOW, 7);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getCurrentState());
+
+        record(false, SLOW, 1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getCurrentState());
+    }
+
+    @Test
+    public void testSlidingWindow() {
+        record(true, FAST, 4);
+        breakers.setMinimumCalls(100);
+        breaker = breakers.get("http://localhost:81");
+
+        record(true, FAST, 4);
+        record(false, FAST, 10);
+        assertEquals(0, breaker.getFailureRate(), 0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getCurrentState());
+    }
+
+    @Test
+    public void testHalfOpen() {
+        record(true, FAST, 4);
+        breakers.setOpenDuration(0, TimeUnit.MILLISECONDS);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getCurrentState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onComplete(false, FAST);
+        breaker.onComplete(false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getCurrentState());
+        assertEquals(1, breaker.getClosed());
+    }
+
+    @Test
+    public void testFailedProbe() {
+        record(true, FAST, 4);
+        breakers.setOpenDuration(0, TimeUnit.MILLISECONDS);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+        record(false, FAST, 1);
+        record(true, FAST, 1);
+        breakers.setOpenDuration(1, TimeUnit.MINUTES);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getCurrentState());
+
+        List<CircuitBreaker.State> expected = new ArrayList<>();
+        expected.add(CircuitBreaker.State.OPEN);
+        expected.add(CircuitBreaker.State.HALF_OPEN);
+        expected.add(CircuitBreaker.State.OPEN);
+        assertEquals(expected, changes);
+    }
+
+    private void record(boolean failed, long duration, int calls) {
+        for (int i = 0; i < calls; ++i) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onComplete(failed, duration);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package info.orestes.rest.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void testRatio() {
+        RetryBudget budget = new RetryBudget(0.5, 0, 10);
+        assertFalse(budget.tryWithdraw());
+
+        budget.deposit();
+        assertFalse(budget.tryWithdraw());
+        budget.deposit();
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+        assertEquals(3, budget.getRejected());
+    }
+
+    @Test
+    public void testCapacity() {
+        RetryBudget budget = new RetryBudget(1, 0, 2);
+        for (int i = 0; i < 10; ++i) {
+            budget.deposit();
+        }
+
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    public void testMinPerSecond() throws InterruptedException {
+        RetryBudget budget = new RetryBudget(0, 100, 1);
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+
+        Thread.sleep(50);
+        assertTrue(budget.tryWithdraw());
+    }
+}
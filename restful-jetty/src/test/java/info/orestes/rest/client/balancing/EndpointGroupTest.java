@@ -0,0 +1,110 @@
+package info.orestes.rest.client.balancing;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EndpointGroupTest {
+
+    private static final List<URI> URIS = Arrays.asList(URI.create("http://a:8080"), URI.create("http://b:8080"),
+        URI.create("http://c:8080"), URI.create("http://d:8080"));
+
+    @Test
+    public void testRoundRobin() {
+        EndpointGroup group = new EndpointGroup(URIS, new RoundRobinBalancer());
+
+        Set<Endpoint> selected = new HashSet<>();
+        for (int i = 0; i < URIS.size(); ++i) {
+            selected.add(group.select());
+        }
+        assertEquals(URIS.size(), selected.size());
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+        EndpointGroup group = new EndpointGroup(URIS, new LeastOutstandingBalancer());
+        List<Endpoint> endpoints = group.getEndpoints();
+        endpoints.get(0).begin();
+        endpoints.get(1).begin();
+        endpoints.get(3).begin();
+
+        for (int i = 0; i < 10; ++i) {
+            assertSame(endpoints.get(2), group.select());
+        }
+    }
+
+    @Test
+    public void testPowerOfTwoChoices() {
+        EndpointGroup group = new EndpointGroup(URIS.subList(0, 2), new PowerOfTwoChoicesBalancer());
+        Endpoint fast = group.getEndpoints().get(0);
+        Endpoint slow = group.getEndpoints().get(1);
+        complete(group, fast, TimeUnit.MILLISECONDS.toNanos(1), false);
+        complete(group, slow, TimeUnit.MILLISECONDS.toNanos(100), false);
+
+        for (int i = 0; i < 10; ++i) {
+            assertSame(fast, group.select());
+        }
+        assertEquals(1, fast.getLatency(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testEjection() {
+        EndpointGroup group = new EndpointGroup(URIS, new RoundRobinBalancer());
+        group.setConsecutiveFailures(2);
+        List<Endpoint> endpoints = group.getEndpoints();
+
+        complete(group, endpoints.get(0), 1000, true);
+        complete(group, endpoints.get(0), 1000, false);
+        complete(group, endpoints.get(0), 1000, true);
+        assertFalse(endpoints.get(0).isEjected(System.nanoTime()));
+
+        complete(group, endpoints.get(0), 1000, true);
+        assertTrue(endpoints.get(0).isEjected(System.nanoTime()));
+        assertEquals(1, endpoints.get(0).getEjections());
+
+        for (int i = 0; i < 10; ++i) {
+            assertNotSame(endpoints.get(0), group.select());
+        }
+
+        //at most half of the endpoints are ejected
+        for (Endpoint endpoint : endpoints.subList(1, 4)) {
+            complete(group, endpoint, 1000, true);
+            complete(group, endpoint, 1000, true);
+        }
+        int ejected = 0;
+        for (Endpoint endpoint : endpoints) {
+            ejected += endpoint.isEjected(System.nanoTime()) ? 1 : 0;
+        }
+        assertEquals(2, ejected);
+        assertEquals(0, endpoints.get(3).getOutstanding());
+    }
+
+    @Test
+    public void testCancel() {
+        Endpoint endpoint = new Endpoint(URIS.get(0));
+        endpoint.begin();
+        endpoint.end(1000, false);
+        endpoint.begin();
+        endpoint.end(1000, true);
+
+        endpoint.begin();
+        endpoint.cancel();
+        assertEquals(0, endpoint.getOutstanding());
+        assertEquals(2, endpoint.getRequests());
+        assertEquals(1, endpoint.getFailures());
+        assertEquals(1, endpoint.getConsecutiveFailures());
+        assertEquals(1000, endpoint.getLatency(TimeUnit.NANOSECONDS));
+    }
+
+    private static void complete(EndpointGroup group, Endpoint endpoint, long latency, boolean failed) {
+        endpoint.begin();
+        group.onComplete(endpoint, latency, failed);
+    }
+}
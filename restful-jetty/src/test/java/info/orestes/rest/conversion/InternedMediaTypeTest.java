@@ -0,0 +1,77 @@
+package info.orestes.rest.conversion;
+
+import org.apache.tika.mime.MediaType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InternedMediaTypeTest {
+
+    @Test
+    public void testParse() {
+        InternedMediaType type = InternedMediaType.parse("application/json; charset=utf-8; q=0.5");
+
+        assertEquals(MediaType.parse("application/json; charset=utf-8; q=0.5"), type.getMediaType());
+        assertEquals(0.5f, type.getQuality(), 0.001);
+        assertSame(type, InternedMediaType.parse("application/json; charset=utf-8; q=0.5"));
+        assertSame(InternedMediaType.parse("application/json"), type.getBaseType());
+        assertSame(type.getBaseType(), type.getBaseType().getBaseType());
+    }
+
+    @Test
+    public void testParseInvalid() {
+        assertNull(InternedMediaType.parse(null));
+        assertNull(InternedMediaType.parse("invalid"));
+        assertNull(InternedMediaType.parseMediaType("invalid"));
+    }
+
+    @Test
+    public void testCacheEviction() {
+        InternedMediaType first = InternedMediaType.parse("application/x-first");
+        InternedMediaType known = InternedMediaType.of(MediaType.parse("text/csv"));
+        InternedMediaType registered = InternedMediaType.register(MediaType.parse("application/x-registered"));
+
+        for (int i = 0; i < InternedMediaType.MAX_CACHE_SIZE * 2; ++i) {
+            InternedMediaType.parse("application/x-flood-" + i);
+        }
+
+        assertSame(known, InternedMediaType.of(MediaType.parse("text/csv")));
+        assertSame(known, InternedMediaType.parse("text/csv"));
+        assertSame(registered, InternedMediaType.of(MediaType.parse("application/x-registered")));
+        assertSame(registered, InternedMediaType.parse("application/x-registered; q=0.5").getBaseType());
+        assertNotSame(first, InternedMediaType.parse("application/x-first"));
+        assertEquals(first, InternedMediaType.parse("application/x-first"));
+    }
+
+    @Test
+    public void testOf() {
+        MediaType mediaType = MediaType.parse("text/html");
+
+        assertSame(InternedMediaType.of(mediaType), InternedMediaType.parse("text/html"));
+        assertEquals(1f, InternedMediaType.of(mediaType).getQuality(), 0.001);
+    }
+
+    @Test
+    public void testSupertypes() {
+        InternedMediaType json = InternedMediaType.parse("application/json; q=0.3");
+
+        assertTrue(json.getSupertypes().contains(MediaType.parse("application/json")));
+        assertTrue(json.getSupertypes().contains(MediaType.TEXT_PLAIN));
+        assertTrue(json.getSupertypes().contains(MediaType.OCTET_STREAM));
+        assertFalse(json.getSupertypes().contains(MediaType.parse("text/html")));
+
+        assertTrue(json.isInstanceOf(InternedMediaType.parse("text/plain; charset=utf-8")));
+        assertFalse(InternedMediaType.parse("text/plain").isInstanceOf(json));
+    }
+
+    @Test
+    public void testIsSubtypeOf() {
+        InternedMediaType json = InternedMediaType.parse("application/json");
+
+        assertTrue(json.isSubtypeOf(InternedMediaType.parse("*/*")));
+        assertTrue(json.isSubtypeOf(InternedMediaType.parse("application/*")));
+        assertTrue(json.isSubtypeOf(InternedMediaType.parse("text/plain")));
+        assertFalse(json.isSubtypeOf(InternedMediaType.parse("text/*")));
+        assertFalse(json.isSubtypeOf(InternedMediaType.parse("text/html")));
+    }
+}
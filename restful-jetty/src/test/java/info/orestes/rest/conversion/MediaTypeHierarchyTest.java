@@ -0,0 +1,53 @@
+package info.orestes.rest.conversion;
+
+import org.apache.tika.mime.MediaType;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MediaTypeHierarchyTest {
+
+    @After
+    public void tearDown() {
+        MediaTypeHierarchy.setTikaFallbackEnabled(false);
+    }
+
+    @Test
+    public void testBuiltInSupertypes() {
+        assertEquals(MediaType.parse("application/javascript"), MediaTypeHierarchy.getSupertype(MediaType.parse("application/json")));
+        assertEquals(MediaType.TEXT_PLAIN, MediaTypeHierarchy.getSupertype(MediaType.parse("application/javascript")));
+        assertEquals(MediaType.OCTET_STREAM, MediaTypeHierarchy.getSupertype(MediaType.TEXT_PLAIN));
+        assertNull(MediaTypeHierarchy.getSupertype(MediaType.OCTET_STREAM));
+    }
+
+    @Test
+    public void testStructuralSupertypes() {
+        assertEquals(MediaType.parse("text/html"), MediaTypeHierarchy.getSupertype(MediaType.parse("text/html; charset=utf-8")));
+        assertEquals(MediaType.APPLICATION_XML, MediaTypeHierarchy.getSupertype(MediaType.parse("application/test+xml")));
+        assertEquals(MediaType.TEXT_PLAIN, MediaTypeHierarchy.getSupertype(MediaType.parse("text/x-test")));
+        assertEquals(MediaType.OCTET_STREAM, MediaTypeHierarchy.getSupertype(MediaType.parse("application/test.java-object")));
+    }
+
+    @Test
+    public void testIsInstanceOf() {
+        MediaType json = MediaType.parse("application/json");
+
+        assertTrue(MediaTypeHierarchy.isInstanceOf(json, json));
+        assertTrue(MediaTypeHierarchy.isInstanceOf(json, MediaType.TEXT_PLAIN));
+        assertTrue(MediaTypeHierarchy.isInstanceOf(MediaType.parse("application/ld+json"), json));
+        assertTrue(MediaTypeHierarchy.isInstanceOf(MediaType.parse("image/svg+xml"), MediaType.TEXT_PLAIN));
+        assertFalse(MediaTypeHierarchy.isInstanceOf(MediaType.TEXT_PLAIN, json));
+        assertFalse(MediaTypeHierarchy.isSpecializationOf(json, json));
+    }
+
+    @Test
+    public void testTikaFallback() {
+        MediaTypeHierarchy.setTikaFallbackEnabled(true);
+
+        MediaType json = MediaType.parse("application/json");
+        assertTrue(MediaTypeHierarchy.isInstanceOf(json, MediaType.TEXT_PLAIN));
+        assertTrue(MediaTypeHierarchy.isInstanceOf(MediaType.parse("application/rss+xml"), MediaType.APPLICATION_XML));
+        assertEquals(MediaType.OCTET_STREAM, MediaTypeHierarchy.getSupertype(MediaType.parse("application/test.java-object")));
+    }
+}
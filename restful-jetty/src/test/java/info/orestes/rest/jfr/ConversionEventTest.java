@@ -0,0 +1,90 @@
+package info.orestes.rest.jfr;
+
+import info.orestes.rest.conversion.ConverterService;
+import info.orestes.rest.conversion.ReadableContext;
+import info.orestes.rest.conversion.WritableContext;
+import info.orestes.rest.conversion.string.StringStringConverter;
+import info.orestes.rest.util.Module;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.tika.mime.MediaType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ConversionEventTest {
+
+    private final ConverterService cs = new ConverterService(new Module());
+    private Recording recording;
+
+    @Before
+    public void setUp() {
+        recording = new Recording();
+        recording.enable("info.orestes.rest.Conversion");
+        recording.start();
+    }
+
+    @After
+    public void tearDown() {
+        recording.close();
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        StringWriter writer = new StringWriter();
+        cs.toRepresentation(WritableContext.wrap(writer, MediaType.TEXT_PLAIN), String.class, "entity");
+        assertEquals("entity", writer.toString());
+
+        String entity = cs.toObject(ReadableContext.wrap(new StringReader("read entity"), MediaType.TEXT_PLAIN),
+            String.class);
+        assertEquals("read entity", entity);
+
+        List<RecordedEvent> events = stop();
+        assertEquals(2, events.size());
+
+        RecordedEvent write = events.get(0);
+        assertEquals(ConversionEvent.WRITE, write.getString("direction"));
+        assertEquals(StringStringConverter.class.getName(), write.getClass("converter").getName());
+        assertEquals("text/plain", write.getString("mediaType"));
+        assertEquals(6, write.getLong("characters"));
+
+        RecordedEvent read = events.get(1);
+        assertEquals(ConversionEvent.READ, read.getString("direction"));
+        assertEquals(11, read.getLong("characters"));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        recording.disable("info.orestes.rest.Conversion");
+
+        StringWriter writer = new StringWriter();
+        cs.toRepresentation(WritableContext.wrap(writer, MediaType.TEXT_PLAIN), String.class, "entity");
+        assertEquals("entity", writer.toString());
+
+        assertTrue(stop().isEmpty());
+    }
+
+    private List<RecordedEvent> stop() throws Exception {
+        recording.stop();
+        Path file = Files.createTempFile("conversion", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("info.orestes.rest.Conversion"))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
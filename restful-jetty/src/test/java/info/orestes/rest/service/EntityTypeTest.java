@@ -0,0 +1,67 @@
+package info.orestes.rest.service;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EntityTypeTest {
+
+    @Test
+    public void testRawTypeIsCanonical() {
+        EntityType<String> type = EntityType.of(String.class);
+
+        assertSame(type, EntityType.of(String.class));
+        assertSame(String.class, type.getRawType());
+        assertEquals(0, type.getActualTypeArguments().length);
+        assertEquals(new EntityType<>(String.class), type);
+    }
+
+    @Test
+    public void testGenericTypeIsCanonical() {
+        EntityType<Map> type = EntityType.of(Map.class, String.class, Long.class);
+
+        assertSame(type, EntityType.of(Map.class, String.class, Long.class));
+        assertNotSame(type, EntityType.of(Map.class, Long.class, String.class));
+        assertNotEquals(type, EntityType.of(Map.class));
+        assertEquals(new EntityType<>(Map.class, String.class, Long.class), type);
+    }
+
+    @Test
+    public void testArgumentsAreCopied() {
+        Class<?>[] args = {String.class};
+        EntityType<List> type = EntityType.of(List.class, args);
+        args[0] = Long.class;
+
+        assertArrayEquals(new Class<?>[] {String.class}, type.getActualTypeArguments());
+        assertSame(type, EntityType.of(List.class, String.class));
+    }
+
+    @Test
+    public void testHashCode() {
+        EntityType<List> type = EntityType.of(List.class, String.class);
+
+        assertEquals(new EntityType<>(List.class, String.class).hashCode(), type.hashCode());
+        assertNotEquals(EntityType.of(List.class, Long.class), type);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        EntityType<List> type = EntityType.of(List.class, String.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(out)) {
+            stream.writeObject(type);
+        }
+
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertSame(type, stream.readObject());
+        }
+    }
+}
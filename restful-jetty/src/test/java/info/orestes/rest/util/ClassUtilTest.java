@@ -0,0 +1,64 @@
+package info.orestes.rest.util;
+
+import info.orestes.rest.conversion.string.StringIntegerConverter;
+import info.orestes.rest.conversion.string.StringStringConverter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ClassUtilTest {
+
+    private static final String PACKAGE = "test.converters";
+
+    private Path location;
+    private URLClassLoader classLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        location = Files.createTempDirectory("classutil");
+
+        // a class file which fails to load if the package is scanned instead of read from its index
+        Path packageDir = Files.createDirectories(location.resolve(PACKAGE.replace('.', '/')));
+        Files.write(packageDir.resolve("NotIndexed.class"), new byte[0]);
+
+        // the index as it is written by the ConverterIndexProcessor
+        Path index = location.resolve(ClassUtil.PACKAGE_INDEX_PATH + PACKAGE);
+        Files.createDirectories(index.getParent());
+        Files.write(index, Arrays.asList(StringIntegerConverter.class.getName(), "",
+            StringStringConverter.class.getName()), StandardCharsets.UTF_8);
+
+        classLoader = new URLClassLoader(new URL[] {location.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        classLoader.close();
+        try (Stream<Path> paths = Files.walk(location)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testIndexedPackageClasses() {
+        List<Class<?>> classes = ClassUtil.getPackageClasses(classLoader, PACKAGE, true);
+        assertEquals(Arrays.asList(StringIntegerConverter.class, StringStringConverter.class), classes);
+    }
+
+    @Test(expected = ClassFormatError.class)
+    public void testScannedPackageClasses() {
+        ClassUtil.getPackageClasses(classLoader, PACKAGE, false);
+    }
+}
@@ -0,0 +1,65 @@
+package info.orestes.rest.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DeadlineTest {
+
+    @Test
+    public void testParse() {
+        Deadline deadline = Deadline.parse("5000");
+        assertNotNull(deadline);
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.getRemaining(TimeUnit.MILLISECONDS) > 4000);
+        assertTrue(Long.parseLong(deadline.toHeaderValue()) <= 5000);
+
+        assertTrue(Deadline.parse("0").isExpired());
+        assertNull(Deadline.parse(null));
+        assertNull(Deadline.parse("-1"));
+        assertNull(Deadline.parse("soon"));
+    }
+
+    @Test
+    public void testExpired() {
+        Deadline deadline = Deadline.after(-1, TimeUnit.SECONDS);
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.getRemaining(TimeUnit.NANOSECONDS));
+        assertEquals("0", deadline.toHeaderValue());
+    }
+
+    @Test
+    public void testMin() {
+        Deadline early = Deadline.after(1, TimeUnit.SECONDS);
+        Deadline late = Deadline.after(1, TimeUnit.MINUTES);
+        assertSame(early, Deadline.min(early, late));
+        assertSame(early, Deadline.min(late, early));
+        assertSame(late, Deadline.min(null, late));
+        assertSame(early, Deadline.min(early, null));
+        assertNull(Deadline.min(null, null));
+    }
+
+    @Test
+    public void testAttach() {
+        Deadline outer = Deadline.after(1, TimeUnit.MINUTES);
+        Deadline inner = Deadline.after(1, TimeUnit.SECONDS);
+        assertNull(Deadline.current());
+
+        try (Deadline.Scope outerScope = Deadline.attach(outer)) {
+            assertSame(outer, Deadline.current());
+            try (Deadline.Scope innerScope = Deadline.attach(inner)) {
+                assertSame(inner, Deadline.current());
+            }
+            assertSame(outer, Deadline.current());
+
+            try (Deadline.Scope detached = Deadline.attach(null)) {
+                assertNull(Deadline.current());
+            }
+            assertSame(outer, Deadline.current());
+        }
+
+        assertNull(Deadline.current());
+    }
+}
@@ -2,7 +2,11 @@
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -175,6 +179,108 @@ public final void testGetCurrentInstances() {
         assertTrue(instances.contains(injectableConstr.getObject()));
     }
 
+    @Test
+    public final void testConcurrentModuleInstance() throws Exception {
+        module.bind(IObject.class, IObjectImpl.class);
+        module.bind(Object.class, CountingConstr.class);
+        CountingConstr.created.set(0);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < threads; ++i) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return module.moduleInstance(Object.class);
+                }));
+            }
+
+            start.countDown();
+
+            Object instance = module.moduleInstance(Object.class);
+            for (Future<Object> result : results) {
+                assertSame(instance, result.get(5, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, CountingConstr.created.get());
+            assertSame(instance, module.moduleInstance(CountingConstr.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public final void testConcurrentOppositeOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<LeftFirst> left = executor.submit(() -> {
+                start.await();
+                return module.moduleInstance(LeftFirst.class);
+            });
+            Future<RightFirst> right = executor.submit(() -> {
+                start.await();
+                return module.moduleInstance(RightFirst.class);
+            });
+
+            start.countDown();
+
+            LeftFirst leftFirst = left.get(5, TimeUnit.SECONDS);
+            RightFirst rightFirst = right.get(5, TimeUnit.SECONDS);
+            assertSame(leftFirst.left, rightFirst.left);
+            assertSame(leftFirst.right, rightFirst.right);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public static class Left {
+        public Left() throws InterruptedException {
+            Thread.sleep(10);
+        }
+    }
+
+    public static class Right {
+        public Right() throws InterruptedException {
+            Thread.sleep(10);
+        }
+    }
+
+    public static class LeftFirst {
+        private final Left left;
+        private final Right right;
+
+        @Inject
+        public LeftFirst(Left left, Right right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    public static class RightFirst {
+        private final Left left;
+        private final Right right;
+
+        @Inject
+        public RightFirst(Right right, Left left) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    public static class CountingConstr {
+        private static final AtomicInteger created = new AtomicInteger();
+
+        @Inject
+        public CountingConstr(IObject object) throws InterruptedException {
+            created.incrementAndGet();
+            // widen the window in which concurrent callers would create duplicates
+            Thread.sleep(10);
+        }
+    }
+
     public static class DefaultConstructorConstr {}
 
     public static class InjectableConstr {